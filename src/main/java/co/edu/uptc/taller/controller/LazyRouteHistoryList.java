@@ -0,0 +1,127 @@
+package co.edu.uptc.taller.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import co.edu.uptc.taller.persistence.GraphPersistence;
+import co.edu.uptc.taller.persistence.GraphPersistence.RouteHistory;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * Lista virtual del historial de rutas para el {@code historyListView}.
+ *
+ * <p>Solo conoce el número de entradas del historial; cada entrada se carga cuando el ListView
+ * la pide para dibujar una celda visible, por páginas de {@link #PAGE_SIZE} entradas. Se
+ * conservan en memoria unas pocas páginas recientes, de modo que el arranque y la memoria no
+ * dependen del tamaño del historial.</p>
+ *
+ * <p>Como el resto de la interfaz, solo debe usarse desde el hilo de JavaFX.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class LazyRouteHistoryList extends ObservableListBase<RouteHistory> {
+
+    /**
+     * Entradas que se cargan de una vez.
+     */
+    static final int PAGE_SIZE = 256;
+
+    /**
+     * Páginas que se conservan en memoria.
+     */
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private static final Logger logger = Logger.getLogger(LazyRouteHistoryList.class.getName());
+
+    private final GraphPersistence persistence;
+    private int size;
+
+    private final Map<Integer, List<RouteHistory>> pages =
+            new LinkedHashMap<Integer, List<RouteHistory>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<RouteHistory>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    /**
+     * Crea la lista con el número actual de entradas del historial, sin cargar ninguna.
+     *
+     * @param persistence La persistencia de donde se leen las páginas.
+     */
+    LazyRouteHistoryList(GraphPersistence persistence) {
+        this.persistence = persistence;
+        this.size = (int) Math.min(Integer.MAX_VALUE, persistence.getRouteHistoryCount());
+    }
+
+    /**
+     * Obtiene una entrada, cargando su página si no está en memoria.
+     *
+     * <p>Una página que no se pudo leer no se guarda, de modo que un error de lectura pasajero
+     * solo deja la celda vacía hasta que el ListView vuelva a pedirla.</p>
+     *
+     * @param index Posición de la entrada.
+     * @return La entrada, o {@code null} si no se pudo leer.
+     */
+    @Override
+    public RouteHistory get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / PAGE_SIZE;
+        List<RouteHistory> entries = pages.get(page);
+        if (entries == null) {
+            entries = loadPage(page);
+            if (entries == null) {
+                return null;
+            }
+            pages.put(page, entries);
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < entries.size() ? entries.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Añade al final una entrada recién guardada en el historial y notifica al ListView.
+     *
+     * @param history La entrada guardada.
+     */
+    void appended(RouteHistory history) {
+        int page = size / PAGE_SIZE;
+        List<RouteHistory> entries = pages.get(page);
+        if (entries != null && entries.size() == size % PAGE_SIZE) {
+            entries.add(history);
+        } else {
+            pages.remove(page);
+        }
+        size++;
+        beginChange();
+        nextAdd(size - 1, size);
+        endChange();
+    }
+
+    /**
+     * Lee una página del historial.
+     *
+     * @return Las entradas de la página, o {@code null} si no se pudo leer.
+     */
+    private List<RouteHistory> loadPage(int page) {
+        try {
+            return new ArrayList<>(persistence.loadRouteHistoryPage((long) page * PAGE_SIZE, PAGE_SIZE));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "No se pudo cargar la página " + page + " del historial: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
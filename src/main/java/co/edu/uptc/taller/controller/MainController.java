@@ -6,11 +6,17 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.ContractionHierarchy;
 import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.GraphLayout;
+import co.edu.uptc.taller.model.LandmarkIndex;
 import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.RouteCriterion;
 import co.edu.uptc.taller.persistence.GraphPersistence;
 import co.edu.uptc.taller.service.GraphInitializer;
 import co.edu.uptc.taller.service.GraphRenderer;
+import co.edu.uptc.taller.service.GraphRenderer.Rendering;
 import co.edu.uptc.taller.service.RouteService;
 import co.edu.uptc.taller.service.RouteService.RouteResult;
 
@@ -43,6 +49,9 @@ public class MainController {
     @FXML
     private ComboBox<Location> targetComboBox;
 
+    @FXML
+    private ComboBox<RouteCriterion> criterionComboBox;
+
     @FXML
     private TextArea pathTextArea;
 
@@ -63,10 +72,17 @@ public class MainController {
 
     private DeliveryGraph deliveryGraph;
     private GraphPersistence persistence;
+    private LazyRouteHistoryList historyList;
 
     private GraphInitializer graphInitializer;
     private RouteService routeService;
     private GraphRenderer graphRenderer;
+    private RouteCalculationPipeline pipeline;
+
+    /**
+     * Versión del grafo que ya está guardada en disco, para no volver a escribirlo si no cambió.
+     */
+    private long savedGraphVersion = -1;
 
     /**
      * Método de inicialización que se ejecuta automáticamente al cargar el archivo FXML.
@@ -79,8 +95,12 @@ public class MainController {
         logger.info("Inicializando MainController.");
 
 
-        deliveryGraph = new DeliveryGraph();
         persistence = new GraphPersistence();
+        CompactGraph savedGraph = persistence.loadGraph(GraphInitializer.DATA_VERSION);
+        deliveryGraph = savedGraph != null ? new DeliveryGraph(savedGraph) : new DeliveryGraph();
+        if (savedGraph != null) {
+            savedGraphVersion = deliveryGraph.getVersion();
+        }
 
 
         graphInitializer = new GraphInitializer(deliveryGraph);
@@ -88,21 +108,54 @@ public class MainController {
         graphRenderer = new GraphRenderer(deliveryGraph);
 
         // Cargar datos predeterminados si el grafo está vacío
-        if (deliveryGraph.getGraph().vertexSet().isEmpty()) {
+        if (deliveryGraph.getSnapshot().getLocations().isEmpty()) {
             logger.warning("El grafo cargado está vacío. Cargando ubicaciones y rutas por defecto.");
             graphInitializer.initializeGraph();
+            saveGraph();
         } else {
-            logger.info("Grafo cargado con " + deliveryGraph.getGraph().vertexSet().size() + " ubicaciones.");
+            logger.info("Grafo cargado con " + deliveryGraph.getSnapshot().getLocations().size() + " ubicaciones.");
         }
 
 
         updateLocationComboBoxes();
+        criterionComboBox.setItems(FXCollections.observableArrayList(RouteCriterion.values()));
+        criterionComboBox.getSelectionModel().select(RouteCriterion.DISTANCE);
 
 
         loadRouteHistory();
 
 
-        graphRenderer.renderGraph(graphView, null);
+        pipeline = new RouteCalculationPipeline(routeService, graphRenderer, persistence, this::historySaved);
+        sourceComboBox.valueProperty().addListener((observable, oldValue, newValue) -> pipeline.cancel());
+        targetComboBox.valueProperty().addListener((observable, oldValue, newValue) -> pipeline.cancel());
+        criterionComboBox.valueProperty().addListener((observable, oldValue, newValue) -> pipeline.cancel());
+
+        // La disposición del grafo se reutiliza entre arranques; si no hay una guardada para
+        // esta versión del grafo, se calcula en segundo plano y se guarda.
+        GraphLayout savedLayout = persistence.loadGraphLayout(deliveryGraph.getSnapshot().getGraph());
+        if (savedLayout != null) {
+            deliveryGraph.setGraphLayout(savedLayout);
+        }
+        pipeline.render(graphRenderer.getLoadedVersion(graphView), this::applyRendering);
+        if (savedLayout == null) {
+            pipeline.saveLayout(deliveryGraph);
+        }
+
+        // Lo mismo con la jerarquía de contracción y la tabla de landmarks, para que la primera
+        // consulta con esos modos no tenga que construirlas.
+        CompactGraph graph = deliveryGraph.getCompactGraph();
+        ContractionHierarchy savedHierarchy = persistence.loadContractionHierarchy(graph);
+        if (savedHierarchy != null) {
+            deliveryGraph.setContractionHierarchy(savedHierarchy);
+        } else {
+            pipeline.saveContractionHierarchy(deliveryGraph);
+        }
+        LandmarkIndex savedLandmarks = persistence.loadLandmarkIndex(graph);
+        if (savedLandmarks != null) {
+            deliveryGraph.setLandmarkIndex(savedLandmarks);
+        } else {
+            pipeline.saveLandmarkIndex(deliveryGraph);
+        }
     }
 
     /**
@@ -110,7 +163,7 @@ public class MainController {
      */
     private void updateLocationComboBoxes() {
         logger.info("Actualizando ComboBoxes de ubicaciones.");
-        ObservableList<Location> locations = FXCollections.observableArrayList(deliveryGraph.getGraph().vertexSet());
+        ObservableList<Location> locations = FXCollections.observableArrayList(deliveryGraph.getSnapshot().getLocations());
         sourceComboBox.setItems(locations);
         targetComboBox.setItems(locations);
 
@@ -124,37 +177,36 @@ public class MainController {
     }
 
     /**
-     * Carga el historial de rutas desde la persistencia y lo muestra en el ListView.
+     * Muestra el historial de rutas en el ListView mediante una lista virtual que carga las
+     * entradas por páginas a medida que se desplazan a la vista.
      */
     private void loadRouteHistory() {
-        try {
-            logger.info("Cargando historial de rutas.");
-            List<GraphPersistence.RouteHistory> history = persistence.loadRouteHistory();
-            historyListView.setItems(FXCollections.observableArrayList(history));
-            historyListView.setCellFactory(lv -> new ListCell<GraphPersistence.RouteHistory>() {
-                @Override
-                protected void updateItem(GraphPersistence.RouteHistory item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                    } else {
-                        setText(String.format("%s → %s (%.1f km, %.2f h) - %s",
-                                item.source, item.target, item.distance, item.time,
-                                new SimpleDateFormat("dd/MM/yyyy HH:mm").format(item.timestamp)));
-                    }
+        logger.info("Cargando historial de rutas.");
+        historyList = new LazyRouteHistoryList(persistence);
+        historyListView.setItems(historyList);
+        historyListView.setCellFactory(lv -> new ListCell<GraphPersistence.RouteHistory>() {
+            @Override
+            protected void updateItem(GraphPersistence.RouteHistory item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(String.format("%s → %s (%.1f km, %.2f h) - %s",
+                            item.source, item.target, item.distance, item.time,
+                            new SimpleDateFormat("dd/MM/yyyy HH:mm").format(item.timestamp)));
                 }
-            });
-            logger.info("Historial de rutas cargado exitosamente con " + history.size() + " entradas.");
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "No se pudo cargar el historial: " + e.getMessage(), e);
-        }
+            }
+        });
+        logger.info("Historial de rutas con " + historyList.size() + " entradas.");
     }
 
     /**
      * Maneja el evento de cálculo de ruta cuando el usuario hace clic en el botón correspondiente.
      *
-     * <p>Valida las ubicaciones seleccionadas, calcula la ruta más corta y actualiza la interfaz de
-     * usuario con los resultados. También guarda la ruta calculada en el historial.</p>
+     * <p>Valida las ubicaciones seleccionadas y calcula en segundo plano la ruta según el criterio
+     * elegido (la más corta, la más barata, la más rápida o la más equilibrada del frente de
+     * Pareto). Al terminar se actualiza la interfaz de usuario con los resultados y la ruta se
+     * guarda en el historial. Cambiar la selección cancela el cálculo en curso.</p>
      */
     @FXML
     private void handleCalculateRoute() {
@@ -163,6 +215,7 @@ public class MainController {
         Location target = targetComboBox.getSelectionModel().getSelectedItem();
 
         if (source == null || target == null) {
+            pipeline.cancel();
             logger.warning("Origen o destino no seleccionado.");
             pathTextArea.setText("Selecciona ambas ubicaciones.");
             distanceTextArea.setText("");
@@ -172,6 +225,7 @@ public class MainController {
         }
 
         if (source.equals(target)) {
+            pipeline.cancel();
             logger.warning("Origen y destino son la misma ubicación.");
             pathTextArea.setText("Origen y destino son la misma ubicación.");
             distanceTextArea.setText("0 km");
@@ -181,7 +235,22 @@ public class MainController {
         }
 
 
-        RouteResult routeResult = routeService.calculateRoute(source, target);
+        RouteCriterion criterion = criterionComboBox.getSelectionModel().getSelectedItem();
+        pathTextArea.setText("Calculando ruta...");
+        distanceTextArea.setText("");
+        costTextArea.setText("");
+        timeTextArea.setText("");
+        pipeline.submit(source, target, criterion != null ? criterion : RouteCriterion.DISTANCE,
+                graphRenderer.getLoadedVersion(graphView), this::showRoute, e -> pathTextArea.setText("No se pudo calcular la ruta: " + e.getMessage()));
+    }
+
+    /**
+     * Muestra en la interfaz una ruta calculada por el canal asíncrono.
+     *
+     * @param routeResult La ruta calculada.
+     * @param rendering   Renderizado del grafo con la ruta resaltada, o {@code null} si no hay ruta.
+     */
+    private void showRoute(RouteResult routeResult, Rendering rendering) {
         List<Location> path = routeResult.getPath();
         double distance = routeResult.getDistance();
         double cost = routeResult.getCost();
@@ -205,7 +274,7 @@ public class MainController {
 
             timeTextArea.setText(String.format("%.2f h", time));
 
-            graphRenderer.renderGraph(graphView, path);
+            applyRendering(rendering);
             logger.info("Ruta calculada: " + pathStr.toString() + " | Distancia: " + distance + " km | Costo: " + cost + " COP | Tiempo: " + time + " h");
         } else {
             logger.warning("No existe una ruta entre las ubicaciones seleccionadas.");
@@ -214,16 +283,62 @@ public class MainController {
             costTextArea.setText("");
             timeTextArea.setText("");
         }
+    }
 
+    /**
+     * Aplica un renderizado en el WebView. Si quedó desactualizado porque entretanto se cargó
+     * otra versión del grafo, se prepara de nuevo en segundo plano en lugar de hacerlo en el
+     * hilo de JavaFX.
+     *
+     * @param rendering El renderizado preparado por el canal asíncrono.
+     */
+    private void applyRendering(Rendering rendering) {
+        if (!graphRenderer.apply(graphView, rendering)) {
+            pipeline.render(rendering, graphRenderer.getLoadedVersion(graphView), this::applyRendering);
+        }
+    }
+
+    /**
+     * Añade al historial visible una entrada que el canal asíncrono ya guardó en disco.
+     *
+     * @param history La entrada guardada.
+     */
+    private void historySaved(GraphPersistence.RouteHistory history) {
+        historyList.appended(history);
+    }
 
+    /**
+     * Guarda el grafo en disco si cambió desde la última vez que se guardó o se cargó.
+     */
+    private void saveGraph() {
+        long version = deliveryGraph.getVersion();
+        if (version == savedGraphVersion) {
+            return;
+        }
+        try {
+            persistence.saveGraph(deliveryGraph.getCompactGraph(), GraphInitializer.DATA_VERSION);
+            savedGraphVersion = version;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo guardar el grafo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Libera los recursos del controlador al cerrar la aplicación, escribiendo en disco las
+     * entradas pendientes del historial y el grafo si cambió.
+     */
+    public void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        if (deliveryGraph != null) {
+            saveGraph();
+        }
         try {
-            GraphPersistence.RouteHistory history =
-                    new GraphPersistence.RouteHistory(source, target, path, distance, cost, time);
-            persistence.saveRouteHistory(history);
-            historyListView.getItems().add(history);
-            logger.info("Historial de ruta guardado.");
+            persistence.close();
+            logger.info("Persistencia cerrada.");
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "No se pudo guardar el historial: " + e.getMessage(), e);
+            logger.log(Level.SEVERE, "No se pudo cerrar la persistencia: " + e.getMessage(), e);
         }
     }
 }
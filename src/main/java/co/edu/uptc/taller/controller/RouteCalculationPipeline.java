@@ -0,0 +1,372 @@
+package co.edu.uptc.taller.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.Isochrone;
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.RouteCriterion;
+import co.edu.uptc.taller.persistence.GraphPersistence;
+import co.edu.uptc.taller.persistence.GraphPersistence.RouteHistory;
+import co.edu.uptc.taller.service.GraphRenderer;
+import co.edu.uptc.taller.service.GraphRenderer.Rendering;
+import co.edu.uptc.taller.service.RouteService;
+import co.edu.uptc.taller.service.RouteService.RouteResult;
+
+import javafx.application.Platform;
+
+/**
+ * Canal asíncrono para calcular rutas sin bloquear el hilo de JavaFX.
+ *
+ * <p>Cada solicitud recorre tres etapas: la búsqueda y la preparación del renderizado se
+ * hacen en un grupo de hilos de cálculo, el resultado final vuelve al hilo de JavaFX con
+ * {@link Platform#runLater}, y desde allí, si la solicitud sigue vigente, se encola su guardado
+ * en el historial en un único hilo escritor. Una nueva
+ * solicitud, o {@link #cancel()}, deja obsoletas las anteriores: si aún no han empezado no se
+ * ejecutan, y si están en curso su resultado se descarta sin mostrarse ni guardarse. Al
+ * terminar cada solicitud se registra la latencia de cada etapa.</p>
+ *
+ * <p>{@link #submit}, {@link #render} y {@link #cancel()} deben llamarse desde el hilo de
+ * JavaFX, y las funciones que reciben se ejecutan también en él.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class RouteCalculationPipeline {
+
+    private static final Logger logger = Logger.getLogger(RouteCalculationPipeline.class.getName());
+
+    /**
+     * Tiempo máximo que se espera al cerrar a que el escritor guarde las entradas pendientes.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final RouteService routeService;
+    private final GraphRenderer graphRenderer;
+    private final GraphPersistence persistence;
+    private final Consumer<RouteHistory> onSaved;
+
+    private final ExecutorService workers;
+    private final ExecutorService writer;
+
+    /**
+     * Número de la última solicitud recibida; cada solicitud toma el siguiente.
+     */
+    private final AtomicLong tickets = new AtomicLong();
+
+    /**
+     * Las solicitudes de ruta con número menor o igual a este están canceladas.
+     */
+    private volatile long cancelledUpTo;
+
+    /**
+     * Número de la solicitud cuyo grafo se mostró por última vez. Solo se usa en el hilo de
+     * JavaFX.
+     */
+    private long shownTicket;
+
+    private Future<?> current;
+
+    /**
+     * Crea el canal con sus hilos.
+     *
+     * @param routeService  Servicio con el que se calculan las rutas.
+     * @param graphRenderer Servicio con el que se prepara el renderizado del grafo.
+     * @param persistence   Persistencia donde se guarda el historial.
+     * @param onSaved       Función que recibe, en el hilo de JavaFX, cada entrada ya guardada.
+     */
+    RouteCalculationPipeline(RouteService routeService, GraphRenderer graphRenderer,
+                             GraphPersistence persistence, Consumer<RouteHistory> onSaved) {
+        this.routeService = routeService;
+        this.graphRenderer = graphRenderer;
+        this.persistence = persistence;
+        this.onSaved = onSaved;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("calculo-rutas"));
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("historial-rutas"));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Calcula una ruta en segundo plano, cancelando las solicitudes anteriores.
+     *
+     * @param source        Ubicación de origen.
+     * @param target        Ubicación de destino.
+     * @param criterion     Criterio de elección de la ruta.
+     * @param loadedVersion Versión del grafo cargada en el WebView, de
+     *                      {@link GraphRenderer#getLoadedVersion}.
+     * @param onResult      Función que recibe la ruta y el renderizado del grafo con la ruta
+     *                      resaltada, o {@code null} si no hay ruta.
+     * @param onError       Función que recibe el error si el cálculo falla.
+     */
+    void submit(Location source, Location target, RouteCriterion criterion, long loadedVersion,
+                BiConsumer<RouteResult, Rendering> onResult, Consumer<Exception> onError) {
+        cancel();
+        long ticket = tickets.incrementAndGet();
+        long submitted = System.nanoTime();
+        current = workers.submit(() -> {
+            if (isCancelled(ticket)) {
+                return;
+            }
+            try {
+                calculate(ticket, submitted, source, target, criterion, loadedVersion, onResult);
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "No se pudo calcular la ruta: " + e.getMessage(), e);
+                Platform.runLater(() -> {
+                    if (!isCancelled(ticket)) {
+                        onError.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Calcula una ruta, prepara su renderizado y publica el resultado, que encola su guardado si
+     * la solicitud no se canceló. Se ejecuta en un hilo de cálculo.
+     */
+    private void calculate(long ticket, long submitted, Location source, Location target, RouteCriterion criterion,
+                           long loadedVersion, BiConsumer<RouteResult, Rendering> onResult) {
+        long started = System.nanoTime();
+        RouteResult result = routeService.calculateRoute(source, target, criterion);
+        long computed = System.nanoTime();
+        if (isCancelled(ticket)) {
+            logger.fine(() -> "Solicitud de ruta " + ticket + " descartada tras el cálculo.");
+            return;
+        }
+        List<Location> path = result.getPath();
+        Rendering rendering = path != null ? graphRenderer.prepare(path, null, loadedVersion) : null;
+        long rendered = System.nanoTime();
+        if (isCancelled(ticket)) {
+            logger.fine(() -> "Solicitud de ruta " + ticket + " descartada tras el renderizado.");
+            return;
+        }
+
+        // Sin ruta no hay nada que guardar en el historial.
+        RouteHistory history = path != null ? new RouteHistory(source, target, path,
+                result.getDistance(), result.getCost(), result.getTime()) : null;
+
+        long posted = System.nanoTime();
+        Platform.runLater(() -> {
+            if (isCancelled(ticket)) {
+                return;
+            }
+            // La cancelación ocurre en este mismo hilo, así que una solicitud que llega hasta
+            // aquí sigue vigente y puede guardarse.
+            if (history != null) {
+                write(() -> save(history), "la entrada del historial");
+            }
+            long applying = System.nanoTime();
+            if (rendering != null) {
+                shownTicket = ticket;
+            }
+            onResult.accept(result, rendering);
+            long applied = System.nanoTime();
+            logger.info(String.format("Latencias de la ruta %s -> %s: espera %.1f ms, cálculo %.1f ms,"
+                            + " renderizado %.1f ms, cola de JavaFX %.1f ms, aplicación %.1f ms, total %.1f ms.",
+                    source.getName(), target.getName(), millis(submitted, started), millis(started, computed),
+                    millis(computed, rendered), millis(posted, applying), millis(applying, applied),
+                    millis(submitted, applied)));
+        });
+    }
+
+    /**
+     * Prepara en segundo plano el renderizado del grafo sin ruta resaltada. No se cancela, pero
+     * si antes de terminar se muestra una ruta más reciente, el resultado se descarta.
+     *
+     * @param loadedVersion Versión del grafo cargada en el WebView.
+     * @param onRendering   Función que recibe el renderizado del grafo.
+     */
+    void render(long loadedVersion, Consumer<Rendering> onRendering) {
+        render(null, null, loadedVersion, onRendering);
+    }
+
+    /**
+     * Prepara de nuevo en segundo plano un renderizado que quedó desactualizado porque el
+     * WebView cargó otra versión del grafo, conservando su ruta y su alcance.
+     *
+     * @param stale         El renderizado que {@link GraphRenderer#apply} no pudo aplicar.
+     * @param loadedVersion Versión del grafo cargada ahora en el WebView.
+     * @param onRendering   Función que recibe el nuevo renderizado.
+     */
+    void render(Rendering stale, long loadedVersion, Consumer<Rendering> onRendering) {
+        render(stale.getPath(), stale.getIsochrone(), loadedVersion, onRendering);
+    }
+
+    private void render(List<Location> path, Isochrone isochrone, long loadedVersion,
+                        Consumer<Rendering> onRendering) {
+        long ticket = tickets.incrementAndGet();
+        long submitted = System.nanoTime();
+        workers.execute(() -> {
+            Rendering rendering;
+            try {
+                rendering = graphRenderer.prepare(path, isochrone, loadedVersion);
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "No se pudo renderizar el grafo: " + e.getMessage(), e);
+                return;
+            }
+            long rendered = System.nanoTime();
+            Platform.runLater(() -> {
+                if (ticket < shownTicket) {
+                    return;
+                }
+                shownTicket = ticket;
+                onRendering.accept(rendering);
+                logger.info(String.format("Grafo renderizado en %.1f ms.", millis(submitted, rendered)));
+            });
+        });
+    }
+
+    /**
+     * Calcula en segundo plano la disposición del grafo actual y la guarda en el hilo escritor,
+     * para reutilizarla en los siguientes arranques.
+     *
+     * @param deliveryGraph Grafo cuya disposición se calcula.
+     */
+    void saveLayout(DeliveryGraph deliveryGraph) {
+        computeAndSave(deliveryGraph::getGraphLayout, persistence::saveGraphLayout, "la disposición del grafo");
+    }
+
+    /**
+     * Calcula en segundo plano la jerarquía de contracción del grafo actual y la guarda en el
+     * hilo escritor, para reutilizarla en los siguientes arranques.
+     *
+     * @param deliveryGraph Grafo cuya jerarquía se calcula.
+     */
+    void saveContractionHierarchy(DeliveryGraph deliveryGraph) {
+        computeAndSave(deliveryGraph::getContractionHierarchy, persistence::saveContractionHierarchy,
+                "la jerarquía de contracción");
+    }
+
+    /**
+     * Calcula en segundo plano la tabla de landmarks del grafo actual y la guarda en el hilo
+     * escritor, para reutilizarla en los siguientes arranques.
+     *
+     * @param deliveryGraph Grafo cuya tabla se calcula.
+     */
+    void saveLandmarkIndex(DeliveryGraph deliveryGraph) {
+        computeAndSave(deliveryGraph::getLandmarkIndex, persistence::saveLandmarkIndex, "la tabla de landmarks");
+    }
+
+    /**
+     * Calcula un índice en un hilo de cálculo y lo guarda en el hilo escritor.
+     *
+     * @param compute     Obtiene el índice, calculándolo si hace falta.
+     * @param save        Guarda el índice.
+     * @param description Nombre del índice para los mensajes.
+     */
+    private <T> void computeAndSave(Supplier<T> compute, IndexWriter<T> save, String description) {
+        workers.execute(() -> {
+            long started = System.nanoTime();
+            T index;
+            try {
+                index = compute.get();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "No se pudo calcular " + description + ": " + e.getMessage(), e);
+                return;
+            }
+            logger.info(String.format("Se calculó %s en %.1f ms.", description, millis(started, System.nanoTime())));
+            write(() -> {
+                try {
+                    save.write(index);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "No se pudo guardar " + description + ": " + e.getMessage(), e);
+                }
+            }, description);
+        });
+    }
+
+    /**
+     * Acción que guarda un índice en disco.
+     */
+    private interface IndexWriter<T> {
+        void write(T index) throws IOException;
+    }
+
+    /**
+     * Cancela las solicitudes de ruta en curso o en espera.
+     */
+    void cancel() {
+        cancelledUpTo = tickets.get();
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+    }
+
+    private boolean isCancelled(long ticket) {
+        return ticket <= cancelledUpTo;
+    }
+
+    /**
+     * Encola una tarea en el hilo escritor. Si el escritor ya se detuvo, la tarea se descarta y se
+     * registra en lugar de propagar el rechazo desde un hilo de cálculo.
+     *
+     * @param task        La tarea de guardado.
+     * @param description Qué se guarda, para el registro.
+     */
+    private void write(Runnable task, String description) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warning("El hilo escritor ya se detuvo; no se guardará " + description + ".");
+        }
+    }
+
+    /**
+     * Guarda una entrada del historial. Se ejecuta en el hilo escritor.
+     */
+    private void save(RouteHistory history) {
+        long started = System.nanoTime();
+        try {
+            persistence.saveRouteHistory(history);
+            long saved = System.nanoTime();
+            logger.info(String.format("Historial de ruta guardado en %.1f ms.", millis(started, saved)));
+            Platform.runLater(() -> onSaved.accept(history));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "No se pudo guardar el historial: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Detiene los hilos de cálculo y espera a que el escritor guarde las entradas pendientes.
+     */
+    void shutdown() {
+        cancel();
+        workers.shutdownNow();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("El historial no terminó de guardarse antes del cierre.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double millis(long from, long to) {
+        return (to - from) / 1_000_000.0;
+    }
+}
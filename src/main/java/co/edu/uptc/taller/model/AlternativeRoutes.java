@@ -0,0 +1,169 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Búsqueda de rutas alternativas por vértices intermedios sobre dos árboles de caminos más
+ * cortos.
+ *
+ * <p>Con el árbol desde el origen y el árbol desde el destino, cada vértice {@code v} define
+ * una ruta candidata: el camino más corto de origen a {@code v} seguido del camino más corto de
+ * {@code v} al destino, de longitud {@code d(s, v) + d(v, t)}. Los candidatos se examinan en
+ * orden de longitud y se aceptan los que no repiten vértices, no superan el alargamiento máximo
+ * y no comparten con las rutas ya aceptadas más de la fracción de distancia indicada. Como los
+ * vértices de una misma meseta (tramo común a ambos árboles) producen la misma ruta, tras
+ * examinar un candidato se descartan como intermedios los vértices de su meseta.</p>
+ *
+ * <p>No se lanza ninguna búsqueda adicional: el costo es el de los dos árboles, que además
+ * quedan en la caché de {@link DeliveryGraph}.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class AlternativeRoutes {
+
+    /**
+     * Alargamiento máximo de una alternativa respecto a la ruta más corta (un 50 % más larga).
+     */
+    static final double MAX_STRETCH = 0.5;
+
+    private AlternativeRoutes() {
+    }
+
+    /**
+     * Busca hasta {@code k} rutas alternativas entre el origen del árbol {@code forward} y el
+     * origen del árbol {@code backward}.
+     *
+     * @param forward    Árbol de caminos más cortos desde el origen.
+     * @param backward   Árbol de caminos más cortos desde el destino.
+     * @param k          Número máximo de rutas a devolver.
+     * @param maxOverlap Fracción máxima, entre {@code 0} y {@code 1}, de la distancia de una
+     *                   alternativa que puede compartir con cada ruta ya aceptada.
+     * @return Las rutas encontradas, empezando por la más corta; vacía si no hay ruta.
+     */
+    static List<RoutePath> find(ShortestPathTree forward, ShortestPathTree backward, int k, double maxOverlap) {
+        CompactGraph graph = forward.graph();
+        int n = graph.vertexCount();
+        int target = graph.indexOf(backward.getSource());
+        double shortest = forward.distance(target);
+        if (k <= 0 || shortest == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+
+        double limit = shortest * (1 + MAX_STRETCH);
+        IndexedMinHeap candidates = new IndexedMinHeap(n);
+        for (int v = 0; v < n; v++) {
+            double length = forward.distance(v) + backward.distance(v);
+            if (length <= limit) {
+                candidates.insertOrDecrease(v, length);
+            }
+        }
+
+        List<RoutePath> routes = new ArrayList<>(k);
+        List<Set<Long>> acceptedEdges = new ArrayList<>(k);
+        boolean[] covered = new boolean[n];
+        int[] onPrefix = new int[n];
+        int stamp = 0;
+        while (routes.size() < k && !candidates.isEmpty()) {
+            double length = candidates.peekKey();
+            int via = candidates.poll();
+            if (covered[via]) {
+                continue;
+            }
+
+            stamp++;
+            int prefix = 0;
+            for (int v = via; v >= 0; v = forward.predecessor(v)) {
+                onPrefix[v] = stamp;
+                cover(forward, backward, covered, v, length);
+                prefix++;
+            }
+            boolean loopless = true;
+            int suffix = 0;
+            for (int v = backward.predecessor(via); v >= 0; v = backward.predecessor(v)) {
+                if (onPrefix[v] == stamp) {
+                    loopless = false;
+                }
+                cover(forward, backward, covered, v, length);
+                suffix++;
+            }
+            if (!loopless) {
+                continue;
+            }
+
+            int[] vertices = new int[prefix + suffix];
+            double[] legs = new double[prefix + suffix - 1];
+            int i = prefix - 1;
+            for (int v = via; v >= 0; v = forward.predecessor(v), i--) {
+                vertices[i] = v;
+                if (i > 0) {
+                    legs[i - 1] = graph.weight(forward.predecessorArc(v));
+                }
+            }
+            i = prefix;
+            for (int v = via; backward.predecessor(v) >= 0; v = backward.predecessor(v), i++) {
+                vertices[i] = backward.predecessor(v);
+                legs[i - 1] = graph.weight(backward.predecessorArc(v));
+            }
+
+            if (overlapsTooMuch(vertices, legs, length, n, acceptedEdges, maxOverlap)) {
+                continue;
+            }
+            acceptedEdges.add(edgeKeys(vertices, n));
+            routes.add(toRoute(graph, vertices, legs, length));
+        }
+        return routes;
+    }
+
+    /**
+     * Descarta como intermedio un vértice de la ruta candidata si está en la misma meseta, es
+     * decir, si como intermedio produciría una ruta de la misma longitud.
+     */
+    private static void cover(ShortestPathTree forward, ShortestPathTree backward, boolean[] covered,
+                              int vertex, double length) {
+        double viaLength = forward.distance(vertex) + backward.distance(vertex);
+        if (viaLength <= length + 1e-9 * Math.max(1.0, length)) {
+            covered[vertex] = true;
+        }
+    }
+
+    private static long edgeKey(int u, int v, int n) {
+        return (long) Math.min(u, v) * n + Math.max(u, v);
+    }
+
+    private static Set<Long> edgeKeys(int[] vertices, int n) {
+        Set<Long> edges = new HashSet<>(vertices.length * 2);
+        for (int i = 0; i + 1 < vertices.length; i++) {
+            edges.add(edgeKey(vertices[i], vertices[i + 1], n));
+        }
+        return edges;
+    }
+
+    private static boolean overlapsTooMuch(int[] vertices, double[] legs, double length, int n,
+                                           List<Set<Long>> acceptedEdges, double maxOverlap) {
+        for (Set<Long> accepted : acceptedEdges) {
+            double shared = 0;
+            for (int i = 0; i < legs.length; i++) {
+                if (accepted.contains(edgeKey(vertices[i], vertices[i + 1], n))) {
+                    shared += legs[i];
+                }
+            }
+            if (length > 0 && shared / length > maxOverlap) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RoutePath toRoute(CompactGraph graph, int[] vertices, double[] legs, double length) {
+        List<Location> locations = new ArrayList<>(vertices.length);
+        for (int vertex : vertices) {
+            locations.add(graph.location(vertex));
+        }
+        return new RoutePath(locations, length, legs);
+    }
+}
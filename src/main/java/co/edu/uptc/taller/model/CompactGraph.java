@@ -0,0 +1,1101 @@
+package co.edu.uptc.taller.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+/**
+ * Representación compacta e inmutable del grafo de entregas en formato CSR
+ * (<i>compressed sparse row</i>).
+ *
+ * <p>Cada {@link Location} recibe un identificador entero consecutivo y la adyacencia se guarda
+ * en tres arreglos primitivos: {@code offsets}, {@code targets} y {@code weights}. Los arcos que
+ * salen del vértice {@code v} ocupan las posiciones {@code [offsets[v], offsets[v + 1])}. Como el
+ * grafo de entregas es no dirigido, cada ruta aparece una vez en cada sentido.</p>
+ *
+ * <p>Los algoritmos de búsqueda trabajan solo con enteros y dobles, sin objetos de arista ni
+ * búsquedas por {@code hashCode} durante las relajaciones.</p>
+ *
+ * <p>El grafo puede guardarse con {@link #writeTo(WritableByteChannel)} en un archivo binario
+ * versionado y abrirse con {@link #map(ByteBuffer)} sobre el archivo proyectado en memoria. Los
+ * arreglos se leen directamente del archivo, sin copiarlos ni deserializarlos, así que abrir un
+ * grafo de millones de arcos tarda lo mismo que uno pequeño y varios procesos que abran el mismo
+ * archivo comparten sus páginas.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class CompactGraph {
+
+    /**
+     * Identificador de los archivos de grafo.
+     */
+    private static final int MAGIC = 0x52475346;
+
+    /**
+     * Versión del formato de archivo; cambia si cambia la disposición de las secciones.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Bytes de la cabecera del archivo.
+     */
+    private static final int HEADER_BYTES = 64;
+
+    private static final int FLAG_PROFILES = 1;
+    private static final int FLAG_ATTRIBUTES = 2;
+    private static final int FLAG_GEOGRAPHIC = 4;
+
+    /**
+     * Ubicaciones y sus identificadores.
+     */
+    private final LocationTable locations;
+
+    /**
+     * Inicio de la lista de arcos de cada vértice; tiene {@code n + 1} posiciones.
+     */
+    private final IntBuffer offsets;
+
+    /**
+     * Vértice destino de cada arco.
+     */
+    private final IntBuffer targets;
+
+    /**
+     * Peso (distancia en kilómetros) de cada arco.
+     */
+    private final DoubleBuffer weights;
+
+    /**
+     * Perfiles de velocidad distintos del grafo.
+     */
+    private final TimeProfiles profiles;
+
+    /**
+     * Perfil de velocidad de cada arco, o {@code null} si ninguna ruta tiene perfil propio.
+     */
+    private final IntBuffer arcProfiles;
+
+    /**
+     * Costo y tiempo propios de cada arco, o {@code NaN} si la ruta usa los valores derivados de
+     * su distancia; {@code null} si ninguna ruta tiene atributos propios.
+     */
+    private final DoubleBuffer arcCosts;
+    private final DoubleBuffer arcTimes;
+
+    /**
+     * Latitud y longitud de cada vértice, o {@code NaN} si la ubicación no tiene coordenadas.
+     */
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+
+    /**
+     * Indica si todas las ubicaciones tienen coordenadas.
+     */
+    private final boolean geographic;
+
+    /**
+     * Menor cociente entre la distancia de una ruta y la distancia geográfica entre sus
+     * extremos. Multiplicar el haversine por este factor da una cota inferior válida.
+     */
+    private final double geoScale;
+
+    /**
+     * Huella del contenido del grafo, calculada de forma perezosa.
+     */
+    private long fingerprint;
+
+    private CompactGraph(LocationTable locations, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights,
+                         TimeProfiles profiles, IntBuffer arcProfiles, DoubleBuffer arcCosts, DoubleBuffer arcTimes,
+                         DoubleBuffer latitudes, DoubleBuffer longitudes, boolean geographic, double geoScale,
+                         long fingerprint) {
+        this.locations = locations;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.profiles = profiles;
+        this.arcProfiles = arcProfiles;
+        this.arcCosts = arcCosts;
+        this.arcTimes = arcTimes;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.geographic = geographic;
+        this.geoScale = geoScale;
+        this.fingerprint = fingerprint;
+    }
+
+    private CompactGraph(Location[] locations, Map<Location, Integer> ids,
+                         int[] offsets, int[] targets, double[] weights,
+                         TimeProfiles profiles, int[] arcProfiles, double[] arcCosts, double[] arcTimes) {
+        this.locations = new LocationTable.Heap(locations, ids);
+        this.offsets = IntBuffer.wrap(offsets);
+        this.targets = IntBuffer.wrap(targets);
+        this.weights = DoubleBuffer.wrap(weights);
+        this.profiles = profiles;
+        this.arcProfiles = arcProfiles != null ? IntBuffer.wrap(arcProfiles) : null;
+        this.arcCosts = arcCosts != null ? DoubleBuffer.wrap(arcCosts) : null;
+        this.arcTimes = arcTimes != null ? DoubleBuffer.wrap(arcTimes) : null;
+
+        int n = locations.length;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        boolean allCoordinates = true;
+        for (int v = 0; v < n; v++) {
+            Location location = locations[v];
+            if (location.hasCoordinates()) {
+                lat[v] = location.getLatitude();
+                lon[v] = location.getLongitude();
+            } else {
+                lat[v] = Double.NaN;
+                lon[v] = Double.NaN;
+                allCoordinates = false;
+            }
+        }
+        this.latitudes = DoubleBuffer.wrap(lat);
+        this.longitudes = DoubleBuffer.wrap(lon);
+        this.geographic = allCoordinates;
+        this.geoScale = allCoordinates ? computeGeoScale() : 0.0;
+    }
+
+    private CompactGraph(CompactGraph base, DoubleBuffer weights, double geoScale) {
+        this(base.locations, base.offsets, base.targets, weights, base.profiles, base.arcProfiles,
+                base.arcCosts, base.arcTimes, base.latitudes, base.longitudes, base.geographic, geoScale, 0);
+    }
+
+    private double computeGeoScale() {
+        double scale = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < locations.size(); u++) {
+            for (int arc = offsets.get(u); arc < offsets.get(u + 1); arc++) {
+                int v = targets.get(arc);
+                if (v < u) {
+                    continue;
+                }
+                double straight = geoDistance(u, v);
+                if (straight > 0) {
+                    scale = Math.min(scale, weights.get(arc) / straight);
+                }
+            }
+        }
+        return scale == Double.POSITIVE_INFINITY ? 0.0 : scale;
+    }
+
+    /**
+     * Construye la representación compacta a partir del grafo de JGraphT, de los perfiles de
+     * velocidad de sus rutas y de sus atributos de costo y tiempo. Los perfiles iguales se
+     * guardan una sola vez.
+     *
+     * <p>Los identificadores siguen el orden de inserción de los vértices, por lo que se mantienen
+     * estables al añadir nuevas ubicaciones.</p>
+     *
+     * @param graph         El grafo de origen.
+     * @param routeProfiles   Perfil de velocidad de cada ruta que tiene uno propio.
+     * @param routeAttributes Costo y tiempo de cada ruta que los tiene propios.
+     * @return Una nueva instancia de {@code CompactGraph}.
+     */
+    static CompactGraph from(SimpleWeightedGraph<Location, DefaultWeightedEdge> graph,
+                             Map<DefaultWeightedEdge, SpeedProfile> routeProfiles,
+                             Map<DefaultWeightedEdge, RouteAttributes> routeAttributes) {
+        int n = graph.vertexSet().size();
+        Location[] locations = new Location[n];
+        Map<Location, Integer> ids = new HashMap<>(n * 2);
+        int next = 0;
+        for (Location location : graph.vertexSet()) {
+            locations[next] = location;
+            ids.put(location, next);
+            next++;
+        }
+
+        int m = graph.edgeSet().size();
+        int[] sources = new int[m];
+        int[] dests = new int[m];
+        double[] edgeWeights = new double[m];
+        int[] edgeProfiles = routeProfiles.isEmpty() ? null : new int[m];
+        RouteAttributes[] edgeAttributes = routeAttributes.isEmpty() ? null : new RouteAttributes[m];
+        List<SpeedProfile> distinct = new ArrayList<>();
+        Map<SpeedProfile, Integer> profileIds = new HashMap<>();
+        distinct.add(SpeedProfile.DEFAULT);
+        profileIds.put(SpeedProfile.DEFAULT, 0);
+        int[] offsets = new int[n + 1];
+        int e = 0;
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
+            int u = ids.get(graph.getEdgeSource(edge));
+            int v = ids.get(graph.getEdgeTarget(edge));
+            sources[e] = u;
+            dests[e] = v;
+            edgeWeights[e] = graph.getEdgeWeight(edge);
+            if (edgeAttributes != null) {
+                edgeAttributes[e] = routeAttributes.get(edge);
+            }
+            if (edgeProfiles != null) {
+                SpeedProfile profile = routeProfiles.get(edge);
+                if (profile != null) {
+                    edgeProfiles[e] = profileIds.computeIfAbsent(profile, key -> {
+                        distinct.add(key);
+                        return distinct.size() - 1;
+                    });
+                }
+            }
+            offsets[u + 1]++;
+            offsets[v + 1]++;
+            e++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] targets = new int[2 * m];
+        double[] weights = new double[2 * m];
+        int[] arcProfiles = edgeProfiles != null ? new int[2 * m] : null;
+        double[] arcCosts = edgeAttributes != null ? new double[2 * m] : null;
+        double[] arcTimes = edgeAttributes != null ? new double[2 * m] : null;
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        for (int i = 0; i < m; i++) {
+            int u = sources[i];
+            int v = dests[i];
+            int a = cursor[u]++;
+            targets[a] = v;
+            weights[a] = edgeWeights[i];
+            int b = cursor[v]++;
+            targets[b] = u;
+            weights[b] = edgeWeights[i];
+            if (arcProfiles != null) {
+                arcProfiles[a] = edgeProfiles[i];
+                arcProfiles[b] = edgeProfiles[i];
+            }
+            if (arcCosts != null) {
+                RouteAttributes attributes = edgeAttributes[i];
+                arcCosts[a] = arcCosts[b] = attributes != null ? attributes.getCost() : Double.NaN;
+                arcTimes[a] = arcTimes[b] = attributes != null ? attributes.getTime() : Double.NaN;
+            }
+        }
+        return new CompactGraph(locations, ids, offsets, targets, weights,
+                new TimeProfiles(distinct), arcProfiles, arcCosts, arcTimes);
+    }
+
+    /**
+     * Construye la representación compacta directamente a partir de listas de rutas, sin pasar
+     * por el grafo de JGraphT. Es el camino para cargar redes de millones de rutas.
+     *
+     * <p>La ruta {@code i} une {@code locations[sources[i]]} con {@code locations[targets[i]]}.
+     * Como en {@link DeliveryGraph#addRoute(Location, Location, double)}, si una ruta aparece
+     * varias veces (en cualquier sentido) se conservan los valores de la última. Los
+     * identificadores son las posiciones en {@code locations}.</p>
+     *
+     * @param locations Ubicaciones del grafo, sin repetir.
+     * @param count     Número de rutas; los arreglos pueden ser más largos.
+     * @param sources   Identificador del origen de cada ruta.
+     * @param targets   Identificador del destino de cada ruta.
+     * @param distances Distancia de cada ruta en kilómetros.
+     * @param costs     Costo propio de cada ruta en COP, o {@code NaN} para derivarlo de la
+     *                  distancia; {@code null} si ninguna ruta lo tiene.
+     * @param times     Tiempo propio de cada ruta en horas, con la misma convención que
+     *                  {@code costs}.
+     * @return Una nueva instancia de {@code CompactGraph}.
+     * @throws IllegalArgumentException si hay ubicaciones repetidas, una ruta une ubicaciones
+     *                                  inexistentes o una ubicación consigo misma, o tiene una
+     *                                  distancia, un costo o un tiempo negativos o infinitos.
+     */
+    public static CompactGraph fromEdges(Location[] locations, int count, int[] sources, int[] targets,
+                                         double[] distances, double[] costs, double[] times) {
+        int n = locations.length;
+        Map<Location, Integer> ids = new HashMap<>(n * 2);
+        for (int v = 0; v < n; v++) {
+            if (ids.put(locations[v], v) != null) {
+                throw new IllegalArgumentException("Ubicación repetida: " + locations[v]);
+            }
+        }
+        boolean withAttributes = costs != null || times != null;
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < count; i++) {
+            if (sources[i] < 0 || sources[i] >= n || targets[i] < 0 || targets[i] >= n) {
+                throw new IllegalArgumentException("La ruta " + i + " une ubicaciones inexistentes: "
+                        + sources[i] + " y " + targets[i] + ".");
+            }
+            if (sources[i] == targets[i]) {
+                throw new IllegalArgumentException("Una ruta no puede unir una ubicación consigo misma: "
+                        + locations[sources[i]]);
+            }
+            if (!(distances[i] >= 0) || Double.isInfinite(distances[i])) {
+                throw new IllegalArgumentException("La distancia debe ser un número finito no negativo.");
+            }
+            if (isInvalidAttribute(costs, i) || isInvalidAttribute(times, i)) {
+                throw new IllegalArgumentException("El costo y el tiempo deben ser números finitos no negativos.");
+            }
+            offsets[sources[i] + 1]++;
+            offsets[targets[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] arcTargets = new int[2 * count];
+        double[] weights = new double[2 * count];
+        double[] arcCosts = withAttributes ? new double[2 * count] : null;
+        double[] arcTimes = withAttributes ? new double[2 * count] : null;
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < count; i++) {
+            int a = cursor[sources[i]]++;
+            int b = cursor[targets[i]]++;
+            arcTargets[a] = targets[i];
+            arcTargets[b] = sources[i];
+            weights[a] = weights[b] = distances[i];
+            if (withAttributes) {
+                arcCosts[a] = arcCosts[b] = costs != null ? costs[i] : Double.NaN;
+                arcTimes[a] = arcTimes[b] = times != null ? times[i] : Double.NaN;
+            }
+        }
+
+        // Los arcos de cada vértice quedaron en el orden de las rutas, así que la última
+        // aparición de una ruta repetida sobrescribe a la primera.
+        int[] seen = new int[n];
+        Arrays.fill(seen, -1);
+        int next = 0;
+        for (int u = 0; u < n; u++) {
+            int start = next;
+            for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                int v = arcTargets[arc];
+                int kept = seen[v] >= start ? seen[v] : next++;
+                seen[v] = kept;
+                arcTargets[kept] = v;
+                weights[kept] = weights[arc];
+                if (withAttributes) {
+                    arcCosts[kept] = arcCosts[arc];
+                    arcTimes[kept] = arcTimes[arc];
+                }
+            }
+            offsets[u] = start;
+        }
+        offsets[n] = next;
+        if (next < arcTargets.length) {
+            arcTargets = Arrays.copyOf(arcTargets, next);
+            weights = Arrays.copyOf(weights, next);
+            arcCosts = withAttributes ? Arrays.copyOf(arcCosts, next) : null;
+            arcTimes = withAttributes ? Arrays.copyOf(arcTimes, next) : null;
+        }
+        return new CompactGraph(locations.clone(), ids, offsets, arcTargets, weights,
+                new TimeProfiles(List.of(SpeedProfile.DEFAULT)), null, arcCosts, arcTimes);
+    }
+
+    /**
+     * Indica si el atributo de una ruta no es {@code NaN} (derivado de la distancia) ni un número
+     * finito no negativo.
+     */
+    private static boolean isInvalidAttribute(double[] values, int i) {
+        return values != null && !Double.isNaN(values[i]) && (!(values[i] >= 0) || Double.isInfinite(values[i]));
+    }
+
+    /**
+     * Crea una copia del grafo en la que solo cambian las distancias de rutas existentes.
+     *
+     * <p>Comparte con este grafo las ubicaciones, los identificadores y la adyacencia, de modo
+     * que los arcos conservan su posición; solo se copia el arreglo de pesos. Es mucho más
+     * barato que {@link #from} cuando llega un flujo de cambios de distancia.</p>
+     *
+     * @param changes Cambios de distancia sobre rutas que existen en este grafo y en el nuevo.
+     * @return El grafo con las distancias actualizadas.
+     * @throws IllegalArgumentException si algún cambio crea o elimina una ruta, o la ruta no
+     *                                  existe en este grafo.
+     */
+    CompactGraph withWeights(List<RouteChange> changes) {
+        double[] updated = new double[weights.capacity()];
+        weights.get(0, updated);
+        double scale = geoScale;
+        for (RouteChange change : changes) {
+            double weight = change.getNewDistance();
+            if (Double.isNaN(change.getOldDistance()) || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("Solo se pueden aplicar cambios de distancia sobre rutas existentes.");
+            }
+            int u = indexOf(change.getFrom());
+            int v = indexOf(change.getTo());
+            if (u < 0 || v < 0 || !setWeight(updated, u, v, weight) || !setWeight(updated, v, u, weight)) {
+                throw new IllegalArgumentException("La ruta no existe en el grafo: "
+                        + change.getFrom() + " - " + change.getTo());
+            }
+            if (geographic) {
+                // Alargar una ruta deja la escala como cota válida; acortarla puede bajarla.
+                double straight = geoDistance(u, v);
+                if (straight > 0) {
+                    scale = Math.min(scale, weight / straight);
+                }
+            }
+        }
+        return new CompactGraph(this, DoubleBuffer.wrap(updated), scale);
+    }
+
+    private boolean setWeight(double[] arcWeights, int u, int v, double weight) {
+        int arc = findArc(u, v);
+        if (arc < 0) {
+            return false;
+        }
+        arcWeights[arc] = weight;
+        return true;
+    }
+
+    /**
+     * Busca el arco de {@code u} hacia {@code v}.
+     *
+     * @param u Vértice de salida.
+     * @param v Vértice de llegada.
+     * @return El índice del arco, o {@code -1} si no están conectados.
+     */
+    int findArc(int u, int v) {
+        for (int arc = offsets.get(u), end = offsets.get(u + 1); arc < end; arc++) {
+            if (targets.get(arc) == v) {
+                return arc;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indica si este grafo comparte la adyacencia con otro, es decir, si uno se obtuvo del otro
+     * cambiando solo distancias y los índices de arco son equivalentes.
+     *
+     * @param other El otro grafo.
+     * @return {@code true} si los arcos de ambos grafos coinciden posición a posición.
+     */
+    boolean sharesArcsWith(CompactGraph other) {
+        return offsets == other.offsets && targets == other.targets;
+    }
+
+    /**
+     * Obtiene el número de vértices del grafo.
+     *
+     * @return Cantidad de ubicaciones.
+     */
+    public int vertexCount() {
+        return locations.size();
+    }
+
+    /**
+     * Obtiene el número de arcos dirigidos (cada ruta cuenta dos veces).
+     *
+     * @return Cantidad de arcos.
+     */
+    public int arcCount() {
+        return targets.capacity();
+    }
+
+    /**
+     * Obtiene el identificador de una ubicación.
+     *
+     * @param location La ubicación buscada.
+     * @return El identificador, o {@code -1} si la ubicación no pertenece al grafo.
+     */
+    public int indexOf(Location location) {
+        return locations.indexOf(location);
+    }
+
+    /**
+     * Obtiene todas las ubicaciones en orden de identificador.
+     *
+     * @return Lista no modificable de ubicaciones.
+     */
+    public List<Location> locations() {
+        LocationTable table = locations;
+        return new AbstractList<>() {
+            @Override
+            public Location get(int index) {
+                return table.get(Objects.checkIndex(index, table.size()));
+            }
+
+            @Override
+            public int size() {
+                return table.size();
+            }
+        };
+    }
+
+    /**
+     * Obtiene la ubicación asociada a un identificador.
+     *
+     * @param vertex Identificador del vértice.
+     * @return La ubicación correspondiente.
+     */
+    public Location location(int vertex) {
+        return locations.get(vertex);
+    }
+
+    /**
+     * Obtiene la posición del primer arco que sale de un vértice.
+     *
+     * @param vertex Identificador del vértice.
+     * @return Índice del primer arco.
+     */
+    public int firstArc(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    /**
+     * Obtiene la posición siguiente al último arco que sale de un vértice.
+     *
+     * @param vertex Identificador del vértice.
+     * @return Índice exclusivo del final de sus arcos.
+     */
+    public int endArc(int vertex) {
+        return offsets.get(vertex + 1);
+    }
+
+    /**
+     * Obtiene el vértice destino de un arco.
+     *
+     * @param arc Índice del arco.
+     * @return Identificador del vértice destino.
+     */
+    public int target(int arc) {
+        return targets.get(arc);
+    }
+
+    /**
+     * Obtiene el peso de un arco.
+     *
+     * @param arc Índice del arco.
+     * @return Distancia del arco en kilómetros.
+     */
+    public double weight(int arc) {
+        return weights.get(arc);
+    }
+
+    /**
+     * Obtiene el costo de recorrer un arco.
+     *
+     * @param arc Índice del arco.
+     * @return El costo propio de la ruta en COP, o el derivado de su distancia.
+     */
+    public double cost(int arc) {
+        if (arcCosts != null) {
+            double cost = arcCosts.get(arc);
+            if (!Double.isNaN(cost)) {
+                return cost;
+            }
+        }
+        return weights.get(arc) * RouteAttributes.DEFAULT_COST_PER_KM;
+    }
+
+    /**
+     * Obtiene el tiempo de recorrido de un arco sin tener en cuenta la hora del día.
+     *
+     * @param arc Índice del arco.
+     * @return El tiempo propio de la ruta en horas, o el derivado de su distancia a la
+     *         velocidad promedio.
+     */
+    public double time(int arc) {
+        if (arcTimes != null) {
+            double time = arcTimes.get(arc);
+            if (!Double.isNaN(time)) {
+                return time;
+            }
+        }
+        return weights.get(arc) / SpeedProfile.DEFAULT_SPEED_KMH;
+    }
+
+    /**
+     * Obtiene el costo y el tiempo propios de un arco.
+     *
+     * @param arc Índice del arco.
+     * @return Los atributos de su ruta, o {@code null} si los deriva de su distancia.
+     */
+    RouteAttributes attributes(int arc) {
+        if (arcCosts == null || Double.isNaN(arcCosts.get(arc))) {
+            return null;
+        }
+        return new RouteAttributes(arcCosts.get(arc), arcTimes.get(arc));
+    }
+
+    /**
+     * Calcula la hora de llegada al final de un arco según el perfil de velocidad de su ruta.
+     *
+     * @param arc       Índice del arco.
+     * @param departure Hora de salida, en horas desde la medianoche del día de partida.
+     * @return La hora de llegada, en la misma escala.
+     */
+    public double arrivalTime(int arc, double departure) {
+        return profiles.arrival(arcProfiles != null ? arcProfiles.get(arc) : 0, weights.get(arc), departure);
+    }
+
+    /**
+     * Obtiene el perfil de velocidad de un arco.
+     *
+     * @param arc Índice del arco.
+     * @return El perfil de su ruta, o {@link SpeedProfile#DEFAULT} si no tiene uno propio.
+     */
+    public SpeedProfile speedProfile(int arc) {
+        int profile = arcProfiles != null ? arcProfiles.get(arc) : 0;
+        return profile != 0 ? profiles.profile(profile) : SpeedProfile.DEFAULT;
+    }
+
+    /**
+     * Obtiene el número de perfiles de velocidad distintos, incluido el perfil por defecto.
+     *
+     * @return Cantidad de perfiles guardados.
+     */
+    public int speedProfileCount() {
+        return profiles.count();
+    }
+
+    /**
+     * Obtiene el menor tiempo por kilómetro de todos los perfiles del grafo; multiplicado por
+     * una cota inferior de la distancia, da una cota inferior del tiempo de viaje.
+     *
+     * @return Horas por kilómetro.
+     */
+    double minPace() {
+        return profiles.minPace();
+    }
+
+    /**
+     * Calcula una huella de 64 bits del contenido del grafo (nombres, adyacencia y pesos).
+     *
+     * <p>Permite comprobar que un índice precalculado y guardado en disco corresponde
+     * exactamente a este grafo antes de usarlo.</p>
+     *
+     * @return La huella del grafo.
+     */
+    public long fingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            int n = locations.size();
+            long h = 0x9E3779B97F4A7C15L ^ n;
+            for (int v = 0; v < n; v++) {
+                h = mix(h, locations.get(v).getName().hashCode());
+            }
+            for (int v = 0; v <= n; v++) {
+                h = mix(h, offsets.get(v));
+            }
+            for (int arc = 0; arc < targets.capacity(); arc++) {
+                h = mix(h, targets.get(arc));
+                h = mix(h, Double.doubleToLongBits(weights.get(arc)));
+            }
+            result = h == 0 ? 1 : h;
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Indica si todas las ubicaciones del grafo tienen coordenadas geográficas.
+     *
+     * @return {@code true} si se puede usar la heurística geográfica.
+     */
+    public boolean isGeographic() {
+        return geographic;
+    }
+
+    /**
+     * Calcula la distancia geográfica entre dos vértices.
+     *
+     * @param u Identificador del primer vértice.
+     * @param v Identificador del segundo vértice.
+     * @return La distancia haversine en kilómetros, o {@code NaN} si falta alguna coordenada.
+     */
+    public double geoDistance(int u, int v) {
+        return GeoDistance.haversineKm(latitudes.get(u), longitudes.get(u), latitudes.get(v), longitudes.get(v));
+    }
+
+    /**
+     * Crea la heurística geográfica hacia un destino: la distancia haversine escalada por el
+     * menor cociente kilómetros de ruta / kilómetros en línea recta observado en el grafo.
+     *
+     * <p>Por la desigualdad triangular del haversine, esa cota nunca supera la distancia real
+     * por carretera y es consistente, así que A* sigue encontrando la ruta óptima.</p>
+     *
+     * @param target Identificador del vértice de destino.
+     * @return La heurística, o {@link SearchHeuristic#NONE} si el grafo no es geográfico.
+     */
+    public SearchHeuristic geoHeuristic(int target) {
+        if (!geographic || geoScale == 0.0) {
+            return SearchHeuristic.NONE;
+        }
+        double scale = geoScale;
+        return vertex -> scale * geoDistance(vertex, target);
+    }
+
+    /**
+     * Guarda el grafo en el formato binario que lee {@link #map(ByteBuffer)}.
+     *
+     * <p>El archivo tiene una cabecera de {@value #HEADER_BYTES} bytes seguida de secciones
+     * alineadas a 8 bytes en orden <i>little-endian</i>: la adyacencia CSR, los perfiles y
+     * atributos por arco, las coordenadas, los perfiles de velocidad y la tabla de cadenas con
+     * los nombres de las ubicaciones junto con su tabla hash.</p>
+     *
+     * @param channel Canal donde se escribe, desde su posición actual.
+     * @throws IOException Si ocurre un error al escribir o los nombres no caben en el formato.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        int n = vertexCount();
+        int arcs = arcCount();
+        byte[][] names = new byte[n][];
+        long nameBytes = 0;
+        for (int v = 0; v < n; v++) {
+            names[v] = location(v).getName().getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[v].length;
+        }
+        if (nameBytes > Integer.MAX_VALUE) {
+            throw new IOException("Los nombres de las ubicaciones no caben en un archivo de grafo.");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, 2 * n - 1)) << 1;
+        int[] slots = new int[capacity];
+        for (int v = 0; v < n; v++) {
+            int slot = LocationTable.slot(location(v).getName().hashCode(), capacity);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slots[slot] = v + 1;
+        }
+        int flags = (arcProfiles != null ? FLAG_PROFILES : 0)
+                | (arcCosts != null ? FLAG_ATTRIBUTES : 0)
+                | (geographic ? FLAG_GEOGRAPHIC : 0);
+        int[] profileStarts = profiles.starts();
+        double[] profileHours = profiles.hours();
+        double[] profilePaces = profiles.paces();
+        Layout layout = new Layout(n, arcs, flags, profiles.count(), profileHours.length, capacity, nameBytes);
+
+        ChannelWriter out = new ChannelWriter(channel);
+        out.putInt(MAGIC);
+        out.putInt(FORMAT_VERSION);
+        out.putInt(n);
+        out.putInt(arcs);
+        out.putInt(flags);
+        out.putInt(profiles.count());
+        out.putInt(profileHours.length);
+        out.putInt(capacity);
+        out.putLong(nameBytes);
+        out.putLong(fingerprint());
+        out.putDouble(geoScale);
+        out.putLong(layout.length);
+
+        out.padTo(layout.offsets);
+        for (int v = 0; v <= n; v++) {
+            out.putInt(offsets.get(v));
+        }
+        out.padTo(layout.targets);
+        for (int arc = 0; arc < arcs; arc++) {
+            out.putInt(targets.get(arc));
+        }
+        out.padTo(layout.weights);
+        for (int arc = 0; arc < arcs; arc++) {
+            out.putDouble(weights.get(arc));
+        }
+        if (arcProfiles != null) {
+            out.padTo(layout.arcProfiles);
+            for (int arc = 0; arc < arcs; arc++) {
+                out.putInt(arcProfiles.get(arc));
+            }
+        }
+        if (arcCosts != null) {
+            out.padTo(layout.arcCosts);
+            for (int arc = 0; arc < arcs; arc++) {
+                out.putDouble(arcCosts.get(arc));
+            }
+            for (int arc = 0; arc < arcs; arc++) {
+                out.putDouble(arcTimes.get(arc));
+            }
+        }
+        out.padTo(layout.latitudes);
+        for (int v = 0; v < n; v++) {
+            out.putDouble(latitudes.get(v));
+        }
+        for (int v = 0; v < n; v++) {
+            out.putDouble(longitudes.get(v));
+        }
+        out.padTo(layout.profileStarts);
+        for (int start : profileStarts) {
+            out.putInt(start);
+        }
+        out.padTo(layout.profileHours);
+        for (double hour : profileHours) {
+            out.putDouble(hour);
+        }
+        for (double pace : profilePaces) {
+            out.putDouble(pace);
+        }
+        out.padTo(layout.nameOffsets);
+        int nameOffset = 0;
+        for (int v = 0; v < n; v++) {
+            out.putInt(nameOffset);
+            nameOffset += names[v].length;
+        }
+        out.putInt(nameOffset);
+        out.padTo(layout.slots);
+        for (int slot : slots) {
+            out.putInt(slot);
+        }
+        out.padTo(layout.names);
+        for (byte[] name : names) {
+            out.putBytes(name);
+        }
+        out.flush();
+    }
+
+    /**
+     * Abre un grafo guardado con {@link #writeTo(WritableByteChannel)} sobre el contenido del
+     * archivo, normalmente proyectado en memoria con {@code FileChannel.map}.
+     *
+     * <p>Solo se leen la cabecera, los perfiles de velocidad, la adyacencia y la tabla de
+     * nombres, que se validan; los pesos, las coordenadas y los nombres se consultan
+     * directamente sobre {@code buffer}, que debe mantenerse sin cambios mientras se use el
+     * grafo.</p>
+     *
+     * @param buffer Contenido completo del archivo.
+     * @return El grafo.
+     * @throws IOException Si el contenido no es un grafo guardado, es de otra versión del
+     *                     formato, está incompleto o su adyacencia o su tabla de nombres están
+     *                     dañadas.
+     */
+    public static CompactGraph map(ByteBuffer buffer) throws IOException {
+        ByteBuffer file = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (file.capacity() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IOException("El archivo no contiene un grafo guardado.");
+        }
+        int version = file.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de archivo de grafo no soportada: " + version);
+        }
+        int n = file.getInt(8);
+        int arcs = file.getInt(12);
+        int flags = file.getInt(16);
+        int profileCount = file.getInt(20);
+        int profilePoints = file.getInt(24);
+        int capacity = file.getInt(28);
+        long nameBytes = file.getLong(32);
+        long fingerprint = file.getLong(40);
+        double geoScale = file.getDouble(48);
+        long length = file.getLong(56);
+        if (n < 0 || arcs < 0 || profileCount < 1 || profilePoints < 0 || capacity < 2 * n
+                || Integer.bitCount(capacity) != 1 || nameBytes < 0 || nameBytes > Integer.MAX_VALUE) {
+            throw new IOException("La cabecera del archivo de grafo está dañada.");
+        }
+        Layout layout = new Layout(n, arcs, flags, profileCount, profilePoints, capacity, nameBytes);
+        if (length != layout.length || file.capacity() != length) {
+            throw new IOException("El archivo de grafo está incompleto.");
+        }
+
+        IntBuffer offsets = ints(file, layout.offsets, n + 1);
+        IntBuffer targets = ints(file, layout.targets, arcs);
+        checkAdjacency(offsets, targets, n, arcs);
+        boolean withAttributes = (flags & FLAG_ATTRIBUTES) != 0;
+        DoubleBuffer latitudes = doubles(file, layout.latitudes, n);
+        DoubleBuffer longitudes = doubles(file, layout.longitudes, n);
+        int[] profileStarts = new int[profileCount + 1];
+        ints(file, layout.profileStarts, profileCount + 1).get(profileStarts);
+        double[] profileHours = new double[profilePoints];
+        doubles(file, layout.profileHours, profilePoints).get(profileHours);
+        double[] profilePaces = new double[profilePoints];
+        doubles(file, layout.profilePaces, profilePoints).get(profilePaces);
+        IntBuffer nameOffsets = ints(file, layout.nameOffsets, n + 1);
+        IntBuffer slots = ints(file, layout.slots, capacity);
+        checkLocationTable(nameOffsets, slots, n, nameBytes);
+        LocationTable table = new LocationTable.Mapped(nameOffsets,
+                file.slice((int) layout.names, (int) nameBytes), slots, latitudes, longitudes);
+
+        return new CompactGraph(table, offsets, targets, doubles(file, layout.weights, arcs),
+                new TimeProfiles(profileStarts, profileHours, profilePaces),
+                (flags & FLAG_PROFILES) != 0 ? ints(file, layout.arcProfiles, arcs) : null,
+                withAttributes ? doubles(file, layout.arcCosts, arcs) : null,
+                withAttributes ? doubles(file, layout.arcTimes, arcs) : null,
+                latitudes, longitudes, (flags & FLAG_GEOGRAPHIC) != 0, geoScale, fingerprint);
+    }
+
+    /**
+     * Comprueba que la adyacencia de un archivo sea recorrible: los inicios de las listas no
+     * decrecen y van de {@code 0} a {@code arcs}, y cada arco apunta a un vértice existente.
+     * Así un archivo dañado se rechaza al abrirlo en lugar de fallar en mitad de una búsqueda.
+     */
+    private static void checkAdjacency(IntBuffer offsets, IntBuffer targets, int n, int arcs) throws IOException {
+        if (offsets.get(0) != 0 || offsets.get(n) != arcs) {
+            throw new IOException("La adyacencia del archivo de grafo está dañada.");
+        }
+        for (int v = 0; v < n; v++) {
+            if (offsets.get(v + 1) < offsets.get(v)) {
+                throw new IOException("La adyacencia del archivo de grafo está dañada en la ubicación " + v + ".");
+            }
+        }
+        for (int arc = 0; arc < arcs; arc++) {
+            int target = targets.get(arc);
+            if (target < 0 || target >= n) {
+                throw new IOException("El arco " + arc + " del archivo de grafo apunta a una ubicación inexistente.");
+            }
+        }
+    }
+
+    /**
+     * Comprueba que la tabla de nombres de un archivo sea consultable: los inicios de los nombres
+     * no decrecen y van de {@code 0} a {@code nameBytes}, cada casilla de la tabla hash está vacía
+     * o apunta a una ubicación existente y queda al menos una vacía, sin la cual buscar una
+     * ubicación ausente no terminaría.
+     */
+    private static void checkLocationTable(IntBuffer nameOffsets, IntBuffer slots, int n, long nameBytes)
+            throws IOException {
+        if (nameOffsets.get(0) != 0 || nameOffsets.get(n) != nameBytes) {
+            throw new IOException("La tabla de nombres del archivo de grafo está dañada.");
+        }
+        for (int v = 0; v < n; v++) {
+            if (nameOffsets.get(v + 1) < nameOffsets.get(v)) {
+                throw new IOException("El nombre de la ubicación " + v + " del archivo de grafo está dañado.");
+            }
+        }
+        boolean empty = false;
+        for (int slot = 0; slot < slots.capacity(); slot++) {
+            int entry = slots.get(slot);
+            if (entry < 0 || entry > n) {
+                throw new IOException("La casilla " + slot
+                        + " de la tabla de ubicaciones apunta a una ubicación inexistente.");
+            }
+            empty |= entry == 0;
+        }
+        if (!empty) {
+            throw new IOException("La tabla de ubicaciones del archivo de grafo no tiene casillas libres.");
+        }
+    }
+
+    private static IntBuffer ints(ByteBuffer file, long position, int count) {
+        return file.slice((int) position, count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static DoubleBuffer doubles(ByteBuffer file, long position, int count) {
+        return file.slice((int) position, count * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Posición de cada sección del archivo de grafo, calculada a partir de la cabecera.
+     */
+    private static final class Layout {
+        final long offsets;
+        final long targets;
+        final long weights;
+        final long arcProfiles;
+        final long arcCosts;
+        final long arcTimes;
+        final long latitudes;
+        final long longitudes;
+        final long profileStarts;
+        final long profileHours;
+        final long profilePaces;
+        final long nameOffsets;
+        final long slots;
+        final long names;
+        final long length;
+
+        Layout(int n, int arcs, int flags, int profileCount, int profilePoints, int capacity, long nameBytes) {
+            long position = HEADER_BYTES;
+            offsets = position;
+            position = align(position + Integer.BYTES * (n + 1L));
+            targets = position;
+            position = align(position + (long) Integer.BYTES * arcs);
+            weights = position;
+            position += (long) Double.BYTES * arcs;
+            arcProfiles = position;
+            if ((flags & FLAG_PROFILES) != 0) {
+                position = align(position + (long) Integer.BYTES * arcs);
+            }
+            arcCosts = position;
+            arcTimes = position + (long) Double.BYTES * arcs;
+            if ((flags & FLAG_ATTRIBUTES) != 0) {
+                position += 2L * Double.BYTES * arcs;
+            }
+            latitudes = position;
+            longitudes = position + (long) Double.BYTES * n;
+            position += 2L * Double.BYTES * n;
+            profileStarts = position;
+            position = align(position + Integer.BYTES * (profileCount + 1L));
+            profileHours = position;
+            profilePaces = position + (long) Double.BYTES * profilePoints;
+            position += 2L * Double.BYTES * profilePoints;
+            nameOffsets = position;
+            position = align(position + Integer.BYTES * (n + 1L));
+            slots = position;
+            position = align(position + (long) Integer.BYTES * capacity);
+            names = position;
+            length = position + nameBytes;
+        }
+
+        private static long align(long position) {
+            return (position + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Escritura con búfer de valores <i>little-endian</i> sobre un canal.
+     */
+    private static final class ChannelWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        ChannelWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            reserve(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            reserve(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            reserve(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                reserve(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, chunk);
+                position += chunk - 1;
+                written += chunk;
+            }
+        }
+
+        /**
+         * Rellena con ceros hasta el inicio de la siguiente sección.
+         */
+        void padTo(long target) throws IOException {
+            while (position < target) {
+                reserve(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            position += bytes;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,804 @@
+package co.edu.uptc.taller.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de <i>Contraction Hierarchies</i> (CH) sobre un {@link CompactGraph}.
+ *
+ * <p>El preprocesamiento contrae los vértices uno a uno en orden de importancia creciente.
+ * Al contraer un vértice {@code v} se añade un atajo {@code u - w} entre cada par de vecinos
+ * cuando el único camino más corto entre ellos pasa por {@code v}. El resultado es un grafo
+ * "ascendente": cada vértice solo guarda los arcos hacia vértices de mayor rango.</p>
+ *
+ * <p>Una consulta es una búsqueda bidireccional que solo sube de rango desde el origen y
+ * desde el destino, por lo que asienta muy pocos vértices. Cada atajo recuerda el vértice
+ * intermedio que reemplaza, y así la ruta se desempaqueta hasta los tramos originales.</p>
+ *
+ * <p>El índice es inmutable y puede guardarse con {@link #writeTo(DataOutput)}. Las consultas
+ * usan un espacio de trabajo por hilo compartido por todos los índices, que no guarda
+ * referencias al índice entre consultas; así una versión antigua del grafo puede liberarse
+ * aunque el hilo siga vivo.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class ContractionHierarchy {
+
+    /**
+     * Identificador del formato binario del índice ("CHIX").
+     */
+    private static final int MAGIC = 0x43484958;
+
+    /**
+     * Versión del formato binario del índice.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Número máximo de vértices que asienta cada búsqueda de testigos durante la contracción.
+     * Un límite bajo acelera el preprocesamiento a cambio de algunos atajos innecesarios, que
+     * nunca afectan la corrección.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 256;
+
+    /**
+     * Límite de asentados al simular contracciones solo para estimar prioridades, donde basta
+     * una aproximación del número de atajos.
+     */
+    private static final int PRIORITY_SETTLE_LIMIT = 32;
+
+    /**
+     * Número de pares aleatorios que se comparan contra Dijkstra al terminar la construcción.
+     */
+    private static final int VERIFICATION_SAMPLES = 64;
+
+    private final CompactGraph graph;
+    private final long fingerprint;
+    private final int[] rank;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+
+    /**
+     * Espacio de trabajo de consultas de cada hilo, compartido por todos los índices.
+     */
+    private static final ThreadLocal<Query> QUERIES = new ThreadLocal<>();
+
+    private ContractionHierarchy(CompactGraph graph, long fingerprint, int[] rank, int[] upOffsets,
+                                 int[] upTargets, double[] upWeights, int[] upMiddles) {
+        this.graph = graph;
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+    }
+
+    /**
+     * Construye el índice contrayendo el grafo en paralelo y lo valida contra Dijkstra.
+     *
+     * <p>En cada ronda se contraen a la vez todos los vértices cuya prioridad es mínima entre sus
+     * vecinos (un conjunto independiente); las búsquedas de testigos y el recálculo de
+     * prioridades se reparten entre los núcleos disponibles.</p>
+     *
+     * @param graph El grafo a preprocesar.
+     * @return El índice construido.
+     * @throws IllegalStateException si la validación contra Dijkstra encuentra diferencias.
+     */
+    public static ContractionHierarchy build(CompactGraph graph) {
+        ContractionHierarchy hierarchy = new Builder(graph).build();
+        int mismatches = hierarchy.verify(VERIFICATION_SAMPLES, graph.fingerprint());
+        if (mismatches > 0) {
+            throw new IllegalStateException("La jerarquía de contracción difiere de Dijkstra en "
+                    + mismatches + " de " + VERIFICATION_SAMPLES + " consultas.");
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Indica si este índice fue construido para el grafo indicado.
+     *
+     * @param other El grafo a comprobar.
+     * @return {@code true} si el grafo tiene el mismo contenido que el usado al construir.
+     */
+    public boolean isBuiltFor(CompactGraph other) {
+        return other.vertexCount() == rank.length && other.fingerprint() == fingerprint;
+    }
+
+    /**
+     * Obtiene el número de arcos ascendentes que son atajos (no rutas originales).
+     *
+     * @return Cantidad de atajos.
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int middle : upMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Calcula la distancia más corta entre dos vértices.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return La distancia, o {@code Double.POSITIVE_INFINITY} si no es alcanzable.
+     */
+    public double distance(int source, int target) {
+        return Query.forThread(rank.length).distance(this, source, target);
+    }
+
+    /**
+     * Calcula la ruta más corta entre dos vértices, desempaquetando los atajos.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return La ruta con sus tramos originales, o {@code null} si no es alcanzable.
+     */
+    public RoutePath route(int source, int target) {
+        return Query.forThread(rank.length).route(this, source, target);
+    }
+
+    /**
+     * Compara la distancia de pares aleatorios contra Dijkstra sobre el grafo original.
+     *
+     * @param samples Número de pares a comprobar.
+     * @param seed    Semilla del generador de pares.
+     * @return El número de pares cuya distancia o desglose por tramos no coincide.
+     */
+    public int verify(int samples, long seed) {
+        int n = rank.length;
+        if (n == 0) {
+            return 0;
+        }
+        Random random = new Random(seed);
+        DijkstraSearch reference = new DijkstraSearch(graph);
+        int mismatches = 0;
+        for (int i = 0; i < samples; i++) {
+            int source = random.nextInt(n);
+            int target = random.nextInt(n);
+            double expected = reference.run(source, target);
+            RoutePath route = route(source, target);
+            if (route == null) {
+                if (expected != Double.POSITIVE_INFINITY) {
+                    mismatches++;
+                }
+                continue;
+            }
+            double legs = 0;
+            for (int leg = 0; leg < route.getLegCount(); leg++) {
+                legs += route.getLegDistance(leg);
+            }
+            double tolerance = 1e-9 * Math.max(1.0, expected);
+            if (Math.abs(route.getWeight() - expected) > tolerance || Math.abs(legs - expected) > tolerance) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Escribe el índice en formato binario.
+     *
+     * @param out Destino de los datos.
+     * @throws IOException si ocurre un error de escritura.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(rank.length);
+        out.writeInt(upTargets.length);
+        for (int value : rank) {
+            out.writeInt(value);
+        }
+        for (int value : upOffsets) {
+            out.writeInt(value);
+        }
+        for (int arc = 0; arc < upTargets.length; arc++) {
+            out.writeInt(upTargets[arc]);
+            out.writeDouble(upWeights[arc]);
+            out.writeInt(upMiddles[arc]);
+        }
+    }
+
+    /**
+     * Lee un índice guardado con {@link #writeTo(DataOutput)}.
+     *
+     * @param in    Origen de los datos.
+     * @param graph Grafo al que debe corresponder el índice.
+     * @return El índice leído.
+     * @throws IOException si el formato no es válido o el índice no corresponde al grafo.
+     */
+    public static ContractionHierarchy readFrom(DataInput in, CompactGraph graph) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no contiene una jerarquía de contracción.");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de jerarquía de contracción no soportada: " + version);
+        }
+        long fingerprint = in.readLong();
+        int n = in.readInt();
+        int arcs = in.readInt();
+        if (n != graph.vertexCount() || fingerprint != graph.fingerprint()) {
+            throw new IOException("La jerarquía de contracción no corresponde al grafo actual.");
+        }
+
+        int[] rank = new int[n];
+        for (int v = 0; v < n; v++) {
+            rank[v] = in.readInt();
+        }
+        int[] upOffsets = new int[n + 1];
+        for (int v = 0; v <= n; v++) {
+            upOffsets[v] = in.readInt();
+        }
+        int[] upTargets = new int[arcs];
+        double[] upWeights = new double[arcs];
+        int[] upMiddles = new int[arcs];
+        for (int arc = 0; arc < arcs; arc++) {
+            upTargets[arc] = in.readInt();
+            upWeights[arc] = in.readDouble();
+            upMiddles[arc] = in.readInt();
+        }
+        return new ContractionHierarchy(graph, fingerprint, rank, upOffsets, upTargets, upWeights, upMiddles);
+    }
+
+    /**
+     * Busca el arco ascendente entre dos vértices adyacentes en la jerarquía.
+     *
+     * @return El índice del arco, que sale del vértice de menor rango.
+     */
+    private int findUpArc(int a, int b) {
+        int low = rank[a] < rank[b] ? a : b;
+        int high = low == a ? b : a;
+        for (int arc = upOffsets[low]; arc < upOffsets[low + 1]; arc++) {
+            if (upTargets[arc] == high) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException("Atajo sin arco de soporte entre " + a + " y " + b);
+    }
+
+    /**
+     * Espacio de trabajo reutilizable para consultas bidireccionales sobre la jerarquía.
+     *
+     * <p>Recibe el índice en cada consulta en lugar de guardarlo, de modo que el espacio de
+     * trabajo de un hilo no mantiene vivo ningún índice ni su grafo.</p>
+     */
+    private static final class Query {
+
+        private final SearchSide forward;
+        private final SearchSide backward;
+        private int[] stack = new int[64];
+        private int settledCount;
+
+        private Query(int capacity) {
+            forward = new SearchSide(capacity);
+            backward = new SearchSide(capacity);
+        }
+
+        /**
+         * Obtiene el espacio de trabajo del hilo actual con capacidad para {@code n} vértices,
+         * ampliándolo si hace falta.
+         */
+        private static Query forThread(int n) {
+            Query query = QUERIES.get();
+            if (query == null) {
+                query = new Query(n);
+                QUERIES.set(query);
+            } else {
+                query.forward.ensureCapacity(n);
+                query.backward.ensureCapacity(n);
+            }
+            return query;
+        }
+
+        private double distance(ContractionHierarchy hierarchy, int source, int target) {
+            int meeting = search(hierarchy, source, target);
+            return meeting < 0 ? Double.POSITIVE_INFINITY
+                    : forward.distance[meeting] + backward.distance[meeting];
+        }
+
+        private RoutePath route(ContractionHierarchy hierarchy, int source, int target) {
+            int meeting = search(hierarchy, source, target);
+            if (meeting < 0) {
+                return null;
+            }
+
+            List<Location> vertices = new ArrayList<>();
+            List<Double> legs = new ArrayList<>();
+            vertices.add(hierarchy.graph.location(source));
+
+            int count = 0;
+            int[] chain = new int[16];
+            for (int v = meeting; v != source; v = forward.predecessor[v]) {
+                if (count == chain.length) {
+                    chain = Arrays.copyOf(chain, count * 2);
+                }
+                chain[count++] = v;
+            }
+            int previous = source;
+            for (int i = count - 1; i >= 0; i--) {
+                unpack(hierarchy, previous, chain[i], vertices, legs);
+                previous = chain[i];
+            }
+            for (int v = meeting; v != target; v = backward.predecessor[v]) {
+                int next = backward.predecessor[v];
+                unpack(hierarchy, v, next, vertices, legs);
+            }
+
+            double[] legDistances = new double[legs.size()];
+            for (int i = 0; i < legDistances.length; i++) {
+                legDistances[i] = legs.get(i);
+            }
+            double weight = forward.distance[meeting] + backward.distance[meeting];
+            return new RoutePath(vertices, weight, legDistances).withSettledCount(settledCount);
+        }
+
+        /**
+         * Ejecuta la búsqueda bidireccional ascendente.
+         *
+         * @return El vértice de encuentro de la ruta más corta, o {@code -1}.
+         */
+        private int search(ContractionHierarchy hierarchy, int source, int target) {
+            int[] upOffsets = hierarchy.upOffsets;
+            int[] upTargets = hierarchy.upTargets;
+            double[] upWeights = hierarchy.upWeights;
+            forward.reset(source);
+            backward.reset(target);
+            settledCount = 0;
+            double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+            int meeting = source == target ? source : -1;
+
+            while (true) {
+                boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.peekKey() < best;
+                boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.peekKey() < best;
+                if (!forwardOpen && !backwardOpen) {
+                    break;
+                }
+                SearchSide side;
+                SearchSide other;
+                if (forwardOpen && (!backwardOpen || forward.heap.peekKey() <= backward.heap.peekKey())) {
+                    side = forward;
+                    other = backward;
+                } else {
+                    side = backward;
+                    other = forward;
+                }
+
+                int u = side.heap.poll();
+                settledCount++;
+                double du = side.distance[u];
+                if (other.isReached(u) && du + other.distance[u] < best) {
+                    best = du + other.distance[u];
+                    meeting = u;
+                }
+                for (int arc = upOffsets[u]; arc < upOffsets[u + 1]; arc++) {
+                    int v = upTargets[arc];
+                    double dv = du + upWeights[arc];
+                    if (!side.isReached(v) || dv < side.distance[v]) {
+                        side.reach(v, dv, u);
+                        side.heap.insertOrDecrease(v, dv);
+                        if (other.isReached(v) && dv + other.distance[v] < best) {
+                            best = dv + other.distance[v];
+                            meeting = v;
+                        }
+                    }
+                }
+            }
+            return meeting;
+        }
+
+        /**
+         * Desempaqueta el arco entre dos vértices de la jerarquía en tramos originales, en orden
+         * desde {@code from} hasta {@code to}, y los añade a las listas de salida.
+         */
+        private void unpack(ContractionHierarchy hierarchy, int from, int to, List<Location> vertices,
+                            List<Double> legs) {
+            int[] pending = stack;
+            int top = 0;
+            pending[top++] = from;
+            pending[top++] = to;
+            while (top > 0) {
+                int b = pending[--top];
+                int a = pending[--top];
+                int arc = hierarchy.findUpArc(a, b);
+                int middle = hierarchy.upMiddles[arc];
+                if (middle < 0) {
+                    vertices.add(hierarchy.graph.location(b));
+                    legs.add(hierarchy.upWeights[arc]);
+                } else {
+                    if (top + 4 > pending.length) {
+                        pending = Arrays.copyOf(pending, pending.length * 2);
+                        stack = pending;
+                    }
+                    pending[top++] = middle;
+                    pending[top++] = b;
+                    pending[top++] = a;
+                    pending[top++] = middle;
+                }
+            }
+        }
+
+        /**
+         * Estado de una de las dos direcciones de la búsqueda.
+         */
+        private static final class SearchSide {
+            private IndexedMinHeap heap;
+            private double[] distance;
+            private int[] predecessor;
+            private int[] stamp;
+            private int generation;
+
+            private SearchSide(int capacity) {
+                allocate(capacity);
+            }
+
+            private void allocate(int capacity) {
+                heap = new IndexedMinHeap(capacity);
+                distance = new double[capacity];
+                predecessor = new int[capacity];
+                stamp = new int[capacity];
+            }
+
+            /**
+             * Amplía los arreglos si el índice tiene más vértices que los ya reservados. Las
+             * marcas nuevas empiezan en cero, por debajo de cualquier generación en uso.
+             */
+            private void ensureCapacity(int n) {
+                if (n > distance.length) {
+                    allocate(n);
+                }
+            }
+
+            private void reset(int start) {
+                generation++;
+                if (generation == 0) {
+                    Arrays.fill(stamp, 0);
+                    generation = 1;
+                }
+                heap.clear();
+                reach(start, 0.0, -1);
+                heap.insertOrDecrease(start, 0.0);
+            }
+
+            private boolean isReached(int vertex) {
+                return stamp[vertex] == generation;
+            }
+
+            private void reach(int vertex, double dist, int pred) {
+                stamp[vertex] = generation;
+                distance[vertex] = dist;
+                predecessor[vertex] = pred;
+            }
+        }
+    }
+
+    /**
+     * Estado mutable del preprocesamiento: grafo dinámico de vértices aún no contraídos,
+     * prioridades y arcos ascendentes ya fijados.
+     */
+    private static final class Builder {
+
+        private final CompactGraph graph;
+        private final int n;
+        private final int[][] neighbors;
+        private final double[][] neighborWeights;
+        private final int[][] neighborMiddles;
+        private final int[] degree;
+        private final boolean[] contracted;
+        private final boolean[] inBatch;
+        private final int[] contractedNeighbors;
+        private final int[] priority;
+        private final int[] rank;
+        private final int[][] upTargets;
+        private final double[][] upWeights;
+        private final int[][] upMiddles;
+
+        private Builder(CompactGraph graph) {
+            this.graph = graph;
+            this.n = graph.vertexCount();
+            this.neighbors = new int[n][];
+            this.neighborWeights = new double[n][];
+            this.neighborMiddles = new int[n][];
+            this.degree = new int[n];
+            this.contracted = new boolean[n];
+            this.inBatch = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.priority = new int[n];
+            this.rank = new int[n];
+            this.upTargets = new int[n][];
+            this.upWeights = new double[n][];
+            this.upMiddles = new int[n][];
+
+            for (int v = 0; v < n; v++) {
+                int size = graph.endArc(v) - graph.firstArc(v);
+                neighbors[v] = new int[Math.max(4, size)];
+                neighborWeights[v] = new double[Math.max(4, size)];
+                neighborMiddles[v] = new int[Math.max(4, size)];
+                for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                    addOrImprove(v, graph.target(arc), graph.weight(arc), -1);
+                }
+            }
+        }
+
+        private ContractionHierarchy build() {
+            IntStream.range(0, n).parallel().forEach(v -> priority[v] = computePriority(v));
+
+            int nextRank = 0;
+            while (nextRank < n) {
+                int[] batch = IntStream.range(0, n).parallel()
+                        .filter(v -> !contracted[v] && isLocalMinimum(v))
+                        .toArray();
+                for (int v : batch) {
+                    inBatch[v] = true;
+                }
+                Shortcuts[] shortcuts = new Shortcuts[batch.length];
+                IntStream.range(0, batch.length).parallel()
+                        .forEach(i -> shortcuts[i] = findShortcuts(batch[i], WITNESS_SETTLE_LIMIT));
+
+                boolean[] touched = new boolean[n];
+                for (int i = 0; i < batch.length; i++) {
+                    int v = batch[i];
+                    contract(v, nextRank++, shortcuts[i], touched);
+                }
+                for (int v : batch) {
+                    inBatch[v] = false;
+                }
+                IntStream.range(0, n).parallel()
+                        .filter(v -> touched[v] && !contracted[v])
+                        .forEach(v -> priority[v] = computePriority(v));
+            }
+            return toHierarchy();
+        }
+
+        /**
+         * Indica si la prioridad de {@code v} es estrictamente menor que la de todos sus vecinos
+         * no contraídos, desempatando por identificador.
+         */
+        private boolean isLocalMinimum(int v) {
+            for (int i = 0; i < degree[v]; i++) {
+                int u = neighbors[v][i];
+                if (priority[u] < priority[v] || (priority[u] == priority[v] && u < v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Prioridad por diferencia de aristas: atajos necesarios menos aristas eliminadas, más
+         * el número de vecinos ya contraídos para repartir la contracción de forma uniforme.
+         */
+        private int computePriority(int v) {
+            return findShortcuts(v, PRIORITY_SETTLE_LIMIT).size - degree[v] + contractedNeighbors[v];
+        }
+
+        private Shortcuts findShortcuts(int v, int settleLimit) {
+            Shortcuts result = new Shortcuts();
+            int deg = degree[v];
+            int[] adjacent = neighbors[v];
+            double[] weights = neighborWeights[v];
+            WitnessSearch witness = WitnessSearch.forThread(n);
+            for (int i = 0; i < deg; i++) {
+                int u = adjacent[i];
+                double maxVia = 0;
+                for (int j = i + 1; j < deg; j++) {
+                    maxVia = Math.max(maxVia, weights[i] + weights[j]);
+                }
+                if (i + 1 >= deg) {
+                    continue;
+                }
+                witness.run(this, u, v, maxVia, adjacent, i + 1, deg, settleLimit);
+                for (int j = i + 1; j < deg; j++) {
+                    double via = weights[i] + weights[j];
+                    if (witness.distance(adjacent[j]) > via) {
+                        result.add(u, adjacent[j], via);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private void contract(int v, int order, Shortcuts shortcuts, boolean[] touched) {
+            int deg = degree[v];
+            upTargets[v] = Arrays.copyOf(neighbors[v], deg);
+            upWeights[v] = Arrays.copyOf(neighborWeights[v], deg);
+            upMiddles[v] = Arrays.copyOf(neighborMiddles[v], deg);
+            rank[v] = order;
+            contracted[v] = true;
+
+            for (int i = 0; i < deg; i++) {
+                int u = neighbors[v][i];
+                remove(u, v);
+                contractedNeighbors[u]++;
+                touched[u] = true;
+            }
+            for (int i = 0; i < shortcuts.size; i++) {
+                addOrImprove(shortcuts.from[i], shortcuts.to[i], shortcuts.weight[i], v);
+                addOrImprove(shortcuts.to[i], shortcuts.from[i], shortcuts.weight[i], v);
+            }
+            degree[v] = 0;
+        }
+
+        private void addOrImprove(int u, int w, double weight, int middle) {
+            for (int i = 0; i < degree[u]; i++) {
+                if (neighbors[u][i] == w) {
+                    if (weight < neighborWeights[u][i]) {
+                        neighborWeights[u][i] = weight;
+                        neighborMiddles[u][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degree[u] == neighbors[u].length) {
+                int capacity = degree[u] * 2;
+                neighbors[u] = Arrays.copyOf(neighbors[u], capacity);
+                neighborWeights[u] = Arrays.copyOf(neighborWeights[u], capacity);
+                neighborMiddles[u] = Arrays.copyOf(neighborMiddles[u], capacity);
+            }
+            int slot = degree[u]++;
+            neighbors[u][slot] = w;
+            neighborWeights[u][slot] = weight;
+            neighborMiddles[u][slot] = middle;
+        }
+
+        private void remove(int u, int w) {
+            for (int i = 0; i < degree[u]; i++) {
+                if (neighbors[u][i] == w) {
+                    int last = --degree[u];
+                    neighbors[u][i] = neighbors[u][last];
+                    neighborWeights[u][i] = neighborWeights[u][last];
+                    neighborMiddles[u][i] = neighborMiddles[u][last];
+                    return;
+                }
+            }
+        }
+
+        private ContractionHierarchy toHierarchy() {
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + upTargets[v].length;
+            }
+            int arcs = offsets[n];
+            int[] targets = new int[arcs];
+            double[] weights = new double[arcs];
+            int[] middles = new int[arcs];
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(upTargets[v], 0, targets, offsets[v], upTargets[v].length);
+                System.arraycopy(upWeights[v], 0, weights, offsets[v], upWeights[v].length);
+                System.arraycopy(upMiddles[v], 0, middles, offsets[v], upMiddles[v].length);
+            }
+            return new ContractionHierarchy(graph, graph.fingerprint(), rank, offsets, targets, weights, middles);
+        }
+
+        /**
+         * Atajos encontrados al simular la contracción de un vértice.
+         */
+        private static final class Shortcuts {
+            private int[] from = new int[4];
+            private int[] to = new int[4];
+            private double[] weight = new double[4];
+            private int size;
+
+            private void add(int u, int w, double via) {
+                if (size == from.length) {
+                    from = Arrays.copyOf(from, size * 2);
+                    to = Arrays.copyOf(to, size * 2);
+                    weight = Arrays.copyOf(weight, size * 2);
+                }
+                from[size] = u;
+                to[size] = w;
+                weight[size] = via;
+                size++;
+            }
+        }
+
+        /**
+         * Búsqueda local acotada que intenta encontrar un camino entre dos vecinos de {@code v}
+         * que no pase por {@code v} ni por los vértices que se contraen en la misma ronda.
+         *
+         * <p>Hay una por hilo para todas las construcciones y recibe el constructor en cada
+         * búsqueda, de modo que no lo mantiene vivo al terminar.</p>
+         */
+        private static final class WitnessSearch {
+
+            /**
+             * Espacio de trabajo de cada hilo, compartido por todas las construcciones.
+             */
+            private static final ThreadLocal<WitnessSearch> WORKSPACES = new ThreadLocal<>();
+
+            private IndexedMinHeap heap;
+            private double[] distance;
+            private int[] stamp;
+            private int[] targetStamp;
+            private int generation;
+
+            private WitnessSearch(int capacity) {
+                heap = new IndexedMinHeap(capacity);
+                distance = new double[capacity];
+                stamp = new int[capacity];
+                targetStamp = new int[capacity];
+            }
+
+            /**
+             * Obtiene el espacio de trabajo del hilo actual con capacidad para {@code n}
+             * vértices, reemplazándolo por uno mayor si hace falta.
+             */
+            private static WitnessSearch forThread(int n) {
+                WitnessSearch search = WORKSPACES.get();
+                if (search == null || search.distance.length < n) {
+                    search = new WitnessSearch(n);
+                    WORKSPACES.set(search);
+                }
+                return search;
+            }
+
+            /**
+             * Ejecuta la búsqueda desde {@code source} hasta asentar todos los vecinos
+             * {@code targets[from..to)}, superar {@code maxDistance} o el límite de asentados.
+             */
+            private void run(Builder builder, int source, int excluded, double maxDistance, int[] targets,
+                             int from, int to, int settleLimit) {
+                int[] degree = builder.degree;
+                int[][] neighbors = builder.neighbors;
+                double[][] neighborWeights = builder.neighborWeights;
+                boolean[] inBatch = builder.inBatch;
+                generation++;
+                if (generation == 0) {
+                    Arrays.fill(stamp, 0);
+                    Arrays.fill(targetStamp, 0);
+                    generation = 1;
+                }
+                int pending = 0;
+                for (int j = from; j < to; j++) {
+                    if (targetStamp[targets[j]] != generation) {
+                        targetStamp[targets[j]] = generation;
+                        pending++;
+                    }
+                }
+                heap.clear();
+                stamp[source] = generation;
+                distance[source] = 0.0;
+                heap.insertOrDecrease(source, 0.0);
+                int settled = 0;
+                while (!heap.isEmpty() && settled < settleLimit && heap.peekKey() <= maxDistance) {
+                    int x = heap.poll();
+                    settled++;
+                    if (targetStamp[x] == generation && --pending == 0) {
+                        return;
+                    }
+                    for (int i = 0; i < degree[x]; i++) {
+                        int y = neighbors[x][i];
+                        if (y == excluded || inBatch[y]) {
+                            continue;
+                        }
+                        double dy = distance[x] + neighborWeights[x][i];
+                        if (stamp[y] != generation || dy < distance[y]) {
+                            stamp[y] = generation;
+                            distance[y] = dy;
+                            heap.insertOrDecrease(y, dy);
+                        }
+                    }
+                }
+            }
+
+            private double distance(int vertex) {
+                return stamp[vertex] == generation ? distance[vertex] : Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+}
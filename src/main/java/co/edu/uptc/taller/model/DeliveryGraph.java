@@ -1,11 +1,17 @@
 package co.edu.uptc.taller.model;
 
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.SimpleWeightedGraph;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * La clase {@code DeliveryGraph} representa un grafo ponderado simple que modela las rutas de entrega
@@ -16,31 +22,126 @@ import java.util.List;
  * el grafo, como añadir ubicaciones, establecer rutas entre ellas y calcular la ruta más corta
  * utilizando el algoritmo de Dijkstra.</p>
  *
+ * <p>Las consultas no recorren el grafo de JGraphT: se ejecutan sobre un {@link CompactGraph}
+ * con identificadores enteros y adyacencia en arreglos primitivos, que se reconstruye de forma
+ * perezosa la primera vez que se consulta después de una modificación.</p>
+ *
+ * <p>La clase es segura para uso concurrente. Las modificaciones se serializan con un bloqueo,
+ * y cada versión del grafo se publica como una {@link GraphSnapshot} inmutable sobre la que las
+ * consultas se resuelven sin bloqueos, de modo que pueden ejecutarse en paralelo aunque
+ * lleguen cambios de rutas al mismo tiempo.</p>
+ *
  * @author
  * @version 1.0
  */
 public class DeliveryGraph {
+    /**
+     * Máximo de cambios de rutas que se acumulan entre dos instantáneas; a partir de ahí los
+     * índices se reconstruyen en lugar de repararse.
+     */
+    private static final int MAX_PENDING_CHANGES = IncrementalIndex.MAX_PENDING_CHANGES;
+
+    /**
+     * Número máximo de ubicaciones por defecto para mantener la matriz de distancias completa.
+     */
+    public static final int DEFAULT_MATRIX_THRESHOLD = 1024;
+
     /**
      * Representa el grafo de entregas, donde los vértices son ubicaciones y las aristas son rutas
-     * con pesos que corresponden a las distancias entre las ubicaciones.
+     * con pesos que corresponden a las distancias entre las ubicaciones. Solo se modifica y se
+     * lee con {@link #lock} tomado, después de {@link #materialize()}; es {@code null} mientras un
+     * grafo abierto desde un archivo no se haya modificado.
      */
     private SimpleWeightedGraph<Location, DefaultWeightedEdge> graph;
 
     /**
-     * Instancia del algoritmo de Dijkstra para calcular la ruta más corta en el grafo.
+     * Bloqueo de los escritores y de la publicación de instantáneas.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Versión de modificación del grafo; aumenta cada vez que se añade una ubicación o se crea,
+     * cambia o elimina una ruta.
+     */
+    private volatile long version;
+
+    /**
+     * Última instantánea publicada. Puede corresponder a una versión anterior a {@link #version}
+     * hasta que algún lector pida la vigente.
+     */
+    private volatile GraphSnapshot snapshot;
+
+    /**
+     * Cambios de rutas desde la última instantánea publicada, o {@code null} si se descartaron
+     * por ser demasiados.
+     */
+    private List<RouteChange> pendingChanges = new ArrayList<>();
+
+    /**
+     * Indica si desde la última instantánea se añadieron ubicaciones, se crearon o eliminaron
+     * rutas o cambiaron sus perfiles o atributos. Si no, la siguiente instantánea se obtiene
+     * copiando solo las distancias.
+     */
+    private boolean structureChanged;
+
+    /**
+     * Perfil de velocidad de las rutas que tienen uno propio; las demás usan
+     * {@link SpeedProfile#DEFAULT}.
+     */
+    private final Map<DefaultWeightedEdge, SpeedProfile> routeProfiles = new HashMap<>();
+
+    /**
+     * Perfiles distintos asignados, para que las rutas con el mismo perfil compartan una sola
+     * instancia.
+     */
+    private final Map<SpeedProfile, SpeedProfile> internedProfiles = new HashMap<>();
+
+    /**
+     * Costo y tiempo de las rutas que los tienen propios; las demás los derivan de su distancia.
+     */
+    private final Map<DefaultWeightedEdge, RouteAttributes> routeAttributes = new HashMap<>();
+
+    /**
+     * Orígenes frecuentes (por ejemplo, depósitos) cuyos árboles de caminos más cortos se
+     * reparan de forma incremental con cada cambio de rutas.
+     */
+    private final Set<Location> trackedSources = new LinkedHashSet<>();
+
+    /**
+     * Contadores de las reparaciones de los árboles de {@link #trackedSources}.
+     */
+    private final DynamicTreeStatistics dynamicTreeStatistics = new DynamicTreeStatistics();
+
+    /**
+     * Número máximo de ubicaciones para el que se usa la matriz de distancias; por encima, las
+     * consultas se resuelven con búsquedas bajo demanda.
      */
-    private DijkstraShortestPath<Location, DefaultWeightedEdge> dijkstraAlg;
+    private int matrixThreshold = DEFAULT_MATRIX_THRESHOLD;
 
     /**
-     * Construye una nueva instancia de {@code DeliveryGraph}, inicializando el grafo y el algoritmo
-     * de Dijkstra.
+     * Construye una nueva instancia de {@code DeliveryGraph}, inicializando el grafo vacío.
      *
-     * <p>El grafo es un {@link SimpleWeightedGraph} que no permite bucles ni aristas paralelas.
-     * El algoritmo de Dijkstra se configura para operar sobre este grafo.</p>
+     * <p>El grafo es un {@link SimpleWeightedGraph} que no permite bucles ni aristas paralelas.</p>
      */
     public DeliveryGraph() {
         graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-        dijkstraAlg = new DijkstraShortestPath<>(graph);
+    }
+
+    /**
+     * Construye un grafo de entregas a partir de un grafo compacto ya construido, por ejemplo
+     * abierto desde un archivo proyectado en memoria.
+     *
+     * <p>Las consultas se resuelven directamente sobre {@code compact}; el grafo de JGraphT solo
+     * se construye si el grafo se modifica o se pide con {@link #getGraph()}.</p>
+     *
+     * @param compact El grafo compacto inicial.
+     * @throws NullPointerException si {@code compact} es {@code null}.
+     */
+    public DeliveryGraph(CompactGraph compact) {
+        if (compact == null) {
+            throw new NullPointerException("El grafo compacto no puede ser nulo.");
+        }
+        snapshot = GraphSnapshot.create(compact, version, matrixThreshold, List.of(), dynamicTreeStatistics);
     }
 
     /**
@@ -55,7 +156,13 @@ public class DeliveryGraph {
         if (location == null) {
             throw new NullPointerException("La ubicación no puede ser nula.");
         }
-        graph.addVertex(location);
+        synchronized (lock) {
+            materialize();
+            if (graph.addVertex(location)) {
+                structureChanged = true;
+                version++;
+            }
+        }
     }
 
     /**
@@ -67,20 +174,801 @@ public class DeliveryGraph {
      * @param from     La ubicación de origen.
      * @param to       La ubicación de destino.
      * @param distance La distancia entre las ubicaciones en kilómetros. Debe ser un valor positivo.
-     * @throws IllegalArgumentException si {@code distance} es negativo.
+     * @throws IllegalArgumentException si {@code distance} es negativa, infinita o NaN.
      * @throws NullPointerException     si {@code from} o {@code to} son {@code null}.
      */
     public void addRoute(Location from, Location to, double distance) {
         if (from == null || to == null) {
             throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
         }
-        if (distance < 0) {
-            throw new IllegalArgumentException("La distancia no puede ser negativa.");
+        if (!(distance >= 0) || Double.isInfinite(distance)) {
+            throw new IllegalArgumentException("La distancia debe ser un número finito no negativo.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.getEdge(from, to);
+            double oldDistance = Double.NaN;
+            if (edge == null) {
+                edge = graph.addEdge(from, to);
+                structureChanged = true;
+            } else {
+                oldDistance = graph.getEdgeWeight(edge);
+                if (oldDistance == distance) {
+                    return;
+                }
+            }
+            graph.setEdgeWeight(edge, distance);
+            recordChange(new RouteChange(from, to, oldDistance, distance));
+            version++;
+        }
+    }
+
+    /**
+     * Cambia la distancia de una ruta existente.
+     *
+     * <p>Pensado para flujos de actualizaciones en vivo (tráfico, cierres parciales): si desde la
+     * última instantánea solo han cambiado distancias, la siguiente se obtiene copiando los pesos
+     * del grafo compacto, y los índices y los árboles de los orígenes frecuentes se reparan solo
+     * donde el cambio los afecta.</p>
+     *
+     * @param from     Un extremo de la ruta.
+     * @param to       El otro extremo de la ruta.
+     * @param distance La nueva distancia en kilómetros.
+     * @throws NullPointerException     si {@code from} o {@code to} son {@code null}.
+     * @throws IllegalArgumentException si {@code distance} es negativa, infinita o NaN, o no
+     *                                  existe una ruta entre las dos ubicaciones.
+     */
+    public void updateRouteWeight(Location from, Location to, double distance) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+        if (!(distance >= 0) || Double.isInfinite(distance)) {
+            throw new IllegalArgumentException("La distancia debe ser un número finito no negativo.");
         }
 
-        DefaultWeightedEdge edge = graph.addEdge(from, to);
-        if (edge != null) {
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.containsVertex(from) && graph.containsVertex(to)
+                    ? graph.getEdge(from, to) : null;
+            if (edge == null) {
+                throw new IllegalArgumentException("No existe una ruta entre " + from + " y " + to + ".");
+            }
+            double oldDistance = graph.getEdgeWeight(edge);
+            if (oldDistance == distance) {
+                return;
+            }
             graph.setEdgeWeight(edge, distance);
+            recordChange(new RouteChange(from, to, oldDistance, distance));
+            version++;
+        }
+    }
+
+    /**
+     * Elimina la ruta entre dos ubicaciones.
+     *
+     * @param from Un extremo de la ruta.
+     * @param to   El otro extremo de la ruta.
+     * @return {@code true} si la ruta existía y se eliminó.
+     * @throws NullPointerException si {@code from} o {@code to} son {@code null}.
+     */
+    public boolean removeRoute(Location from, Location to) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
+                return false;
+            }
+            DefaultWeightedEdge edge = graph.removeEdge(from, to);
+            if (edge == null) {
+                return false;
+            }
+            routeProfiles.remove(edge);
+            routeAttributes.remove(edge);
+            recordChange(new RouteChange(from, to, graph.getEdgeWeight(edge), Double.NaN));
+            structureChanged = true;
+            version++;
+            return true;
+        }
+    }
+
+    /**
+     * Asigna un perfil de velocidad por hora del día a una ruta existente.
+     *
+     * <p>Los perfiles solo afectan a las consultas con hora de salida
+     * ({@link #getTimedRoute(Location, Location, double, SearchMode)}); las distancias y los
+     * índices derivados de ellas no cambian.</p>
+     *
+     * @param from    Un extremo de la ruta.
+     * @param to      El otro extremo de la ruta.
+     * @param profile El perfil, o {@code null} para volver a la velocidad por defecto.
+     * @throws NullPointerException     si {@code from} o {@code to} son {@code null}.
+     * @throws IllegalArgumentException si no existe una ruta entre las dos ubicaciones.
+     */
+    public void setRouteProfile(Location from, Location to, SpeedProfile profile) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.containsVertex(from) && graph.containsVertex(to)
+                    ? graph.getEdge(from, to) : null;
+            if (edge == null) {
+                throw new IllegalArgumentException("No existe una ruta entre " + from + " y " + to + ".");
+            }
+            SpeedProfile previous = profile == null || profile.equals(SpeedProfile.DEFAULT)
+                    ? routeProfiles.remove(edge)
+                    : routeProfiles.put(edge, internedProfiles.computeIfAbsent(profile, key -> key));
+            if (!Objects.equals(previous, routeProfiles.get(edge))) {
+                structureChanged = true;
+                version++;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el perfil de velocidad de una ruta.
+     *
+     * @param from Un extremo de la ruta.
+     * @param to   El otro extremo de la ruta.
+     * @return El perfil de la ruta, {@link SpeedProfile#DEFAULT} si no tiene uno propio, o
+     *         {@code null} si no existe la ruta.
+     * @throws NullPointerException si {@code from} o {@code to} son {@code null}.
+     */
+    public SpeedProfile getRouteProfile(Location from, Location to) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.containsVertex(from) && graph.containsVertex(to)
+                    ? graph.getEdge(from, to) : null;
+            if (edge == null) {
+                return null;
+            }
+            return routeProfiles.getOrDefault(edge, SpeedProfile.DEFAULT);
+        }
+    }
+
+    /**
+     * Asigna a una ruta existente un costo y un tiempo propios, independientes de su distancia,
+     * por ejemplo por peajes o por ser una vía lenta.
+     *
+     * <p>Los atributos se usan en la búsqueda de rutas de Pareto
+     * ({@link #getParetoRoutes(Location, Location)}) y al evaluar el costo y el tiempo de
+     * cualquier ruta; la distancia y los índices derivados de ella no cambian.</p>
+     *
+     * @param from       Un extremo de la ruta.
+     * @param to         El otro extremo de la ruta.
+     * @param attributes Los atributos, o {@code null} para volver a derivarlos de la distancia.
+     * @throws NullPointerException     si {@code from} o {@code to} son {@code null}.
+     * @throws IllegalArgumentException si no existe una ruta entre las dos ubicaciones.
+     */
+    public void setRouteAttributes(Location from, Location to, RouteAttributes attributes) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.containsVertex(from) && graph.containsVertex(to)
+                    ? graph.getEdge(from, to) : null;
+            if (edge == null) {
+                throw new IllegalArgumentException("No existe una ruta entre " + from + " y " + to + ".");
+            }
+            RouteAttributes previous = attributes == null
+                    ? routeAttributes.remove(edge)
+                    : routeAttributes.put(edge, attributes);
+            if (previous != null || attributes != null) {
+                structureChanged = true;
+                version++;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el costo y el tiempo de una ruta.
+     *
+     * @param from Un extremo de la ruta.
+     * @param to   El otro extremo de la ruta.
+     * @return Los atributos propios de la ruta o, si no tiene, los derivados de su distancia;
+     *         {@code null} si no existe la ruta.
+     * @throws NullPointerException si {@code from} o {@code to} son {@code null}.
+     */
+    public RouteAttributes getRouteAttributes(Location from, Location to) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        synchronized (lock) {
+            materialize();
+            DefaultWeightedEdge edge = graph.containsVertex(from) && graph.containsVertex(to)
+                    ? graph.getEdge(from, to) : null;
+            if (edge == null) {
+                return null;
+            }
+            RouteAttributes attributes = routeAttributes.get(edge);
+            return attributes != null ? attributes : RouteAttributes.forDistance(graph.getEdgeWeight(edge));
+        }
+    }
+
+    /**
+     * Registra un cambio de ruta para reparar los índices de la siguiente instantánea. Si aún no
+     * se ha publicado ninguna, o se acumulan demasiados cambios, los índices se construirán
+     * desde cero.
+     *
+     * @param change El cambio aplicado al grafo.
+     */
+    private void recordChange(RouteChange change) {
+        if (snapshot == null || pendingChanges == null) {
+            return;
+        }
+        if (pendingChanges.size() < MAX_PENDING_CHANGES) {
+            pendingChanges.add(change);
+        } else {
+            pendingChanges = null;
+        }
+    }
+
+
+    /**
+     * Obtiene la instantánea inmutable de la versión actual del grafo.
+     *
+     * <p>Si el grafo cambió desde la última publicación, se construye su {@link CompactGraph} y
+     * se publica una instantánea nueva; mientras no haya cambios, obtenerla no toma ningún
+     * bloqueo. Todas las consultas de esta clase se resuelven sobre la instantánea vigente, y
+     * quien necesite varias consultas coherentes entre sí puede trabajar directamente sobre
+     * una.</p>
+     *
+     * @return La instantánea vigente.
+     */
+    public GraphSnapshot getSnapshot() {
+        GraphSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (current == null || current.getVersion() != version) {
+                List<Location> sources = List.copyOf(trackedSources);
+                if (current == null) {
+                    current = GraphSnapshot.create(buildCompactGraph(), version, matrixThreshold, sources,
+                            dynamicTreeStatistics);
+                } else {
+                    CompactGraph compact = structureChanged || pendingChanges == null
+                            ? buildCompactGraph()
+                            : current.getGraph().withWeights(pendingChanges);
+                    current = current.next(compact, version, matrixThreshold, sources, pendingChanges);
+                }
+                pendingChanges = new ArrayList<>();
+                structureChanged = false;
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Mantiene de forma incremental el árbol de caminos más cortos de un origen frecuente, por
+     * ejemplo un depósito del que salen muchas rutas.
+     *
+     * <p>En lugar de descartarse con cada cambio del grafo, el árbol se repara en cada nueva
+     * versión tocando solo la parte afectada por los cambios de rutas. Las consultas desde ese
+     * origen que usan el árbol ({@link #getShortestPathTree(Location)}, las rutas alternativas y
+     * {@link SearchMode#DIJKSTRA} cuando no hay matriz de distancias) lo leen directamente.</p>
+     *
+     * @param source La ubicación de origen.
+     * @throws NullPointerException si {@code source} es {@code null}.
+     */
+    public void trackSource(Location source) {
+        if (source == null) {
+            throw new NullPointerException("La ubicación de origen no puede ser nula.");
+        }
+        synchronized (lock) {
+            if (trackedSources.add(source) && snapshot != null) {
+                snapshot = snapshot.withTrackedSources(List.copyOf(trackedSources));
+            }
+        }
+    }
+
+    /**
+     * Deja de mantener el árbol de un origen registrado con {@link #trackSource(Location)}.
+     *
+     * @param source La ubicación de origen.
+     * @throws NullPointerException si {@code source} es {@code null}.
+     */
+    public void untrackSource(Location source) {
+        if (source == null) {
+            throw new NullPointerException("La ubicación de origen no puede ser nula.");
+        }
+        synchronized (lock) {
+            if (trackedSources.remove(source) && snapshot != null) {
+                snapshot = snapshot.withTrackedSources(List.copyOf(trackedSources));
+            }
+        }
+    }
+
+    /**
+     * Obtiene los orígenes cuyos árboles se mantienen de forma incremental.
+     *
+     * @return Copia de los orígenes registrados.
+     */
+    public Set<Location> getTrackedSources() {
+        synchronized (lock) {
+            return Set.copyOf(trackedSources);
+        }
+    }
+
+    /**
+     * Obtiene los contadores de las reparaciones de los árboles mantenidos, con los que se mide
+     * el ritmo de cambios de rutas que el grafo puede absorber.
+     *
+     * @return Las estadísticas acumuladas.
+     */
+    public DynamicTreeStatistics getDynamicTreeStatistics() {
+        return dynamicTreeStatistics;
+    }
+
+    private CompactGraph buildCompactGraph() {
+        materialize();
+        return CompactGraph.from(graph, routeProfiles, routeAttributes);
+    }
+
+    /**
+     * Construye el grafo de JGraphT a partir de la instantánea si el grafo se abrió desde un
+     * archivo y aún no se había modificado. Se llama con {@link #lock} tomado.
+     */
+    private void materialize() {
+        if (graph == null) {
+            CompactGraph compact = snapshot.getGraph();
+            graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+            for (int v = 0; v < compact.vertexCount(); v++) {
+                graph.addVertex(compact.location(v));
+            }
+            for (int u = 0; u < compact.vertexCount(); u++) {
+                for (int arc = compact.firstArc(u); arc < compact.endArc(u); arc++) {
+                    int v = compact.target(arc);
+                    if (v < u) {
+                        continue;
+                    }
+                    DefaultWeightedEdge edge = graph.addEdge(compact.location(u), compact.location(v));
+                    graph.setEdgeWeight(edge, compact.weight(arc));
+                    SpeedProfile profile = compact.speedProfile(arc);
+                    if (profile != SpeedProfile.DEFAULT) {
+                        routeProfiles.put(edge, internedProfiles.computeIfAbsent(profile, key -> key));
+                    }
+                    RouteAttributes attributes = compact.attributes(arc);
+                    if (attributes != null) {
+                        routeAttributes.put(edge, attributes);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la versión de modificación del grafo.
+     *
+     * <p>El valor crece de forma monótona con cada cambio, de modo que un resultado calculado con
+     * una versión sigue siendo válido mientras la versión no cambie.</p>
+     *
+     * @return La versión actual.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene la representación compacta del grafo, reconstruyéndola si hubo cambios.
+     *
+     * @return El {@link CompactGraph} vigente.
+     */
+    public CompactGraph getCompactGraph() {
+        return getSnapshot().getGraph();
+    }
+
+    /**
+     * Obtiene la jerarquía de contracción del grafo actual, construyéndola si no existe.
+     *
+     * <p>La construcción es costosa (se paraleliza entre los núcleos disponibles), pero solo se
+     * repite cuando el grafo cambia.</p>
+     *
+     * @return El índice de jerarquía de contracción vigente.
+     */
+    public ContractionHierarchy getContractionHierarchy() {
+        return getSnapshot().getContractionHierarchy();
+    }
+
+    /**
+     * Instala una jerarquía de contracción ya calculada, por ejemplo leída de disco.
+     *
+     * @param hierarchy El índice a usar.
+     * @throws NullPointerException     si {@code hierarchy} es {@code null}.
+     * @throws IllegalArgumentException si el índice no corresponde al grafo actual.
+     */
+    public void setContractionHierarchy(ContractionHierarchy hierarchy) {
+        if (hierarchy == null) {
+            throw new NullPointerException("La jerarquía de contracción no puede ser nula.");
+        }
+        getSnapshot().setContractionHierarchy(hierarchy);
+    }
+
+    /**
+     * Obtiene la tabla de landmarks del grafo actual para la heurística ALT.
+     *
+     * <p>Si no existe se construye. Si el grafo cambió desde la última consulta, la tabla se
+     * repara de forma incremental con los cambios de rutas registrados en lugar de recalcularse
+     * por completo.</p>
+     *
+     * @return La tabla de landmarks vigente.
+     */
+    public LandmarkIndex getLandmarkIndex() {
+        return getSnapshot().getLandmarkIndex();
+    }
+
+    /**
+     * Instala una tabla de landmarks ya calculada, por ejemplo leída de disco.
+     *
+     * @param index La tabla a usar.
+     * @throws NullPointerException     si {@code index} es {@code null}.
+     * @throws IllegalArgumentException si la tabla no corresponde al grafo actual.
+     */
+    public void setLandmarkIndex(LandmarkIndex index) {
+        if (index == null) {
+            throw new NullPointerException("La tabla de landmarks no puede ser nula.");
+        }
+        getSnapshot().setLandmarkIndex(index);
+    }
+
+    /**
+     * Obtiene la disposición del grafo actual para dibujarlo.
+     *
+     * <p>Si no existe se calcula. Si el grafo cambió desde la última consulta, la disposición
+     * anterior se conserva o se refina con los cambios de rutas registrados.</p>
+     *
+     * @return La disposición vigente.
+     */
+    public GraphLayout getGraphLayout() {
+        return getSnapshot().getGraphLayout();
+    }
+
+    /**
+     * Instala una disposición ya calculada, por ejemplo leída de disco.
+     *
+     * @param layout La disposición a usar.
+     * @throws NullPointerException     si {@code layout} es {@code null}.
+     * @throws IllegalArgumentException si la disposición no corresponde al grafo actual.
+     */
+    public void setGraphLayout(GraphLayout layout) {
+        if (layout == null) {
+            throw new NullPointerException("La disposición del grafo no puede ser nula.");
+        }
+        getSnapshot().setGraphLayout(layout);
+    }
+
+    /**
+     * Obtiene la matriz de distancias entre todos los pares de ubicaciones.
+     *
+     * <p>Se construye la primera vez que se pide, repartiendo un Dijkstra por origen entre los
+     * núcleos disponibles. Si el grafo cambió desde la última consulta, se reparan solo las filas
+     * afectadas por los cambios de rutas registrados.</p>
+     *
+     * @return La matriz vigente, o {@code null} si el grafo tiene más ubicaciones que el umbral
+     *         configurado con {@link #setMatrixThreshold(int)}.
+     */
+    public DistanceMatrix getDistanceMatrix() {
+        return getSnapshot().getDistanceMatrix();
+    }
+
+    /**
+     * Obtiene el número máximo de ubicaciones para el que se usa la matriz de distancias.
+     *
+     * @return El umbral actual.
+     */
+    public int getMatrixThreshold() {
+        synchronized (lock) {
+            return matrixThreshold;
+        }
+    }
+
+    /**
+     * Establece el número máximo de ubicaciones para el que se usa la matriz de distancias.
+     *
+     * <p>La matriz ocupa memoria proporcional al cuadrado del número de ubicaciones. Con un
+     * umbral de {@code 0} las consultas siempre se resuelven con búsquedas bajo demanda.</p>
+     *
+     * @param matrixThreshold El nuevo umbral.
+     * @throws IllegalArgumentException si {@code matrixThreshold} es negativo o mayor que
+     *                                  {@link DistanceMatrix#MAX_VERTICES}.
+     */
+    public void setMatrixThreshold(int matrixThreshold) {
+        if (matrixThreshold < 0) {
+            throw new IllegalArgumentException("El umbral de la matriz de distancias no puede ser negativo.");
+        }
+        if (matrixThreshold > DistanceMatrix.MAX_VERTICES) {
+            throw new IllegalArgumentException("El umbral de la matriz de distancias no puede superar "
+                    + DistanceMatrix.MAX_VERTICES + " ubicaciones.");
+        }
+        synchronized (lock) {
+            this.matrixThreshold = matrixThreshold;
+            if (snapshot != null) {
+                snapshot = snapshot.withMatrixThreshold(matrixThreshold);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el árbol de caminos más cortos desde una ubicación de origen.
+     *
+     * <p>El árbol se calcula con una sola ejecución de Dijkstra y se reutiliza en consultas
+     * posteriores desde el mismo origen mientras el grafo no cambie.</p>
+     *
+     * @param source La ubicación de origen.
+     * @return El árbol de caminos más cortos desde {@code source}.
+     * @throws NullPointerException     si {@code source} es {@code null}.
+     * @throws IllegalArgumentException si {@code source} no pertenece al grafo.
+     */
+    public ShortestPathTree getShortestPathTree(Location source) {
+        if (source == null) {
+            throw new NullPointerException("La ubicación de origen no puede ser nula.");
+        }
+
+        return getSnapshot().getShortestPathTree(source);
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ubicaciones junto con su distancia total y el
+     * desglose por tramos, todo a partir de una única búsqueda.
+     *
+     * <p>Si el grafo no supera el umbral de la matriz de distancias, la ruta se lee de la matriz
+     * sin ejecutar ninguna búsqueda.</p>
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @return La ruta encontrada, o {@code null} si no existe una ruta entre las dos ubicaciones.
+     * @throws NullPointerException si {@code source} o {@code target} son {@code null}.
+     */
+    public RoutePath getRoute(Location source, Location target) {
+        if (source == null || target == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        return getSnapshot().getRoute(source, target);
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ubicaciones usando el modo de búsqueda indicado.
+     *
+     * <p>{@link SearchMode#DIJKSTRA} lee la matriz de distancias o reutiliza el árbol de caminos
+     * más cortos del origen, mientras
+     * que {@link SearchMode#A_STAR} hace una búsqueda punto a punto guiada por la distancia
+     * geográfica y asienta solo los vértices que pueden mejorar la ruta.
+     * {@link SearchMode#ALT} hace lo mismo con cotas calculadas a partir de landmarks, sin
+     * necesidad de coordenadas, y {@link SearchMode#CONTRACTION_HIERARCHY} usa la jerarquía de
+     * contracción y desempaqueta los atajos en la ruta completa.</p>
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @param mode   El algoritmo de búsqueda a utilizar.
+     * @return La ruta encontrada, o {@code null} si no existe una ruta entre las dos ubicaciones.
+     * @throws NullPointerException     si algún argumento es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public RoutePath getRoute(Location source, Location target, SearchMode mode) {
+        if (source == null || target == null || mode == null) {
+            throw new NullPointerException("Las ubicaciones y el modo de búsqueda no pueden ser nulos.");
+        }
+
+        return getSnapshot().getRoute(source, target, mode);
+    }
+
+    /**
+     * Obtiene la ruta de llegada más temprana entre dos ubicaciones saliendo a una hora dada.
+     *
+     * <p>El tiempo de cada tramo sale del perfil de velocidad de su ruta evaluado a la hora en
+     * que se empieza a recorrer, de modo que la ruta más rápida puede cambiar según la hora de
+     * salida (por ejemplo, evitando vías congestionadas en hora pico).</p>
+     *
+     * @param source    La ubicación de origen.
+     * @param target    La ubicación de destino.
+     * @param departure Hora de salida, en horas desde la medianoche (por ejemplo, {@code 7.5}
+     *                  para las 7:30).
+     * @param mode      El algoritmo de búsqueda a utilizar.
+     * @return La ruta con la hora de llegada a cada ubicación, o {@code null} si no existe una
+     *         ruta entre las dos ubicaciones.
+     * @throws NullPointerException     si algún argumento es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o la hora de
+     *                                  salida no es un número finito.
+     */
+    public TimedRoute getTimedRoute(Location source, Location target, double departure, SearchMode mode) {
+        if (source == null || target == null || mode == null) {
+            throw new NullPointerException("Las ubicaciones y el modo de búsqueda no pueden ser nulos.");
+        }
+        if (Double.isNaN(departure) || Double.isInfinite(departure)) {
+            throw new IllegalArgumentException("La hora de salida debe ser un número finito.");
+        }
+
+        return getSnapshot().getTimedRoute(source, target, departure, mode);
+    }
+
+    /**
+     * Obtiene el frente de Pareto de rutas entre dos ubicaciones según distancia, costo y tiempo.
+     *
+     * <p>Cada ruta del frente es mejor que las demás en al menos un criterio; por ejemplo, la
+     * más corta puede tener peajes y la más barata ser más larga. Se usa el límite por defecto
+     * de etiquetas por ubicación.</p>
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @return Las rutas no dominadas ordenadas por distancia; vacía si no existe una ruta.
+     * @throws NullPointerException     si {@code source} o {@code target} son {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public List<ParetoRoute> getParetoRoutes(Location source, Location target) {
+        return getParetoRoutes(source, target, ParetoSearch.DEFAULT_MAX_LABELS);
+    }
+
+    /**
+     * Obtiene el frente de Pareto de rutas entre dos ubicaciones según distancia, costo y tiempo,
+     * con un límite de etiquetas por ubicación.
+     *
+     * <p>La búsqueda guarda en cada ubicación las combinaciones no dominadas de distancia, costo
+     * y tiempo con las que se puede llegar a ella, y descarta las que, sumando una cota inferior
+     * de lo que falta, ya quedan dominadas por una ruta encontrada. Si una ubicación acumula más
+     * de {@code maxLabelsPerVertex} combinaciones, se conservan las más prometedoras; en ese
+     * caso el frente puede quedar incompleto, pero la búsqueda sigue siendo rápida en grafos
+     * grandes.</p>
+     *
+     * @param source             La ubicación de origen.
+     * @param target             La ubicación de destino.
+     * @param maxLabelsPerVertex Máximo de combinaciones guardadas por ubicación.
+     * @return Las rutas no dominadas ordenadas por distancia; vacía si no existe una ruta.
+     * @throws NullPointerException     si {@code source} o {@code target} son {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o
+     *                                  {@code maxLabelsPerVertex} no es positivo.
+     */
+    public List<ParetoRoute> getParetoRoutes(Location source, Location target, int maxLabelsPerVertex) {
+        if (source == null || target == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+        if (maxLabelsPerVertex <= 0) {
+            throw new IllegalArgumentException("El máximo de etiquetas por ubicación debe ser positivo.");
+        }
+
+        return getSnapshot().getParetoRoutes(source, target, maxLabelsPerVertex);
+    }
+
+    /**
+     * Obtiene las ubicaciones alcanzables desde un origen sin superar un presupuesto de
+     * distancia, costo o tiempo, por ejemplo los pueblos a menos de 45 minutos de un depósito.
+     *
+     * <p>Se resuelve con una sola búsqueda acotada que solo recorre la región alcanzable, en lugar
+     * de calcular una ruta hacia cada ubicación. El tiempo de cada ruta es el de sus atributos
+     * ({@link #setRouteAttributes}), no el de su perfil de velocidad. Se pueden hacer varias
+     * consultas a la vez desde distintos hilos.</p>
+     *
+     * @param source    La ubicación de origen.
+     * @param criterion Criterio del presupuesto: {@link RouteCriterion#DISTANCE},
+     *                  {@link RouteCriterion#COST} o {@link RouteCriterion#TIME}.
+     * @param budget    Presupuesto máximo, inclusive, en kilómetros, COP u horas.
+     * @return Las ubicaciones alcanzadas con su valor, de menor a mayor.
+     * @throws NullPointerException     si {@code source} o {@code criterion} son {@code null}.
+     * @throws IllegalArgumentException si el origen no pertenece al grafo, el criterio es
+     *                                  {@link RouteCriterion#BALANCED} o el presupuesto es
+     *                                  negativo o no es un número.
+     */
+    public Isochrone getIsochrone(Location source, RouteCriterion criterion, double budget) {
+        if (source == null || criterion == null) {
+            throw new NullPointerException("La ubicación de origen y el criterio no pueden ser nulos.");
+        }
+        if (criterion == RouteCriterion.BALANCED) {
+            throw new IllegalArgumentException("El presupuesto debe ser de distancia, costo o tiempo.");
+        }
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("El presupuesto debe ser un número no negativo.");
+        }
+
+        return getSnapshot().getIsochrone(source, criterion, budget);
+    }
+
+    /**
+     * Obtiene hasta {@code k} rutas alternativas sin ciclos entre dos ubicaciones.
+     *
+     * <p>Las alternativas se forman combinando el árbol de caminos más cortos del origen con el
+     * del destino a través de un vértice intermedio, por lo que no hace falta una búsqueda nueva
+     * por cada desvío. Solo se aceptan rutas que no superan en más de un 50 % la distancia de la
+     * más corta y que no comparten con ninguna ruta ya aceptada más de {@code maxOverlap} de su
+     * distancia.</p>
+     *
+     * @param source     La ubicación de origen.
+     * @param target     La ubicación de destino.
+     * @param k          Número máximo de rutas.
+     * @param maxOverlap Fracción máxima de distancia compartida, entre {@code 0} y {@code 1}.
+     * @return Las rutas ordenadas por distancia, empezando por la más corta; vacía si no existe
+     *         una ruta entre las dos ubicaciones.
+     * @throws NullPointerException     si {@code source} o {@code target} son {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o
+     *                                  {@code maxOverlap} no está entre {@code 0} y {@code 1}.
+     */
+    public List<RoutePath> getAlternativeRoutes(Location source, Location target, int k, double maxOverlap) {
+        if (source == null || target == null) {
+            throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
+        }
+
+        return getSnapshot().getAlternativeRoutes(source, target, k, maxOverlap);
+    }
+
+    /**
+     * Calcula las distancias más cortas desde varias ubicaciones de origen hacia varias de
+     * destino.
+     *
+     * <p>Si la matriz de distancias está disponible, los valores se leen de ella. Si no, se hace
+     * una sola búsqueda por origen que se detiene al asentar todos los destinos, y los orígenes
+     * se reparten entre los núcleos disponibles, cada uno con su propio espacio de trabajo.</p>
+     *
+     * @param sources Ubicaciones de origen.
+     * @param targets Ubicaciones de destino.
+     * @return Arreglo de {@code sources.size() * targets.size()} distancias por filas: la
+     *         distancia de {@code sources[i]} a {@code targets[j]} está en
+     *         {@code i * targets.size() + j}, o es {@code Double.POSITIVE_INFINITY} si no hay ruta.
+     * @throws NullPointerException     si alguna lista o ubicación es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o la matriz no
+     *                                  cabe en un arreglo.
+     */
+    public double[] getDistances(List<Location> sources, List<Location> targets) {
+        if (sources == null || targets == null) {
+            throw new NullPointerException("Las listas de orígenes y destinos no pueden ser nulas.");
+        }
+
+        return getSnapshot().getDistances(sources, targets);
+    }
+
+    /**
+     * Calcula las distancias más cortas desde varias ubicaciones de origen hacia varias de
+     * destino junto con el costo y el tiempo de esas mismas rutas, que suman los atributos de
+     * cada tramo ({@link RouteAttributes}).
+     *
+     * @param sources Ubicaciones de origen.
+     * @param targets Ubicaciones de destino.
+     * @param costs   Recibe {@code sources.size() * targets.size()} costos por filas, como las
+     *                distancias.
+     * @param times   Recibe los tiempos por filas, como las distancias.
+     * @return Arreglo de distancias por filas, como en {@link #getDistances(List, List)}.
+     * @throws NullPointerException     si alguna lista o ubicación es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo, la matriz no
+     *                                  cabe en un arreglo o los arreglos no tienen su tamaño.
+     */
+    public double[] getDistances(List<Location> sources, List<Location> targets, double[] costs, double[] times) {
+        if (sources == null || targets == null || costs == null || times == null) {
+            throw new NullPointerException("Las listas y los arreglos de resultados no pueden ser nulos.");
+        }
+        int size = matrixSize(sources.size(), targets.size());
+        if (costs.length != size || times.length != size) {
+            throw new IllegalArgumentException("Los arreglos de costos y tiempos deben tener " + size + " posiciones.");
+        }
+
+        return getSnapshot().getDistances(sources, targets, costs, times);
+    }
+
+    /**
+     * Calcula el número de posiciones de una matriz de orígenes por destinos.
+     *
+     * @param sources Número de orígenes.
+     * @param targets Número de destinos.
+     * @return {@code sources * targets}.
+     * @throws IllegalArgumentException si el producto no cabe en un arreglo.
+     */
+    public static int matrixSize(int sources, int targets) {
+        try {
+            return Math.multiplyExact(sources, targets);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("La matriz de " + sources + " orígenes por " + targets
+                    + " destinos no cabe en un arreglo.", e);
         }
     }
 
@@ -98,8 +986,8 @@ public class DeliveryGraph {
             throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
         }
 
-        GraphPath<Location, DefaultWeightedEdge> path = dijkstraAlg.getPath(source, target);
-        return path != null ? path.getVertexList() : null;
+        RoutePath route = getRoute(source, target);
+        return route != null ? route.getVertices() : null;
     }
 
     /**
@@ -116,16 +1004,49 @@ public class DeliveryGraph {
             throw new NullPointerException("Las ubicaciones de origen y destino no pueden ser nulas.");
         }
 
-        GraphPath<Location, DefaultWeightedEdge> path = dijkstraAlg.getPath(source, target);
-        return path != null ? path.getWeight() : Double.POSITIVE_INFINITY;
+        return getSnapshot().getShortestPathWeight(source, target);
     }
 
     /**
-     * Obtiene el grafo actual de entregas.
+     * Obtiene una vista de solo lectura del grafo actual de entregas.
+     *
+     * <p>La vista rechaza cualquier modificación, de modo que la versión, la instantánea y los
+     * índices derivados no pueden quedar desfasados; para modificar el grafo use
+     * {@link #addLocation(Location)}, {@link #addRoute(Location, Location, double)},
+     * {@link #updateRouteWeight(Location, Location, double)} y
+     * {@link #removeRoute(Location, Location)}. La vista refleja el grafo vivo y no está
+     * protegida contra modificaciones concurrentes; para leer mientras otros hilos modifican el
+     * grafo use {@link #getSnapshot()}.</p>
      *
-     * @return El objeto {@link SimpleWeightedGraph} que representa el grafo de entregas.
+     * @return Una vista no modificable del grafo de entregas.
      */
-    public SimpleWeightedGraph<Location, DefaultWeightedEdge> getGraph() {
-        return graph;
+    public Graph<Location, DefaultWeightedEdge> getGraph() {
+        synchronized (lock) {
+            materialize();
+            return new ReadOnlyGraph(graph);
+        }
+    }
+
+    /**
+     * Vista no modificable del grafo que además rechaza los cambios de peso, que
+     * {@link AsUnmodifiableGraph} deja pasar al grafo subyacente.
+     */
+    private static final class ReadOnlyGraph extends AsUnmodifiableGraph<Location, DefaultWeightedEdge> {
+
+        private static final long serialVersionUID = 1L;
+
+        private ReadOnlyGraph(Graph<Location, DefaultWeightedEdge> graph) {
+            super(graph);
+        }
+
+        @Override
+        public void setEdgeWeight(DefaultWeightedEdge edge, double weight) {
+            throw new UnsupportedOperationException("El grafo es de solo lectura.");
+        }
+
+        @Override
+        public void setEdgeWeight(Location source, Location target, double weight) {
+            throw new UnsupportedOperationException("El grafo es de solo lectura.");
+        }
     }
 }
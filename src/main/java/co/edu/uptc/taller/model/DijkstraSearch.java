@@ -0,0 +1,352 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Arrays;
+
+/**
+ * Espacio de trabajo reutilizable para ejecutar Dijkstra sobre un {@link CompactGraph}.
+ *
+ * <p>Todos los arreglos se reservan una vez al crear la instancia, y
+ * {@link #forThread(CompactGraph)} los reutiliza entre versiones del grafo. Para no limpiarlos
+ * en cada consulta se usa un contador de generación: un vértice solo tiene distancia válida si
+ * su marca coincide con la generación de la búsqueda actual. Así, una consulta no reserva
+ * memoria salvo para construir el resultado final.</p>
+ *
+ * <p>Una instancia no es segura para uso concurrente; cada hilo debe usar la suya.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class DijkstraSearch {
+
+    /**
+     * Espacio de trabajo de cada hilo, compartido por todas las versiones del grafo.
+     */
+    private static final ThreadLocal<DijkstraSearch> WORKSPACES = new ThreadLocal<>();
+
+    private CompactGraph graph;
+    private IndexedMinHeap heap;
+    private double[] distance;
+    private double[] estimate;
+    private int[] predecessor;
+    private int[] predecessorArc;
+    private int[] reached;
+    private int[] settled;
+    private int[] targetMark;
+
+    /**
+     * Costo y tiempo acumulados hasta cada vértice del árbol de la última búsqueda, válidos si
+     * su marca coincide con la generación. Se reservan la primera vez que se piden.
+     */
+    private int[] totalMark;
+    private double[] totalCost;
+    private double[] totalTime;
+    private int[] walk;
+    private int remainingTargets;
+    private int generation;
+    private int source = -1;
+    private int settledCount;
+
+    /**
+     * Crea un espacio de trabajo para el grafo indicado.
+     *
+     * @param graph El grafo compacto sobre el que se harán las búsquedas.
+     */
+    public DijkstraSearch(CompactGraph graph) {
+        this.graph = graph;
+        allocate(graph.vertexCount());
+    }
+
+    private void allocate(int n) {
+        heap = new IndexedMinHeap(n);
+        distance = new double[n];
+        estimate = new double[n];
+        predecessor = new int[n];
+        predecessorArc = new int[n];
+        reached = new int[n];
+        settled = new int[n];
+        targetMark = null;
+        totalMark = null;
+    }
+
+    /**
+     * Obtiene el espacio de trabajo del hilo actual preparado para un grafo.
+     *
+     * <p>Hay uno por hilo para todas las versiones del grafo: al cambiar de grafo se reutilizan
+     * sus arreglos y solo se amplían si el nuevo grafo tiene más ubicaciones. Las marcas de
+     * generación de búsquedas anteriores quedan siempre por debajo de la actual, por lo que no
+     * hace falta limpiarlos.</p>
+     *
+     * @param graph El grafo sobre el que se harán las búsquedas.
+     * @return La búsqueda del hilo actual.
+     */
+    static DijkstraSearch forThread(CompactGraph graph) {
+        DijkstraSearch search = WORKSPACES.get();
+        if (search == null) {
+            search = new DijkstraSearch(graph);
+            WORKSPACES.set(search);
+        } else if (search.graph != graph) {
+            search.graph = graph;
+            search.source = -1;
+            if (graph.vertexCount() > search.distance.length) {
+                search.allocate(graph.vertexCount());
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Obtiene el grafo sobre el que opera esta búsqueda.
+     *
+     * @return El grafo compacto.
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Ejecuta Dijkstra desde {@code source} y se detiene al asentar {@code target}.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return La distancia más corta, o {@code Double.POSITIVE_INFINITY} si no es alcanzable.
+     */
+    public double run(int source, int target) {
+        begin();
+        search(source, target, SearchHeuristic.NONE);
+        return distance(target);
+    }
+
+    /**
+     * Ejecuta A* desde {@code source} hasta {@code target} guiado por una heurística.
+     *
+     * <p>La heurística debe ser consistente; de lo contrario la ruta devuelta puede no ser
+     * la más corta.</p>
+     *
+     * @param source    Identificador del vértice de origen.
+     * @param target    Identificador del vértice de destino.
+     * @param heuristic Cota inferior de la distancia restante hasta {@code target}.
+     * @return La distancia más corta, o {@code Double.POSITIVE_INFINITY} si no es alcanzable.
+     */
+    public double run(int source, int target, SearchHeuristic heuristic) {
+        begin();
+        search(source, target, heuristic);
+        return distance(target);
+    }
+
+    /**
+     * Ejecuta Dijkstra desde {@code source} hasta asentar todos los vértices alcanzables.
+     *
+     * @param source Identificador del vértice de origen.
+     */
+    public void runAll(int source) {
+        begin();
+        search(source, -1, SearchHeuristic.NONE);
+    }
+
+    /**
+     * Ejecuta Dijkstra desde {@code source} y se detiene cuando se han asentado todos los
+     * destinos indicados, de modo que una sola búsqueda sirve para varios destinos.
+     *
+     * @param source  Identificador del vértice de origen.
+     * @param targets Identificadores de los vértices de destino; puede contener repetidos.
+     */
+    public void runToAll(int source, int[] targets) {
+        nextGeneration();
+        if (targetMark == null) {
+            targetMark = new int[distance.length];
+        }
+        int pending = 0;
+        for (int target : targets) {
+            if (targetMark[target] != generation) {
+                targetMark[target] = generation;
+                pending++;
+            }
+        }
+        remainingTargets = pending;
+        search(source, -1, SearchHeuristic.NONE);
+    }
+
+    private void search(int source, int target, SearchHeuristic heuristic) {
+        this.source = source;
+        heap.clear();
+        settledCount = 0;
+
+        reach(source, 0.0, -1, -1);
+        estimate[source] = heuristic.lowerBound(source);
+        heap.insertOrDecrease(source, estimate[source]);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled[u] = generation;
+            settledCount++;
+            if (u == target || (remainingTargets > 0 && targetMark[u] == generation && --remainingTargets == 0)) {
+                return;
+            }
+            double du = distance[u];
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.target(arc);
+                if (settled[v] == generation) {
+                    continue;
+                }
+                double dv = du + graph.weight(arc);
+                if (reached[v] != generation) {
+                    reach(v, dv, u, arc);
+                    estimate[v] = heuristic.lowerBound(v);
+                    heap.insertOrDecrease(v, dv + estimate[v]);
+                } else if (dv < distance[v]) {
+                    reach(v, dv, u, arc);
+                    heap.insertOrDecrease(v, dv + estimate[v]);
+                }
+            }
+        }
+    }
+
+    private void reach(int vertex, double dist, int pred, int arc) {
+        reached[vertex] = generation;
+        distance[vertex] = dist;
+        predecessor[vertex] = pred;
+        predecessorArc[vertex] = arc;
+    }
+
+    private void begin() {
+        nextGeneration();
+        remainingTargets = 0;
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            if (targetMark != null) {
+                Arrays.fill(targetMark, 0);
+            }
+            if (totalMark != null) {
+                Arrays.fill(totalMark, 0);
+            }
+            generation = 1;
+        }
+    }
+
+    /**
+     * Obtiene la distancia calculada para un vértice en la última búsqueda.
+     *
+     * @param vertex Identificador del vértice.
+     * @return La distancia, o {@code Double.POSITIVE_INFINITY} si no fue alcanzado.
+     */
+    public double distance(int vertex) {
+        return reached[vertex] == generation ? distance[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Obtiene el predecesor de un vértice en la última búsqueda.
+     *
+     * @param vertex Identificador del vértice.
+     * @return El vértice predecesor, o {@code -1} si es el origen o no fue alcanzado.
+     */
+    int predecessor(int vertex) {
+        return reached[vertex] == generation ? predecessor[vertex] : -1;
+    }
+
+    /**
+     * Indica si un vértice quedó asentado (con distancia definitiva) en la última búsqueda.
+     *
+     * @param vertex Identificador del vértice.
+     * @return {@code true} si el vértice fue asentado.
+     */
+    public boolean isSettled(int vertex) {
+        return settled[vertex] == generation;
+    }
+
+    /**
+     * Obtiene el número de vértices asentados en la última búsqueda.
+     *
+     * @return Cantidad de vértices asentados.
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Suma el costo y el tiempo de los arcos de la ruta más corta hasta cada destino de la
+     * última búsqueda, subiendo por el árbol de predecesores. Los tramos que comparten varios
+     * destinos se suman una sola vez.
+     *
+     * @param targets Identificadores de los destinos.
+     * @param costs   Recibe el costo de cada destino, o {@code Double.POSITIVE_INFINITY} si no
+     *                fue asentado.
+     * @param times   Recibe el tiempo de cada destino, igual que {@code costs}.
+     * @param offset  Posición de {@code costs} y {@code times} para el primer destino.
+     */
+    void accumulateTotals(int[] targets, double[] costs, double[] times, int offset) {
+        if (totalMark == null) {
+            int capacity = distance.length;
+            totalMark = new int[capacity];
+            totalCost = new double[capacity];
+            totalTime = new double[capacity];
+            walk = new int[capacity];
+        }
+        totalMark[source] = generation;
+        totalCost[source] = 0.0;
+        totalTime[source] = 0.0;
+        for (int j = 0; j < targets.length; j++) {
+            int target = targets[j];
+            if (!isSettled(target)) {
+                costs[offset + j] = Double.POSITIVE_INFINITY;
+                times[offset + j] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            int depth = 0;
+            for (int v = target; totalMark[v] != generation; v = predecessor[v]) {
+                walk[depth++] = v;
+            }
+            while (depth > 0) {
+                int v = walk[--depth];
+                int arc = predecessorArc[v];
+                totalCost[v] = totalCost[predecessor[v]] + graph.cost(arc);
+                totalTime[v] = totalTime[predecessor[v]] + graph.time(arc);
+                totalMark[v] = generation;
+            }
+            costs[offset + j] = totalCost[target];
+            times[offset + j] = totalTime[target];
+        }
+    }
+
+    /**
+     * Reconstruye la ruta hasta {@code target} a partir de la última búsqueda.
+     *
+     * @param target Identificador del vértice de destino.
+     * @return La ruta, o {@code null} si el destino no fue asentado.
+     */
+    public RoutePath route(int target) {
+        if (!isSettled(target)) {
+            return null;
+        }
+        RoutePath route = RoutePath.fromPredecessors(graph, target, distance[target], predecessor, predecessorArc);
+        return route.withSettledCount(settledCount);
+    }
+
+    /**
+     * Copia el resultado de la última búsqueda completa en un árbol de caminos más cortos
+     * independiente de este espacio de trabajo.
+     *
+     * @return El árbol de caminos más cortos desde el último origen.
+     */
+    public ShortestPathTree toTree() {
+        int n = graph.vertexCount();
+        double[] treeDistance = new double[n];
+        int[] treePredecessor = new int[n];
+        int[] treeArc = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (settled[v] == generation) {
+                treeDistance[v] = distance[v];
+                treePredecessor[v] = predecessor[v];
+                treeArc[v] = predecessorArc[v];
+            } else {
+                treeDistance[v] = Double.POSITIVE_INFINITY;
+                treePredecessor[v] = -1;
+                treeArc[v] = -1;
+            }
+        }
+        return new ShortestPathTree(graph, source, treeDistance, treePredecessor, treeArc);
+    }
+}
@@ -0,0 +1,263 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Matriz precalculada de distancias y predecesores entre todos los pares de ubicaciones.
+ *
+ * <p>Se ejecuta un Dijkstra por origen, repartiendo los orígenes entre los hilos de un
+ * {@link ForkJoinPool}, y los resultados se guardan en dos arreglos planos
+ * {@code distance[s * n + t]} y {@code predecessor[s * n + t]}. Con la matriz construida, la
+ * distancia entre dos ubicaciones es una lectura y la ruta se reconstruye en tiempo proporcional
+ * a su número de tramos.</p>
+ *
+ * <p>La memoria crece con el cuadrado del número de ubicaciones, por lo que solo conviene para
+ * grafos pequeños o medianos. Las instancias son inmutables: {@link #update(CompactGraph, List)}
+ * devuelve una nueva matriz reparada de forma incremental.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class DistanceMatrix {
+
+    /**
+     * Máximo de ubicaciones de una matriz: {@code n * n} debe caber en un arreglo de Java.
+     */
+    public static final int MAX_VERTICES = 46_340;
+
+    private final CompactGraph graph;
+    private final int vertexCount;
+    private final double[] distance;
+    private final int[] predecessor;
+
+    private DistanceMatrix(CompactGraph graph, double[] distance, int[] predecessor) {
+        this.graph = graph;
+        this.vertexCount = graph.vertexCount();
+        this.distance = distance;
+        this.predecessor = predecessor;
+    }
+
+    /**
+     * Construye la matriz usando el pool común de hilos.
+     *
+     * @param graph El grafo compacto.
+     * @return La matriz construida.
+     */
+    public static DistanceMatrix build(CompactGraph graph) {
+        return build(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construye la matriz ejecutando un Dijkstra por origen en el pool indicado.
+     *
+     * @param graph El grafo compacto.
+     * @param pool  Pool de hilos en el que se reparten los orígenes.
+     * @return La matriz construida.
+     * @throws IllegalArgumentException si el grafo tiene más de {@value #MAX_VERTICES}
+     *                                  ubicaciones.
+     */
+    public static DistanceMatrix build(CompactGraph graph, ForkJoinPool pool) {
+        int n = graph.vertexCount();
+        checkSize(n);
+        double[] distance = new double[n * n];
+        int[] predecessor = new int[n * n];
+        ThreadLocal<DijkstraSearch> searches = ThreadLocal.withInitial(() -> new DijkstraSearch(graph));
+        pool.submit(() -> IntStream.range(0, n).parallel()
+                        .forEach(s -> fillRow(searches.get(), s, distance, predecessor, n)))
+                .join();
+        return new DistanceMatrix(graph, distance, predecessor);
+    }
+
+    private static void checkSize(int n) {
+        if (n > MAX_VERTICES) {
+            throw new IllegalArgumentException("La matriz de distancias admite como máximo " + MAX_VERTICES
+                    + " ubicaciones; el grafo tiene " + n + ".");
+        }
+    }
+
+    private static void fillRow(DijkstraSearch search, int source, double[] distance, int[] predecessor, int n) {
+        search.runAll(source);
+        int base = source * n;
+        for (int v = 0; v < n; v++) {
+            distance[base + v] = search.distance(v);
+            predecessor[base + v] = search.predecessor(v);
+        }
+    }
+
+    /**
+     * Devuelve una matriz actualizada para el grafo que ya contiene los cambios indicados.
+     *
+     * <p>Solo se recalculan con Dijkstra las filas de los orígenes cuyo árbol de caminos más
+     * cortos usaba una ruta alargada o eliminada. En el resto de filas las rutas nuevas o más
+     * cortas se propagan visitando únicamente los vértices que mejoran; las filas de ubicaciones
+     * nuevas se completan del mismo modo a partir de sus rutas.</p>
+     *
+     * @param graph   El grafo compacto actualizado. Los identificadores existentes deben
+     *                mantenerse y las ubicaciones nuevas ir al final.
+     * @param changes Cambios de rutas desde que se construyó esta matriz.
+     * @return Una nueva matriz válida para {@code graph}.
+     */
+    public DistanceMatrix update(CompactGraph graph, List<RouteChange> changes) {
+        changes = SsspRepair.netChanges(changes);
+        int n = graph.vertexCount();
+        int old = vertexCount;
+        if (n < old) {
+            return build(graph);
+        }
+        checkSize(n);
+
+        double[] newDistance = new double[n * n];
+        int[] newPredecessor = new int[n * n];
+        Arrays.fill(newDistance, Double.POSITIVE_INFINITY);
+        Arrays.fill(newPredecessor, -1);
+        for (int s = 0; s < old; s++) {
+            System.arraycopy(distance, s * old, newDistance, s * n, old);
+            System.arraycopy(predecessor, s * old, newPredecessor, s * n, old);
+        }
+        for (int s = old; s < n; s++) {
+            newDistance[s * n + s] = 0.0;
+        }
+
+        int[] from = new int[changes.size()];
+        int[] to = new int[changes.size()];
+        double[] weights = new double[changes.size()];
+        int decreases = 0;
+        boolean[] stale = new boolean[n];
+        for (RouteChange change : changes) {
+            int u = graph.indexOf(change.getFrom());
+            int v = graph.indexOf(change.getTo());
+            if (u < 0 || v < 0) {
+                return build(graph);
+            }
+            if (change.isIncrease()) {
+                if (u < old && v < old) {
+                    for (int s = 0; s < old; s++) {
+                        if (newPredecessor[s * n + v] == u || newPredecessor[s * n + u] == v) {
+                            stale[s] = true;
+                        }
+                    }
+                }
+            } else if (!Double.isNaN(change.getNewDistance())) {
+                from[decreases] = u;
+                to[decreases] = v;
+                weights[decreases] = change.getNewDistance();
+                decreases++;
+            }
+        }
+
+        int count = decreases;
+        ThreadLocal<DijkstraSearch> searches = ThreadLocal.withInitial(() -> new DijkstraSearch(graph));
+        ThreadLocal<SsspRepair> repairs = ThreadLocal.withInitial(() -> new SsspRepair(graph));
+        ForkJoinPool.commonPool().submit(() -> IntStream.range(0, n).parallel().forEach(s -> {
+            if (stale[s]) {
+                fillRow(searches.get(), s, newDistance, newPredecessor, n);
+            } else if (count > 0) {
+                repairs.get().relaxDecreases(newDistance, newPredecessor, s * n, from, to, weights, count);
+            }
+        })).join();
+        return new DistanceMatrix(graph, newDistance, newPredecessor);
+    }
+
+    /**
+     * Indica si esta matriz corresponde al grafo indicado.
+     *
+     * @param graph El grafo a comprobar.
+     * @return {@code true} si el grafo tiene el mismo contenido que el usado al construir.
+     */
+    public boolean isBuiltFor(CompactGraph graph) {
+        return graph == this.graph
+                || (graph.vertexCount() == vertexCount && graph.fingerprint() == this.graph.fingerprint());
+    }
+
+    /**
+     * Obtiene el número de ubicaciones de la matriz.
+     *
+     * @return Cantidad de filas (y columnas) de la matriz.
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos vértices.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return La distancia, o {@code Double.POSITIVE_INFINITY} si no están conectados.
+     */
+    public double distance(int source, int target) {
+        return distance[source * vertexCount + target];
+    }
+
+    /**
+     * Reconstruye la ruta más corta entre dos vértices recorriendo la fila del origen.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return La ruta, o {@code null} si no están conectados.
+     */
+    public RoutePath route(int source, int target) {
+        int base = source * vertexCount;
+        double weight = distance[base + target];
+        if (weight == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+
+        int legs = 0;
+        for (int v = target; v != source; v = predecessor[base + v]) {
+            legs++;
+        }
+        Location[] vertices = new Location[legs + 1];
+        double[] legDistances = new double[legs];
+        int v = target;
+        for (int i = legs; i > 0; i--) {
+            int u = predecessor[base + v];
+            vertices[i] = graph.location(v);
+            legDistances[i - 1] = arcWeight(u, v);
+            v = u;
+        }
+        vertices[0] = graph.location(source);
+
+        List<Location> list = new ArrayList<>(vertices.length);
+        Collections.addAll(list, vertices);
+        return new RoutePath(list, weight, legDistances);
+    }
+
+    /**
+     * Suma el costo y el tiempo de los arcos de la ruta más corta entre dos vértices.
+     *
+     * @param source Identificador del vértice de origen.
+     * @param target Identificador del vértice de destino.
+     * @return El costo y el tiempo, o {@code Double.POSITIVE_INFINITY} en ambos si no están
+     *         conectados.
+     */
+    double[] totals(int source, int target) {
+        int base = source * vertexCount;
+        if (distance[base + target] == Double.POSITIVE_INFINITY) {
+            return new double[] {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        }
+        double cost = 0.0;
+        double time = 0.0;
+        for (int v = target; v != source; v = predecessor[base + v]) {
+            int arc = graph.findArc(predecessor[base + v], v);
+            cost += graph.cost(arc);
+            time += graph.time(arc);
+        }
+        return new double[] {cost, time};
+    }
+
+    private double arcWeight(int u, int v) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+            if (graph.target(arc) == v && graph.weight(arc) < best) {
+                best = graph.weight(arc);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,330 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Árbol de caminos más cortos de un origen que se repara con los cambios de rutas en lugar de
+ * recalcularse, al estilo de Ramalingam y Reps.
+ *
+ * <p>Para un alargamiento o una eliminación solo importa si la ruta era arista del árbol: en ese
+ * caso se invalida el subárbol que colgaba de ella, cada vértice del subárbol toma como
+ * distancia provisional la mejor que le ofrecen sus vecinos de fuera del subárbol, y un Dijkstra
+ * limitado a esos vértices fija las distancias nuevas. Los acortamientos y las rutas nuevas se
+ * propagan después desde sus extremos y solo visitan los vértices que mejoran. El trabajo es
+ * proporcional a la parte del árbol que cambia y a sus vecinos, no al tamaño del grafo.</p>
+ *
+ * <p>Cada reparación produce un árbol nuevo y deja intacto el anterior, que puede seguir
+ * leyéndose desde otra instantánea.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class DynamicShortestPathTree {
+
+    private final CompactGraph graph;
+    private final int source;
+    private final double[] distance;
+    private final int[] predecessor;
+
+    /**
+     * Arco de la ruta entre cada vértice y su predecesor, en cualquiera de los dos sentidos
+     * (solo se usa su peso), o {@code -1}.
+     */
+    private final int[] predecessorArc;
+
+    private DynamicShortestPathTree(CompactGraph graph, int source, double[] distance,
+                                    int[] predecessor, int[] predecessorArc) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.predecessor = predecessor;
+        this.predecessorArc = predecessorArc;
+    }
+
+    /**
+     * Calcula el árbol desde cero con un Dijkstra completo.
+     *
+     * @param graph  El grafo compacto.
+     * @param source Identificador del origen.
+     * @return El árbol.
+     */
+    static DynamicShortestPathTree build(CompactGraph graph, int source) {
+        DijkstraSearch search = new DijkstraSearch(graph);
+        search.runAll(source);
+        ShortestPathTree tree = search.toTree();
+        int n = graph.vertexCount();
+        double[] distance = new double[n];
+        int[] predecessor = new int[n];
+        int[] predecessorArc = new int[n];
+        for (int v = 0; v < n; v++) {
+            distance[v] = tree.distance(v);
+            predecessor[v] = tree.predecessor(v);
+            predecessorArc[v] = tree.predecessorArc(v);
+        }
+        return new DynamicShortestPathTree(graph, source, distance, predecessor, predecessorArc);
+    }
+
+    /**
+     * Repara el árbol con los cambios aplicados al grafo.
+     *
+     * <p>Los arreglos del árbol solo se copian si algún vértice cambia de distancia o de
+     * predecesor; si los cambios no afectan al árbol, el nuevo comparte los del anterior.</p>
+     *
+     * @param graph      El grafo que ya contiene los cambios.
+     * @param changes    Cambios de rutas desde el grafo de este árbol.
+     * @param statistics Contadores donde se acumula el trabajo realizado.
+     * @return El árbol reparado para {@code graph}.
+     */
+    DynamicShortestPathTree update(CompactGraph graph, List<RouteChange> changes,
+                                   DynamicTreeStatistics statistics) {
+        long start = System.nanoTime();
+        List<RouteChange> net = SsspRepair.netChanges(changes);
+        int n = graph.vertexCount();
+        if (n < distance.length) {
+            return build(graph, source);
+        }
+
+        Repair repair = WORKSPACES.get().begin(graph, distance, predecessor, predecessorArc);
+        if (n > distance.length || !graph.sharesArcsWith(this.graph)) {
+            repair.copy();
+            if (!graph.sharesArcsWith(this.graph)) {
+                repair.relocateArcs(distance.length);
+            }
+        }
+        for (RouteChange change : net) {
+            if (change.isIncrease()) {
+                repair.invalidate(graph.indexOf(change.getFrom()), graph.indexOf(change.getTo()));
+            }
+        }
+        repair.resettleInvalidated();
+        for (RouteChange change : net) {
+            if (!change.isIncrease()) {
+                repair.relaxEdge(graph.indexOf(change.getFrom()), graph.indexOf(change.getTo()));
+            }
+        }
+        repair.propagate();
+
+        DynamicShortestPathTree result = new DynamicShortestPathTree(graph, source, repair.distance,
+                repair.predecessor, repair.predecessorArc);
+        statistics.record(net.size(), repair.settled, System.nanoTime() - start);
+        repair.end();
+        return result;
+    }
+
+    /**
+     * Obtiene el identificador del origen.
+     *
+     * @return El vértice de origen.
+     */
+    int source() {
+        return source;
+    }
+
+    /**
+     * Expone el árbol como un {@link ShortestPathTree} de solo lectura, sin copiar los arreglos.
+     *
+     * @return El árbol de caminos más cortos.
+     */
+    ShortestPathTree toTree() {
+        return new ShortestPathTree(graph, source, distance, predecessor, predecessorArc);
+    }
+
+    /**
+     * Espacio de trabajo de las reparaciones de cada hilo, que se reutiliza entre árboles y
+     * versiones para no reservar arreglos del tamaño del grafo en cada cambio.
+     */
+    private static final ThreadLocal<Repair> WORKSPACES = ThreadLocal.withInitial(Repair::new);
+
+    /**
+     * Estado de una reparación. Trabaja sobre los arreglos del árbol anterior hasta la primera
+     * escritura, y entonces los copia.
+     */
+    private static final class Repair {
+        private IndexedMinHeap heap = new IndexedMinHeap(0);
+        private int[] invalidMark = new int[0];
+        private int[] invalidated = new int[0];
+        private int generation;
+        private int invalidCount;
+
+        private CompactGraph graph;
+        private double[] distance;
+        private int[] predecessor;
+        private int[] predecessorArc;
+        private boolean copied;
+
+        /**
+         * Vértices asentados durante la reparación.
+         */
+        private int settled;
+
+        Repair begin(CompactGraph graph, double[] distance, int[] predecessor, int[] predecessorArc) {
+            int n = graph.vertexCount();
+            if (invalidMark.length < n) {
+                int capacity = Math.max(n, invalidMark.length * 2);
+                heap = new IndexedMinHeap(capacity);
+                invalidMark = new int[capacity];
+                invalidated = new int[capacity];
+                generation = 0;
+            }
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(invalidMark, 0);
+                generation = 1;
+            }
+            heap.clear();
+            invalidCount = 0;
+            settled = 0;
+            this.graph = graph;
+            this.distance = distance;
+            this.predecessor = predecessor;
+            this.predecessorArc = predecessorArc;
+            this.copied = false;
+            return this;
+        }
+
+        void end() {
+            graph = null;
+            distance = null;
+            predecessor = null;
+            predecessorArc = null;
+        }
+
+        /**
+         * Copia los arreglos del árbol (ampliados a los vértices del grafo nuevo) antes de
+         * modificarlos.
+         */
+        void copy() {
+            if (copied) {
+                return;
+            }
+            int previous = distance.length;
+            int n = graph.vertexCount();
+            distance = Arrays.copyOf(distance, n);
+            predecessor = Arrays.copyOf(predecessor, n);
+            predecessorArc = Arrays.copyOf(predecessorArc, n);
+            Arrays.fill(distance, previous, n, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecessor, previous, n, -1);
+            Arrays.fill(predecessorArc, previous, n, -1);
+            copied = true;
+        }
+
+        /**
+         * Vuelve a localizar los arcos de las aristas del árbol en un grafo con los arcos
+         * renumerados.
+         */
+        void relocateArcs(int previous) {
+            for (int v = 0; v < previous; v++) {
+                if (predecessor[v] >= 0) {
+                    predecessorArc[v] = graph.findArc(v, predecessor[v]);
+                }
+            }
+        }
+
+        private boolean isInvalid(int vertex) {
+            return invalidMark[vertex] == generation;
+        }
+
+        /**
+         * Invalida el subárbol que cuelga de la ruta {@code u - v} si era arista del árbol.
+         */
+        void invalidate(int u, int v) {
+            int child = predecessor[v] == u ? v : predecessor[u] == v ? u : -1;
+            if (child < 0 || isInvalid(child)) {
+                return;
+            }
+            // Recorre el subárbol bajando por las aristas del árbol que siguen en el grafo; si
+            // otra arista del árbol se eliminó, su propio cambio invalida lo que cuelga de ella.
+            int head = invalidCount;
+            invalidMark[child] = generation;
+            invalidated[invalidCount++] = child;
+            while (head < invalidCount) {
+                int x = invalidated[head++];
+                for (int arc = graph.firstArc(x), end = graph.endArc(x); arc < end; arc++) {
+                    int y = graph.target(arc);
+                    if (!isInvalid(y) && predecessor[y] == x) {
+                        invalidMark[y] = generation;
+                        invalidated[invalidCount++] = y;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Recalcula las distancias de los vértices invalidados a partir de sus vecinos válidos.
+         */
+        void resettleInvalidated() {
+            if (invalidCount == 0) {
+                return;
+            }
+            copy();
+            for (int i = 0; i < invalidCount; i++) {
+                int x = invalidated[i];
+                distance[x] = Double.POSITIVE_INFINITY;
+                predecessor[x] = -1;
+                predecessorArc[x] = -1;
+            }
+            for (int i = 0; i < invalidCount; i++) {
+                int x = invalidated[i];
+                for (int arc = graph.firstArc(x), end = graph.endArc(x); arc < end; arc++) {
+                    int y = graph.target(arc);
+                    if (isInvalid(y)) {
+                        continue;
+                    }
+                    double candidate = distance[y] + graph.weight(arc);
+                    if (candidate < distance[x]) {
+                        distance[x] = candidate;
+                        predecessor[x] = y;
+                        predecessorArc[x] = arc;
+                    }
+                }
+                if (distance[x] != Double.POSITIVE_INFINITY) {
+                    heap.insertOrDecrease(x, distance[x]);
+                }
+            }
+            propagate();
+        }
+
+        /**
+         * Prueba la ruta {@code u - v} en ambos sentidos y encola el extremo que mejora.
+         */
+        void relaxEdge(int u, int v) {
+            int arc = graph.findArc(u, v);
+            if (arc < 0) {
+                return;
+            }
+            double weight = graph.weight(arc);
+            if (distance[u] + weight < distance[v]) {
+                settle(v, distance[u] + weight, u, arc);
+            } else if (distance[v] + weight < distance[u]) {
+                settle(u, distance[v] + weight, v, arc);
+            }
+        }
+
+        /**
+         * Propaga las mejoras encoladas con un Dijkstra que solo visita los vértices que mejoran.
+         */
+        void propagate() {
+            while (!heap.isEmpty()) {
+                int x = heap.poll();
+                settled++;
+                double dx = distance[x];
+                for (int arc = graph.firstArc(x), end = graph.endArc(x); arc < end; arc++) {
+                    int y = graph.target(arc);
+                    double candidate = dx + graph.weight(arc);
+                    if (candidate < distance[y]) {
+                        settle(y, candidate, x, arc);
+                    }
+                }
+            }
+        }
+
+        private void settle(int vertex, double dist, int pred, int arc) {
+            copy();
+            distance[vertex] = dist;
+            predecessor[vertex] = pred;
+            predecessorArc[vertex] = arc;
+            heap.insertOrDecrease(vertex, dist);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package co.edu.uptc.taller.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores acumulados de las reparaciones de los árboles de caminos más cortos que
+ * {@link DeliveryGraph} mantiene para los orígenes frecuentes.
+ *
+ * <p>Permiten medir cuánto trabajo cuesta absorber un flujo de cambios de distancias: cuántas
+ * reparaciones se hicieron, cuántos cambios de rutas se aplicaron, cuántos vértices hubo que
+ * volver a asentar y cuánto tiempo llevó. Los contadores se pueden leer mientras otros hilos
+ * reparan árboles.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class DynamicTreeStatistics {
+
+    private final LongAdder repairs = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder settledVertices = new LongAdder();
+    private final LongAdder repairNanos = new LongAdder();
+
+    /**
+     * Registra una reparación.
+     *
+     * @param changeCount  Cambios de rutas aplicados.
+     * @param settledCount Vértices asentados de nuevo.
+     * @param nanos        Duración de la reparación en nanosegundos.
+     */
+    void record(int changeCount, int settledCount, long nanos) {
+        repairs.increment();
+        changes.add(changeCount);
+        settledVertices.add(settledCount);
+        repairNanos.add(nanos);
+    }
+
+    /**
+     * Obtiene el número de reparaciones hechas (una por árbol e instantánea consultada).
+     *
+     * @return Cantidad de reparaciones.
+     */
+    public long getRepairCount() {
+        return repairs.sum();
+    }
+
+    /**
+     * Obtiene el número de cambios de rutas aplicados a los árboles.
+     *
+     * @return Cantidad de cambios.
+     */
+    public long getChangeCount() {
+        return changes.sum();
+    }
+
+    /**
+     * Obtiene el número de vértices que hubo que volver a asentar.
+     *
+     * @return Cantidad de vértices.
+     */
+    public long getSettledVertexCount() {
+        return settledVertices.sum();
+    }
+
+    /**
+     * Obtiene el tiempo total dedicado a reparar árboles.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public double getTotalRepairMillis() {
+        return repairNanos.sum() / 1_000_000.0;
+    }
+
+    /**
+     * Obtiene el número de cambios de rutas que se pueden absorber por segundo al ritmo medio
+     * observado.
+     *
+     * @return Cambios por segundo, o {@code 0} si aún no hay reparaciones.
+     */
+    public double getChangesPerSecond() {
+        long nanos = repairNanos.sum();
+        return nanos == 0 ? 0.0 : changes.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * Pone todos los contadores a cero.
+     */
+    public void reset() {
+        repairs.reset();
+        changes.reset();
+        settledVertices.reset();
+        repairNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d reparaciones, %d cambios, %d vértices asentados, %.1f ms",
+                getRepairCount(), getChangeCount(), getSettledVertexCount(), getTotalRepairMillis());
+    }
+}
@@ -0,0 +1,52 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Utilidades para calcular distancias geográficas sobre la superficie terrestre.
+ *
+ * @author
+ * @version 1.0
+ */
+public final class GeoDistance {
+
+    /**
+     * Radio medio de la Tierra en kilómetros.
+     */
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Calcula la distancia de gran círculo entre dos puntos con la fórmula del haversine.
+     *
+     * @param lat1 Latitud del primer punto en grados.
+     * @param lon1 Longitud del primer punto en grados.
+     * @param lat2 Latitud del segundo punto en grados.
+     * @param lon2 Longitud del segundo punto en grados.
+     * @return La distancia en kilómetros.
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Calcula la distancia de gran círculo entre dos ubicaciones con coordenadas.
+     *
+     * @param from La primera ubicación.
+     * @param to   La segunda ubicación.
+     * @return La distancia en kilómetros.
+     * @throws IllegalArgumentException si alguna de las ubicaciones no tiene coordenadas.
+     */
+    public static double haversineKm(Location from, Location to) {
+        if (!from.hasCoordinates() || !to.hasCoordinates()) {
+            throw new IllegalArgumentException("Ambas ubicaciones deben tener coordenadas.");
+        }
+        return haversineKm(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+}
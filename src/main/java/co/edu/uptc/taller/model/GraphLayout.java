@@ -0,0 +1,854 @@
+package co.edu.uptc.taller.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Posición de cada ubicación de un grafo para dibujarlo, dentro de un lienzo de
+ * {@value #WIDTH} x {@value #HEIGHT}.
+ *
+ * <p>Si todas las ubicaciones tienen coordenadas, se proyectan con una proyección
+ * equirrectangular centrada en la latitud media. Si no, se usa una disposición por fuerzas
+ * (Fruchterman-Reingold): las rutas atraen a sus extremos y todas las ubicaciones se repelen
+ * entre sí. La repulsión se aproxima con un árbol cuaternario de Barnes-Hut, que reduce cada
+ * iteración a {@code O(n log n)}, y las fuerzas de cada ubicación se calculan en paralelo. Sin
+ * coordenadas, la disposición es multinivel para que los grafos grandes se desenreden con pocas
+ * iteraciones. Las ubicaciones con coordenadas quedan fijas en su posición proyectada y el resto
+ * se acomoda a su alrededor. El resultado es determinista para un mismo grafo.</p>
+ *
+ * <p>Las instancias son inmutables: {@link #update(GraphLayout, CompactGraph, List)} devuelve
+ * una nueva disposición que parte de la anterior.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class GraphLayout {
+
+    /**
+     * Ancho del lienzo.
+     */
+    public static final double WIDTH = 800;
+
+    /**
+     * Alto del lienzo.
+     */
+    public static final double HEIGHT = 600;
+
+    /**
+     * Margen libre alrededor del dibujo.
+     */
+    private static final double MARGIN = 40;
+
+    /**
+     * Identificador del formato binario de la disposición ("GLAY").
+     */
+    private static final int MAGIC = 0x474C4159;
+
+    /**
+     * Versión del formato binario de la disposición.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Iteraciones de la disposición por fuerzas en el nivel más grueso, en cada nivel más fino
+     * y al repararla tras cambios de rutas.
+     */
+    private static final int ITERATIONS = 80;
+    private static final int LEVEL_ITERATIONS = 30;
+    private static final int REFINE_ITERATIONS = 15;
+
+    /**
+     * El grafo se simplifica hasta tener a lo sumo este número de ubicaciones.
+     */
+    private static final int COARSEST_SIZE = 64;
+
+    /**
+     * Se deja de simplificar si un nivel no reduce las ubicaciones al menos a esta fracción.
+     */
+    private static final double MIN_REDUCTION = 0.85;
+
+    /**
+     * Criterio de apertura de Barnes-Hut: un grupo se aproxima por su centro de masa si su
+     * tamaño dividido por la distancia es menor que este valor.
+     */
+    private static final double THETA = 0.8;
+
+    /**
+     * Máximo de ubicaciones en una hoja del árbol cuaternario.
+     */
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Ubicaciones que procesa cada tarea paralela al calcular las fuerzas.
+     */
+    private static final int CHUNK = 256;
+
+    /**
+     * Intensidad de la atracción hacia el centro, que mantiene juntas las componentes conexas.
+     */
+    private static final double GRAVITY = 0.05;
+
+    private final long fingerprint;
+    private final double[] xs;
+    private final double[] ys;
+
+    private GraphLayout(long fingerprint, double[] xs, double[] ys) {
+        this.fingerprint = fingerprint;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * Calcula la disposición de un grafo.
+     *
+     * @param graph El grafo compacto.
+     * @return La disposición calculada.
+     */
+    public static GraphLayout build(CompactGraph graph) {
+        int n = graph.vertexCount();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        boolean[] pinned = new boolean[n];
+        int fixed = project(graph, xs, ys, pinned);
+        Level level = Level.of(graph);
+        if (fixed == 0) {
+            multilevel(level, xs, ys);
+        } else if (fixed < n) {
+            // Las ubicaciones con coordenadas se escalan a un área proporcional a n.
+            double k = Math.sqrt(area(xs, ys, pinned) / n);
+            spread(level, xs, ys, pinned, k);
+            relax(level, xs, ys, pinned, k, ITERATIONS, Math.sqrt(n) * k / 4);
+        }
+        fit(xs, ys);
+        return new GraphLayout(graph.fingerprint(), xs, ys);
+    }
+
+    /**
+     * Actualiza una disposición tras cambios de rutas. Si solo cambiaron distancias, se
+     * conservan las posiciones; si se crearon o eliminaron rutas, la disposición anterior se
+     * refina con unas pocas iteraciones en lugar de calcularse desde cero.
+     *
+     * @param layout  La disposición anterior.
+     * @param graph   El grafo con los cambios ya aplicados.
+     * @param changes Los cambios aplicados.
+     * @return La disposición del nuevo grafo.
+     */
+    static GraphLayout update(GraphLayout layout, CompactGraph graph, List<RouteChange> changes) {
+        int n = graph.vertexCount();
+        if (layout.xs.length != n) {
+            return build(graph);
+        }
+        boolean structural = false;
+        for (RouteChange change : changes) {
+            if (Double.isNaN(change.getOldDistance()) || Double.isNaN(change.getNewDistance())) {
+                structural = true;
+                break;
+            }
+        }
+        double[] xs = layout.xs.clone();
+        double[] ys = layout.ys.clone();
+        if (structural) {
+            // Las ubicaciones con coordenadas ya están en su sitio y no se mueven.
+            boolean[] pinned = new boolean[n];
+            if (project(graph, new double[n], new double[n], pinned) == n) {
+                return new GraphLayout(graph.fingerprint(), xs, ys);
+            }
+            double k = Math.sqrt(area(xs, ys, null) / n);
+            relax(Level.of(graph), xs, ys, pinned, k, REFINE_ITERATIONS, k);
+            fit(xs, ys);
+        }
+        return new GraphLayout(graph.fingerprint(), xs, ys);
+    }
+
+    /**
+     * Proyecta las ubicaciones con coordenadas y las marca como fijas.
+     *
+     * @return Cuántas ubicaciones tienen coordenadas.
+     */
+    private static int project(CompactGraph graph, double[] xs, double[] ys, boolean[] pinned) {
+        int n = graph.vertexCount();
+        List<Location> locations = graph.locations();
+        double latitudeSum = 0;
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            Location location = locations.get(v);
+            if (location.hasCoordinates()) {
+                latitudeSum += location.getLatitude();
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double scale = Math.cos(Math.toRadians(latitudeSum / count));
+        for (int v = 0; v < n; v++) {
+            Location location = locations.get(v);
+            if (location.hasCoordinates()) {
+                xs[v] = location.getLongitude() * scale;
+                ys[v] = -location.getLatitude();
+                pinned[v] = true;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Área del rectángulo que contiene las posiciones marcadas, o todas si {@code mask} es
+     * {@code null}. Nunca es cero.
+     */
+    private static double area(double[] xs, double[] ys, boolean[] mask) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < xs.length; v++) {
+            if (mask == null || mask[v]) {
+                minX = Math.min(minX, xs[v]);
+                minY = Math.min(minY, ys[v]);
+                maxX = Math.max(maxX, xs[v]);
+                maxY = Math.max(maxY, ys[v]);
+            }
+        }
+        double area = (maxX - minX) * (maxY - minY);
+        double side = Math.max(maxX - minX, maxY - minY);
+        return area > 0 ? area : Math.max(1e-9, side * side);
+    }
+
+    /**
+     * Disposición multinivel: el grafo se simplifica uniendo parejas de vecinas hasta que queda
+     * pequeño, se dispone el más simple y cada nivel más fino parte de las posiciones del
+     * anterior, por lo que basta con pocas iteraciones para refinarlo.
+     */
+    private static void multilevel(Level finest, double[] xs, double[] ys) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(finest);
+        Level level = finest;
+        while (level.size() > COARSEST_SIZE) {
+            Level coarser = level.coarsen();
+            if (coarser == null) {
+                break;
+            }
+            levels.add(coarser);
+            level = coarser;
+        }
+        int size = level.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+        boolean[] pinned = new boolean[size];
+        double k = 1.0;
+        spread(level, x, y, pinned, k);
+        relax(level, x, y, pinned, k, ITERATIONS, Math.sqrt(size) * k / 4);
+        for (int i = levels.size() - 2; i >= 0; i--) {
+            Level finer = levels.get(i);
+            int finerSize = finer.size();
+            double[] finerX = i == 0 ? xs : new double[finerSize];
+            double[] finerY = i == 0 ? ys : new double[finerSize];
+            // Cada nivel tiene más ubicaciones en un área parecida: la ruta ideal se acorta.
+            k *= Math.sqrt((double) size / finerSize);
+            for (int v = 0; v < finerSize; v++) {
+                int parent = finer.parent[v];
+                finerX[v] = x[parent] + k * 0.1 * Math.cos(v);
+                finerY[v] = y[parent] + k * 0.1 * Math.sin(v);
+            }
+            relax(finer, finerX, finerY, new boolean[finerSize], k, LEVEL_ITERATIONS, 2 * k);
+            x = finerX;
+            y = finerY;
+            size = finerSize;
+        }
+    }
+
+    /**
+     * Coloca las ubicaciones sin coordenadas: junto a sus vecinas fijas si las tienen y, si no,
+     * en una espiral de Fermat alrededor del centro, en orden de recorrido en anchura para que
+     * las vecinas empiecen cerca y las fuerzas no tengan que desenredarlas.
+     */
+    private static void spread(Level graph, double[] xs, double[] ys, boolean[] pinned, double k) {
+        int n = xs.length;
+        double centerX = 0;
+        double centerY = 0;
+        int fixed = 0;
+        for (int v = 0; v < n; v++) {
+            if (pinned[v]) {
+                centerX += xs[v];
+                centerY += ys[v];
+                fixed++;
+            }
+        }
+        if (fixed > 0) {
+            centerX /= fixed;
+            centerY /= fixed;
+        }
+        int[] rank = breadthFirstRank(graph);
+        double goldenAngle = Math.PI * (3 - Math.sqrt(5));
+        for (int v = 0; v < n; v++) {
+            if (pinned[v]) {
+                continue;
+            }
+            double sumX = 0;
+            double sumY = 0;
+            int neighbours = 0;
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                int w = graph.target(arc);
+                if (pinned[w]) {
+                    sumX += xs[w];
+                    sumY += ys[w];
+                    neighbours++;
+                }
+            }
+            double radius = k * Math.sqrt(rank[v] + 0.5);
+            double angle = rank[v] * goldenAngle;
+            if (neighbours > 0) {
+                xs[v] = sumX / neighbours + k * 0.1 * Math.cos(angle);
+                ys[v] = sumY / neighbours + k * 0.1 * Math.sin(angle);
+            } else {
+                xs[v] = centerX + radius * Math.cos(angle);
+                ys[v] = centerY + radius * Math.sin(angle);
+            }
+        }
+    }
+
+    /**
+     * Numera las ubicaciones en orden de recorrido en anchura, componente por componente.
+     */
+    private static int[] breadthFirstRank(Level graph) {
+        int n = graph.size();
+        int[] rank = new int[n];
+        Arrays.fill(rank, -1);
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int start = 0; start < n; start++) {
+            if (rank[start] >= 0) {
+                continue;
+            }
+            int head = tail;
+            rank[start] = tail;
+            queue[tail++] = start;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int w = graph.target(arc);
+                    if (rank[w] < 0) {
+                        rank[w] = tail;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Aplica iteraciones de Fruchterman-Reingold con repulsión de Barnes-Hut.
+     *
+     * @param k           Longitud ideal de una ruta.
+     * @param iterations  Número de iteraciones.
+     * @param temperature Desplazamiento máximo en la primera iteración; decrece linealmente.
+     */
+    private static void relax(Level graph, double[] xs, double[] ys, boolean[] pinned, double k,
+                              int iterations, double temperature) {
+        int n = xs.length;
+        if (n < 2) {
+            return;
+        }
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+        QuadTree tree = new QuadTree(n);
+        double k2 = k * k;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            tree.build(xs, ys);
+            double centerX = tree.centerX[0];
+            double centerY = tree.centerY[0];
+            double limit = temperature * (1 - (double) iteration / iterations);
+            IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+                int[] stack = new int[QuadTree.STACK_SIZE];
+                double[] repulsion = new double[2];
+                // Se recorre en el orden del árbol: ubicaciones cercanas visitan los mismos nodos.
+                for (int i = chunk * CHUNK, end = Math.min(n, i + CHUNK); i < end; i++) {
+                    int v = tree.order[i];
+                    if (pinned[v]) {
+                        continue;
+                    }
+                    double fx = 0;
+                    double fy = 0;
+                    // Atracción de las rutas: d² / k.
+                    for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                        int w = graph.target(arc);
+                        double ex = xs[w] - xs[v];
+                        double ey = ys[w] - ys[v];
+                        double distance = Math.sqrt(ex * ex + ey * ey);
+                        fx += ex * distance / k;
+                        fy += ey * distance / k;
+                    }
+                    // Repulsión de todas las ubicaciones: k² / d.
+                    tree.repulsion(v, xs, ys, k2, stack, repulsion);
+                    fx += repulsion[0];
+                    fy += repulsion[1];
+                    // Gravedad hacia el centro de masa.
+                    fx += GRAVITY * (centerX - xs[v]) / k;
+                    fy += GRAVITY * (centerY - ys[v]) / k;
+                    double length = Math.sqrt(fx * fx + fy * fy);
+                    if (length > 0) {
+                        double step = Math.min(length, limit) / length;
+                        dx[v] = fx * step;
+                        dy[v] = fy * step;
+                    } else {
+                        dx[v] = 0;
+                        dy[v] = 0;
+                    }
+                }
+            });
+            for (int v = 0; v < n; v++) {
+                if (!pinned[v]) {
+                    xs[v] += dx[v];
+                    ys[v] += dy[v];
+                }
+            }
+        }
+    }
+
+    /**
+     * Escala y traslada las posiciones para que ocupen el lienzo sin deformarse.
+     */
+    private static void fit(double[] xs, double[] ys) {
+        int n = xs.length;
+        if (n == 0) {
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            minX = Math.min(minX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxX = Math.max(maxX, xs[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+        double width = maxX - minX;
+        double height = maxY - minY;
+        double scale = Math.min((WIDTH - 2 * MARGIN) / Math.max(width, 1e-9),
+                (HEIGHT - 2 * MARGIN) / Math.max(height, 1e-9));
+        if (width == 0 && height == 0) {
+            scale = 0;
+        }
+        double offsetX = (WIDTH - width * scale) / 2;
+        double offsetY = (HEIGHT - height * scale) / 2;
+        for (int v = 0; v < n; v++) {
+            xs[v] = offsetX + (xs[v] - minX) * scale;
+            ys[v] = offsetY + (ys[v] - minY) * scale;
+        }
+    }
+
+    /**
+     * Obtiene la coordenada x de una ubicación en el lienzo.
+     *
+     * @param vertex Identificador del vértice.
+     * @return La coordenada x.
+     */
+    public double getX(int vertex) {
+        return xs[vertex];
+    }
+
+    /**
+     * Obtiene la coordenada y de una ubicación en el lienzo.
+     *
+     * @param vertex Identificador del vértice.
+     * @return La coordenada y.
+     */
+    public double getY(int vertex) {
+        return ys[vertex];
+    }
+
+    /**
+     * Obtiene el número de ubicaciones de la disposición.
+     *
+     * @return Cantidad de ubicaciones.
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * Indica si la disposición fue calculada para este grafo.
+     *
+     * @param graph El grafo a comprobar.
+     * @return {@code true} si corresponde al grafo.
+     */
+    public boolean isBuiltFor(CompactGraph graph) {
+        return graph.vertexCount() == xs.length && graph.fingerprint() == fingerprint;
+    }
+
+    /**
+     * Escribe la disposición en formato binario.
+     *
+     * @param out Destino de los datos.
+     * @throws IOException si ocurre un error de escritura.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(xs.length);
+        for (int v = 0; v < xs.length; v++) {
+            out.writeDouble(xs[v]);
+            out.writeDouble(ys[v]);
+        }
+    }
+
+    /**
+     * Lee una disposición guardada con {@link #writeTo(DataOutput)}.
+     *
+     * @param in    Origen de los datos.
+     * @param graph Grafo al que debe corresponder la disposición.
+     * @return La disposición leída.
+     * @throws IOException si el formato no es válido o la disposición no corresponde al grafo.
+     */
+    public static GraphLayout readFrom(DataInput in, CompactGraph graph) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no contiene una disposición del grafo.");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de disposición del grafo no soportada: " + version);
+        }
+        long fingerprint = in.readLong();
+        int n = in.readInt();
+        if (n != graph.vertexCount() || fingerprint != graph.fingerprint()) {
+            throw new IOException("La disposición guardada no corresponde al grafo actual.");
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int v = 0; v < n; v++) {
+            xs[v] = in.readDouble();
+            ys[v] = in.readDouble();
+        }
+        return new GraphLayout(fingerprint, xs, ys);
+    }
+
+    /**
+     * Adyacencia de un nivel de la disposición multinivel en formato CSR. En los niveles
+     * simplificados cada vértice agrupa uno o dos vértices del nivel anterior.
+     */
+    private static final class Level {
+        private final int[] first;
+        private final int[] adjacency;
+
+        /**
+         * Vértice del nivel más simple que contiene a cada vértice de este; se asigna al
+         * simplificarlo.
+         */
+        private int[] parent;
+
+        private Level(int[] first, int[] adjacency) {
+            this.first = first;
+            this.adjacency = adjacency;
+        }
+
+        static Level of(CompactGraph graph) {
+            int n = graph.vertexCount();
+            int[] first = new int[n + 1];
+            int[] adjacency = new int[graph.arcCount()];
+            for (int v = 0; v < n; v++) {
+                first[v] = graph.firstArc(v);
+                for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                    adjacency[arc] = graph.target(arc);
+                }
+            }
+            first[n] = graph.arcCount();
+            return new Level(first, adjacency);
+        }
+
+        int size() {
+            return first.length - 1;
+        }
+
+        int firstArc(int vertex) {
+            return first[vertex];
+        }
+
+        int endArc(int vertex) {
+            return first[vertex + 1];
+        }
+
+        int target(int arc) {
+            return adjacency[arc];
+        }
+
+        /**
+         * Une cada vértice libre con su vecina libre de menor grado.
+         *
+         * @return El nivel simplificado, o {@code null} si casi no reduce el tamaño.
+         */
+        Level coarsen() {
+            int n = size();
+            int[] group = new int[n];
+            Arrays.fill(group, -1);
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                if (group[v] >= 0) {
+                    continue;
+                }
+                int mate = -1;
+                for (int arc = first[v]; arc < first[v + 1]; arc++) {
+                    int w = adjacency[arc];
+                    if (w != v && group[w] < 0
+                            && (mate < 0 || endArc(w) - firstArc(w) < endArc(mate) - firstArc(mate))) {
+                        mate = w;
+                    }
+                }
+                group[v] = count;
+                if (mate >= 0) {
+                    group[mate] = count;
+                }
+                count++;
+            }
+            if (count > n * MIN_REDUCTION) {
+                return null;
+            }
+            // Miembros de cada grupo, ordenados por grupo.
+            int[] memberStart = new int[count + 1];
+            for (int v = 0; v < n; v++) {
+                memberStart[group[v] + 1]++;
+            }
+            for (int c = 0; c < count; c++) {
+                memberStart[c + 1] += memberStart[c];
+            }
+            int[] members = new int[n];
+            int[] fill = Arrays.copyOf(memberStart, count);
+            for (int v = 0; v < n; v++) {
+                members[fill[group[v]]++] = v;
+            }
+            int[] coarseFirst = new int[count + 1];
+            int[] coarseAdjacency = new int[adjacency.length];
+            int[] seen = new int[count];
+            Arrays.fill(seen, -1);
+            int arcs = 0;
+            for (int c = 0; c < count; c++) {
+                coarseFirst[c] = arcs;
+                for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                    int v = members[m];
+                    for (int arc = first[v]; arc < first[v + 1]; arc++) {
+                        int target = group[adjacency[arc]];
+                        if (target != c && seen[target] != c) {
+                            seen[target] = c;
+                            coarseAdjacency[arcs++] = target;
+                        }
+                    }
+                }
+            }
+            coarseFirst[count] = arcs;
+            parent = group;
+            return new Level(coarseFirst, Arrays.copyOf(coarseAdjacency, arcs));
+        }
+    }
+
+    /**
+     * Árbol cuaternario de Barnes-Hut en arreglos planos. Cada nodo guarda su centro de masa,
+     * su masa, el lado de su cuadrado y, si es hoja, el rango de ubicaciones que contiene en
+     * {@link #order}.
+     */
+    private static final class QuadTree {
+
+        /**
+         * Profundidad máxima; las ubicaciones muy próximas quedan juntas en una hoja.
+         */
+        static final int MAX_DEPTH = 48;
+
+        /**
+         * Tamaño suficiente de la pila de recorrido: cada nivel apila a lo sumo tres hermanos.
+         */
+        static final int STACK_SIZE = 4 * MAX_DEPTH + 4;
+
+        private final int[] order;
+        private int count;
+        private double[] centerX;
+        private double[] centerY;
+        private double[] mass;
+        private double[] side;
+        private int[] children;
+        private int[] from;
+        private int[] to;
+
+        QuadTree(int n) {
+            this.order = new int[n];
+            allocate(Math.max(16, n / 2));
+        }
+
+        private void allocate(int capacity) {
+            centerX = new double[capacity];
+            centerY = new double[capacity];
+            mass = new double[capacity];
+            side = new double[capacity];
+            children = new int[4 * capacity];
+            from = new int[capacity];
+            to = new int[capacity];
+        }
+
+        private int newNode() {
+            if (count == mass.length) {
+                int capacity = count * 2;
+                centerX = Arrays.copyOf(centerX, capacity);
+                centerY = Arrays.copyOf(centerY, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                side = Arrays.copyOf(side, capacity);
+                children = Arrays.copyOf(children, 4 * capacity);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+            }
+            return count++;
+        }
+
+        void build(double[] xs, double[] ys) {
+            int n = order.length;
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < n; v++) {
+                order[v] = v;
+                minX = Math.min(minX, xs[v]);
+                minY = Math.min(minY, ys[v]);
+                maxX = Math.max(maxX, xs[v]);
+                maxY = Math.max(maxY, ys[v]);
+            }
+            count = 0;
+            double size = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+            build(xs, ys, 0, n, minX, minY, size, 0);
+        }
+
+        /**
+         * Construye el nodo de las ubicaciones {@code order[start, end)}, contenidas en el
+         * cuadrado de esquina {@code (x, y)} y lado {@code size}.
+         */
+        private int build(double[] xs, double[] ys, int start, int end, double x, double y, double size,
+                          int depth) {
+            int node = newNode();
+            side[node] = size;
+            Arrays.fill(children, 4 * node, 4 * node + 4, -1);
+            if (end - start <= LEAF_SIZE || depth == MAX_DEPTH) {
+                from[node] = start;
+                to[node] = end;
+                double sumX = 0;
+                double sumY = 0;
+                for (int k = start; k < end; k++) {
+                    sumX += xs[order[k]];
+                    sumY += ys[order[k]];
+                }
+                int bodies = end - start;
+                mass[node] = bodies;
+                centerX[node] = sumX / bodies;
+                centerY[node] = sumY / bodies;
+                return node;
+            }
+            from[node] = -1;
+            double half = size / 2;
+            double midX = x + half;
+            double midY = y + half;
+            // Se reparte en dos por y, y cada mitad en dos por x.
+            int splitY = partition(ys, start, end, midY);
+            int splitLow = partition(xs, start, splitY, midX);
+            int splitHigh = partition(xs, splitY, end, midX);
+            int[] bounds = {start, splitLow, splitY, splitHigh, end};
+            double sumX = 0;
+            double sumY = 0;
+            double total = 0;
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                if (bounds[quadrant] == bounds[quadrant + 1]) {
+                    continue;
+                }
+                double childX = (quadrant & 1) == 0 ? x : midX;
+                double childY = quadrant < 2 ? y : midY;
+                int child = build(xs, ys, bounds[quadrant], bounds[quadrant + 1], childX, childY, half, depth + 1);
+                children[4 * node + quadrant] = child;
+                sumX += centerX[child] * mass[child];
+                sumY += centerY[child] * mass[child];
+                total += mass[child];
+            }
+            mass[node] = total;
+            centerX[node] = sumX / total;
+            centerY[node] = sumY / total;
+            return node;
+        }
+
+        /**
+         * Deja antes las ubicaciones con coordenada menor que {@code pivot}.
+         *
+         * @return La posición de la primera ubicación con coordenada mayor o igual.
+         */
+        private int partition(double[] values, int start, int end, double pivot) {
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                if (values[order[i]] < pivot) {
+                    i++;
+                } else {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    j--;
+                }
+            }
+            return i;
+        }
+
+        /**
+         * Calcula la fuerza de repulsión {@code k² / d} que el resto de ubicaciones ejerce
+         * sobre una. Puede llamarse desde varios hilos a la vez, cada uno con su propia pila.
+         *
+         * @param stack Pila de trabajo de {@link #STACK_SIZE} posiciones.
+         * @param force Recibe las componentes x e y de la fuerza.
+         */
+        void repulsion(int vertex, double[] xs, double[] ys, double k2, int[] stack, double[] force) {
+            double x = xs[vertex];
+            double y = ys[vertex];
+            double fx = 0;
+            double fy = 0;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (from[node] >= 0) {
+                    for (int k = from[node]; k < to[node]; k++) {
+                        int other = order[k];
+                        if (other == vertex) {
+                            continue;
+                        }
+                        double ox = x - xs[other];
+                        double oy = y - ys[other];
+                        double o2 = ox * ox + oy * oy;
+                        if (o2 == 0) {
+                            // Posiciones iguales: se separan en una dirección fija por vértice.
+                            ox = Math.cos(vertex) * 1e-3;
+                            oy = Math.sin(vertex) * 1e-3;
+                            o2 = 1e-6;
+                        }
+                        fx += ox * k2 / o2;
+                        fy += oy * k2 / o2;
+                    }
+                    continue;
+                }
+                double ex = x - centerX[node];
+                double ey = y - centerY[node];
+                double d2 = ex * ex + ey * ey;
+                if (side[node] * side[node] < THETA * THETA * d2) {
+                    fx += ex * k2 * mass[node] / d2;
+                    fy += ey * k2 * mass[node] / d2;
+                } else {
+                    for (int quadrant = 0; quadrant < 4; quadrant++) {
+                        int child = children[4 * node + quadrant];
+                        if (child >= 0) {
+                            stack[top++] = child;
+                        }
+                    }
+                }
+            }
+            force[0] = fx;
+            force[1] = fy;
+        }
+    }
+}
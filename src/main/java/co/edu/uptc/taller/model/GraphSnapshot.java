@@ -0,0 +1,592 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Versión inmutable del grafo de entregas sobre la que se resuelven las consultas.
+ *
+ * <p>{@link DeliveryGraph} publica una instantánea nueva por cada versión del grafo. Los
+ * lectores (cálculo de rutas, matrices, renderizado) toman la instantánea vigente y trabajan
+ * sobre ella sin bloqueos, aunque mientras tanto lleguen modificaciones: estas solo afectan a
+ * instantáneas posteriores. Cada hilo usa su propio espacio de trabajo de Dijkstra y de
+ * consultas sobre la jerarquía de contracción; los de Dijkstra se comparten entre versiones,
+ * de modo que publicar una versión nueva no obliga a reservarlos otra vez.</p>
+ *
+ * <p>Los índices derivados (árboles por origen, matriz de distancias, landmarks, jerarquía de
+ * contracción, disposición para dibujar) se calculan de forma perezosa la primera vez que se
+ * piden en la instantánea. La matriz, los landmarks, la disposición y los árboles de los
+ * orígenes frecuentes se heredan de la versión anterior y se reparan con los cambios de rutas
+ * en lugar de recalcularse.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class GraphSnapshot {
+
+    /**
+     * Número máximo de árboles de caminos más cortos que se conservan en memoria.
+     */
+    private static final int MAX_CACHED_TREES = 32;
+
+    /**
+     * Número de landmarks que se eligen al construir la tabla ALT.
+     */
+    private static final int DEFAULT_LANDMARKS = 8;
+
+    private final CompactGraph graph;
+    private final long version;
+    private final int matrixThreshold;
+    private final IncrementalIndex<DistanceMatrix> distanceMatrix;
+    private final IncrementalIndex<LandmarkIndex> landmarkIndex;
+    private final IncrementalIndex<GraphLayout> graphLayout;
+    private final Map<Integer, ShortestPathTree> treeCache;
+
+    /**
+     * Árboles mantenidos de forma incremental para los orígenes frecuentes, por vértice de
+     * origen. El mapa no cambia después de crear la instantánea.
+     */
+    private final Map<Integer, IncrementalIndex<DynamicShortestPathTree>> dynamicTrees;
+    private final DynamicTreeStatistics dynamicTreeStatistics;
+    private volatile ContractionHierarchy contractionHierarchy;
+
+    private GraphSnapshot(CompactGraph graph, long version, int matrixThreshold,
+                          IncrementalIndex<DistanceMatrix> distanceMatrix,
+                          IncrementalIndex<LandmarkIndex> landmarkIndex,
+                          IncrementalIndex<GraphLayout> graphLayout,
+                          Map<Integer, ShortestPathTree> treeCache,
+                          Map<Integer, IncrementalIndex<DynamicShortestPathTree>> dynamicTrees,
+                          DynamicTreeStatistics dynamicTreeStatistics,
+                          ContractionHierarchy contractionHierarchy) {
+        this.graph = graph;
+        this.version = version;
+        this.matrixThreshold = matrixThreshold;
+        this.distanceMatrix = distanceMatrix;
+        this.landmarkIndex = landmarkIndex;
+        this.graphLayout = graphLayout;
+        this.treeCache = treeCache;
+        this.dynamicTrees = dynamicTrees;
+        this.dynamicTreeStatistics = dynamicTreeStatistics;
+        this.contractionHierarchy = contractionHierarchy;
+    }
+
+    /**
+     * Crea la primera instantánea de un grafo.
+     *
+     * @param graph           El grafo compacto.
+     * @param version         Versión del grafo.
+     * @param matrixThreshold Máximo de ubicaciones para usar la matriz de distancias.
+     * @param trackedSources  Orígenes cuyos árboles se mantienen de forma incremental.
+     * @param statistics      Contadores de las reparaciones de esos árboles.
+     * @return La instantánea.
+     */
+    static GraphSnapshot create(CompactGraph graph, long version, int matrixThreshold,
+                                Collection<Location> trackedSources, DynamicTreeStatistics statistics) {
+        return new GraphSnapshot(graph, version, matrixThreshold, new IncrementalIndex<>(),
+                new IncrementalIndex<>(), new IncrementalIndex<>(), newTreeCache(),
+                trackTrees(graph, trackedSources, Map.of(), null), statistics, null);
+    }
+
+    /**
+     * Crea la instantánea de la siguiente versión, que hereda los índices reparables.
+     *
+     * @param graph           El grafo compacto de la nueva versión.
+     * @param version         La nueva versión.
+     * @param matrixThreshold Máximo de ubicaciones para usar la matriz de distancias.
+     * @param trackedSources  Orígenes cuyos árboles se mantienen de forma incremental.
+     * @param changes         Cambios de rutas desde esta instantánea, o {@code null} si no se
+     *                        registraron y los índices deben reconstruirse.
+     * @return La nueva instantánea.
+     */
+    GraphSnapshot next(CompactGraph graph, long version, int matrixThreshold,
+                       Collection<Location> trackedSources, List<RouteChange> changes) {
+        if (changes == null) {
+            return create(graph, version, matrixThreshold, trackedSources, dynamicTreeStatistics);
+        }
+        return new GraphSnapshot(graph, version, matrixThreshold, distanceMatrix.next(changes),
+                landmarkIndex.next(changes), graphLayout.next(changes), newTreeCache(),
+                trackTrees(graph, trackedSources, dynamicTrees, changes), dynamicTreeStatistics, null);
+    }
+
+    /**
+     * Crea una instantánea del mismo grafo con otro umbral para la matriz de distancias,
+     * compartiendo los índices ya calculados.
+     *
+     * @param matrixThreshold El nuevo umbral.
+     * @return La instantánea con el nuevo umbral.
+     */
+    GraphSnapshot withMatrixThreshold(int matrixThreshold) {
+        return new GraphSnapshot(graph, version, matrixThreshold, distanceMatrix, landmarkIndex,
+                graphLayout, treeCache, dynamicTrees, dynamicTreeStatistics, contractionHierarchy);
+    }
+
+    /**
+     * Crea una instantánea del mismo grafo con otro conjunto de orígenes frecuentes,
+     * compartiendo los índices y los árboles que se siguen manteniendo.
+     *
+     * @param trackedSources Los orígenes cuyos árboles se mantienen de forma incremental.
+     * @return La instantánea con los nuevos orígenes.
+     */
+    GraphSnapshot withTrackedSources(Collection<Location> trackedSources) {
+        return new GraphSnapshot(graph, version, matrixThreshold, distanceMatrix, landmarkIndex,
+                graphLayout, treeCache, trackTrees(graph, trackedSources, dynamicTrees, null),
+                dynamicTreeStatistics, contractionHierarchy);
+    }
+
+    /**
+     * Prepara los contenedores de los árboles mantenidos, heredando los de la instantánea
+     * anterior junto con los cambios de rutas, o compartiéndolos si {@code changes} es
+     * {@code null} porque el grafo es el mismo.
+     */
+    private static Map<Integer, IncrementalIndex<DynamicShortestPathTree>> trackTrees(
+            CompactGraph graph, Collection<Location> trackedSources,
+            Map<Integer, IncrementalIndex<DynamicShortestPathTree>> previous, List<RouteChange> changes) {
+        Map<Integer, IncrementalIndex<DynamicShortestPathTree>> trees = new HashMap<>();
+        for (Location location : trackedSources) {
+            int vertex = graph.indexOf(location);
+            if (vertex < 0) {
+                continue;
+            }
+            IncrementalIndex<DynamicShortestPathTree> tree = previous.get(vertex);
+            if (tree == null) {
+                tree = new IncrementalIndex<>();
+            } else if (changes != null) {
+                tree = tree.next(changes);
+            }
+            trees.put(vertex, tree);
+        }
+        return trees;
+    }
+
+    /**
+     * Crea la caché de árboles por vértice de origen, en orden de uso reciente. Las consultas
+     * solo la bloquean para leer o insertar un árbol, nunca mientras se calcula.
+     */
+    private static Map<Integer, ShortestPathTree> newTreeCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                return size() > MAX_CACHED_TREES;
+            }
+        });
+    }
+
+    /**
+     * Obtiene la representación compacta del grafo de esta versión.
+     *
+     * @return El grafo compacto.
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Obtiene la versión del grafo a la que corresponde la instantánea.
+     *
+     * @return La versión.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene las ubicaciones del grafo en orden de identificador.
+     *
+     * @return Lista no modificable de ubicaciones.
+     */
+    public List<Location> getLocations() {
+        return graph.locations();
+    }
+
+    /**
+     * Obtiene el espacio de trabajo de Dijkstra del hilo actual para esta instantánea.
+     *
+     * @return La búsqueda reutilizable del hilo actual.
+     */
+    DijkstraSearch search() {
+        return DijkstraSearch.forThread(graph);
+    }
+
+    /**
+     * Obtiene el árbol de caminos más cortos desde una ubicación de origen.
+     *
+     * @param source La ubicación de origen.
+     * @return El árbol de caminos más cortos desde {@code source}.
+     * @throws IllegalArgumentException si {@code source} no pertenece al grafo.
+     */
+    public ShortestPathTree getShortestPathTree(Location source) {
+        int vertex = vertexOf(source);
+        IncrementalIndex<DynamicShortestPathTree> dynamicTree = dynamicTrees.get(vertex);
+        if (dynamicTree != null) {
+            return dynamicTree.get(graph, g -> DynamicShortestPathTree.build(g, vertex),
+                    (tree, g, changes) -> tree.update(g, changes, dynamicTreeStatistics)).toTree();
+        }
+        ShortestPathTree tree = treeCache.get(vertex);
+        if (tree == null) {
+            DijkstraSearch search = search();
+            search.runAll(vertex);
+            tree = search.toTree();
+            ShortestPathTree existing = treeCache.putIfAbsent(vertex, tree);
+            if (existing != null) {
+                tree = existing;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Obtiene la matriz de distancias entre todos los pares de ubicaciones.
+     *
+     * @return La matriz, o {@code null} si el grafo supera el umbral de ubicaciones.
+     */
+    public DistanceMatrix getDistanceMatrix() {
+        if (graph.vertexCount() > matrixThreshold) {
+            return null;
+        }
+        return distanceMatrix.get(graph, DistanceMatrix::build, DistanceMatrix::update);
+    }
+
+    /**
+     * Obtiene la tabla de landmarks para la heurística ALT, construyéndola o reparándola si
+     * hace falta.
+     *
+     * @return La tabla de landmarks.
+     */
+    public LandmarkIndex getLandmarkIndex() {
+        return landmarkIndex.get(graph, g -> LandmarkIndex.build(g, DEFAULT_LANDMARKS), LandmarkIndex::update);
+    }
+
+    /**
+     * Instala una tabla de landmarks ya calculada.
+     *
+     * @param index La tabla a usar.
+     * @throws IllegalArgumentException si la tabla no corresponde a esta instantánea.
+     */
+    void setLandmarkIndex(LandmarkIndex index) {
+        if (!index.isBuiltFor(graph)) {
+            throw new IllegalArgumentException("La tabla de landmarks no corresponde al grafo actual.");
+        }
+        landmarkIndex.set(index);
+    }
+
+    /**
+     * Obtiene la disposición del grafo para dibujarlo, calculándola o refinándola si hace falta.
+     *
+     * @return La disposición del grafo.
+     */
+    public GraphLayout getGraphLayout() {
+        return graphLayout.get(graph, GraphLayout::build, GraphLayout::update);
+    }
+
+    /**
+     * Instala una disposición ya calculada.
+     *
+     * @param layout La disposición a usar.
+     * @throws IllegalArgumentException si la disposición no corresponde a esta instantánea.
+     */
+    void setGraphLayout(GraphLayout layout) {
+        if (!layout.isBuiltFor(graph)) {
+            throw new IllegalArgumentException("La disposición no corresponde al grafo actual.");
+        }
+        graphLayout.set(layout);
+    }
+
+    /**
+     * Obtiene la jerarquía de contracción de esta instantánea, construyéndola si no existe.
+     *
+     * @return El índice de jerarquía de contracción.
+     */
+    public ContractionHierarchy getContractionHierarchy() {
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if (hierarchy != null) {
+            return hierarchy;
+        }
+        synchronized (this) {
+            if (contractionHierarchy == null) {
+                contractionHierarchy = ContractionHierarchy.build(graph);
+            }
+            return contractionHierarchy;
+        }
+    }
+
+    /**
+     * Instala una jerarquía de contracción ya calculada.
+     *
+     * @param hierarchy El índice a usar.
+     * @throws IllegalArgumentException si el índice no corresponde a esta instantánea.
+     */
+    void setContractionHierarchy(ContractionHierarchy hierarchy) {
+        if (!hierarchy.isBuiltFor(graph)) {
+            throw new IllegalArgumentException("La jerarquía de contracción no corresponde al grafo actual.");
+        }
+        synchronized (this) {
+            contractionHierarchy = hierarchy;
+        }
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ubicaciones, leyendo la matriz de distancias si está
+     * disponible o el árbol de caminos más cortos del origen si no.
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @return La ruta encontrada, o {@code null} si no existe.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public RoutePath getRoute(Location source, Location target) {
+        DistanceMatrix matrix = getDistanceMatrix();
+        if (matrix != null) {
+            return matrix.route(vertexOf(source), vertexOf(target));
+        }
+        return getShortestPathTree(source).getRoute(target);
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ubicaciones usando el modo de búsqueda indicado.
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @param mode   El algoritmo de búsqueda a utilizar.
+     * @return La ruta encontrada, o {@code null} si no existe.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public RoutePath getRoute(Location source, Location target, SearchMode mode) {
+        int from = vertexOf(source);
+        int to = vertexOf(target);
+        DijkstraSearch search;
+        switch (mode) {
+            case A_STAR:
+                search = search();
+                search.run(from, to, graph.geoHeuristic(to));
+                return search.route(to);
+            case ALT:
+                SearchHeuristic heuristic = getLandmarkIndex().heuristic(to);
+                search = search();
+                search.run(from, to, heuristic);
+                return search.route(to);
+            case CONTRACTION_HIERARCHY:
+                return getContractionHierarchy().route(from, to);
+            case DIJKSTRA:
+            default:
+                return getRoute(source, target);
+        }
+    }
+
+    /**
+     * Obtiene la ruta de llegada más temprana entre dos ubicaciones para una hora de salida,
+     * según los perfiles de velocidad de las rutas.
+     *
+     * <p>{@link SearchMode#A_STAR} y {@link SearchMode#ALT} guían la búsqueda con su cota de
+     * distancia multiplicada por el menor tiempo por kilómetro del grafo; los demás modos hacen
+     * un Dijkstra dependiente del tiempo.</p>
+     *
+     * @param source    La ubicación de origen.
+     * @param target    La ubicación de destino.
+     * @param departure Hora de salida, en horas desde la medianoche.
+     * @param mode      El algoritmo de búsqueda a utilizar.
+     * @return La ruta con sus horarios, o {@code null} si no existe.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public TimedRoute getTimedRoute(Location source, Location target, double departure, SearchMode mode) {
+        int from = vertexOf(source);
+        int to = vertexOf(target);
+        SearchHeuristic distance;
+        switch (mode) {
+            case A_STAR:
+                distance = graph.geoHeuristic(to);
+                break;
+            case ALT:
+                distance = getLandmarkIndex().heuristic(to);
+                break;
+            default:
+                distance = SearchHeuristic.NONE;
+                break;
+        }
+        TimeDependentSearch search = TimeDependentSearch.forThread(graph);
+        search.run(from, to, departure, TimeDependentSearch.timeHeuristic(graph, distance));
+        return search.route(to);
+    }
+
+    /**
+     * Obtiene el frente de Pareto de rutas entre dos ubicaciones según distancia, costo y tiempo.
+     *
+     * @param source             La ubicación de origen.
+     * @param target             La ubicación de destino.
+     * @param maxLabelsPerVertex Máximo de combinaciones guardadas por ubicación.
+     * @return Las rutas no dominadas ordenadas por distancia.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public List<ParetoRoute> getParetoRoutes(Location source, Location target, int maxLabelsPerVertex) {
+        return new ParetoSearch(graph, maxLabelsPerVertex).run(vertexOf(source), vertexOf(target));
+    }
+
+    /**
+     * Obtiene las ubicaciones alcanzables desde un origen sin superar un presupuesto.
+     *
+     * @param source    La ubicación de origen.
+     * @param criterion Criterio del presupuesto: distancia, costo o tiempo.
+     * @param budget    Presupuesto máximo en kilómetros, COP u horas.
+     * @return Las ubicaciones alcanzadas con su valor.
+     * @throws IllegalArgumentException si el origen no pertenece al grafo.
+     */
+    public Isochrone getIsochrone(Location source, RouteCriterion criterion, double budget) {
+        return IsochroneSearch.forThread(graph).run(vertexOf(source), criterion, budget);
+    }
+
+    /**
+     * Calcula el costo y el tiempo de una ruta sumando los atributos de sus tramos.
+     *
+     * @param route Una ruta sobre este grafo.
+     * @return La ruta con su costo y tiempo.
+     * @throws IllegalArgumentException si algún tramo no es una ruta del grafo.
+     */
+    public ParetoRoute evaluate(RoutePath route) {
+        List<Location> vertices = route.getVertices();
+        double cost = 0;
+        double time = 0;
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            int arc = graph.findArc(vertexOf(vertices.get(i)), vertexOf(vertices.get(i + 1)));
+            if (arc < 0) {
+                throw new IllegalArgumentException("La ruta no existe en el grafo: "
+                        + vertices.get(i) + " - " + vertices.get(i + 1));
+            }
+            cost += graph.cost(arc);
+            time += graph.time(arc);
+        }
+        return new ParetoRoute(route, cost, time);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ubicaciones.
+     *
+     * @param source La ubicación de origen.
+     * @param target La ubicación de destino.
+     * @return La distancia, o {@code Double.POSITIVE_INFINITY} si no existe una ruta.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo.
+     */
+    public double getShortestPathWeight(Location source, Location target) {
+        DistanceMatrix matrix = getDistanceMatrix();
+        if (matrix != null) {
+            return matrix.distance(vertexOf(source), vertexOf(target));
+        }
+        return getShortestPathTree(source).getDistance(target);
+    }
+
+    /**
+     * Calcula las distancias más cortas desde varias ubicaciones de origen hacia varias de
+     * destino, repartiendo los orígenes entre los núcleos disponibles.
+     *
+     * @param sources Ubicaciones de origen.
+     * @param targets Ubicaciones de destino.
+     * @return Arreglo de distancias por filas, como en {@link DeliveryGraph#getDistances}.
+     * @throws NullPointerException     si alguna ubicación es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o la matriz no
+     *                                  cabe en un arreglo.
+     */
+    public double[] getDistances(List<Location> sources, List<Location> targets) {
+        return getDistances(sources, targets, null, null);
+    }
+
+    /**
+     * Calcula las distancias más cortas desde varias ubicaciones de origen hacia varias de
+     * destino y, si se piden, el costo y el tiempo de esas mismas rutas, sumando los atributos
+     * de cada tramo como {@link #evaluate(RoutePath)}.
+     *
+     * @param sources Ubicaciones de origen.
+     * @param targets Ubicaciones de destino.
+     * @param costs   Recibe los costos por filas, como las distancias; puede ser {@code null}.
+     * @param times   Recibe los tiempos por filas; debe ser {@code null} si {@code costs} lo es.
+     * @return Arreglo de distancias por filas, como en {@link DeliveryGraph#getDistances}.
+     * @throws NullPointerException     si alguna ubicación es {@code null}.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o la matriz no
+     *                                  cabe en un arreglo.
+     */
+    public double[] getDistances(List<Location> sources, List<Location> targets, double[] costs, double[] times) {
+        int[] from = vertexIds(sources);
+        int[] to = vertexIds(targets);
+        int columns = to.length;
+        double[] distances = new double[DeliveryGraph.matrixSize(from.length, columns)];
+        if (columns == 0) {
+            return distances;
+        }
+
+        DistanceMatrix matrix = getDistanceMatrix();
+        if (matrix != null) {
+            for (int i = 0; i < from.length; i++) {
+                for (int j = 0; j < columns; j++) {
+                    distances[i * columns + j] = matrix.distance(from[i], to[j]);
+                    if (costs != null) {
+                        double[] totals = matrix.totals(from[i], to[j]);
+                        costs[i * columns + j] = totals[0];
+                        times[i * columns + j] = totals[1];
+                    }
+                }
+            }
+            return distances;
+        }
+
+        IntStream.range(0, from.length).parallel().forEach(i -> {
+            DijkstraSearch search = search();
+            search.runToAll(from[i], to);
+            for (int j = 0; j < columns; j++) {
+                distances[i * columns + j] = search.distance(to[j]);
+            }
+            if (costs != null) {
+                search.accumulateTotals(to, costs, times, i * columns);
+            }
+        });
+        return distances;
+    }
+
+    /**
+     * Obtiene hasta {@code k} rutas alternativas sin ciclos entre dos ubicaciones.
+     *
+     * @param source     La ubicación de origen.
+     * @param target     La ubicación de destino.
+     * @param k          Número máximo de rutas.
+     * @param maxOverlap Fracción máxima de distancia compartida.
+     * @return Las rutas ordenadas por distancia.
+     * @throws IllegalArgumentException si alguna ubicación no pertenece al grafo o
+     *                                  {@code maxOverlap} no está entre {@code 0} y {@code 1}.
+     */
+    public List<RoutePath> getAlternativeRoutes(Location source, Location target, int k, double maxOverlap) {
+        if (!(maxOverlap >= 0 && maxOverlap <= 1)) {
+            throw new IllegalArgumentException("La superposición máxima debe estar entre 0 y 1.");
+        }
+        ShortestPathTree forward = getShortestPathTree(source);
+        ShortestPathTree backward = getShortestPathTree(target);
+        return AlternativeRoutes.find(forward, backward, k, maxOverlap);
+    }
+
+    private int[] vertexIds(List<Location> locations) {
+        int[] ids = new int[locations.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Location location = locations.get(i);
+            if (location == null) {
+                throw new NullPointerException("Las ubicaciones no pueden ser nulas.");
+            }
+            ids[i] = vertexOf(location);
+        }
+        return ids;
+    }
+
+    /**
+     * Obtiene el identificador de una ubicación en el grafo compacto.
+     *
+     * @param location La ubicación buscada.
+     * @return El identificador del vértice.
+     * @throws IllegalArgumentException si la ubicación no pertenece al grafo.
+     */
+    int vertexOf(Location location) {
+        int vertex = graph.indexOf(location);
+        if (vertex < 0) {
+            throw new IllegalArgumentException("La ubicación no pertenece al grafo: " + location);
+        }
+        return vertex;
+    }
+}
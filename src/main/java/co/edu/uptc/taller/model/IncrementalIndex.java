@@ -0,0 +1,215 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Índice derivado de una instantánea del grafo que se repara de forma incremental entre
+ * versiones (tabla de landmarks, matriz de distancias).
+ *
+ * <p>Cada instantánea tiene su propio contenedor. Si el índice no se ha pedido en una versión,
+ * la siguiente hereda el último índice calculado junto con todos los cambios de rutas
+ * acumulados desde entonces, y lo repara la primera vez que se consulta. Una vez calculado, la
+ * lectura no toma ningún bloqueo, y el cálculo tampoco se hace con el monitor tomado, de modo
+ * que crear la siguiente versión nunca espera a que termine.</p>
+ *
+ * @param <T> Tipo del índice.
+ * @author
+ * @version 1.0
+ */
+final class IncrementalIndex<T> {
+
+    /**
+     * Máximo de cambios de rutas que se acumulan para reparar un índice; a partir de ahí resulta
+     * más barato reconstruirlo.
+     */
+    static final int MAX_PENDING_CHANGES = 4096;
+
+    /**
+     * Repara un índice con los cambios de rutas aplicados al grafo.
+     *
+     * @param <T> Tipo del índice.
+     */
+    interface Updater<T> {
+        T update(T index, CompactGraph graph, List<RouteChange> changes);
+    }
+
+    private volatile T value;
+
+    /**
+     * Índice heredado de una versión anterior y cambios de rutas pendientes de aplicarle, o
+     * {@code null} si no se heredó nada. Se publican juntos para leerlos sin bloqueo.
+     */
+    private volatile Inherited<T> inherited;
+
+    /**
+     * Cálculo en curso del índice, o {@code null}. Protegido por el monitor de la instancia.
+     */
+    private FutureTask<T> building;
+
+    IncrementalIndex() {
+    }
+
+    private IncrementalIndex(T base, List<RouteChange> changes) {
+        this.inherited = new Inherited<>(base, changes);
+    }
+
+    /**
+     * Obtiene el índice para la instantánea, reparando el heredado o construyéndolo si no hay.
+     *
+     * <p>El cálculo se hace fuera del monitor: el primer hilo que lo necesita lo ejecuta y los
+     * demás esperan su resultado, pero {@link #next(List)} y {@link #peek()} no esperan.</p>
+     *
+     * @param graph   El grafo compacto de la instantánea.
+     * @param build   Construye el índice desde cero.
+     * @param updater Repara el índice heredado.
+     * @return El índice vigente.
+     */
+    T get(CompactGraph graph, Function<CompactGraph, T> build, Updater<T> updater) {
+        T result = value;
+        if (result != null) {
+            return result;
+        }
+        FutureTask<T> task;
+        boolean owner = false;
+        synchronized (this) {
+            if (value != null) {
+                return value;
+            }
+            task = building;
+            if (task == null) {
+                Inherited<T> from = inherited;
+                task = new FutureTask<>(() -> from != null
+                        ? updater.update(from.base, graph, from.changes) : build.apply(graph));
+                building = task;
+                owner = true;
+            }
+        }
+        if (owner) {
+            task.run();
+        }
+        result = await(task);
+        synchronized (this) {
+            if (building == task) {
+                value = result;
+                inherited = null;
+                building = null;
+            }
+            // Si mientras tanto se instaló otro índice con set(), prevalece ese.
+            return value != null ? value : result;
+        }
+    }
+
+    /**
+     * Espera el resultado de un cálculo sin dejar de esperar si el hilo se interrumpe, y
+     * propaga su error. Si falla, el siguiente {@link #get} lo vuelve a intentar.
+     */
+    private T await(FutureTask<T> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    synchronized (this) {
+                        if (building == task) {
+                            building = null;
+                        }
+                    }
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("No se pudo calcular el índice.", cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el índice solo si ya fue calculado para esta instantánea.
+     *
+     * @return El índice, o {@code null}.
+     */
+    T peek() {
+        return value;
+    }
+
+    /**
+     * Instala un índice ya calculado para esta instantánea.
+     *
+     * @param index El índice.
+     */
+    synchronized void set(T index) {
+        value = index;
+        inherited = null;
+        building = null;
+    }
+
+    /**
+     * Descarta el índice y lo que se hubiera heredado.
+     */
+    synchronized void clear() {
+        value = null;
+        inherited = null;
+        building = null;
+    }
+
+    /**
+     * Crea el contenedor de la siguiente versión, que hereda el índice y los cambios pendientes.
+     *
+     * <p>No toma el monitor: si el índice de esta versión se está calculando, la siguiente
+     * hereda lo mismo que heredó esta, con los cambios acumulados.</p>
+     *
+     * @param newChanges Cambios de rutas entre esta versión y la siguiente.
+     * @return El contenedor para la nueva instantánea.
+     */
+    IncrementalIndex<T> next(List<RouteChange> newChanges) {
+        // Se lee primero lo heredado: al terminar un cálculo se publica value antes de borrarlo.
+        Inherited<T> from = inherited;
+        T current = value;
+        T base;
+        List<RouteChange> pending;
+        if (current != null) {
+            base = current;
+            pending = List.of();
+        } else if (from != null) {
+            base = from.base;
+            pending = from.changes;
+        } else {
+            return new IncrementalIndex<>();
+        }
+        if (pending.size() + newChanges.size() > MAX_PENDING_CHANGES) {
+            return new IncrementalIndex<>();
+        }
+        List<RouteChange> combined = new ArrayList<>(pending.size() + newChanges.size());
+        combined.addAll(pending);
+        combined.addAll(newChanges);
+        return new IncrementalIndex<>(base, combined);
+    }
+
+    /**
+     * Índice heredado junto con los cambios de rutas que aún no se le aplicaron.
+     */
+    private static final class Inherited<T> {
+        private final T base;
+        private final List<RouteChange> changes;
+
+        Inherited(T base, List<RouteChange> changes) {
+            this.base = base;
+            this.changes = changes;
+        }
+    }
+}
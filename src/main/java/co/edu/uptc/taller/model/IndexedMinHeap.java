@@ -0,0 +1,172 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Arrays;
+
+/**
+ * Montículo binario mínimo indexado sobre identificadores enteros de vértice.
+ *
+ * <p>Guarda como máximo un elemento por vértice y permite disminuir su clave en
+ * {@code O(log n)}. Todos los arreglos se reservan una sola vez, de modo que las búsquedas
+ * que lo reutilizan no generan basura.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class IndexedMinHeap {
+
+    /**
+     * Vértices ordenados según la propiedad de montículo.
+     */
+    private final int[] heap;
+
+    /**
+     * Posición de cada vértice dentro de {@code heap}, o {@code -1} si no está.
+     */
+    private final int[] position;
+
+    /**
+     * Clave (prioridad) de cada vértice presente en el montículo.
+     */
+    private final double[] keys;
+
+    /**
+     * Número de elementos presentes.
+     */
+    private int size;
+
+    /**
+     * Crea un montículo vacío para vértices en el rango {@code [0, capacity)}.
+     *
+     * @param capacity Número máximo de vértices distintos.
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Indica si el montículo está vacío.
+     *
+     * @return {@code true} si no quedan elementos.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Obtiene el número de elementos presentes.
+     *
+     * @return Cantidad de elementos.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indica si un vértice está en el montículo.
+     *
+     * @param vertex Identificador del vértice.
+     * @return {@code true} si el vértice está presente.
+     */
+    public boolean contains(int vertex) {
+        return position[vertex] >= 0;
+    }
+
+    /**
+     * Obtiene la clave mínima sin extraerla.
+     *
+     * @return La clave del primer elemento.
+     */
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Inserta un vértice o disminuye su clave si ya estaba presente con una clave mayor.
+     *
+     * @param vertex Identificador del vértice.
+     * @param key    Nueva clave.
+     */
+    public void insertOrDecrease(int vertex, double key) {
+        int pos = position[vertex];
+        if (pos < 0) {
+            pos = size++;
+            heap[pos] = vertex;
+            position[vertex] = pos;
+            keys[vertex] = key;
+            siftUp(pos);
+        } else if (key < keys[vertex]) {
+            keys[vertex] = key;
+            siftUp(pos);
+        }
+    }
+
+    /**
+     * Extrae el vértice con menor clave.
+     *
+     * @return Identificador del vértice extraído.
+     */
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Vacía el montículo en tiempo proporcional a los elementos que quedaban.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int vertex = heap[pos];
+        double key = keys[vertex];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int parentVertex = heap[parent];
+            if (keys[parentVertex] <= key) {
+                break;
+            }
+            heap[pos] = parentVertex;
+            position[parentVertex] = pos;
+            pos = parent;
+        }
+        heap[pos] = vertex;
+        position[vertex] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int vertex = heap[pos];
+        double key = keys[vertex];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childVertex = heap[child];
+            if (key <= keys[childVertex]) {
+                break;
+            }
+            heap[pos] = childVertex;
+            position[childVertex] = pos;
+            pos = child;
+        }
+        heap[pos] = vertex;
+        position[vertex] = pos;
+    }
+}
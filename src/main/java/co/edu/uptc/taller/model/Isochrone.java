@@ -0,0 +1,121 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de ubicaciones alcanzables desde un origen sin superar un presupuesto de distancia,
+ * costo o tiempo, por ejemplo "los pueblos a menos de 45 minutos de Tunja".
+ *
+ * <p>Las ubicaciones están ordenadas de menor a mayor valor; el origen es la primera, con valor
+ * cero.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class Isochrone {
+
+    private final Location source;
+    private final RouteCriterion criterion;
+    private final double budget;
+    private final List<Location> locations;
+    private final double[] values;
+    private final Map<Location, Integer> positions;
+
+    /**
+     * Crea el resultado de una búsqueda acotada.
+     *
+     * @param source    La ubicación de origen.
+     * @param criterion El criterio del presupuesto.
+     * @param budget    El presupuesto.
+     * @param locations Las ubicaciones alcanzadas, de menor a mayor valor.
+     * @param values    El valor mínimo con que se alcanza cada ubicación.
+     */
+    Isochrone(Location source, RouteCriterion criterion, double budget, List<Location> locations, double[] values) {
+        this.source = source;
+        this.criterion = criterion;
+        this.budget = budget;
+        this.locations = Collections.unmodifiableList(locations);
+        this.values = values;
+        this.positions = new HashMap<>(locations.size() * 2);
+        for (int i = 0; i < locations.size(); i++) {
+            positions.put(locations.get(i), i);
+        }
+    }
+
+    public Location getSource() {
+        return source;
+    }
+
+    public RouteCriterion getCriterion() {
+        return criterion;
+    }
+
+    /**
+     * Obtiene el presupuesto de la búsqueda.
+     *
+     * @return Kilómetros, COP u horas, según el criterio.
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * Obtiene el número de ubicaciones alcanzadas, incluido el origen.
+     *
+     * @return Cantidad de ubicaciones.
+     */
+    public int size() {
+        return locations.size();
+    }
+
+    /**
+     * Obtiene las ubicaciones alcanzadas.
+     *
+     * @return Lista inmodificable ordenada de menor a mayor valor.
+     */
+    public List<Location> getLocations() {
+        return locations;
+    }
+
+    /**
+     * Obtiene el valor con que se alcanza cada ubicación, en el orden de
+     * {@link #getLocations()}.
+     *
+     * @return Arreglo con un valor por ubicación.
+     */
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Indica si una ubicación es alcanzable dentro del presupuesto.
+     *
+     * @param location La ubicación.
+     * @return {@code true} si fue alcanzada.
+     */
+    public boolean contains(Location location) {
+        return positions.containsKey(location);
+    }
+
+    /**
+     * Obtiene la distancia, el costo o el tiempo mínimo para llegar a una ubicación.
+     *
+     * @param location La ubicación.
+     * @return El valor, o {@code Double.POSITIVE_INFINITY} si no es alcanzable dentro del
+     *         presupuesto.
+     */
+    public double getValue(Location location) {
+        Integer position = positions.get(location);
+        return position != null ? values[position] : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return "Isochrone{source=" + source + ", criterion=" + criterion + ", budget=" + budget
+                + ", reached=" + locations.size() + ", maxValue="
+                + (values.length > 0 ? values[values.length - 1] : 0.0) + "}";
+    }
+}
@@ -0,0 +1,135 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Espacio de trabajo reutilizable para búsquedas de uno a todos acotadas por un presupuesto.
+ *
+ * <p>Es un Dijkstra sobre la distancia, el costo o el tiempo de los arcos que nunca encola un
+ * vértice cuyo valor supere el presupuesto, de modo que solo recorre la región alcanzable y
+ * termina en cuanto la agota. Como {@link DijkstraSearch}, reserva sus arreglos una vez y usa un
+ * contador de generación para no limpiarlos entre consultas.</p>
+ *
+ * <p>Una instancia no es segura para uso concurrente; cada hilo debe usar la suya.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class IsochroneSearch {
+
+    /**
+     * Espacio de trabajo de cada hilo, compartido por todas las versiones del grafo.
+     */
+    private static final ThreadLocal<IsochroneSearch> WORKSPACES = new ThreadLocal<>();
+
+    private CompactGraph graph;
+    private IndexedMinHeap heap;
+    private double[] value;
+    private int[] reached;
+    private int[] order;
+    private int generation;
+
+    /**
+     * Crea un espacio de trabajo para el grafo indicado.
+     *
+     * @param graph El grafo compacto sobre el que se harán las búsquedas.
+     */
+    IsochroneSearch(CompactGraph graph) {
+        this.graph = graph;
+        allocate(graph.vertexCount());
+    }
+
+    private void allocate(int n) {
+        heap = new IndexedMinHeap(n);
+        value = new double[n];
+        reached = new int[n];
+        order = new int[n];
+    }
+
+    /**
+     * Obtiene el espacio de trabajo del hilo actual preparado para un grafo, reutilizando sus
+     * arreglos entre versiones como {@link DijkstraSearch#forThread(CompactGraph)}.
+     *
+     * @param graph El grafo sobre el que se harán las búsquedas.
+     * @return La búsqueda del hilo actual.
+     */
+    static IsochroneSearch forThread(CompactGraph graph) {
+        IsochroneSearch search = WORKSPACES.get();
+        if (search == null) {
+            search = new IsochroneSearch(graph);
+            WORKSPACES.set(search);
+        } else if (search.graph != graph) {
+            search.graph = graph;
+            if (graph.vertexCount() > search.value.length) {
+                search.allocate(graph.vertexCount());
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Busca las ubicaciones alcanzables desde un origen dentro de un presupuesto.
+     *
+     * @param source    Identificador del vértice de origen.
+     * @param criterion Criterio del presupuesto: distancia, costo o tiempo.
+     * @param budget    Presupuesto máximo, inclusive.
+     * @return Las ubicaciones alcanzadas con su valor, de menor a mayor.
+     */
+    Isochrone run(int source, RouteCriterion criterion, double budget) {
+        nextGeneration();
+        heap.clear();
+        int count = 0;
+
+        reached[source] = generation;
+        value[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            order[count++] = u;
+            double du = value[u];
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                double dv = du + arcValue(arc, criterion);
+                if (dv > budget) {
+                    continue;
+                }
+                // Un vértice ya asentado nunca mejora, así que no vuelve a encolarse.
+                int v = graph.target(arc);
+                if (reached[v] != generation || dv < value[v]) {
+                    reached[v] = generation;
+                    value[v] = dv;
+                    heap.insertOrDecrease(v, dv);
+                }
+            }
+        }
+
+        List<Location> locations = new ArrayList<>(count);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            locations.add(graph.location(order[i]));
+            values[i] = value[order[i]];
+        }
+        return new Isochrone(graph.location(source), criterion, budget, locations, values);
+    }
+
+    private double arcValue(int arc, RouteCriterion criterion) {
+        switch (criterion) {
+            case COST:
+                return graph.cost(arc);
+            case TIME:
+                return graph.time(arc);
+            case DISTANCE:
+            default:
+                return graph.weight(arc);
+        }
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(reached, 0);
+            generation = 1;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package co.edu.uptc.taller.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tabla de distancias a landmarks para la heurística ALT (A*, <i>landmarks</i> y desigualdad
+ * triangular).
+ *
+ * <p>Se eligen {@code k} vértices de referencia con la estrategia del más lejano primero y se
+ * guarda la distancia de cada vértice a cada landmark en un arreglo plano
+ * {@code distances[landmark * n + vertex]}. Por la desigualdad triangular,
+ * {@code |d(L, t) - d(L, v)|} es una cota inferior de {@code d(v, t)} para todo landmark
+ * {@code L}, y el máximo sobre los landmarks es una heurística consistente que no necesita
+ * coordenadas.</p>
+ *
+ * <p>Las instancias son inmutables: {@link #update(CompactGraph, List)} devuelve una nueva tabla
+ * reparada de forma incremental.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class LandmarkIndex {
+
+    /**
+     * Identificador del formato binario de la tabla ("ALTX").
+     */
+    private static final int MAGIC = 0x414C5458;
+
+    /**
+     * Versión del formato binario de la tabla.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private final long fingerprint;
+    private final int vertexCount;
+    private final int[] landmarks;
+    private final double[] distances;
+
+    private LandmarkIndex(long fingerprint, int vertexCount, int[] landmarks, double[] distances) {
+        this.fingerprint = fingerprint;
+        this.vertexCount = vertexCount;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    /**
+     * Construye la tabla eligiendo {@code k} landmarks con la estrategia del más lejano primero.
+     *
+     * <p>El primer landmark es el vértice más lejano al vértice {@code 0}; cada landmark siguiente
+     * es el vértice cuya distancia al landmark más cercano ya elegido es máxima. Los vértices no
+     * alcanzables desde ningún landmark se eligen primero, así cada componente conexa recibe
+     * al menos uno.</p>
+     *
+     * @param graph El grafo compacto.
+     * @param k     Número deseado de landmarks.
+     * @return La tabla construida.
+     */
+    public static LandmarkIndex build(CompactGraph graph, int k) {
+        int n = graph.vertexCount();
+        int count = Math.min(k, n);
+        int[] landmarks = new int[count];
+        double[] distances = new double[count * n];
+        if (count == 0) {
+            return new LandmarkIndex(graph.fingerprint(), n, landmarks, distances);
+        }
+
+        DijkstraSearch search = new DijkstraSearch(graph);
+        search.runAll(0);
+        int next = farthest(search, n);
+
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = next;
+            fillRow(search, next, distances, i * n, n);
+            next = -1;
+            double best = -1;
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], distances[i * n + v]);
+                if (nearest[v] > best) {
+                    best = nearest[v];
+                    next = v;
+                }
+            }
+        }
+        return new LandmarkIndex(graph.fingerprint(), n, landmarks, distances);
+    }
+
+    private static int farthest(DijkstraSearch search, int n) {
+        int result = 0;
+        double best = -1;
+        for (int v = 0; v < n; v++) {
+            double d = search.distance(v);
+            if (d != Double.POSITIVE_INFINITY && d > best) {
+                best = d;
+                result = v;
+            }
+        }
+        return result;
+    }
+
+    private static void fillRow(DijkstraSearch search, int landmark, double[] distances, int base, int n) {
+        search.runAll(landmark);
+        for (int v = 0; v < n; v++) {
+            distances[base + v] = search.distance(v);
+        }
+    }
+
+    /**
+     * Devuelve una tabla actualizada para el grafo que ya contiene los cambios indicados.
+     *
+     * <p>Las ubicaciones nuevas se añaden con distancia infinita. Las rutas nuevas o más cortas
+     * se propagan solo sobre los vértices que mejoran; una ruta alargada o eliminada obliga a
+     * recalcular únicamente las filas de los landmarks en cuyos caminos más cortos participaba.</p>
+     *
+     * @param graph   El grafo compacto actualizado. Los identificadores existentes deben
+     *                mantenerse y las ubicaciones nuevas ir al final.
+     * @param changes Cambios de rutas desde que se construyó esta tabla.
+     * @return Una nueva tabla válida para {@code graph}.
+     */
+    public LandmarkIndex update(CompactGraph graph, List<RouteChange> changes) {
+        changes = SsspRepair.netChanges(changes);
+        int n = graph.vertexCount();
+        int k = landmarks.length;
+        if (n < vertexCount) {
+            return build(graph, k);
+        }
+
+        double[] updated = new double[k * n];
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(distances, i * vertexCount, updated, i * n, vertexCount);
+            Arrays.fill(updated, i * n + vertexCount, (i + 1) * n, Double.POSITIVE_INFINITY);
+        }
+
+        int[] from = new int[changes.size()];
+        int[] to = new int[changes.size()];
+        double[] weights = new double[changes.size()];
+        int decreases = 0;
+        boolean[] stale = new boolean[k];
+        for (RouteChange change : changes) {
+            int u = graph.indexOf(change.getFrom());
+            int v = graph.indexOf(change.getTo());
+            if (u < 0 || v < 0) {
+                return build(graph, k);
+            }
+            if (change.isIncrease()) {
+                for (int i = 0; i < k; i++) {
+                    if (!stale[i] && u < vertexCount && v < vertexCount
+                            && SsspRepair.isTight(updated, i * n, u, v, change.getOldDistance())) {
+                        stale[i] = true;
+                    }
+                }
+            } else if (!Double.isNaN(change.getNewDistance())) {
+                from[decreases] = u;
+                to[decreases] = v;
+                weights[decreases] = change.getNewDistance();
+                decreases++;
+            }
+        }
+
+        DijkstraSearch search = null;
+        SsspRepair repair = new SsspRepair(graph);
+        for (int i = 0; i < k; i++) {
+            if (stale[i]) {
+                if (search == null) {
+                    search = new DijkstraSearch(graph);
+                }
+                fillRow(search, landmarks[i], updated, i * n, n);
+            } else if (decreases > 0) {
+                repair.relaxDecreases(updated, null, i * n, from, to, weights, decreases);
+            }
+        }
+        return new LandmarkIndex(graph.fingerprint(), n, landmarks.clone(), updated);
+    }
+
+    /**
+     * Indica si esta tabla corresponde al grafo indicado.
+     *
+     * @param graph El grafo a comprobar.
+     * @return {@code true} si el grafo tiene el mismo contenido que el usado al construir.
+     */
+    public boolean isBuiltFor(CompactGraph graph) {
+        return graph.vertexCount() == vertexCount && graph.fingerprint() == fingerprint;
+    }
+
+    /**
+     * Obtiene el número de landmarks de la tabla.
+     *
+     * @return Cantidad de landmarks.
+     */
+    public int landmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Obtiene el vértice usado como landmark.
+     *
+     * @param index Posición del landmark, entre {@code 0} y {@code landmarkCount() - 1}.
+     * @return Identificador del vértice.
+     */
+    public int landmark(int index) {
+        return landmarks[index];
+    }
+
+    /**
+     * Obtiene la distancia más corta entre un landmark y un vértice.
+     *
+     * @param index  Posición del landmark.
+     * @param vertex Identificador del vértice.
+     * @return La distancia, o {@code Double.POSITIVE_INFINITY} si no están conectados.
+     */
+    public double distance(int index, int vertex) {
+        return distances[index * vertexCount + vertex];
+    }
+
+    /**
+     * Crea la heurística ALT hacia un destino.
+     *
+     * @param target Identificador del vértice de destino.
+     * @return La heurística {@code max |d(L, t) - d(L, v)|} sobre los landmarks.
+     */
+    public SearchHeuristic heuristic(int target) {
+        int n = vertexCount;
+        double[] table = distances;
+        int k = landmarks.length;
+        double[] toTarget = new double[k];
+        for (int i = 0; i < k; i++) {
+            toTarget[i] = table[i * n + target];
+        }
+        return vertex -> {
+            double bound = 0.0;
+            for (int i = 0; i < k; i++) {
+                double dt = toTarget[i];
+                double dv = table[i * n + vertex];
+                if (dt != Double.POSITIVE_INFINITY && dv != Double.POSITIVE_INFINITY) {
+                    double diff = Math.abs(dt - dv);
+                    if (diff > bound) {
+                        bound = diff;
+                    }
+                }
+            }
+            return bound;
+        };
+    }
+
+    /**
+     * Escribe la tabla en formato binario.
+     *
+     * @param out Destino de los datos.
+     * @throws IOException si ocurre un error de escritura.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(vertexCount);
+        out.writeInt(landmarks.length);
+        for (int landmark : landmarks) {
+            out.writeInt(landmark);
+        }
+        for (double distance : distances) {
+            out.writeDouble(distance);
+        }
+    }
+
+    /**
+     * Lee una tabla guardada con {@link #writeTo(DataOutput)}.
+     *
+     * @param in    Origen de los datos.
+     * @param graph Grafo al que debe corresponder la tabla.
+     * @return La tabla leída.
+     * @throws IOException si el formato no es válido o la tabla no corresponde al grafo.
+     */
+    public static LandmarkIndex readFrom(DataInput in, CompactGraph graph) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no contiene una tabla de landmarks.");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de tabla de landmarks no soportada: " + version);
+        }
+        long fingerprint = in.readLong();
+        int n = in.readInt();
+        int k = in.readInt();
+        if (n != graph.vertexCount() || fingerprint != graph.fingerprint()) {
+            throw new IOException("La tabla de landmarks no corresponde al grafo actual.");
+        }
+        int[] landmarks = new int[k];
+        for (int i = 0; i < k; i++) {
+            landmarks[i] = in.readInt();
+        }
+        double[] distances = new double[k * n];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = in.readDouble();
+        }
+        return new LandmarkIndex(fingerprint, n, landmarks, distances);
+    }
+}
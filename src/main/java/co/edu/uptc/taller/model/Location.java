@@ -3,6 +3,7 @@ package co.edu.uptc.taller.model;
 import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -11,9 +12,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * <p>Esta clase es utilizada como vértice en el grafo de entregas y es serializable,
  * lo que permite su persistencia en formato JSON gracias a las anotaciones de Jackson.</p>
  *
+ * <p>Opcionalmente puede tener coordenadas geográficas (latitud y longitud en grados), que
+ * permiten usar búsquedas guiadas por distancia geográfica como A*.</p>
+ *
  * @author
  * @version 1.0
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Location {
 
     /**
@@ -22,20 +27,63 @@ public class Location {
     private String name;
 
     /**
-     * Crea una nueva instancia de {@code Location} con el nombre especificado.
-     *
-     * <p>Este constructor utiliza la anotación {@link JsonCreator} para habilitar
-     * la deserialización desde JSON.</p>
+     * Código hash precalculado a partir del nombre, para no recalcularlo en cada búsqueda
+     * dentro de tablas hash.
+     */
+    private int hash;
+
+    /**
+     * Latitud en grados decimales, o {@code null} si la ubicación no tiene coordenadas.
+     */
+    private Double latitude;
+
+    /**
+     * Longitud en grados decimales, o {@code null} si la ubicación no tiene coordenadas.
+     */
+    private Double longitude;
+
+    /**
+     * Crea una nueva instancia de {@code Location} con el nombre especificado y sin coordenadas.
      *
      * @param name El nombre de la ubicación.
      * @throws NullPointerException si {@code name} es {@code null}.
      */
+    public Location(String name) {
+        this(name, null, null);
+    }
+
+    /**
+     * Crea una nueva instancia de {@code Location} con el nombre y las coordenadas especificadas.
+     *
+     * <p>Este constructor utiliza la anotación {@link JsonCreator} para habilitar
+     * la deserialización desde JSON. Las coordenadas son opcionales, pero si se indica una
+     * debe indicarse también la otra.</p>
+     *
+     * @param name      El nombre de la ubicación.
+     * @param latitude  Latitud en grados, entre -90 y 90, o {@code null}.
+     * @param longitude Longitud en grados, entre -180 y 180, o {@code null}.
+     * @throws NullPointerException     si {@code name} es {@code null}.
+     * @throws IllegalArgumentException si solo se indica una coordenada, no son finitas o están
+     *                                  fuera de rango.
+     */
     @JsonCreator
-    public Location(@JsonProperty("name") String name) {
+    public Location(@JsonProperty("name") String name,
+                    @JsonProperty("latitude") Double latitude,
+                    @JsonProperty("longitude") Double longitude) {
         if (name == null) {
             throw new NullPointerException("El nombre de la ubicación no puede ser nulo.");
         }
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("La latitud y la longitud deben indicarse juntas.");
+        }
+        if (latitude != null && (!Double.isFinite(latitude) || !Double.isFinite(longitude)
+                || Math.abs(latitude) > 90 || Math.abs(longitude) > 180)) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango: " + latitude + ", " + longitude);
+        }
         this.name = name;
+        this.hash = Objects.hash(name);
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     /**
@@ -58,6 +106,34 @@ public class Location {
             throw new NullPointerException("El nombre de la ubicación no puede ser nulo.");
         }
         this.name = name;
+        this.hash = Objects.hash(name);
+    }
+
+    /**
+     * Obtiene la latitud de la ubicación.
+     *
+     * @return La latitud en grados, o {@code null} si no tiene coordenadas.
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Obtiene la longitud de la ubicación.
+     *
+     * @return La longitud en grados, o {@code null} si no tiene coordenadas.
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Indica si la ubicación tiene coordenadas geográficas.
+     *
+     * @return {@code true} si tiene latitud y longitud.
+     */
+    public boolean hasCoordinates() {
+        return latitude != null;
     }
 
     /**
@@ -79,13 +155,14 @@ public class Location {
     /**
      * Calcula el código hash para esta ubicación.
      *
-     * <p>El código hash se basa en el nombre de la ubicación.</p>
+     * <p>El código hash se basa en el nombre de la ubicación y se calcula una sola vez, cuando
+     * se asigna el nombre.</p>
      *
      * @return El código hash de la ubicación.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return hash;
     }
 
     /**
@@ -0,0 +1,184 @@
+package co.edu.uptc.taller.model;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tabla de las ubicaciones de un {@link CompactGraph}: de identificador a {@link Location} y de
+ * ubicación a identificador.
+ *
+ * <p>Un grafo construido en memoria guarda las ubicaciones en un arreglo y un mapa. Un grafo
+ * abierto desde un archivo con {@link CompactGraph#map(ByteBuffer)} las lee de una tabla de
+ * cadenas y una tabla hash del propio archivo, y crea cada {@code Location} la primera vez que
+ * se pide, de modo que abrirlo no depende del número de ubicaciones.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+abstract class LocationTable {
+
+    /**
+     * Obtiene el número de ubicaciones.
+     *
+     * @return Cantidad de ubicaciones.
+     */
+    abstract int size();
+
+    /**
+     * Obtiene la ubicación de un identificador.
+     *
+     * @param vertex Identificador del vértice.
+     * @return La ubicación.
+     */
+    abstract Location get(int vertex);
+
+    /**
+     * Obtiene el identificador de una ubicación.
+     *
+     * @param location La ubicación buscada.
+     * @return El identificador, o {@code -1} si no pertenece a la tabla.
+     */
+    abstract int indexOf(Location location);
+
+    /**
+     * Posición en la tabla hash del archivo donde empieza a buscarse un nombre.
+     *
+     * @param hash     {@link String#hashCode()} del nombre.
+     * @param capacity Tamaño de la tabla, potencia de dos.
+     * @return La primera posición que se prueba.
+     */
+    static int slot(int hash, int capacity) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacity - 1);
+    }
+
+    /**
+     * Tabla de un grafo construido en memoria.
+     */
+    static final class Heap extends LocationTable {
+        private final Location[] locations;
+        private final Map<Location, Integer> ids;
+
+        Heap(Location[] locations, Map<Location, Integer> ids) {
+            this.locations = locations;
+            this.ids = ids;
+        }
+
+        @Override
+        int size() {
+            return locations.length;
+        }
+
+        @Override
+        Location get(int vertex) {
+            return locations[vertex];
+        }
+
+        @Override
+        int indexOf(Location location) {
+            Integer id = ids.get(location);
+            return id != null ? id : -1;
+        }
+    }
+
+    /**
+     * Tabla leída de un archivo de grafo proyectado en memoria.
+     *
+     * <p>Los nombres están en UTF-8, uno tras otro, con la posición de cada uno en
+     * {@code nameOffsets}. La tabla hash usa sondeo lineal y guarda en cada posición el
+     * identificador más uno, o cero si está libre.</p>
+     */
+    static final class Mapped extends LocationTable {
+        private final IntBuffer nameOffsets;
+        private final ByteBuffer names;
+        private final IntBuffer slots;
+        private final DoubleBuffer latitudes;
+        private final DoubleBuffer longitudes;
+
+        /**
+         * Ubicaciones ya creadas, por identificador.
+         */
+        private final AtomicReferenceArray<Location> cache;
+
+        Mapped(IntBuffer nameOffsets, ByteBuffer names, IntBuffer slots,
+               DoubleBuffer latitudes, DoubleBuffer longitudes) {
+            this.nameOffsets = nameOffsets;
+            this.names = names;
+            this.slots = slots;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.cache = new AtomicReferenceArray<>(latitudes.capacity());
+        }
+
+        @Override
+        int size() {
+            return cache.length();
+        }
+
+        @Override
+        Location get(int vertex) {
+            Location location = cache.get(vertex);
+            if (location == null) {
+                double latitude = latitudes.get(vertex);
+                location = Double.isNaN(latitude)
+                        ? new Location(name(vertex))
+                        : new Location(name(vertex), latitude, longitudes.get(vertex));
+                if (!cache.compareAndSet(vertex, null, location)) {
+                    location = cache.get(vertex);
+                }
+            }
+            return location;
+        }
+
+        private String name(int vertex) {
+            int from = nameOffsets.get(vertex);
+            byte[] bytes = new byte[nameOffsets.get(vertex + 1) - from];
+            names.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        int indexOf(Location location) {
+            String name = location.getName();
+            int capacity = slots.capacity();
+            byte[] bytes = null;
+            for (int slot = slot(name.hashCode(), capacity); ; slot = (slot + 1) & (capacity - 1)) {
+                int entry = slots.get(slot);
+                if (entry == 0) {
+                    return -1;
+                }
+                int vertex = entry - 1;
+                Location cached = cache.get(vertex);
+                if (cached != null) {
+                    if (cached.getName().equals(name)) {
+                        return vertex;
+                    }
+                    continue;
+                }
+                if (bytes == null) {
+                    bytes = name.getBytes(StandardCharsets.UTF_8);
+                }
+                if (nameEquals(vertex, bytes)) {
+                    return vertex;
+                }
+            }
+        }
+
+        private boolean nameEquals(int vertex, byte[] bytes) {
+            int from = nameOffsets.get(vertex);
+            if (nameOffsets.get(vertex + 1) - from != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (names.get(from + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package co.edu.uptc.taller.model;
+
+import java.util.List;
+
+/**
+ * Ruta evaluada con los tres criterios: distancia, costo y tiempo.
+ *
+ * <p>Las rutas que devuelve la búsqueda de Pareto no se dominan entre sí: ninguna es mejor o
+ * igual que otra en los tres criterios a la vez.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public class ParetoRoute {
+
+    private final RoutePath path;
+    private final double cost;
+    private final double time;
+
+    /**
+     * Crea una ruta evaluada.
+     *
+     * @param path La ruta con su distancia y tramos.
+     * @param cost Costo total en COP.
+     * @param time Tiempo total en horas.
+     */
+    public ParetoRoute(RoutePath path, double cost, double time) {
+        this.path = path;
+        this.cost = cost;
+        this.time = time;
+    }
+
+    /**
+     * Elige una ruta del frente según un criterio.
+     *
+     * @param frontier  Rutas no dominadas.
+     * @param criterion Criterio de elección.
+     * @return La ruta elegida, o {@code null} si el frente está vacío.
+     */
+    public static ParetoRoute select(List<ParetoRoute> frontier, RouteCriterion criterion) {
+        switch (criterion) {
+            case DISTANCE:
+                return select(frontier, 1, 0, 0);
+            case COST:
+                return select(frontier, 0, 1, 0);
+            case TIME:
+                return select(frontier, 0, 0, 1);
+            case BALANCED:
+            default:
+                return select(frontier, 1, 1, 1);
+        }
+    }
+
+    /**
+     * Elige la ruta del frente con la menor suma ponderada de criterios. Cada criterio se divide
+     * por su mejor valor en el frente para que las unidades no pesen.
+     *
+     * @param frontier       Rutas no dominadas.
+     * @param distanceWeight Peso de la distancia.
+     * @param costWeight     Peso del costo.
+     * @param timeWeight     Peso del tiempo.
+     * @return La ruta elegida, o {@code null} si el frente está vacío.
+     */
+    public static ParetoRoute select(List<ParetoRoute> frontier, double distanceWeight,
+                                     double costWeight, double timeWeight) {
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double bestCost = Double.POSITIVE_INFINITY;
+        double bestTime = Double.POSITIVE_INFINITY;
+        for (ParetoRoute route : frontier) {
+            bestDistance = Math.min(bestDistance, route.getDistance());
+            bestCost = Math.min(bestCost, route.getCost());
+            bestTime = Math.min(bestTime, route.getTime());
+        }
+        ParetoRoute best = null;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (ParetoRoute route : frontier) {
+            double score = distanceWeight * ratio(route.getDistance(), bestDistance)
+                    + costWeight * ratio(route.getCost(), bestCost)
+                    + timeWeight * ratio(route.getTime(), bestTime);
+            if (score < bestScore) {
+                bestScore = score;
+                best = route;
+            }
+        }
+        return best;
+    }
+
+    private static double ratio(double value, double best) {
+        return best > 0 ? value / best : value;
+    }
+
+    public RoutePath getPath() {
+        return path;
+    }
+
+    public List<Location> getVertices() {
+        return path.getVertices();
+    }
+
+    /**
+     * Obtiene la distancia total de la ruta.
+     *
+     * @return Distancia en kilómetros.
+     */
+    public double getDistance() {
+        return path.getWeight();
+    }
+
+    /**
+     * Obtiene el costo total de la ruta.
+     *
+     * @return Costo en COP.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Obtiene el tiempo total de la ruta.
+     *
+     * @return Tiempo en horas.
+     */
+    public double getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,348 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Búsqueda multi-etiqueta del frente de Pareto de rutas según distancia, costo y tiempo.
+ *
+ * <p>Cada etiqueta es una forma de llegar a un vértice con su distancia, costo y tiempo
+ * acumulados. Cada vértice guarda solo sus etiquetas no dominadas. Las etiquetas se expanden en
+ * orden de una suma normalizada de los tres criterios más una cota inferior de lo que falta
+ * hasta el destino (al estilo de NAMOA*), de modo que una etiqueta expandida nunca queda
+ * dominada por otra posterior del mismo vértice.</p>
+ *
+ * <p>Para que la búsqueda no explote en grafos grandes se aplican tres podas:</p>
+ * <ul>
+ *     <li>Las cotas inferiores de cada criterio hasta el destino salen de tres Dijkstra desde el
+ *     destino. Una etiqueta que, sumando sus cotas, queda dominada por una ruta ya encontrada
+ *     se descarta.</li>
+ *     <li>Una etiqueta dominada por otra del mismo vértice se descarta, y las que ella domina se
+ *     eliminan.</li>
+ *     <li>Cada vértice guarda como máximo {@code maxLabelsPerVertex} etiquetas. Si se llena,
+ *     una etiqueta nueva solo entra desplazando a la de peor prioridad. En ese caso el frente
+ *     puede quedar incompleto.</li>
+ * </ul>
+ *
+ * <p>Las etiquetas se guardan en arreglos primitivos que crecen por duplicación. Una instancia
+ * sirve para una sola búsqueda.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class ParetoSearch {
+
+    /**
+     * Máximo de etiquetas por vértice que se usa si no se indica otro.
+     */
+    static final int DEFAULT_MAX_LABELS = 16;
+
+    /**
+     * Máximo de etiquetas creadas en una búsqueda; al alcanzarlo se devuelve el frente
+     * encontrado hasta ese momento.
+     */
+    private static final int MAX_TOTAL_LABELS = 1 << 21;
+
+    private static final int DISTANCE = 0;
+    private static final int COST = 1;
+    private static final int TIME = 2;
+
+    private final CompactGraph graph;
+    private final int maxLabelsPerVertex;
+
+    private double[] labelDistance = new double[64];
+    private double[] labelCost = new double[64];
+    private double[] labelTime = new double[64];
+    private double[] labelKey = new double[64];
+    private int[] labelVertex = new int[64];
+    private int[] labelParent = new int[64];
+    private int[] labelArc = new int[64];
+    private boolean[] dead = new boolean[64];
+    private int labelCount;
+
+    /**
+     * Etiquetas no dominadas de cada vértice; se reservan al llegar la primera.
+     */
+    private final int[][] bags;
+    private final int[] bagSize;
+
+    /**
+     * Montículo binario de etiquetas por {@link #labelKey}; las etiquetas eliminadas se
+     * descartan al extraerlas.
+     */
+    private int[] queue = new int[64];
+    private int queueSize;
+
+    private double[] boundDistance;
+    private double[] boundCost;
+    private double[] boundTime;
+    private double scaleDistance;
+    private double scaleCost;
+    private double scaleTime;
+
+    private final List<Integer> solutions = new ArrayList<>();
+
+    /**
+     * Prepara una búsqueda sobre el grafo indicado.
+     *
+     * @param graph              El grafo compacto.
+     * @param maxLabelsPerVertex Máximo de etiquetas guardadas por vértice.
+     */
+    ParetoSearch(CompactGraph graph, int maxLabelsPerVertex) {
+        this.graph = graph;
+        this.maxLabelsPerVertex = maxLabelsPerVertex;
+        this.bags = new int[graph.vertexCount()][];
+        this.bagSize = new int[graph.vertexCount()];
+    }
+
+    /**
+     * Busca las rutas no dominadas entre dos vértices.
+     *
+     * @param source Identificador del origen.
+     * @param target Identificador del destino.
+     * @return Las rutas no dominadas ordenadas por distancia; vacía si no hay ruta.
+     */
+    List<ParetoRoute> run(int source, int target) {
+        boundDistance = lowerBounds(target, DISTANCE);
+        if (boundDistance[source] == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+        boundCost = lowerBounds(target, COST);
+        boundTime = lowerBounds(target, TIME);
+        scaleDistance = scale(boundDistance[source]);
+        scaleCost = scale(boundCost[source]);
+        scaleTime = scale(boundTime[source]);
+
+        insert(source, 0.0, 0.0, 0.0, -1, -1);
+        while (queueSize > 0 && labelCount < MAX_TOTAL_LABELS) {
+            int label = poll();
+            if (dead[label]) {
+                continue;
+            }
+            int v = labelVertex[label];
+            double d = labelDistance[label];
+            double c = labelCost[label];
+            double t = labelTime[label];
+            if (dominatedBySolution(d + boundDistance[v], c + boundCost[v], t + boundTime[v])) {
+                continue;
+            }
+            if (v == target) {
+                solutions.add(label);
+                continue;
+            }
+            int parentVertex = labelParent[label] >= 0 ? labelVertex[labelParent[label]] : -1;
+            for (int arc = graph.firstArc(v), end = graph.endArc(v); arc < end; arc++) {
+                int w = graph.target(arc);
+                if (w == parentVertex || boundDistance[w] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double nd = d + graph.weight(arc);
+                double nc = c + graph.cost(arc);
+                double nt = t + graph.time(arc);
+                if (!dominatedBySolution(nd + boundDistance[w], nc + boundCost[w], nt + boundTime[w])) {
+                    insert(w, nd, nc, nt, label, arc);
+                }
+            }
+        }
+
+        List<ParetoRoute> routes = new ArrayList<>(solutions.size());
+        for (int label : solutions) {
+            routes.add(toRoute(label));
+        }
+        routes.sort(Comparator.comparingDouble(ParetoRoute::getDistance));
+        return routes;
+    }
+
+    private static double scale(double bound) {
+        return bound > 0 ? bound : 1.0;
+    }
+
+    private boolean dominatedBySolution(double d, double c, double t) {
+        for (int label : solutions) {
+            if (labelDistance[label] <= d && labelCost[label] <= c && labelTime[label] <= t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Intenta añadir una etiqueta a la bolsa de un vértice.
+     */
+    private void insert(int vertex, double d, double c, double t, int parent, int arc) {
+        int[] bag = bags[vertex];
+        int size = bagSize[vertex];
+        for (int i = 0; i < size; i++) {
+            int other = bag[i];
+            if (labelDistance[other] <= d && labelCost[other] <= c && labelTime[other] <= t) {
+                return;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int other = bag[i];
+            if (d <= labelDistance[other] && c <= labelCost[other] && t <= labelTime[other]) {
+                dead[other] = true;
+            } else {
+                bag[kept++] = other;
+            }
+        }
+        size = kept;
+
+        double key = (d + boundDistance[vertex]) / scaleDistance
+                + (c + boundCost[vertex]) / scaleCost
+                + (t + boundTime[vertex]) / scaleTime;
+        if (size == maxLabelsPerVertex) {
+            int worst = 0;
+            for (int i = 1; i < size; i++) {
+                if (labelKey[bag[i]] > labelKey[bag[worst]]) {
+                    worst = i;
+                }
+            }
+            if (key >= labelKey[bag[worst]]) {
+                bagSize[vertex] = size;
+                return;
+            }
+            dead[bag[worst]] = true;
+            bag[worst] = bag[--size];
+        }
+
+        int label = newLabel(vertex, d, c, t, key, parent, arc);
+        if (bag == null) {
+            bag = new int[Math.min(4, maxLabelsPerVertex)];
+            bags[vertex] = bag;
+        } else if (size == bag.length) {
+            bag = Arrays.copyOf(bag, Math.min(bag.length * 2, maxLabelsPerVertex));
+            bags[vertex] = bag;
+        }
+        bag[size++] = label;
+        bagSize[vertex] = size;
+        push(label);
+    }
+
+    private int newLabel(int vertex, double d, double c, double t, double key, int parent, int arc) {
+        if (labelCount == labelVertex.length) {
+            int capacity = labelCount * 2;
+            labelDistance = Arrays.copyOf(labelDistance, capacity);
+            labelCost = Arrays.copyOf(labelCost, capacity);
+            labelTime = Arrays.copyOf(labelTime, capacity);
+            labelKey = Arrays.copyOf(labelKey, capacity);
+            labelVertex = Arrays.copyOf(labelVertex, capacity);
+            labelParent = Arrays.copyOf(labelParent, capacity);
+            labelArc = Arrays.copyOf(labelArc, capacity);
+            dead = Arrays.copyOf(dead, capacity);
+        }
+        int label = labelCount++;
+        labelDistance[label] = d;
+        labelCost[label] = c;
+        labelTime[label] = t;
+        labelKey[label] = key;
+        labelVertex[label] = vertex;
+        labelParent[label] = parent;
+        labelArc[label] = arc;
+        return label;
+    }
+
+    private void push(int label) {
+        if (queueSize == queue.length) {
+            queue = Arrays.copyOf(queue, queueSize * 2);
+        }
+        int pos = queueSize++;
+        double key = labelKey[label];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (labelKey[queue[parent]] <= key) {
+                break;
+            }
+            queue[pos] = queue[parent];
+            pos = parent;
+        }
+        queue[pos] = label;
+    }
+
+    private int poll() {
+        int top = queue[0];
+        int last = queue[--queueSize];
+        if (queueSize > 0) {
+            double key = labelKey[last];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= queueSize) {
+                    break;
+                }
+                if (child + 1 < queueSize && labelKey[queue[child + 1]] < labelKey[queue[child]]) {
+                    child++;
+                }
+                if (labelKey[queue[child]] >= key) {
+                    break;
+                }
+                queue[pos] = queue[child];
+                pos = child;
+            }
+            queue[pos] = last;
+        }
+        return top;
+    }
+
+    /**
+     * Calcula con Dijkstra desde el destino el mínimo de un criterio hasta él desde cada vértice.
+     */
+    private double[] lowerBounds(int target, int criterion) {
+        int n = graph.vertexCount();
+        double[] bound = new double[n];
+        Arrays.fill(bound, Double.POSITIVE_INFINITY);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        bound[target] = 0.0;
+        heap.insertOrDecrease(target, 0.0);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            double du = bound[u];
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.target(arc);
+                double dv = du + weight(arc, criterion);
+                if (dv < bound[v]) {
+                    bound[v] = dv;
+                    heap.insertOrDecrease(v, dv);
+                }
+            }
+        }
+        return bound;
+    }
+
+    private double weight(int arc, int criterion) {
+        switch (criterion) {
+            case COST:
+                return graph.cost(arc);
+            case TIME:
+                return graph.time(arc);
+            case DISTANCE:
+            default:
+                return graph.weight(arc);
+        }
+    }
+
+    private ParetoRoute toRoute(int label) {
+        int legs = 0;
+        for (int l = label; labelParent[l] >= 0; l = labelParent[l]) {
+            legs++;
+        }
+        Location[] vertices = new Location[legs + 1];
+        double[] legDistances = new double[legs];
+        int l = label;
+        for (int i = legs; i > 0; i--) {
+            vertices[i] = graph.location(labelVertex[l]);
+            legDistances[i - 1] = graph.weight(labelArc[l]);
+            l = labelParent[l];
+        }
+        vertices[0] = graph.location(labelVertex[l]);
+
+        List<Location> list = new ArrayList<>(vertices.length);
+        Collections.addAll(list, vertices);
+        RoutePath path = new RoutePath(list, labelDistance[label], legDistances);
+        return new ParetoRoute(path, labelCost[label], labelTime[label]);
+    }
+}
@@ -0,0 +1,61 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Costo y tiempo propios de una ruta, independientes de su distancia.
+ *
+ * <p>Permiten modelar peajes, consumo de combustible o vías lentas: una ruta corta puede ser cara
+ * o lenta. Las rutas sin atributos propios usan un costo proporcional a la distancia
+ * ({@link #DEFAULT_COST_PER_KM}) y el tiempo a la velocidad promedio
+ * ({@link SpeedProfile#DEFAULT_SPEED_KMH}).</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class RouteAttributes {
+
+    /**
+     * Costo por kilómetro en COP de las rutas sin costo propio.
+     */
+    public static final double DEFAULT_COST_PER_KM = 1500.0;
+
+    private final double cost;
+    private final double time;
+
+    /**
+     * Crea los atributos de una ruta.
+     *
+     * @param cost Costo de recorrer la ruta en COP.
+     * @param time Tiempo de recorrido en horas.
+     * @throws IllegalArgumentException si algún valor es negativo o no es finito.
+     */
+    public RouteAttributes(double cost, double time) {
+        if (!(cost >= 0) || !(time >= 0) || Double.isInfinite(cost) || Double.isInfinite(time)) {
+            throw new IllegalArgumentException("El costo y el tiempo de la ruta deben ser valores finitos no negativos.");
+        }
+        this.cost = cost;
+        this.time = time;
+    }
+
+    /**
+     * Obtiene los atributos por defecto de una ruta según su distancia.
+     *
+     * @param distance Distancia de la ruta en kilómetros.
+     * @return Los atributos derivados de la distancia.
+     */
+    public static RouteAttributes forDistance(double distance) {
+        return new RouteAttributes(distance * DEFAULT_COST_PER_KM, distance / SpeedProfile.DEFAULT_SPEED_KMH);
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("COP %.0f, %.2f h", cost, time);
+    }
+}
@@ -0,0 +1,58 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Cambio sobre una ruta del grafo: creación, cambio de distancia o eliminación.
+ *
+ * <p>{@link DeliveryGraph} registra estos cambios para que los índices derivados (por ejemplo,
+ * las tablas de landmarks) se actualicen de forma incremental en lugar de recalcularse.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class RouteChange {
+
+    private final Location from;
+    private final Location to;
+    private final double oldDistance;
+    private final double newDistance;
+
+    /**
+     * Crea un registro de cambio.
+     *
+     * @param from        Un extremo de la ruta.
+     * @param to          El otro extremo de la ruta.
+     * @param oldDistance Distancia anterior, o {@code NaN} si la ruta no existía.
+     * @param newDistance Distancia nueva, o {@code NaN} si la ruta se eliminó.
+     */
+    public RouteChange(Location from, Location to, double oldDistance, double newDistance) {
+        this.from = from;
+        this.to = to;
+        this.oldDistance = oldDistance;
+        this.newDistance = newDistance;
+    }
+
+    public Location getFrom() {
+        return from;
+    }
+
+    public Location getTo() {
+        return to;
+    }
+
+    public double getOldDistance() {
+        return oldDistance;
+    }
+
+    public double getNewDistance() {
+        return newDistance;
+    }
+
+    /**
+     * Indica si el cambio puede alargar algún camino más corto (la ruta se alargó o se eliminó).
+     *
+     * @return {@code true} si la distancia aumentó o la ruta dejó de existir.
+     */
+    public boolean isIncrease() {
+        return !Double.isNaN(oldDistance) && (Double.isNaN(newDistance) || newDistance > oldDistance);
+    }
+}
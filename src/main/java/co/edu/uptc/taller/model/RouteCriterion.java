@@ -0,0 +1,31 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Criterio para elegir una ruta entre las del frente de Pareto.
+ *
+ * @author
+ * @version 1.0
+ */
+public enum RouteCriterion {
+
+    /**
+     * La ruta de menor distancia.
+     */
+    DISTANCE,
+
+    /**
+     * La ruta de menor costo.
+     */
+    COST,
+
+    /**
+     * La ruta de menor tiempo.
+     */
+    TIME,
+
+    /**
+     * La ruta con la menor suma de distancia, costo y tiempo, cada uno relativo al mejor valor
+     * del frente.
+     */
+    BALANCED
+}
@@ -0,0 +1,159 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado inmutable de una consulta de ruta sobre el {@link DeliveryGraph}.
+ *
+ * <p>Agrupa en un solo objeto la secuencia de ubicaciones, la distancia total y el desglose
+ * de distancia por tramo, de modo que todo se obtiene con una única búsqueda en el grafo.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public class RoutePath {
+
+    /**
+     * Ubicaciones que conforman la ruta, desde el origen hasta el destino.
+     */
+    private final List<Location> vertices;
+
+    /**
+     * Distancia total de la ruta en kilómetros.
+     */
+    private final double weight;
+
+    /**
+     * Distancia de cada tramo; el tramo {@code i} va de {@code vertices[i]} a {@code vertices[i + 1]}.
+     */
+    private final double[] legDistances;
+
+    /**
+     * Número de vértices asentados por la búsqueda que produjo la ruta, o {@code 0} si la ruta
+     * se obtuvo de una estructura ya calculada.
+     */
+    private final int settledCount;
+
+    /**
+     * Crea un nuevo resultado de ruta.
+     *
+     * @param vertices     Ubicaciones de la ruta en orden de recorrido.
+     * @param weight       Distancia total en kilómetros.
+     * @param legDistances Distancia de cada tramo; debe tener {@code vertices.size() - 1} elementos.
+     * @throws IllegalArgumentException si el número de tramos no corresponde con el de ubicaciones.
+     */
+    public RoutePath(List<Location> vertices, double weight, double[] legDistances) {
+        this(vertices, weight, legDistances, 0);
+    }
+
+    private RoutePath(List<Location> vertices, double weight, double[] legDistances, int settledCount) {
+        if (legDistances.length != Math.max(0, vertices.size() - 1)) {
+            throw new IllegalArgumentException("El número de tramos no corresponde con las ubicaciones de la ruta.");
+        }
+        this.vertices = Collections.unmodifiableList(vertices);
+        this.weight = weight;
+        this.legDistances = legDistances;
+        this.settledCount = settledCount;
+    }
+
+    /**
+     * Crea una copia de esta ruta que registra cuántos vértices asentó la búsqueda.
+     *
+     * @param settledCount Número de vértices asentados.
+     * @return La ruta con la estadística de búsqueda.
+     */
+    RoutePath withSettledCount(int settledCount) {
+        return new RoutePath(vertices, weight, legDistances, settledCount);
+    }
+
+    /**
+     * Reconstruye una ruta recorriendo hacia atrás los predecesores desde el destino.
+     *
+     * @param graph          Grafo compacto sobre el que se calcularon los predecesores.
+     * @param target         Identificador del vértice de destino.
+     * @param weight         Distancia total hasta el destino.
+     * @param predecessor    Vértice predecesor de cada vértice, o {@code -1} en el origen.
+     * @param predecessorArc Arco por el que se llega a cada vértice desde su predecesor.
+     * @return La ruta reconstruida.
+     */
+    static RoutePath fromPredecessors(CompactGraph graph, int target, double weight,
+                                      int[] predecessor, int[] predecessorArc) {
+        int legs = 0;
+        for (int v = target; predecessor[v] >= 0; v = predecessor[v]) {
+            legs++;
+        }
+
+        Location[] vertices = new Location[legs + 1];
+        double[] legDistances = new double[legs];
+        int v = target;
+        for (int i = legs; i > 0; i--) {
+            vertices[i] = graph.location(v);
+            legDistances[i - 1] = graph.weight(predecessorArc[v]);
+            v = predecessor[v];
+        }
+        vertices[0] = graph.location(v);
+
+        List<Location> list = new ArrayList<>(vertices.length);
+        Collections.addAll(list, vertices);
+        return new RoutePath(list, weight, legDistances);
+    }
+
+    /**
+     * Obtiene las ubicaciones de la ruta.
+     *
+     * @return Lista no modificable de ubicaciones desde el origen hasta el destino.
+     */
+    public List<Location> getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Obtiene la distancia total de la ruta.
+     *
+     * @return Distancia total en kilómetros.
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Obtiene el número de tramos de la ruta.
+     *
+     * @return Cantidad de tramos (ubicaciones menos uno).
+     */
+    public int getLegCount() {
+        return legDistances.length;
+    }
+
+    /**
+     * Obtiene la distancia de un tramo concreto.
+     *
+     * @param leg Índice del tramo, empezando en cero.
+     * @return Distancia del tramo en kilómetros.
+     */
+    public double getLegDistance(int leg) {
+        return legDistances[leg];
+    }
+
+    /**
+     * Obtiene el número de vértices que asentó la búsqueda que produjo esta ruta.
+     *
+     * <p>Sirve para comparar el trabajo de los distintos modos de búsqueda.</p>
+     *
+     * @return Vértices asentados, o {@code 0} si la ruta salió de una estructura ya calculada.
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Obtiene una copia del desglose de distancias por tramo.
+     *
+     * @return Arreglo con la distancia de cada tramo en kilómetros.
+     */
+    public double[] getLegDistances() {
+        return legDistances.clone();
+    }
+}
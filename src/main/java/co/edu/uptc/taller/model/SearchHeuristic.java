@@ -0,0 +1,27 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Cota inferior de la distancia restante desde un vértice hasta el destino de una búsqueda.
+ *
+ * <p>Para que A* devuelva rutas óptimas la cota debe ser admisible (nunca sobreestimar) y
+ * consistente: {@code h(u) <= w(u, v) + h(v)} para todo arco {@code (u, v)}.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SearchHeuristic {
+
+    /**
+     * Heurística nula: convierte A* en Dijkstra.
+     */
+    SearchHeuristic NONE = vertex -> 0.0;
+
+    /**
+     * Estima la distancia mínima restante desde un vértice hasta el destino.
+     *
+     * @param vertex Identificador del vértice en el {@link CompactGraph}.
+     * @return Una cota inferior de la distancia restante en kilómetros.
+     */
+    double lowerBound(int vertex);
+}
@@ -0,0 +1,33 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Algoritmo utilizado por {@link DeliveryGraph} para responder una consulta de ruta.
+ *
+ * @author
+ * @version 1.0
+ */
+public enum SearchMode {
+
+    /**
+     * Dijkstra sobre el árbol de caminos más cortos del origen, reutilizado entre consultas.
+     */
+    DIJKSTRA,
+
+    /**
+     * A* guiado por la distancia geográfica (haversine) hasta el destino. Si alguna ubicación del
+     * grafo no tiene coordenadas se usa Dijkstra punto a punto.
+     */
+    A_STAR,
+
+    /**
+     * A* guiado por cotas de desigualdad triangular sobre una {@link LandmarkIndex}; no requiere
+     * coordenadas. La tabla se repara de forma incremental cuando cambian las rutas.
+     */
+    ALT,
+
+    /**
+     * Búsqueda bidireccional ascendente sobre una {@link ContractionHierarchy}. El índice se
+     * construye la primera vez que se usa este modo y se descarta cuando cambia el grafo.
+     */
+    CONTRACTION_HIERARCHY
+}
@@ -0,0 +1,117 @@
+package co.edu.uptc.taller.model;
+
+/**
+ * Árbol de caminos más cortos calculado desde una ubicación de origen.
+ *
+ * <p>Se obtiene con una sola ejecución de Dijkstra y permite responder cualquier consulta
+ * desde ese mismo origen (por ejemplo, un depósito) sin volver a recorrer el grafo. Las
+ * distancias y predecesores se guardan en arreglos primitivos indexados por el identificador
+ * del vértice en el {@link CompactGraph}.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public class ShortestPathTree {
+
+    /**
+     * Grafo compacto sobre el que se calculó el árbol.
+     */
+    private final CompactGraph graph;
+
+    /**
+     * Identificador del vértice de origen.
+     */
+    private final int source;
+
+    /**
+     * Distancia más corta desde el origen a cada vértice.
+     */
+    private final double[] distance;
+
+    /**
+     * Predecesor de cada vértice en el árbol, o {@code -1}.
+     */
+    private final int[] predecessor;
+
+    /**
+     * Arco por el que se llega a cada vértice desde su predecesor, o {@code -1}.
+     */
+    private final int[] predecessorArc;
+
+    /**
+     * Crea un árbol a partir de los arreglos ya calculados.
+     *
+     * @param graph          Grafo compacto sobre el que se calculó.
+     * @param source         Identificador del origen.
+     * @param distance       Distancia a cada vértice.
+     * @param predecessor    Predecesor de cada vértice.
+     * @param predecessorArc Arco de llegada a cada vértice.
+     */
+    ShortestPathTree(CompactGraph graph, int source, double[] distance,
+                     int[] predecessor, int[] predecessorArc) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.predecessor = predecessor;
+        this.predecessorArc = predecessorArc;
+    }
+
+    /**
+     * Obtiene la ubicación de origen del árbol.
+     *
+     * @return La ubicación de origen.
+     */
+    public Location getSource() {
+        return graph.location(source);
+    }
+
+    /**
+     * Obtiene la distancia más corta desde el origen hasta una ubicación.
+     *
+     * @param target La ubicación de destino.
+     * @return La distancia en kilómetros, o {@code Double.POSITIVE_INFINITY} si no es alcanzable.
+     * @throws IllegalArgumentException si {@code target} no pertenece al grafo.
+     */
+    public double getDistance(Location target) {
+        return distance[vertexOf(target)];
+    }
+
+    /**
+     * Reconstruye la ruta desde el origen hasta una ubicación, con su desglose por tramos.
+     *
+     * @param target La ubicación de destino.
+     * @return La ruta encontrada, o {@code null} si el destino no es alcanzable.
+     * @throws IllegalArgumentException si {@code target} no pertenece al grafo.
+     */
+    public RoutePath getRoute(Location target) {
+        int vertex = vertexOf(target);
+        if (distance[vertex] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        return RoutePath.fromPredecessors(graph, vertex, distance[vertex], predecessor, predecessorArc);
+    }
+
+    CompactGraph graph() {
+        return graph;
+    }
+
+    double distance(int vertex) {
+        return distance[vertex];
+    }
+
+    int predecessor(int vertex) {
+        return predecessor[vertex];
+    }
+
+    int predecessorArc(int vertex) {
+        return predecessorArc[vertex];
+    }
+
+    private int vertexOf(Location location) {
+        int vertex = graph.indexOf(location);
+        if (vertex < 0) {
+            throw new IllegalArgumentException("La ubicación no pertenece al grafo: " + location);
+        }
+        return vertex;
+    }
+}
@@ -0,0 +1,161 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Arrays;
+
+/**
+ * Perfil de velocidad de una ruta según la hora del día.
+ *
+ * <p>El perfil se define con puntos de quiebre (hora del día y velocidad en ese momento). Entre
+ * dos puntos, el tiempo por kilómetro se interpola linealmente, de modo que el tiempo de viaje de
+ * una ruta es una función lineal por tramos de la hora de salida. El perfil es periódico: después
+ * del último punto se interpola hacia el primero del día siguiente.</p>
+ *
+ * <p>Si al salir más tarde se llegara antes (el perfil acelera más rápido de lo que pasa el
+ * tiempo), se considera que el vehículo espera al inicio del tramo; así se respeta la propiedad
+ * FIFO y la búsqueda dependiente del tiempo sigue siendo exacta.</p>
+ *
+ * <p>Las instancias son inmutables. Los perfiles iguales se comparten entre rutas, por lo que
+ * el grafo solo guarda una copia de cada perfil distinto.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class SpeedProfile {
+
+    /**
+     * Velocidad promedio en km/h de las rutas sin perfil.
+     */
+    public static final double DEFAULT_SPEED_KMH = 60.0;
+
+    /**
+     * Duración del periodo de los perfiles, en horas.
+     */
+    public static final double HOURS_PER_DAY = 24.0;
+
+    /**
+     * Perfil de velocidad constante usado por las rutas sin perfil propio.
+     */
+    public static final SpeedProfile DEFAULT = constant(DEFAULT_SPEED_KMH);
+
+    /**
+     * Hora del día de cada punto de quiebre, en orden creciente dentro de {@code [0, 24)}.
+     */
+    private final double[] hours;
+
+    /**
+     * Tiempo por kilómetro (horas / km) en cada punto de quiebre.
+     */
+    private final double[] paces;
+
+    private final int hash;
+
+    /**
+     * Crea un perfil a partir de sus puntos de quiebre.
+     *
+     * @param hours     Hora del día de cada punto, en orden estrictamente creciente dentro de
+     *                  {@code [0, 24)}.
+     * @param speedsKmh Velocidad en km/h en cada punto.
+     * @throws NullPointerException     si algún arreglo es {@code null}.
+     * @throws IllegalArgumentException si los arreglos están vacíos, tienen distinta longitud, las
+     *                                  horas no son crecientes o alguna velocidad no es positiva.
+     */
+    public SpeedProfile(double[] hours, double[] speedsKmh) {
+        if (hours == null || speedsKmh == null) {
+            throw new NullPointerException("Las horas y velocidades del perfil no pueden ser nulas.");
+        }
+        if (hours.length == 0 || hours.length != speedsKmh.length) {
+            throw new IllegalArgumentException("El perfil debe tener al menos un punto y una velocidad por hora.");
+        }
+        this.hours = hours.clone();
+        this.paces = new double[speedsKmh.length];
+        for (int i = 0; i < hours.length; i++) {
+            if (!(hours[i] >= 0 && hours[i] < HOURS_PER_DAY) || (i > 0 && hours[i] <= hours[i - 1])) {
+                throw new IllegalArgumentException("Las horas del perfil deben ser crecientes y estar entre 0 y 24.");
+            }
+            if (!(speedsKmh[i] > 0) || Double.isInfinite(speedsKmh[i])) {
+                throw new IllegalArgumentException("Las velocidades del perfil deben ser positivas.");
+            }
+            paces[i] = 1.0 / speedsKmh[i];
+        }
+        this.hash = 31 * Arrays.hashCode(this.hours) + Arrays.hashCode(paces);
+    }
+
+    /**
+     * Crea un perfil de velocidad constante.
+     *
+     * @param speedKmh Velocidad en km/h.
+     * @return El perfil.
+     * @throws IllegalArgumentException si la velocidad no es positiva.
+     */
+    public static SpeedProfile constant(double speedKmh) {
+        return new SpeedProfile(new double[] {0.0}, new double[] {speedKmh});
+    }
+
+    /**
+     * Obtiene la velocidad del perfil a una hora dada.
+     *
+     * @param hour Hora, en horas desde la medianoche; puede pasar de 24.
+     * @return La velocidad en km/h.
+     */
+    public double getSpeedAt(double hour) {
+        return 1.0 / TimeProfiles.pace(hours, paces, 0, hours.length, hour);
+    }
+
+    /**
+     * Calcula el tiempo de viaje de una ruta con este perfil.
+     *
+     * @param distance  Distancia de la ruta en kilómetros.
+     * @param departure Hora de salida, en horas desde la medianoche.
+     * @return El tiempo de viaje en horas, incluida la espera si el perfil la requiere.
+     */
+    public double getTravelTime(double distance, double departure) {
+        double slope = TimeProfiles.minSlope(hours, paces, 0, hours.length);
+        return TimeProfiles.arrival(hours, paces, 0, hours.length, slope, distance, departure) - departure;
+    }
+
+    /**
+     * Obtiene el número de puntos de quiebre.
+     *
+     * @return Cantidad de puntos.
+     */
+    public int size() {
+        return hours.length;
+    }
+
+    double[] hours() {
+        return hours;
+    }
+
+    double[] paces() {
+        return paces;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SpeedProfile)) {
+            return false;
+        }
+        SpeedProfile other = (SpeedProfile) o;
+        return hash == other.hash && Arrays.equals(hours, other.hours) && Arrays.equals(paces, other.paces);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SpeedProfile[");
+        for (int i = 0; i < hours.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format("%.2f h: %.1f km/h", hours[i], 1.0 / paces[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
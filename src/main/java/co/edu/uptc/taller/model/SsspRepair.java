@@ -0,0 +1,132 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reparación incremental de distancias de origen único tras cambios en las rutas.
+ *
+ * <p>Trabaja sobre filas de distancias guardadas en arreglos planos (una tabla de landmarks, una
+ * fila de la matriz de distancias, etc.). Los acortamientos se propagan con un Dijkstra que solo
+ * visita los vértices que mejoran; los alargamientos solo obligan a recalcular la fila si la ruta
+ * alargada formaba parte de algún camino más corto.</p>
+ *
+ * <p>Una instancia no es segura para uso concurrente.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class SsspRepair {
+
+    private final CompactGraph graph;
+    private final IndexedMinHeap heap;
+
+    /**
+     * Crea un reparador para el grafo que ya contiene los cambios.
+     *
+     * @param graph El grafo actualizado.
+     */
+    SsspRepair(CompactGraph graph) {
+        this.graph = graph;
+        this.heap = new IndexedMinHeap(graph.vertexCount());
+    }
+
+    /**
+     * Agrupa los cambios registrados por ruta y devuelve el cambio neto de cada una: la distancia
+     * anterior al primer cambio y la distancia tras el último. Las rutas que vuelven a su
+     * distancia original se descartan.
+     *
+     * @param changes Cambios en el orden en que se aplicaron.
+     * @return Un cambio neto por ruta.
+     */
+    static List<RouteChange> netChanges(List<RouteChange> changes) {
+        Map<Set<Location>, RouteChange> net = new LinkedHashMap<>();
+        for (RouteChange change : changes) {
+            net.merge(Set.of(change.getFrom(), change.getTo()), change,
+                    (first, last) -> new RouteChange(first.getFrom(), first.getTo(),
+                            first.getOldDistance(), last.getNewDistance()));
+        }
+        List<RouteChange> result = new ArrayList<>(net.size());
+        for (RouteChange change : net.values()) {
+            if (Double.compare(change.getOldDistance(), change.getNewDistance()) != 0) {
+                result.add(change);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indica si alargar o eliminar la ruta {@code u - v} puede cambiar las distancias de la fila,
+     * es decir, si la ruta era ajustada ({@code d[u] + w == d[v]} o al revés).
+     *
+     * @param distance  Arreglo de distancias.
+     * @param base      Posición de la fila dentro del arreglo.
+     * @param u         Un extremo de la ruta.
+     * @param v         El otro extremo.
+     * @param oldWeight Distancia anterior de la ruta.
+     * @return {@code true} si la fila debe recalcularse.
+     */
+    static boolean isTight(double[] distance, int base, int u, int v, double oldWeight) {
+        double du = distance[base + u];
+        double dv = distance[base + v];
+        if (du == Double.POSITIVE_INFINITY && dv == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+        double tolerance = 1e-9 * Math.max(1.0, Math.max(Math.min(du, dv), oldWeight));
+        return Math.abs(du + oldWeight - dv) <= tolerance || Math.abs(dv + oldWeight - du) <= tolerance;
+    }
+
+    /**
+     * Propaga los acortamientos provocados por rutas nuevas o más cortas.
+     *
+     * @param distance    Arreglo de distancias a actualizar.
+     * @param predecessor Arreglo de predecesores a actualizar, o {@code null}.
+     * @param base        Posición de la fila dentro de los arreglos.
+     * @param from        Un extremo de cada ruta acortada.
+     * @param to          El otro extremo de cada ruta acortada.
+     * @param weights     Distancia nueva de cada ruta.
+     * @param count       Número de rutas acortadas.
+     * @return El número de vértices cuya distancia mejoró.
+     */
+    int relaxDecreases(double[] distance, int[] predecessor, int base,
+                       int[] from, int[] to, double[] weights, int count) {
+        heap.clear();
+        for (int i = 0; i < count; i++) {
+            seed(distance, predecessor, base, from[i], to[i], weights[i]);
+            seed(distance, predecessor, base, to[i], from[i], weights[i]);
+        }
+
+        int improved = 0;
+        while (!heap.isEmpty()) {
+            int x = heap.poll();
+            improved++;
+            double dx = distance[base + x];
+            for (int arc = graph.firstArc(x), end = graph.endArc(x); arc < end; arc++) {
+                int y = graph.target(arc);
+                double dy = dx + graph.weight(arc);
+                if (dy < distance[base + y]) {
+                    distance[base + y] = dy;
+                    if (predecessor != null) {
+                        predecessor[base + y] = x;
+                    }
+                    heap.insertOrDecrease(y, dy);
+                }
+            }
+        }
+        return improved;
+    }
+
+    private void seed(double[] distance, int[] predecessor, int base, int u, int v, double weight) {
+        double candidate = distance[base + u] + weight;
+        if (candidate < distance[base + v]) {
+            distance[base + v] = candidate;
+            if (predecessor != null) {
+                predecessor[base + v] = u;
+            }
+            heap.insertOrDecrease(v, candidate);
+        }
+    }
+}
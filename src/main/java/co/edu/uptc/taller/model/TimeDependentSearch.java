@@ -0,0 +1,197 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Espacio de trabajo reutilizable para búsquedas dependientes del tiempo sobre un
+ * {@link CompactGraph}.
+ *
+ * <p>La búsqueda es un Dijkstra (o A*) cuya etiqueta es la hora de llegada a cada vértice: al
+ * relajar un arco se evalúa el perfil de velocidad de la ruta a la hora en que se sale de su
+ * extremo. Como los perfiles respetan FIFO (salir más tarde nunca permite llegar antes), la
+ * primera hora con la que se asienta cada vértice es la más temprana posible y la ruta
+ * devuelta es la de llegada más temprana.</p>
+ *
+ * <p>Igual que {@link DijkstraSearch}, usa un contador de generación para no limpiar los
+ * arreglos entre consultas. Una instancia no es segura para uso concurrente.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class TimeDependentSearch {
+
+    /**
+     * Espacio de trabajo de cada hilo, compartido por todas las versiones del grafo.
+     */
+    private static final ThreadLocal<TimeDependentSearch> WORKSPACES = new ThreadLocal<>();
+
+    private CompactGraph graph;
+    private IndexedMinHeap heap;
+    private double[] arrival;
+    private double[] estimate;
+    private int[] predecessor;
+    private int[] predecessorArc;
+    private int[] reached;
+    private int[] settled;
+    private int generation;
+    private int settledCount;
+
+    /**
+     * Crea un espacio de trabajo para el grafo indicado.
+     *
+     * @param graph El grafo compacto sobre el que se harán las búsquedas.
+     */
+    public TimeDependentSearch(CompactGraph graph) {
+        this.graph = graph;
+        allocate(graph.vertexCount());
+    }
+
+    private void allocate(int n) {
+        heap = new IndexedMinHeap(n);
+        arrival = new double[n];
+        estimate = new double[n];
+        predecessor = new int[n];
+        predecessorArc = new int[n];
+        reached = new int[n];
+        settled = new int[n];
+    }
+
+    /**
+     * Obtiene el espacio de trabajo del hilo actual preparado para un grafo, reutilizando sus
+     * arreglos entre versiones como {@link DijkstraSearch#forThread(CompactGraph)}.
+     *
+     * @param graph El grafo sobre el que se harán las búsquedas.
+     * @return La búsqueda del hilo actual.
+     */
+    static TimeDependentSearch forThread(CompactGraph graph) {
+        TimeDependentSearch search = WORKSPACES.get();
+        if (search == null) {
+            search = new TimeDependentSearch(graph);
+            WORKSPACES.set(search);
+        } else if (search.graph != graph) {
+            search.graph = graph;
+            if (graph.vertexCount() > search.arrival.length) {
+                search.allocate(graph.vertexCount());
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Convierte una cota inferior de la distancia restante en una cota inferior del tiempo
+     * restante, multiplicándola por el menor tiempo por kilómetro del grafo. La cota resultante
+     * sigue siendo consistente.
+     *
+     * @param graph    El grafo compacto.
+     * @param distance Cota inferior de la distancia restante.
+     * @return Cota inferior del tiempo restante en horas.
+     */
+    public static SearchHeuristic timeHeuristic(CompactGraph graph, SearchHeuristic distance) {
+        if (distance == SearchHeuristic.NONE) {
+            return SearchHeuristic.NONE;
+        }
+        double pace = graph.minPace();
+        return vertex -> pace * distance.lowerBound(vertex);
+    }
+
+    /**
+     * Busca la ruta de llegada más temprana saliendo de {@code source} a la hora indicada.
+     *
+     * @param source    Identificador del vértice de origen.
+     * @param target    Identificador del vértice de destino.
+     * @param departure Hora de salida, en horas desde la medianoche.
+     * @param heuristic Cota inferior del tiempo restante hasta {@code target}, en horas; por
+     *                  ejemplo, la que devuelve {@link #timeHeuristic}.
+     * @return La hora de llegada, o {@code Double.POSITIVE_INFINITY} si no es alcanzable.
+     */
+    public double run(int source, int target, double departure, SearchHeuristic heuristic) {
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            generation = 1;
+        }
+        heap.clear();
+        settledCount = 0;
+
+        reach(source, departure, -1, -1);
+        estimate[source] = heuristic.lowerBound(source);
+        heap.insertOrDecrease(source, departure + estimate[source]);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled[u] = generation;
+            settledCount++;
+            if (u == target) {
+                break;
+            }
+            double tu = arrival[u];
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.target(arc);
+                if (settled[v] == generation) {
+                    continue;
+                }
+                double tv = graph.arrivalTime(arc, tu);
+                if (reached[v] != generation) {
+                    reach(v, tv, u, arc);
+                    estimate[v] = heuristic.lowerBound(v);
+                    heap.insertOrDecrease(v, tv + estimate[v]);
+                } else if (tv < arrival[v]) {
+                    reach(v, tv, u, arc);
+                    heap.insertOrDecrease(v, tv + estimate[v]);
+                }
+            }
+        }
+        return settled[target] == generation ? arrival[target] : Double.POSITIVE_INFINITY;
+    }
+
+    private void reach(int vertex, double time, int pred, int arc) {
+        reached[vertex] = generation;
+        arrival[vertex] = time;
+        predecessor[vertex] = pred;
+        predecessorArc[vertex] = arc;
+    }
+
+    /**
+     * Obtiene el número de vértices asentados en la última búsqueda.
+     *
+     * @return Cantidad de vértices asentados.
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Reconstruye la ruta hasta {@code target} a partir de la última búsqueda, con la hora de
+     * llegada a cada ubicación.
+     *
+     * @param target Identificador del vértice de destino.
+     * @return La ruta, o {@code null} si el destino no fue asentado.
+     */
+    public TimedRoute route(int target) {
+        if (settled[target] != generation) {
+            return null;
+        }
+        List<Integer> reversed = new ArrayList<>();
+        for (int v = target; v >= 0; v = predecessor[v]) {
+            reversed.add(v);
+        }
+        int count = reversed.size();
+        List<Location> vertices = new ArrayList<>(count);
+        double[] legs = new double[count - 1];
+        double[] times = new double[count];
+        double distance = 0;
+        for (int i = 0; i < count; i++) {
+            int v = reversed.get(count - 1 - i);
+            vertices.add(graph.location(v));
+            times[i] = arrival[v];
+            if (i > 0) {
+                legs[i - 1] = graph.weight(predecessorArc[v]);
+                distance += legs[i - 1];
+            }
+        }
+        RoutePath path = new RoutePath(vertices, distance, legs).withSettledCount(settledCount);
+        return new TimedRoute(path, times);
+    }
+}
@@ -0,0 +1,229 @@
+package co.edu.uptc.taller.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Perfiles de velocidad distintos de un {@link CompactGraph}, guardados en arreglos primitivos
+ * compartidos.
+ *
+ * <p>Los puntos de quiebre de todos los perfiles van seguidos en {@link #hours} y
+ * {@link #paces}; el perfil {@code p} ocupa las posiciones {@code [start[p], start[p + 1])}. Cada
+ * arco solo guarda el número de su perfil, de modo que miles de rutas con el mismo perfil (por
+ * ejemplo, todas las vías urbanas) ocupan una sola copia. El perfil {@code 0} es siempre
+ * {@link SpeedProfile#DEFAULT}.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class TimeProfiles {
+
+    private final int[] start;
+    private final double[] hours;
+    private final double[] paces;
+
+    /**
+     * Pendiente mínima del tiempo por kilómetro de cada perfil, en (h/km) por hora.
+     */
+    private final double[] minSlope;
+
+    /**
+     * Menor tiempo por kilómetro de todos los perfiles; multiplicado por una cota inferior de la
+     * distancia da una cota inferior del tiempo de viaje.
+     */
+    private final double minPace;
+
+    /**
+     * Reúne los perfiles distintos en arreglos compartidos.
+     *
+     * @param profiles Perfiles distintos; el primero debe ser {@link SpeedProfile#DEFAULT}.
+     */
+    TimeProfiles(List<SpeedProfile> profiles) {
+        this(starts(profiles), concat(profiles, true), concat(profiles, false));
+    }
+
+    /**
+     * Crea los perfiles a partir de sus arreglos compartidos, por ejemplo leídos de un archivo
+     * de grafo.
+     *
+     * @param start Inicio de cada perfil; tiene un elemento más que perfiles.
+     * @param hours Horas de los puntos de quiebre de todos los perfiles.
+     * @param paces Tiempo por kilómetro de cada punto de quiebre.
+     */
+    TimeProfiles(int[] start, double[] hours, double[] paces) {
+        int count = start.length - 1;
+        this.start = start;
+        this.hours = hours;
+        this.paces = paces;
+        this.minSlope = new double[count];
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int p = 0; p < count; p++) {
+            minSlope[p] = minSlope(hours, paces, start[p], start[p + 1]);
+        }
+        for (double pace : paces) {
+            lowest = Math.min(lowest, pace);
+        }
+        this.minPace = lowest;
+    }
+
+    private static int[] starts(List<SpeedProfile> profiles) {
+        int[] start = new int[profiles.size() + 1];
+        for (int p = 0; p < profiles.size(); p++) {
+            start[p + 1] = start[p] + profiles.get(p).size();
+        }
+        return start;
+    }
+
+    private static double[] concat(List<SpeedProfile> profiles, boolean hours) {
+        double[] values = new double[starts(profiles)[profiles.size()]];
+        int next = 0;
+        for (SpeedProfile profile : profiles) {
+            System.arraycopy(hours ? profile.hours() : profile.paces(), 0, values, next, profile.size());
+            next += profile.size();
+        }
+        return values;
+    }
+
+    /**
+     * Obtiene el inicio de cada perfil en {@link #hours()} y {@link #paces()}.
+     *
+     * @return El arreglo compartido; no debe modificarse.
+     */
+    int[] starts() {
+        return start;
+    }
+
+    /**
+     * Obtiene las horas de los puntos de quiebre de todos los perfiles.
+     *
+     * @return El arreglo compartido; no debe modificarse.
+     */
+    double[] hours() {
+        return hours;
+    }
+
+    /**
+     * Obtiene el tiempo por kilómetro de los puntos de quiebre de todos los perfiles.
+     *
+     * @return El arreglo compartido; no debe modificarse.
+     */
+    double[] paces() {
+        return paces;
+    }
+
+    /**
+     * Calcula la hora de llegada al recorrer un arco con un perfil.
+     *
+     * @param profile   Número del perfil.
+     * @param length    Distancia del arco en kilómetros.
+     * @param departure Hora de salida, en horas desde la medianoche.
+     * @return La hora de llegada.
+     */
+    double arrival(int profile, double length, double departure) {
+        return arrival(hours, paces, start[profile], start[profile + 1], minSlope[profile], length, departure);
+    }
+
+    /**
+     * Obtiene el menor tiempo por kilómetro de todos los perfiles.
+     *
+     * @return Horas por kilómetro.
+     */
+    double minPace() {
+        return minPace;
+    }
+
+    /**
+     * Obtiene el número de perfiles distintos.
+     *
+     * @return Cantidad de perfiles.
+     */
+    int count() {
+        return minSlope.length;
+    }
+
+    /**
+     * Reconstruye un perfil a partir de su posición en los arreglos compartidos.
+     *
+     * @param profile Número del perfil.
+     * @return El perfil.
+     */
+    SpeedProfile profile(int profile) {
+        int from = start[profile];
+        int to = start[profile + 1];
+        double[] speeds = new double[to - from];
+        for (int i = 0; i < speeds.length; i++) {
+            speeds[i] = 1.0 / paces[from + i];
+        }
+        return new SpeedProfile(Arrays.copyOfRange(hours, from, to), speeds);
+    }
+
+    /**
+     * Interpola el tiempo por kilómetro de un perfil a una hora dada.
+     */
+    static double pace(double[] hours, double[] paces, int from, int to, double time) {
+        if (to - from == 1) {
+            return paces[from];
+        }
+        double day = time - Math.floor(time / SpeedProfile.HOURS_PER_DAY) * SpeedProfile.HOURS_PER_DAY;
+        int i = Arrays.binarySearch(hours, from, to, day);
+        if (i >= 0) {
+            return paces[i];
+        }
+        int next = -i - 1;
+        int previous = next - 1;
+        double previousHour;
+        double nextHour;
+        if (next == from) {
+            previous = to - 1;
+            previousHour = hours[previous] - SpeedProfile.HOURS_PER_DAY;
+            nextHour = hours[next];
+        } else if (next == to) {
+            next = from;
+            previousHour = hours[previous];
+            nextHour = hours[next] + SpeedProfile.HOURS_PER_DAY;
+        } else {
+            previousHour = hours[previous];
+            nextHour = hours[next];
+        }
+        double fraction = (day - previousHour) / (nextHour - previousHour);
+        return paces[previous] + fraction * (paces[next] - paces[previous]);
+    }
+
+    /**
+     * Calcula la pendiente mínima del tiempo por kilómetro, incluido el tramo que cruza la
+     * medianoche.
+     */
+    static double minSlope(double[] hours, double[] paces, int from, int to) {
+        double slope = 0.0;
+        for (int i = from; i < to; i++) {
+            int next = i + 1 < to ? i + 1 : from;
+            double span = i + 1 < to ? hours[next] - hours[i] : hours[next] + SpeedProfile.HOURS_PER_DAY - hours[i];
+            if (span > 0) {
+                slope = Math.min(slope, (paces[next] - paces[i]) / span);
+            }
+        }
+        return slope;
+    }
+
+    /**
+     * Calcula la hora de llegada respetando FIFO: si salir más tarde permitiera llegar antes, se
+     * espera. Como la llegada es lineal por tramos en la hora de salida, el mínimo sobre las
+     * salidas posibles está en la salida pedida o en algún punto de quiebre del día siguiente.
+     */
+    static double arrival(double[] hours, double[] paces, int from, int to, double minSlope,
+                          double length, double departure) {
+        double arrival = departure + length * pace(hours, paces, from, to, departure);
+        if (length * minSlope >= -1.0) {
+            return arrival;
+        }
+        double dayStart = Math.floor(departure / SpeedProfile.HOURS_PER_DAY) * SpeedProfile.HOURS_PER_DAY;
+        for (int i = from; i < to; i++) {
+            double wait = dayStart + hours[i];
+            if (wait <= departure) {
+                wait += SpeedProfile.HOURS_PER_DAY;
+            }
+            arrival = Math.min(arrival, wait + length * paces[i]);
+        }
+        return arrival;
+    }
+}
@@ -0,0 +1,97 @@
+package co.edu.uptc.taller.model;
+
+import java.util.List;
+
+/**
+ * Ruta calculada para una hora de salida concreta, con la hora de llegada a cada ubicación.
+ *
+ * <p>Las horas se expresan en horas desde la medianoche del día de salida, por lo que pueden
+ * pasar de 24 si la ruta termina al día siguiente.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public class TimedRoute {
+
+    /**
+     * Ubicaciones y distancias de la ruta.
+     */
+    private final RoutePath path;
+
+    /**
+     * Hora de llegada a cada ubicación; la primera es la hora de salida.
+     */
+    private final double[] arrivalTimes;
+
+    /**
+     * Crea una ruta con horarios.
+     *
+     * @param path         La ruta recorrida.
+     * @param arrivalTimes Hora de llegada a cada ubicación de la ruta, empezando por la salida.
+     * @throws IllegalArgumentException si no hay una hora por ubicación.
+     */
+    public TimedRoute(RoutePath path, double[] arrivalTimes) {
+        if (arrivalTimes.length != path.getVertices().size()) {
+            throw new IllegalArgumentException("Debe haber una hora de llegada por cada ubicación de la ruta.");
+        }
+        this.path = path;
+        this.arrivalTimes = arrivalTimes;
+    }
+
+    public RoutePath getPath() {
+        return path;
+    }
+
+    public List<Location> getVertices() {
+        return path.getVertices();
+    }
+
+    /**
+     * Obtiene la distancia total de la ruta.
+     *
+     * @return Distancia en kilómetros.
+     */
+    public double getDistance() {
+        return path.getWeight();
+    }
+
+    public double getDepartureTime() {
+        return arrivalTimes[0];
+    }
+
+    public double getArrivalTime() {
+        return arrivalTimes[arrivalTimes.length - 1];
+    }
+
+    /**
+     * Obtiene el tiempo total de viaje, incluidas las esperas.
+     *
+     * @return Tiempo en horas.
+     */
+    public double getTravelTime() {
+        return getArrivalTime() - getDepartureTime();
+    }
+
+    /**
+     * Obtiene una copia de las horas de llegada a cada ubicación de la ruta.
+     *
+     * @return Arreglo con una hora por ubicación; la primera es la salida.
+     */
+    public double[] getArrivalTimes() {
+        return arrivalTimes.clone();
+    }
+
+    /**
+     * Obtiene el tiempo de cada tramo; el tramo {@code i} va de la ubicación {@code i} a la
+     * {@code i + 1}.
+     *
+     * @return Arreglo con el tiempo de cada tramo en horas.
+     */
+    public double[] getLegTimes() {
+        double[] legs = new double[arrivalTimes.length - 1];
+        for (int i = 0; i < legs.length; i++) {
+            legs[i] = arrivalTimes[i + 1] - arrivalTimes[i];
+        }
+        return legs;
+    }
+}
@@ -1,14 +1,26 @@
 package co.edu.uptc.taller.persistence;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.ContractionHierarchy;
+import co.edu.uptc.taller.model.GraphLayout;
+import co.edu.uptc.taller.model.LandmarkIndex;
 import co.edu.uptc.taller.model.Location;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,12 +28,13 @@ import java.util.logging.Logger;
  * Clase encargada de la persistencia de datos relacionados con rutas y ubicaciones.
  *
  * <p>Utiliza la biblioteca Jackson para serializar y deserializar datos en formato JSON,
- * almacenándolos en un archivo dentro de un directorio específico.</p>
+ * almacenándolos en archivos dentro de un directorio específico. El historial de rutas se guarda
+ * en un diario de solo anexado ({@link RouteHistoryJournal}).</p>
  *
  * @author
  * @version 1.0
  */
-public class GraphPersistence {
+public class GraphPersistence implements Closeable {
 
     /**
      * Ruta base donde se almacenarán los archivos de persistencia.
@@ -29,15 +42,70 @@ public class GraphPersistence {
     private static final String BASE_PATH = "src/main/resources/persistence";
 
     /**
-     * Archivo donde se guarda el historial de rutas en formato JSON.
+     * Política de sincronización del diario del historial de rutas.
      */
-    private static final String HISTORY_FILE = BASE_PATH + "/route_history.json";
+    private static final RouteHistoryJournal.SyncPolicy HISTORY_SYNC_POLICY = RouteHistoryJournal.SyncPolicy.BATCHED;
+
+    /**
+     * Archivo binario donde se guarda el índice de jerarquía de contracción del grafo.
+     */
+    private static final String HIERARCHY_FILE = BASE_PATH + "/contraction_hierarchy.bin";
+
+    /**
+     * Archivo binario donde se guarda la tabla de landmarks (ALT) del grafo.
+     */
+    private static final String LANDMARKS_FILE = BASE_PATH + "/landmarks.bin";
+
+    /**
+     * Archivo binario donde se guarda la disposición del grafo para dibujarlo.
+     */
+    private static final String LAYOUT_FILE = BASE_PATH + "/graph_layout.bin";
+
+    /**
+     * Prefijo de los archivos binarios donde se guarda el grafo compacto, que se abre proyectado
+     * en memoria. Cada guardado usa un archivo nuevo, porque el anterior puede seguir proyectado
+     * por este proceso y algunos sistemas no permiten reemplazarlo.
+     */
+    private static final String GRAPH_FILE_PREFIX = "delivery_graph-";
+
+    /**
+     * Extensión de los archivos binarios del grafo compacto.
+     */
+    private static final String GRAPH_FILE_SUFFIX = ".bin";
+
+    /**
+     * Nombre del archivo de grafo que usaban las versiones anteriores, con un único archivo.
+     */
+    private static final String LEGACY_GRAPH_FILE = "delivery_graph.bin";
+
+    /**
+     * Archivo de texto con la versión de los datos predeterminados con que se generó el grafo
+     * guardado y el nombre del archivo que lo contiene.
+     */
+    private static final String GRAPH_DATA_VERSION_FILE = BASE_PATH + "/delivery_graph.version";
+
+    /**
+     * Archivo donde se guarda el punto de control de los índices del historial de rutas.
+     */
+    private static final String HISTORY_STATS_FILE = BASE_PATH + "/route_history.stats";
 
     /**
      * Objeto para manejar operaciones de serialización/deserialización con Jackson.
      */
     private ObjectMapper mapper;
 
+    /**
+     * Diario de solo anexado donde se guarda el historial de rutas, o {@code null} si no se pudo
+     * abrir.
+     */
+    private RouteHistoryJournal historyJournal;
+
+    /**
+     * Índices con los totales del historial por origen, destino y día, o {@code null} si no se
+     * pudieron abrir.
+     */
+    private RouteHistoryIndex historyIndex;
+
     /**
      * Logger para registrar mensajes relacionados con la persistencia.
      */
@@ -46,14 +114,14 @@ public class GraphPersistence {
     /**
      * Constructor de la clase {@code GraphPersistence}.
      *
-     * <p>Inicializa el objeto Jackson y asegura que las rutas y archivos necesarios existan.
-     * Si no existen, se crean automáticamente.</p>
+     * <p>Inicializa el objeto Jackson, asegura que el directorio de persistencia exista y abre
+     * el diario del historial de rutas, migrando el historial antiguo si lo hay.</p>
      */
     public GraphPersistence() {
         this.mapper = new ObjectMapper();
 
         createDirectoryIfNotExists();
-        createFileIfNotExists(HISTORY_FILE);
+        openHistoryJournal();
     }
 
     /**
@@ -72,23 +140,20 @@ public class GraphPersistence {
     }
 
     /**
-     * Crea un archivo vacío si no existe.
-     *
-     * @param fileName Nombre del archivo a verificar o crear.
+     * Abre el diario del historial de rutas.
      */
-    private void createFileIfNotExists(String fileName) {
-        File file = new File(fileName);
-        if (!file.exists()) {
-            try {
-                file.getParentFile().mkdirs();
-
-                if (fileName.equals(HISTORY_FILE)) {
-                    mapper.writeValue(file, new ArrayList<>());
-                    logger.info("Archivo de historial vacío creado: " + fileName);
-                }
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Error creando el archivo: " + fileName, e);
-            }
+    private void openHistoryJournal() {
+        try {
+            historyJournal = new RouteHistoryJournal(Paths.get(BASE_PATH), mapper, HISTORY_SYNC_POLICY);
+            logger.info("Diario de historial abierto en " + BASE_PATH);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error abriendo el diario de historial en: " + BASE_PATH, e);
+            return;
+        }
+        try {
+            historyIndex = RouteHistoryIndex.open(Paths.get(HISTORY_STATS_FILE), historyJournal);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error abriendo los índices del historial: " + e.getMessage(), e);
         }
     }
 
@@ -162,33 +227,528 @@ public class GraphPersistence {
     }
 
     /**
-     * Guarda un nuevo historial de ruta en el archivo JSON.
+     * Guarda un nuevo historial de ruta al final del diario del historial.
+     *
+     * <p>Solo se escribe la entrada nueva y se suma a los totales de su par y su día, de modo
+     * que el costo no depende del tamaño del historial.</p>
      *
      * @param history Instancia de {@link RouteHistory} que contiene los detalles de la ruta.
-     * @throws IOException Si ocurre un error al guardar los datos en el archivo.
+     * @throws IOException Si ocurre un error al guardar los datos o el diario no está disponible.
      */
-    public void saveRouteHistory(RouteHistory history) throws IOException {
-        List<RouteHistory> histories = loadRouteHistory();
-        histories.add(history);
-        mapper.writeValue(new File(HISTORY_FILE), histories);
-        logger.info("Historial de ruta guardado en " + HISTORY_FILE);
+    public synchronized void saveRouteHistory(RouteHistory history) throws IOException {
+        requireHistoryJournal().append(history);
+        if (historyIndex != null) {
+            historyIndex.append(history);
+        }
+        logger.fine("Historial de ruta guardado en " + BASE_PATH);
     }
 
     /**
-     * Carga el historial de rutas desde el archivo JSON.
+     * Carga el historial de rutas completo desde el diario. Para historiales grandes conviene
+     * {@link #loadRouteHistoryPage(long, int)} o {@link #forEachRouteHistory(Consumer)}.
      *
-     * @return Una lista de instancias {@link RouteHistory} que representan el historial de rutas.
-     *         Si el archivo no existe, se devuelve una lista vacía.
+     * @return Una lista de instancias {@link RouteHistory} en orden de guardado. Si el diario no
+     *         está disponible, se devuelve una lista vacía.
      * @throws IOException Si ocurre un error al leer los datos del archivo.
      */
     public List<RouteHistory> loadRouteHistory() throws IOException {
-        if (!new File(HISTORY_FILE).exists()) {
-            logger.warning("El archivo de historial no existe. Devolviendo lista de historial vacía.");
-            return new ArrayList<>();
+        List<RouteHistory> histories = new ArrayList<>();
+        if (historyJournal == null) {
+            logger.warning("El diario de historial no está disponible. Devolviendo lista de historial vacía.");
+            return histories;
         }
-        List<RouteHistory> histories = mapper.readValue(new File(HISTORY_FILE),
-                new TypeReference<List<RouteHistory>>() {});
+        historyJournal.read(histories::add);
         logger.info("Historial de rutas cargado con " + histories.size() + " entradas.");
         return histories;
     }
+
+    /**
+     * Recorre el historial de rutas en orden de guardado sin cargarlo completo en memoria.
+     *
+     * @param consumer Acción que recibe cada entrada.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer o el diario no está disponible.
+     */
+    public long forEachRouteHistory(Consumer<RouteHistory> consumer) throws IOException {
+        return requireHistoryJournal().read(consumer);
+    }
+
+    /**
+     * Obtiene el número de entradas del historial de rutas sin leerlo.
+     *
+     * @return Cantidad de entradas, o cero si el diario no está disponible.
+     */
+    public long getRouteHistoryCount() {
+        return historyJournal != null ? historyJournal.size() : 0;
+    }
+
+    /**
+     * Carga una página del historial de rutas en orden de guardado.
+     *
+     * @param first Posición de la primera entrada, desde cero.
+     * @param count Número máximo de posiciones.
+     * @return Las entradas de la página, con {@code null} en las posiciones de las líneas
+     *         ilegibles para que cada entrada quede en su posición.
+     * @throws IOException Si ocurre un error al leer o el diario no está disponible.
+     */
+    public List<RouteHistory> loadRouteHistoryPage(long first, int count) throws IOException {
+        return requireHistoryJournal().read(first, count);
+    }
+
+    /**
+     * Carga las últimas entradas del historial de rutas. Las líneas ilegibles se omiten.
+     *
+     * @param count Número máximo de posiciones.
+     * @return Las entradas más recientes, de la más antigua a la más nueva.
+     * @throws IOException Si ocurre un error al leer o el diario no está disponible.
+     */
+    public List<RouteHistory> loadLatestRouteHistory(int count) throws IOException {
+        RouteHistoryJournal journal = requireHistoryJournal();
+        List<RouteHistory> latest = journal.read(Math.max(0, journal.size() - count), count);
+        latest.removeIf(Objects::isNull);
+        return latest;
+    }
+
+    /**
+     * Recorre las entradas del historial de rutas calculadas entre dos fechas, inclusive.
+     *
+     * @param from     Fecha inicial.
+     * @param to       Fecha final.
+     * @param consumer Acción que recibe cada entrada.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer o el diario no está disponible.
+     */
+    public long forEachRouteHistoryBetween(Date from, Date to, Consumer<RouteHistory> consumer) throws IOException {
+        return requireHistoryJournal().readBetween(from.getTime(), to.getTime(), consumer);
+    }
+
+    /**
+     * Obtiene los totales de los viajes entre un origen y un destino en un rango de días, sin
+     * leer el historial.
+     *
+     * @param source Nombre del origen, o {@code null} para cualquiera.
+     * @param target Nombre del destino, o {@code null} para cualquiera.
+     * @param from   Primer día, inclusive.
+     * @param to     Último día, inclusive.
+     * @return Número de viajes y suma de distancia, costo y tiempo.
+     * @throws IOException Si los índices del historial no están disponibles.
+     */
+    public RouteHistoryAggregate getRouteStatistics(String source, String target, LocalDate from, LocalDate to)
+            throws IOException {
+        Objects.requireNonNull(from, "La fecha inicial no puede ser nula.");
+        Objects.requireNonNull(to, "La fecha final no puede ser nula.");
+        return requireHistoryIndex().aggregate(source, target, from, to);
+    }
+
+    /**
+     * Obtiene los totales día a día de los viajes entre un origen y un destino, sin leer el
+     * historial.
+     *
+     * @param source Nombre del origen, o {@code null} para cualquiera.
+     * @param target Nombre del destino, o {@code null} para cualquiera.
+     * @param from   Primer día, inclusive.
+     * @param to     Último día, inclusive.
+     * @return Los totales de cada día con viajes, ordenados por día.
+     * @throws IOException Si los índices del historial no están disponibles.
+     */
+    public Map<LocalDate, RouteHistoryAggregate> getDailyRouteStatistics(String source, String target,
+                                                                          LocalDate from, LocalDate to)
+            throws IOException {
+        Objects.requireNonNull(from, "La fecha inicial no puede ser nula.");
+        Objects.requireNonNull(to, "La fecha final no puede ser nula.");
+        return requireHistoryIndex().aggregateByDay(source, target, from, to);
+    }
+
+    /**
+     * Recorre las entradas de un origen a un destino guardadas entre dos fechas, inclusive.
+     *
+     * <p>Si los índices indican que no hubo viajes de ese par en el rango, no se lee el
+     * historial.</p>
+     *
+     * @param source   Nombre del origen, o {@code null} para cualquiera.
+     * @param target   Nombre del destino, o {@code null} para cualquiera.
+     * @param from     Fecha inicial.
+     * @param to       Fecha final.
+     * @param consumer Acción que recibe cada entrada.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer o el diario no está disponible.
+     */
+    public long forEachRouteHistoryBetween(String source, String target, Date from, Date to,
+                                           Consumer<RouteHistory> consumer) throws IOException {
+        if (historyIndex != null) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate fromDay = LocalDate.ofInstant(from.toInstant(), zone);
+            LocalDate toDay = LocalDate.ofInstant(to.toInstant(), zone);
+            if (!fromDay.isAfter(toDay) && historyIndex.aggregate(source, target, fromDay, toDay).getCount() == 0) {
+                return 0;
+            }
+        }
+        long[] count = new long[1];
+        requireHistoryJournal().readBetween(from.getTime(), to.getTime(), history -> {
+            if ((source == null || source.equals(history.source))
+                    && (target == null || target.equals(history.target))) {
+                consumer.accept(history);
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    private RouteHistoryIndex requireHistoryIndex() throws IOException {
+        if (historyIndex == null) {
+            throw new IOException("Los índices del historial no están disponibles.");
+        }
+        return historyIndex;
+    }
+
+    private RouteHistoryJournal requireHistoryJournal() throws IOException {
+        if (historyJournal == null) {
+            throw new IOException("El diario de historial no está disponible.");
+        }
+        return historyJournal;
+    }
+
+    /**
+     * Escribe en disco las entradas pendientes del historial y el punto de control de sus
+     * índices, y cierra el diario.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (historyJournal == null) {
+            return;
+        }
+        try {
+            if (historyIndex != null) {
+                historyIndex.checkpoint();
+            }
+        } finally {
+            historyJournal.close();
+        }
+    }
+
+    /**
+     * Guarda el grafo compacto en un archivo binario junto al resto de la persistencia.
+     *
+     * <p>El grafo se escribe en un archivo nuevo y después se anota su nombre junto a la versión
+     * de los datos, de modo que el archivo que este u otro proceso tenga proyectado nunca se
+     * reemplaza ni se ve a medio escribir. Si el proceso se interrumpe antes de anotarlo, se
+     * sigue usando el grafo anterior. Los archivos de grafos anteriores se eliminan al final;
+     * los que aún estén proyectados y no se puedan borrar se intentan eliminar en el siguiente
+     * guardado.</p>
+     *
+     * @param graph       El grafo a guardar.
+     * @param dataVersion Versión de los datos predeterminados con que se generó el grafo.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void saveGraph(CompactGraph graph, int dataVersion) throws IOException {
+        Path directory = Paths.get(BASE_PATH);
+        Path path = newGraphFile(directory);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            graph.writeTo(channel);
+            channel.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveIntoPlace(temp, path);
+
+        byte[] manifest = (dataVersion + " " + path.getFileName()).getBytes(StandardCharsets.UTF_8);
+        writeAtomically(Paths.get(GRAPH_DATA_VERSION_FILE), out -> out.write(manifest));
+        deleteStaleGraphFiles(directory, path);
+        logger.info("Grafo guardado en " + path + " (" + graph.vertexCount() + " ubicaciones, "
+                + graph.arcCount() / 2 + " rutas, versión de datos " + dataVersion + ").");
+    }
+
+    /**
+     * Abre el grafo guardado proyectando el archivo en memoria.
+     *
+     * <p>No se lee el archivo: las consultas acceden a sus páginas a medida que las necesitan y
+     * el sistema operativo las comparte entre los procesos que abren el mismo grafo.</p>
+     *
+     * @param dataVersion Versión vigente de los datos predeterminados.
+     * @return El grafo, o {@code null} si no existe, está dañado, es de otra versión del formato
+     *         o se generó con otra versión de los datos.
+     */
+    public CompactGraph loadGraph(int dataVersion) {
+        String[] manifest = loadGraphManifest();
+        if (manifest == null) {
+            logger.info("No existe un grafo guardado.");
+            return null;
+        }
+        Integer savedVersion = parseDataVersion(manifest[0]);
+        if (savedVersion == null || savedVersion != dataVersion) {
+            logger.info("El grafo guardado corresponde a la versión de datos " + savedVersion
+                    + " y la vigente es " + dataVersion + "; se generará de nuevo.");
+            return null;
+        }
+        Path path = Paths.get(BASE_PATH, manifest[1]);
+        if (!Files.exists(path)) {
+            logger.info("No existe el archivo de grafo " + path + ".");
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("El archivo de grafo supera el tamaño que se puede proyectar.");
+            }
+            CompactGraph graph = CompactGraph.map(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            logger.info("Grafo abierto desde " + path + " (" + graph.vertexCount() + " ubicaciones, "
+                    + graph.arcCount() / 2 + " rutas).");
+            return graph;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo usar el grafo guardado: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Lee el archivo que anota la versión de los datos y el archivo del grafo guardado.
+     *
+     * <p>Las versiones anteriores solo anotaban la versión de los datos, para el archivo único
+     * {@value #LEGACY_GRAPH_FILE}.</p>
+     *
+     * @return La versión de los datos y el nombre del archivo del grafo, o {@code null} si no
+     *         está anotado o no se puede leer.
+     */
+    private String[] loadGraphManifest() {
+        Path path = Paths.get(GRAPH_DATA_VERSION_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String[] fields = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim().split("\\s+");
+            if (fields.length == 1) {
+                return new String[]{fields[0], LEGACY_GRAPH_FILE};
+            }
+            if (fields.length != 2 || !isGraphFileName(fields[1])) {
+                logger.warning("El archivo " + GRAPH_DATA_VERSION_FILE + " no tiene el formato esperado.");
+                return null;
+            }
+            return fields;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo leer la versión de datos del grafo: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static Integer parseDataVersion(String text) {
+        try {
+            return Integer.valueOf(text);
+        } catch (NumberFormatException e) {
+            logger.warning("Versión de datos del grafo no válida: " + text);
+            return null;
+        }
+    }
+
+    /**
+     * Indica si un nombre corresponde a un archivo de grafo de este directorio, sin rutas.
+     */
+    private static boolean isGraphFileName(String name) {
+        return name.startsWith(GRAPH_FILE_PREFIX) && name.endsWith(GRAPH_FILE_SUFFIX)
+                && name.indexOf('/') < 0 && name.indexOf('\\') < 0;
+    }
+
+    /**
+     * Elige un nombre de archivo de grafo que aún no exista.
+     */
+    private static Path newGraphFile(Path directory) {
+        long stamp = System.currentTimeMillis();
+        Path path;
+        do {
+            path = directory.resolve(GRAPH_FILE_PREFIX + stamp++ + GRAPH_FILE_SUFFIX);
+        } while (Files.exists(path));
+        return path;
+    }
+
+    /**
+     * Elimina los archivos de grafos guardados antes de {@code current}. Los que no se pueden
+     * borrar, por ejemplo porque siguen proyectados en Windows, se dejan para el siguiente
+     * guardado.
+     */
+    private static void deleteStaleGraphFiles(Path directory, Path current) {
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "delivery_graph*" + GRAPH_FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!file.equals(current) && (isGraphFileName(name) || name.equals(LEGACY_GRAPH_FILE))) {
+                    stale.add(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "No se pudieron listar los grafos anteriores: " + e.getMessage(), e);
+            return;
+        }
+        for (Path file : stale) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.fine("No se pudo eliminar el grafo anterior " + file + "; se intentará en el siguiente guardado.");
+            }
+        }
+    }
+
+    /**
+     * Escribe un archivo binario de forma atómica: los datos van a un archivo temporal que se
+     * sincroniza con el disco y después reemplaza al anterior, de modo que una interrupción
+     * nunca deja un archivo a medio escribir.
+     *
+     * @param path   El archivo a escribir.
+     * @param writer Acción que escribe el contenido.
+     * @throws IOException Si ocurre un error al escribir o reemplazar el archivo.
+     */
+    private static void writeAtomically(Path path, BinaryWriter writer) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            writer.write(out);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveIntoPlace(temp, path);
+    }
+
+    /**
+     * Mueve un archivo temporal a su destino, de forma atómica si el sistema de archivos lo
+     * permite.
+     */
+    private static void moveIntoPlace(Path temp, Path path) throws IOException {
+        try {
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Acción que escribe el contenido de un archivo binario.
+     */
+    private interface BinaryWriter {
+
+        /**
+         * Escribe el contenido.
+         *
+         * @param out Destino de los datos.
+         * @throws IOException si ocurre un error de escritura.
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Guarda el índice de jerarquía de contracción en un archivo binario.
+     *
+     * <p>Se escribe en un archivo temporal que luego reemplaza al anterior.</p>
+     *
+     * @param hierarchy El índice a guardar.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void saveContractionHierarchy(ContractionHierarchy hierarchy) throws IOException {
+        writeAtomically(Paths.get(HIERARCHY_FILE), hierarchy::writeTo);
+        logger.info("Jerarquía de contracción guardada en " + HIERARCHY_FILE);
+    }
+
+    /**
+     * Carga el índice de jerarquía de contracción guardado para un grafo.
+     *
+     * @param graph El grafo al que debe corresponder el índice.
+     * @return El índice leído, o {@code null} si no existe o fue calculado para otro grafo.
+     */
+    public ContractionHierarchy loadContractionHierarchy(CompactGraph graph) {
+        File file = new File(HIERARCHY_FILE);
+        if (!file.exists()) {
+            logger.info("No existe una jerarquía de contracción guardada.");
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.readFrom(in, graph);
+            logger.info("Jerarquía de contracción cargada desde " + HIERARCHY_FILE);
+            return hierarchy;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo usar la jerarquía de contracción guardada: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Guarda la tabla de landmarks en un archivo binario junto al resto de la persistencia.
+     *
+     * <p>Se escribe en un archivo temporal que luego reemplaza al anterior.</p>
+     *
+     * @param index La tabla a guardar.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void saveLandmarkIndex(LandmarkIndex index) throws IOException {
+        writeAtomically(Paths.get(LANDMARKS_FILE), index::writeTo);
+        logger.info("Tabla de landmarks guardada en " + LANDMARKS_FILE);
+    }
+
+    /**
+     * Carga la tabla de landmarks guardada para un grafo.
+     *
+     * @param graph El grafo al que debe corresponder la tabla.
+     * @return La tabla leída, o {@code null} si no existe o fue calculada para otro grafo.
+     */
+    public LandmarkIndex loadLandmarkIndex(CompactGraph graph) {
+        File file = new File(LANDMARKS_FILE);
+        if (!file.exists()) {
+            logger.info("No existe una tabla de landmarks guardada.");
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            LandmarkIndex index = LandmarkIndex.readFrom(in, graph);
+            logger.info("Tabla de landmarks cargada desde " + LANDMARKS_FILE);
+            return index;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo usar la tabla de landmarks guardada: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Guarda la disposición del grafo en un archivo binario junto al resto de la persistencia.
+     *
+     * <p>Se escribe en un archivo temporal que luego reemplaza al anterior.</p>
+     *
+     * @param layout La disposición a guardar.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void saveGraphLayout(GraphLayout layout) throws IOException {
+        writeAtomically(Paths.get(LAYOUT_FILE), layout::writeTo);
+        logger.info("Disposición del grafo guardada en " + LAYOUT_FILE);
+    }
+
+    /**
+     * Carga la disposición guardada para un grafo.
+     *
+     * @param graph El grafo al que debe corresponder la disposición.
+     * @return La disposición leída, o {@code null} si no existe o fue calculada para otro grafo.
+     */
+    public GraphLayout loadGraphLayout(CompactGraph graph) {
+        File file = new File(LAYOUT_FILE);
+        if (!file.exists()) {
+            logger.info("No existe una disposición del grafo guardada.");
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            GraphLayout layout = GraphLayout.readFrom(in, graph);
+            logger.info("Disposición del grafo cargada desde " + LAYOUT_FILE);
+            return layout;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo usar la disposición del grafo guardada: " + e.getMessage(), e);
+            return null;
+        }
+    }
 }
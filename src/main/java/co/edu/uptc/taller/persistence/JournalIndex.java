@@ -0,0 +1,209 @@
+package co.edu.uptc.taller.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Índice disperso de un archivo del diario del historial.
+ *
+ * <p>Guarda el número de entradas del archivo y, cada {@link #INTERVAL} entradas, la posición en
+ * bytes y la fecha de la entrada. Con él se salta directamente a la página o al rango de fechas
+ * pedido leyendo como mucho {@code INTERVAL} líneas de más, y el tamaño del índice es una
+ * fracción mínima del archivo. Los segmentos sellados guardan su índice en un archivo
+ * {@code .idx} junto al segmento; el del archivo activo se mantiene en memoria.</p>
+ *
+ * <p>Se asume que las entradas se guardan en orden cronológico, como ocurre al anexarlas.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class JournalIndex {
+
+    /**
+     * Entradas entre dos muestras del índice.
+     */
+    static final int INTERVAL = 128;
+
+    private static final int MAGIC = 0x52484958;
+    private static final int FORMAT_VERSION = 1;
+
+    private long count;
+    private long length;
+    private int samples;
+    private long[] offsets;
+    private long[] timestamps;
+
+    /**
+     * Crea el índice de un archivo vacío.
+     */
+    JournalIndex() {
+        this(0, 0, 0, new long[16], new long[16]);
+    }
+
+    private JournalIndex(long count, long length, int samples, long[] offsets, long[] timestamps) {
+        this.count = count;
+        this.length = length;
+        this.samples = samples;
+        this.offsets = offsets;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Registra la siguiente entrada del archivo.
+     *
+     * @param offset    Posición en bytes donde empieza su línea.
+     * @param lineBytes Bytes de la línea, incluido el salto de línea.
+     * @param timestamp Fecha de la entrada en milisegundos; solo se usa si la entrada es una
+     *                  muestra ({@link #isSample()}).
+     */
+    void add(long offset, int lineBytes, long timestamp) {
+        if (isSample()) {
+            if (samples == offsets.length) {
+                offsets = Arrays.copyOf(offsets, samples * 2);
+                timestamps = Arrays.copyOf(timestamps, samples * 2);
+            }
+            offsets[samples] = offset;
+            timestamps[samples] = timestamp;
+            samples++;
+        }
+        count++;
+        length = offset + lineBytes;
+    }
+
+    /**
+     * Indica si la siguiente entrada que se registre será una muestra, y por tanto necesita su
+     * fecha.
+     *
+     * @return {@code true} si la siguiente entrada es una muestra.
+     */
+    boolean isSample() {
+        return count % INTERVAL == 0;
+    }
+
+    /**
+     * Crea una copia que no ve las entradas registradas después. Los arreglos se comparten
+     * porque las posiciones ya escritas no cambian.
+     *
+     * @return La copia del índice.
+     */
+    JournalIndex snapshot() {
+        return new JournalIndex(count, length, samples, offsets, timestamps);
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Obtiene los bytes del archivo que ocupan las entradas registradas.
+     *
+     * @return Posición justo después de la última línea registrada.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Obtiene la posición de la muestra anterior o igual a una entrada.
+     *
+     * @param entry Número de la entrada dentro del archivo.
+     * @return Posición en bytes de la entrada {@code entry - entry % INTERVAL}.
+     */
+    long sampleOffset(long entry) {
+        return offsets[(int) (entry / INTERVAL)];
+    }
+
+    /**
+     * Obtiene la fecha de la primera entrada del archivo.
+     *
+     * @return La fecha en milisegundos, o {@code Long.MAX_VALUE} si el archivo está vacío.
+     */
+    long firstTimestamp() {
+        return samples > 0 ? timestamps[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Busca la última muestra anterior a una fecha, desde la que hay que leer para no perder
+     * ninguna entrada posterior o igual a ella.
+     *
+     * @param millis La fecha en milisegundos.
+     * @return El número de la entrada de esa muestra, o cero si no hay ninguna anterior.
+     */
+    long lastSampleBefore(long millis) {
+        int low = 0;
+        int high = samples - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < millis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return (long) found * INTERVAL;
+    }
+
+    /**
+     * Guarda el índice en un archivo, reemplazándolo de forma atómica.
+     *
+     * @param path Ruta del archivo del índice.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(count);
+            out.writeLong(length);
+            out.writeInt(samples);
+            for (int i = 0; i < samples; i++) {
+                out.writeLong(offsets[i]);
+                out.writeLong(timestamps[i]);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lee el índice guardado de un archivo del diario.
+     *
+     * @param path       Ruta del archivo del índice.
+     * @param fileLength Tamaño actual del archivo indexado.
+     * @return El índice, o {@code null} si no existe, está dañado o no corresponde al archivo.
+     */
+    static JournalIndex read(Path path, long fileLength) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long count = in.readLong();
+            long length = in.readLong();
+            int samples = in.readInt();
+            if (length != fileLength || samples < 0 || samples != (count + INTERVAL - 1) / INTERVAL) {
+                return null;
+            }
+            long[] offsets = new long[Math.max(samples, 1)];
+            long[] timestamps = new long[Math.max(samples, 1)];
+            for (int i = 0; i < samples; i++) {
+                offsets[i] = in.readLong();
+                timestamps[i] = in.readLong();
+            }
+            return new JournalIndex(count, length, samples, offsets, timestamps);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package co.edu.uptc.taller.persistence;
+
+/**
+ * Totales de un conjunto de entradas del historial de rutas: número de viajes y suma de
+ * distancia, costo y tiempo.
+ *
+ * @author
+ * @version 1.0
+ */
+public final class RouteHistoryAggregate {
+
+    /**
+     * Agregado sin viajes.
+     */
+    public static final RouteHistoryAggregate EMPTY = new RouteHistoryAggregate(0, 0, 0, 0);
+
+    private final long count;
+    private final double totalDistance;
+    private final double totalCost;
+    private final double totalTime;
+
+    /**
+     * Crea un agregado.
+     *
+     * @param count         Número de viajes.
+     * @param totalDistance Distancia total en kilómetros.
+     * @param totalCost     Costo total en COP.
+     * @param totalTime     Tiempo total en horas.
+     */
+    public RouteHistoryAggregate(long count, double totalDistance, double totalCost, double totalTime) {
+        this.count = count;
+        this.totalDistance = totalDistance;
+        this.totalCost = totalCost;
+        this.totalTime = totalTime;
+    }
+
+    /**
+     * Combina este agregado con otro.
+     *
+     * @param other El otro agregado.
+     * @return La suma de ambos.
+     */
+    public RouteHistoryAggregate plus(RouteHistoryAggregate other) {
+        return new RouteHistoryAggregate(count + other.count, totalDistance + other.totalDistance,
+                totalCost + other.totalCost, totalTime + other.totalTime);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Obtiene la distancia promedio por viaje.
+     *
+     * @return Kilómetros por viaje, o cero si no hay viajes.
+     */
+    public double getAverageDistance() {
+        return count > 0 ? totalDistance / count : 0.0;
+    }
+
+    /**
+     * Obtiene el costo promedio por viaje.
+     *
+     * @return COP por viaje, o cero si no hay viajes.
+     */
+    public double getAverageCost() {
+        return count > 0 ? totalCost / count : 0.0;
+    }
+
+    /**
+     * Obtiene el tiempo promedio por viaje.
+     *
+     * @return Horas por viaje, o cero si no hay viajes.
+     */
+    public double getAverageTime() {
+        return count > 0 ? totalTime / count : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d viajes, %.1f km, COP %.0f, %.2f h", count, totalDistance, totalCost, totalTime);
+    }
+}
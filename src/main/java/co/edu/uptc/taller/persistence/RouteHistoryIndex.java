@@ -0,0 +1,379 @@
+package co.edu.uptc.taller.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índices secundarios del historial de rutas con totales precalculados.
+ *
+ * <p>Por cada par origen-destino se guardan, día a día, el número de viajes y la suma de
+ * distancia, costo y tiempo, en arreglos primitivos ordenados por día. Los pares se indexan por
+ * origen y por destino, de modo que una consulta ("viajes de Duitama a Sogamoso el mes pasado",
+ * "todo lo que salió de Tunja esta semana") solo suma los días del rango de los pares que
+ * corresponden, sin leer el historial.</p>
+ *
+ * <p>Los totales se actualizan con cada entrada guardada. Cada cierto número de entradas, y al
+ * cerrar, se escribe un punto de control junto al diario con el tamaño del diario que cubre; al
+ * abrir se carga y se completa con las entradas posteriores del diario. Quien use los índices
+ * debe anexar cada entrada al diario y a los índices sin que otra escritura se interponga, para
+ * que el tamaño del diario coincida siempre con lo indexado. Los días se cuentan en la zona
+ * horaria del sistema; si cambia, los índices se reconstruyen.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+final class RouteHistoryIndex {
+
+    /**
+     * Entradas entre dos puntos de control.
+     */
+    static final int CHECKPOINT_INTERVAL = 10_000;
+
+    private static final int MAGIC = 0x52484147;
+    private static final int FORMAT_VERSION = 1;
+    private static final Logger logger = Logger.getLogger(RouteHistoryIndex.class.getName());
+
+    private final Path file;
+    private final RouteHistoryJournal journal;
+    private final ZoneId zone;
+
+    /**
+     * Totales por origen y destino.
+     */
+    private final Map<String, Map<String, DailyTotals>> bySource = new HashMap<>();
+
+    /**
+     * Orígenes con viajes hacia cada destino.
+     */
+    private final Map<String, Set<String>> sourcesByTarget = new HashMap<>();
+
+    /**
+     * Entradas añadidas desde el último punto de control.
+     */
+    private long pending;
+
+    private RouteHistoryIndex(Path file, RouteHistoryJournal journal, ZoneId zone) {
+        this.file = file;
+        this.journal = journal;
+        this.zone = zone;
+    }
+
+    /**
+     * Abre los índices de un diario: carga el último punto de control y añade las entradas
+     * guardadas después.
+     *
+     * @param file    Archivo del punto de control.
+     * @param journal El diario del historial.
+     * @return Los índices al día con el diario.
+     * @throws IOException Si ocurre un error al leer el diario.
+     */
+    static RouteHistoryIndex open(Path file, RouteHistoryJournal journal) throws IOException {
+        RouteHistoryIndex index = new RouteHistoryIndex(file, journal, ZoneId.systemDefault());
+        long size = journal.size();
+        long covered = index.load();
+        if (covered > size) {
+            logger.info("El punto de control de los índices cubre entradas que ya no están; se reconstruirán.");
+            index.clear();
+            covered = 0;
+        }
+        if (covered < size) {
+            journal.read(covered, index::add);
+            logger.info("Índices del historial completados con " + (size - covered) + " entradas.");
+            index.checkpoint();
+        }
+        return index;
+    }
+
+    /**
+     * Añade una entrada recién guardada en el diario.
+     *
+     * @param history La entrada.
+     */
+    synchronized void append(GraphPersistence.RouteHistory history) {
+        add(history);
+        pending++;
+        if (pending >= CHECKPOINT_INTERVAL) {
+            checkpointQuietly();
+        }
+    }
+
+    /**
+     * Suma los totales de los viajes de un origen a un destino en un rango de días.
+     *
+     * @param source Origen, o {@code null} para cualquiera.
+     * @param target Destino, o {@code null} para cualquiera.
+     * @param from   Primer día, inclusive.
+     * @param to     Último día, inclusive.
+     * @return Los totales del rango.
+     */
+    synchronized RouteHistoryAggregate aggregate(String source, String target, LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        long[] count = new long[1];
+        double[] sums = new double[3];
+        forEachPair(source, target, totals -> totals.sum(fromDay, toDay, count, sums));
+        return new RouteHistoryAggregate(count[0], sums[0], sums[1], sums[2]);
+    }
+
+    /**
+     * Obtiene los totales día a día de los viajes de un origen a un destino.
+     *
+     * @param source Origen, o {@code null} para cualquiera.
+     * @param target Destino, o {@code null} para cualquiera.
+     * @param from   Primer día, inclusive.
+     * @param to     Último día, inclusive.
+     * @return Los totales de cada día con viajes, en orden.
+     */
+    synchronized Map<LocalDate, RouteHistoryAggregate> aggregateByDay(String source, String target,
+                                                                      LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        Map<LocalDate, RouteHistoryAggregate> days = new TreeMap<>();
+        forEachPair(source, target, totals -> totals.forEachDay(fromDay, toDay,
+                (day, aggregate) -> days.merge(LocalDate.ofEpochDay(day), aggregate, RouteHistoryAggregate::plus)));
+        return days;
+    }
+
+    /**
+     * Escribe un punto de control con los totales actuales. Antes se lleva el diario a disco,
+     * para que el punto de control nunca cubra entradas que se puedan perder.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    synchronized void checkpoint() throws IOException {
+        journal.sync();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(zone.getId());
+            out.writeLong(journal.size());
+            int pairs = 0;
+            for (Map<String, DailyTotals> targets : bySource.values()) {
+                pairs += targets.size();
+            }
+            out.writeInt(pairs);
+            for (Map.Entry<String, Map<String, DailyTotals>> source : bySource.entrySet()) {
+                for (Map.Entry<String, DailyTotals> target : source.getValue().entrySet()) {
+                    out.writeUTF(source.getKey());
+                    out.writeUTF(target.getKey());
+                    target.getValue().writeTo(out);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        pending = 0;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo guardar el punto de control de los índices: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Carga el último punto de control.
+     *
+     * @return El tamaño del diario que cubre, o cero si no existe, está dañado o se calculó en
+     *         otra zona horaria.
+     */
+    private long load() {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(zone.getId())) {
+                logger.info("El punto de control de los índices no es compatible; se reconstruirán.");
+                return 0;
+            }
+            long covered = in.readLong();
+            int pairs = in.readInt();
+            for (int i = 0; i < pairs; i++) {
+                String source = in.readUTF();
+                String target = in.readUTF();
+                bySource.computeIfAbsent(source, s -> new HashMap<>()).put(target, DailyTotals.readFrom(in));
+                sourcesByTarget.computeIfAbsent(target, t -> new LinkedHashSet<>()).add(source);
+            }
+            logger.info("Índices del historial cargados: " + pairs + " pares, " + covered + " entradas.");
+            return covered;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo leer el punto de control de los índices: " + e.getMessage(), e);
+            clear();
+            return 0;
+        }
+    }
+
+    private void clear() {
+        bySource.clear();
+        sourcesByTarget.clear();
+    }
+
+    private void add(GraphPersistence.RouteHistory history) {
+        String source = history.source != null ? history.source : "";
+        String target = history.target != null ? history.target : "";
+        long day = history.timestamp != null
+                ? LocalDate.ofInstant(history.timestamp.toInstant(), zone).toEpochDay() : 0;
+        DailyTotals totals = bySource.computeIfAbsent(source, s -> new HashMap<>()).get(target);
+        if (totals == null) {
+            totals = new DailyTotals();
+            bySource.get(source).put(target, totals);
+            sourcesByTarget.computeIfAbsent(target, t -> new LinkedHashSet<>()).add(source);
+        }
+        totals.add((int) day, history.distance, history.cost, history.time);
+    }
+
+    private void forEachPair(String source, String target, Consumer<DailyTotals> action) {
+        if (source != null) {
+            Map<String, DailyTotals> targets = bySource.get(source);
+            if (targets == null) {
+                return;
+            }
+            if (target != null) {
+                DailyTotals totals = targets.get(target);
+                if (totals != null) {
+                    action.accept(totals);
+                }
+            } else {
+                targets.values().forEach(action);
+            }
+        } else if (target != null) {
+            for (String from : sourcesByTarget.getOrDefault(target, Set.of())) {
+                action.accept(bySource.get(from).get(target));
+            }
+        } else {
+            for (Map<String, DailyTotals> targets : bySource.values()) {
+                targets.values().forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Totales diarios de un par origen-destino en arreglos paralelos ordenados por día.
+     */
+    private static final class DailyTotals {
+        private int size;
+        private int[] days = new int[4];
+        private long[] counts = new long[4];
+        private double[] distances = new double[4];
+        private double[] costs = new double[4];
+        private double[] times = new double[4];
+
+        void add(int day, double distance, double cost, double time) {
+            int i;
+            if (size > 0 && days[size - 1] == day) {
+                i = size - 1;
+            } else {
+                // Casi siempre es el día más reciente; si no, se inserta en orden.
+                int pos = size > 0 && days[size - 1] < day ? -(size + 1) : Arrays.binarySearch(days, 0, size, day);
+                if (pos >= 0) {
+                    i = pos;
+                } else {
+                    i = -(pos + 1);
+                    insertAt(i, day);
+                }
+            }
+            counts[i]++;
+            distances[i] += distance;
+            costs[i] += cost;
+            times[i] += time;
+        }
+
+        private void insertAt(int i, int day) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            int moved = size - i;
+            System.arraycopy(days, i, days, i + 1, moved);
+            System.arraycopy(counts, i, counts, i + 1, moved);
+            System.arraycopy(distances, i, distances, i + 1, moved);
+            System.arraycopy(costs, i, costs, i + 1, moved);
+            System.arraycopy(times, i, times, i + 1, moved);
+            days[i] = day;
+            counts[i] = 0;
+            distances[i] = 0;
+            costs[i] = 0;
+            times[i] = 0;
+            size++;
+        }
+
+        void sum(long fromDay, long toDay, long[] count, double[] sums) {
+            for (int i = firstAtOrAfter(fromDay); i < size && days[i] <= toDay; i++) {
+                count[0] += counts[i];
+                sums[0] += distances[i];
+                sums[1] += costs[i];
+                sums[2] += times[i];
+            }
+        }
+
+        void forEachDay(long fromDay, long toDay, BiConsumer<Integer, RouteHistoryAggregate> action) {
+            for (int i = firstAtOrAfter(fromDay); i < size && days[i] <= toDay; i++) {
+                action.accept(days[i], new RouteHistoryAggregate(counts[i], distances[i], costs[i], times[i]));
+            }
+        }
+
+        private int firstAtOrAfter(long day) {
+            int clamped = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, day));
+            int pos = Arrays.binarySearch(days, 0, size, clamped);
+            return pos >= 0 ? pos : -(pos + 1);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(days[i]);
+                out.writeLong(counts[i]);
+                out.writeDouble(distances[i]);
+                out.writeDouble(costs[i]);
+                out.writeDouble(times[i]);
+            }
+        }
+
+        static DailyTotals readFrom(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException("Índice del historial dañado.");
+            }
+            DailyTotals totals = new DailyTotals();
+            int capacity = Math.max(4, size);
+            totals.days = new int[capacity];
+            totals.counts = new long[capacity];
+            totals.distances = new double[capacity];
+            totals.costs = new double[capacity];
+            totals.times = new double[capacity];
+            for (int i = 0; i < size; i++) {
+                totals.days[i] = in.readInt();
+                totals.counts[i] = in.readLong();
+                totals.distances[i] = in.readDouble();
+                totals.costs[i] = in.readDouble();
+                totals.times[i] = in.readDouble();
+            }
+            totals.size = size;
+            return totals;
+        }
+    }
+}
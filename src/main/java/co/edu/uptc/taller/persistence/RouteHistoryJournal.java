@@ -0,0 +1,941 @@
+package co.edu.uptc.taller.persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Diario de solo anexado del historial de rutas en formato JSON Lines: un objeto JSON por línea.
+ *
+ * <p>Guardar una entrada solo escribe su línea al final del archivo activo, así que cuesta lo
+ * mismo con diez entradas previas que con diez millones. La durabilidad depende de la
+ * {@link SyncPolicy}: se puede forzar a disco cada entrada, por lotes o periódicamente.</p>
+ *
+ * <p>Cuando el archivo activo supera un tamaño se sella como segmento y se empieza otro. Cada
+ * segmento se nombra con el rango de segmentos que contiene ({@code route_history.000003-000003.jsonl});
+ * al acumularse varios, un hilo en segundo plano los compacta en uno solo, reemplazando las
+ * líneas ilegibles por líneas vacías para no mover las posiciones. Si el proceso cae a mitad de una compactación, al abrir el diario se
+ * eliminan los segmentos cuyo rango ya está cubierto por otro.</p>
+ *
+ * <p>Al abrir, si el archivo activo termina en una línea incompleta (una escritura interrumpida
+ * por una caída), esa cola se recorta. Si existe el historial antiguo ({@code route_history.json},
+ * una lista JSON reescrita completa en cada guardado), se migra leyéndolo por partes.</p>
+ *
+ * <p>Cada segmento tiene un índice disperso ({@link JournalIndex}) en un archivo {@code .idx}, y
+ * el del archivo activo se mantiene en memoria. Con ellos se leen páginas, las últimas entradas
+ * o un rango de fechas sin recorrer el historial anterior.</p>
+ *
+ * <p>Es seguro usar una instancia desde varios hilos.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public final class RouteHistoryJournal implements Closeable {
+
+    /**
+     * Cuándo se fuerzan a disco las entradas guardadas.
+     */
+    public enum SyncPolicy {
+
+        /**
+         * Cada entrada se escribe y se fuerza a disco antes de volver. No se pierde nada ante
+         * una caída, pero cada guardado espera al disco.
+         */
+        EVERY_ENTRY,
+
+        /**
+         * Cada entrada se entrega al sistema operativo al guardarla, y se fuerza a disco cada
+         * cierto número de entradas o de milisegundos. Una caída del proceso no pierde nada;
+         * una caída del sistema puede perder el último lote.
+         */
+        BATCHED,
+
+        /**
+         * Las entradas se acumulan en memoria y se escriben y fuerzan a disco periódicamente.
+         * Es lo más rápido, pero una caída del proceso puede perder el último intervalo.
+         */
+        PERIODIC
+    }
+
+    /**
+     * Entradas entre dos sincronizaciones con {@link SyncPolicy#BATCHED}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * Milisegundos entre sincronizaciones en segundo plano.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 200;
+
+    /**
+     * Tamaño en bytes a partir del cual el archivo activo se sella como segmento.
+     */
+    public static final long DEFAULT_SEGMENT_BYTES = 16L << 20;
+
+    /**
+     * Número de segmentos sellados a partir del cual se compactan.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+
+    private static final Logger logger = Logger.getLogger(RouteHistoryJournal.class.getName());
+
+    private static final String ACTIVE_FILE = "route_history.jsonl";
+    private static final String LEGACY_FILE = "route_history.json";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("route_history\\.(\\d{6,})-(\\d{6,})\\.jsonl");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final Path activePath;
+    private final ObjectMapper mapper;
+    private final SyncPolicy policy;
+    private final int batchSize;
+    private final long segmentBytes;
+    private final int compactionThreshold;
+
+    /**
+     * Protege el archivo activo. Se toma antes que {@link #segmentLock} cuando se necesitan ambos.
+     */
+    private final Object appendLock = new Object();
+    private FileChannel activeChannel;
+    private OutputStream activeOut;
+    private long activeBytes;
+    private JournalIndex activeIndex;
+    private int unsynced;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Protege la lista de segmentos sellados frente a la compactación.
+     */
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private long nextSegmentId;
+
+    private final ScheduledExecutorService background;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * Abre el diario en un directorio con la política de sincronización indicada y los demás
+     * parámetros por defecto.
+     *
+     * @param directory Directorio de los archivos del historial.
+     * @param mapper    Objeto Jackson para serializar las entradas.
+     * @param policy    Cuándo forzar las entradas a disco.
+     * @throws IOException Si no se puede abrir, recuperar o migrar el historial.
+     */
+    public RouteHistoryJournal(Path directory, ObjectMapper mapper, SyncPolicy policy) throws IOException {
+        this(directory, mapper, policy, DEFAULT_BATCH_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS,
+                DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Abre el diario en un directorio.
+     *
+     * @param directory           Directorio de los archivos del historial.
+     * @param mapper              Objeto Jackson para serializar las entradas.
+     * @param policy              Cuándo forzar las entradas a disco.
+     * @param batchSize           Entradas entre dos sincronizaciones con
+     *                            {@link SyncPolicy#BATCHED}.
+     * @param syncIntervalMillis  Milisegundos entre sincronizaciones en segundo plano.
+     * @param segmentBytes        Tamaño a partir del cual el archivo activo se sella.
+     * @param compactionThreshold Segmentos sellados a partir de los cuales se compactan.
+     * @throws IOException Si no se puede abrir, recuperar o migrar el historial.
+     */
+    public RouteHistoryJournal(Path directory, ObjectMapper mapper, SyncPolicy policy, int batchSize,
+                               long syncIntervalMillis, long segmentBytes, int compactionThreshold) throws IOException {
+        if (directory == null || mapper == null || policy == null) {
+            throw new NullPointerException("El directorio, el objeto Jackson y la política no pueden ser nulos.");
+        }
+        if (batchSize <= 0 || syncIntervalMillis <= 0 || segmentBytes <= 0 || compactionThreshold < 2) {
+            throw new IllegalArgumentException("Parámetros del diario de historial no válidos.");
+        }
+        this.directory = directory;
+        this.activePath = directory.resolve(ACTIVE_FILE);
+        this.mapper = mapper;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.segmentBytes = segmentBytes;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        loadSegments();
+        migrateLegacyHistory();
+        recoverTail();
+        openActive();
+
+        this.background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "route-history-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (policy != SyncPolicy.EVERY_ENTRY) {
+            background.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (segments.size() >= compactionThreshold) {
+            background.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Guarda una entrada al final del historial.
+     *
+     * @param history La entrada a guardar.
+     * @throws IOException Si ocurre un error al escribir o el diario está cerrado.
+     */
+    public void append(GraphPersistence.RouteHistory history) throws IOException {
+        byte[] line = mapper.writeValueAsBytes(history);
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IOException("El diario de historial está cerrado.");
+            }
+            activeOut.write(line);
+            activeOut.write('\n');
+            activeIndex.add(activeBytes, line.length + 1, timestampOf(history));
+            activeBytes += line.length + 1;
+            switch (policy) {
+                case EVERY_ENTRY:
+                    activeOut.flush();
+                    activeChannel.force(false);
+                    break;
+                case BATCHED:
+                    activeOut.flush();
+                    if (++unsynced >= batchSize) {
+                        activeChannel.force(false);
+                        unsynced = 0;
+                    }
+                    break;
+                case PERIODIC:
+                default:
+                    dirty = true;
+                    break;
+            }
+            if (activeBytes >= segmentBytes) {
+                rotate();
+            }
+        }
+    }
+
+    /**
+     * Recorre el historial completo en orden de guardado sin cargarlo en memoria.
+     *
+     * <p>Se incluyen todas las entradas guardadas antes de la llamada. Las líneas ilegibles se
+     * omiten con una advertencia.</p>
+     *
+     * @param consumer Acción que recibe cada entrada.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public long read(Consumer<GraphPersistence.RouteHistory> consumer) throws IOException {
+        try (View view = openView()) {
+            long count = 0;
+            for (int i = 0; i < view.size(); i++) {
+                count += readLines(new LineReader(view.channel(i), 0, view.index(i).length()), consumer);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Lee una página del historial en orden de guardado.
+     *
+     * <p>Con el índice disperso se salta directamente al archivo y a la muestra anterior a
+     * {@code first}, de modo que el costo depende del tamaño de la página y no de la posición.
+     * Cada línea ocupa una posición, igual que en {@link #size()}: en lugar de una línea ilegible
+     * o del marcador que deja la compactación la página trae {@code null}, de modo que el
+     * elemento {@code k} es siempre la entrada de la posición {@code first + k}.</p>
+     *
+     * @param first Posición de la primera entrada, desde cero.
+     * @param count Número máximo de posiciones.
+     * @return Las entradas de la página, con {@code null} en las posiciones ilegibles; trae menos
+     *         de {@code count} solo si se llega al final, y está vacía si {@code first} está más
+     *         allá del final.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public List<GraphPersistence.RouteHistory> read(long first, int count) throws IOException {
+        if (first < 0 || count < 0) {
+            throw new IllegalArgumentException("La posición y el tamaño de la página no pueden ser negativos.");
+        }
+        List<GraphPersistence.RouteHistory> page = new ArrayList<>(Math.min(count, 1024));
+        readFrom(first, count, page::add, true);
+        return page;
+    }
+
+    /**
+     * Recorre el historial desde una posición hasta el final, en orden de guardado.
+     *
+     * <p>Las posiciones cuentan también las líneas ilegibles, igual que {@link #size()}, de modo
+     * que quien guardó el tamaño del historial puede continuar justo donde lo dejó.</p>
+     *
+     * @param first    Posición de la primera entrada, desde cero.
+     * @param consumer Acción que recibe cada entrada.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public long read(long first, Consumer<GraphPersistence.RouteHistory> consumer) throws IOException {
+        if (first < 0) {
+            throw new IllegalArgumentException("La posición no puede ser negativa.");
+        }
+        return readFrom(first, Long.MAX_VALUE, consumer, false);
+    }
+
+    /**
+     * Recorre las entradas guardadas entre dos fechas, inclusive.
+     *
+     * <p>Se saltan los archivos y las muestras anteriores a {@code fromMillis} y se deja de leer
+     * en la primera entrada posterior a {@code toMillis}, asumiendo que las entradas se
+     * guardaron en orden cronológico.</p>
+     *
+     * @param fromMillis Fecha inicial en milisegundos.
+     * @param toMillis   Fecha final en milisegundos.
+     * @param consumer   Acción que recibe cada entrada del rango.
+     * @return El número de entradas recorridas.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public long readBetween(long fromMillis, long toMillis, Consumer<GraphPersistence.RouteHistory> consumer)
+            throws IOException {
+        long count = 0;
+        try (View view = openView()) {
+            for (int i = 0; i < view.size(); i++) {
+                if (i + 1 < view.size() && view.index(i + 1).firstTimestamp() < fromMillis) {
+                    continue;
+                }
+                JournalIndex index = view.index(i);
+                LineReader reader = new LineReader(view.channel(i),
+                        index.sampleOffset(index.lastSampleBefore(fromMillis)), index.length());
+                while (reader.next()) {
+                    GraphPersistence.RouteHistory history = parse(reader);
+                    if (history == null) {
+                        continue;
+                    }
+                    long timestamp = timestampOf(history);
+                    if (timestamp > toMillis) {
+                        return count;
+                    }
+                    if (timestamp >= fromMillis) {
+                        consumer.accept(history);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene el número de entradas del historial, sin leer los archivos.
+     *
+     * @return Cantidad de entradas guardadas, incluidas las líneas ilegibles.
+     */
+    public long size() {
+        synchronized (appendLock) {
+            segmentLock.readLock().lock();
+            try {
+                long count = activeIndex.count();
+                for (Segment segment : segments) {
+                    count += segment.index.count();
+                }
+                return count;
+            } finally {
+                segmentLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Fuerza a disco las entradas guardadas hasta ahora.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void sync() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            activeOut.flush();
+            activeChannel.force(false);
+            unsynced = 0;
+            dirty = false;
+        }
+    }
+
+    /**
+     * Compacta los segmentos sellados en uno solo. Normalmente se hace en segundo plano al
+     * acumularse segmentos; este método permite pedirlo explícitamente.
+     *
+     * @throws IOException Si ocurre un error al escribir el segmento compactado.
+     */
+    public void compact() throws IOException {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Segment> merged;
+            segmentLock.readLock().lock();
+            try {
+                merged = new ArrayList<>(segments);
+            } finally {
+                segmentLock.readLock().unlock();
+            }
+            if (merged.size() < 2) {
+                return;
+            }
+
+            Segment result = new Segment(merged.get(0).first, merged.get(merged.size() - 1).last, directory);
+            result.index = new JournalIndex();
+            Path temp = directory.resolve(result.path.getFileName() + TEMP_SUFFIX);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(out), BUFFER_SIZE)) {
+                for (Segment segment : merged) {
+                    try (FileChannel in = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                        copyValidLines(in, stream, result.index);
+                    }
+                }
+                stream.flush();
+                out.force(true);
+            }
+            result.index.write(result.indexPath);
+
+            // Desde aquí el rango queda cubierto por el segmento nuevo; si el proceso cae antes de
+            // borrar los originales, loadSegments() los descarta al abrir.
+            segmentLock.writeLock().lock();
+            try {
+                Files.move(temp, result.path, StandardCopyOption.ATOMIC_MOVE);
+                segments.subList(0, merged.size()).clear();
+                segments.add(0, result);
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+            for (Segment segment : merged) {
+                deleteSegment(segment);
+            }
+            logger.info("Historial compactado: " + merged.size() + " segmentos, " + result.index.count() + " entradas.");
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Escribe las entradas pendientes, las fuerza a disco y cierra el diario.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                activeOut.flush();
+                activeChannel.force(false);
+            } finally {
+                activeOut.close();
+            }
+        }
+        background.shutdown();
+        logger.info("Diario de historial cerrado.");
+    }
+
+    /**
+     * Sella el archivo activo como segmento y abre uno nuevo. Se llama con {@link #appendLock}.
+     */
+    private void rotate() throws IOException {
+        activeOut.flush();
+        activeChannel.force(false);
+        activeOut.close();
+
+        Segment segment = new Segment(nextSegmentId, nextSegmentId, directory);
+        segment.index = activeIndex;
+        segment.index.write(segment.indexPath);
+        nextSegmentId++;
+        int sealed;
+        segmentLock.writeLock().lock();
+        try {
+            Files.move(activePath, segment.path, StandardCopyOption.ATOMIC_MOVE);
+            segments.add(segment);
+            sealed = segments.size();
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        openActive();
+        unsynced = 0;
+        dirty = false;
+        logger.info("Segmento de historial sellado: " + segment.path.getFileName());
+
+        if (sealed >= compactionThreshold) {
+            background.execute(this::compactQuietly);
+        }
+    }
+
+    private void openActive() throws IOException {
+        activeChannel = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        activeOut = new BufferedOutputStream(Channels.newOutputStream(activeChannel), BUFFER_SIZE);
+        activeBytes = activeChannel.size();
+        activeIndex = scanIndex(activePath);
+    }
+
+    private void syncQuietly() {
+        synchronized (appendLock) {
+            if (closed || (!dirty && unsynced == 0)) {
+                return;
+            }
+            try {
+                activeOut.flush();
+                activeChannel.force(false);
+                unsynced = 0;
+                dirty = false;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "No se pudo sincronizar el historial: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo compactar el historial: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lista los segmentos sellados, descartando los que quedaron cubiertos por una compactación
+     * interrumpida y los temporales a medio escribir.
+     */
+    private void loadSegments() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "route_history.*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    found.add(new Segment(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), directory));
+                }
+            }
+        }
+        // Los rangos más amplios primero, para que cubran a los que contienen.
+        found.sort((a, b) -> a.first != b.first ? Long.compare(a.first, b.first) : Long.compare(b.last, a.last));
+        long covered = -1;
+        nextSegmentId = 1;
+        for (Segment segment : found) {
+            if (segment.last <= covered) {
+                logger.warning("Eliminando segmento ya compactado: " + segment.path.getFileName());
+                deleteSegment(segment);
+                continue;
+            }
+            segment.index = JournalIndex.read(segment.indexPath, Files.size(segment.path));
+            if (segment.index == null) {
+                logger.info("Reconstruyendo el índice de " + segment.path.getFileName());
+                segment.index = scanIndex(segment.path);
+                segment.index.write(segment.indexPath);
+            }
+            segments.add(segment);
+            covered = segment.last;
+            nextSegmentId = Math.max(nextSegmentId, segment.last + 1);
+        }
+    }
+
+    /**
+     * Migra el historial antiguo a un segmento con identificador cero. Si el segmento ya existe,
+     * la migración terminó antes de una caída y solo falta apartar el archivo antiguo.
+     */
+    private void migrateLegacyHistory() throws IOException {
+        Path legacy = directory.resolve(LEGACY_FILE);
+        if (!Files.exists(legacy)) {
+            return;
+        }
+        Segment segment = new Segment(0, 0, directory);
+        boolean migrated = !segments.isEmpty() && segments.get(0).first == 0;
+        if (!migrated) {
+            Path temp = directory.resolve(segment.path.getFileName() + TEMP_SUFFIX);
+            segment.index = new JournalIndex();
+            try (JsonParser parser = mapper.getFactory().createParser(legacy.toFile());
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(out), BUFFER_SIZE)) {
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        GraphPersistence.RouteHistory history = parser.readValueAs(GraphPersistence.RouteHistory.class);
+                        byte[] line = mapper.writeValueAsBytes(history);
+                        stream.write(line);
+                        stream.write('\n');
+                        segment.index.add(segment.index.length(), line.length + 1, timestampOf(history));
+                    }
+                }
+                stream.flush();
+                out.force(true);
+            }
+            long entries = segment.index.count();
+            if (entries > 0) {
+                segment.index.write(segment.indexPath);
+                Files.move(temp, segment.path, StandardCopyOption.ATOMIC_MOVE);
+                segments.add(0, segment);
+            } else {
+                Files.delete(temp);
+            }
+            logger.info("Historial antiguo migrado con " + entries + " entradas.");
+        }
+        Files.move(legacy, directory.resolve(LEGACY_FILE + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Recorta la línea incompleta que pueda haber al final del archivo activo, leyendo solo
+     * desde el final hasta el último salto de línea.
+     */
+    private void recoverTail() throws IOException {
+        if (!Files.exists(activePath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(activePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long validLength = 0;
+            search:
+            while (end > 0) {
+                long start = Math.max(0, end - buffer.capacity());
+                buffer.clear().limit((int) (end - start));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        validLength = start + i + 1;
+                        break search;
+                    }
+                }
+                end = start;
+            }
+            if (validLength < size) {
+                channel.truncate(validLength);
+                channel.force(true);
+                logger.warning("Historial recuperado: se descartaron " + (size - validLength)
+                        + " bytes de una escritura incompleta.");
+            }
+        }
+    }
+
+    /**
+     * Recorre hasta {@code count} líneas a partir de la línea {@code first} y entrega sus
+     * entradas; las líneas ilegibles también cuentan como posición.
+     *
+     * <p>Con el índice disperso se salta directamente al archivo y a la muestra anterior a
+     * {@code first}, de modo que el costo no depende de la posición.</p>
+     *
+     * @param unreadable Si es {@code true}, las líneas ilegibles se entregan como {@code null}
+     *                   para que quien recibe las entradas conserve las posiciones.
+     * @return El número de entradas legibles entregadas.
+     */
+    private long readFrom(long first, long count, Consumer<GraphPersistence.RouteHistory> consumer,
+                          boolean unreadable) throws IOException {
+        long positions = 0;
+        long read = 0;
+        try (View view = openView()) {
+            long skip = first;
+            for (int i = 0; i < view.size() && positions < count; i++) {
+                JournalIndex index = view.index(i);
+                if (skip >= index.count()) {
+                    skip -= index.count();
+                    continue;
+                }
+                LineReader reader = new LineReader(view.channel(i), index.sampleOffset(skip), index.length());
+                long betweenSampleAndFirst = skip % JournalIndex.INTERVAL;
+                while (betweenSampleAndFirst > 0 && reader.next()) {
+                    betweenSampleAndFirst--;
+                }
+                skip = 0;
+                while (positions < count && reader.next()) {
+                    positions++;
+                    GraphPersistence.RouteHistory history = parse(reader);
+                    if (history != null) {
+                        consumer.accept(history);
+                        read++;
+                    } else if (unreadable) {
+                        consumer.accept(null);
+                    }
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Entrega cada entrada legible de las líneas restantes de un lector.
+     */
+    private long readLines(LineReader reader, Consumer<GraphPersistence.RouteHistory> consumer) throws IOException {
+        long count = 0;
+        while (reader.next()) {
+            GraphPersistence.RouteHistory history = parse(reader);
+            if (history != null) {
+                consumer.accept(history);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Interpreta la línea actual de un lector.
+     *
+     * @return La entrada, o {@code null} si la línea es ilegible o es el marcador vacío que deja
+     *         la compactación en lugar de una línea ilegible.
+     */
+    private GraphPersistence.RouteHistory parse(LineReader reader) throws IOException {
+        if (reader.length == 0) {
+            return null;
+        }
+        try {
+            return mapper.readValue(reader.line, 0, reader.length, GraphPersistence.RouteHistory.class);
+        } catch (JsonProcessingException e) {
+            logger.warning("Se omitió una línea ilegible del historial en la posición " + reader.lineStart + ".");
+            return null;
+        }
+    }
+
+    /**
+     * Copia al segmento compactado las líneas completas y legibles de un segmento, registrándolas
+     * en el índice del segmento nuevo.
+     *
+     * <p>Cada línea ilegible se reemplaza por una línea vacía en lugar de descartarse, para que
+     * las posiciones de las entradas siguientes no cambien: los puntos de control de los índices
+     * y las páginas del historial se refieren a las entradas por su posición.</p>
+     */
+    private void copyValidLines(FileChannel channel, OutputStream out, JournalIndex index) throws IOException {
+        LineReader reader = new LineReader(channel, 0, channel.size());
+        long timestamp = 0;
+        while (reader.next()) {
+            GraphPersistence.RouteHistory history = parse(reader);
+            if (history == null) {
+                // El marcador hereda la fecha anterior para no desordenar las muestras del índice.
+                out.write('\n');
+                index.add(index.length(), 1, timestamp);
+                continue;
+            }
+            timestamp = timestampOf(history);
+            out.write(reader.line, 0, reader.length);
+            out.write('\n');
+            index.add(index.length(), reader.length + 1, timestamp);
+        }
+    }
+
+    /**
+     * Construye el índice de un archivo recorriendo sus líneas. Solo se interpretan las que son
+     * muestras del índice.
+     */
+    private JournalIndex scanIndex(Path file) throws IOException {
+        JournalIndex index = new JournalIndex();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LineReader reader = new LineReader(channel, 0, channel.size());
+            while (reader.next()) {
+                long timestamp = 0;
+                if (index.isSample()) {
+                    GraphPersistence.RouteHistory history = parse(reader);
+                    timestamp = history != null ? timestampOf(history) : 0;
+                }
+                index.add(reader.lineStart, reader.length + 1, timestamp);
+            }
+        }
+        return index;
+    }
+
+    private static long timestampOf(GraphPersistence.RouteHistory history) {
+        return history.timestamp != null ? history.timestamp.getTime() : 0;
+    }
+
+    /**
+     * Abre los archivos del historial y toma una copia de sus índices. Mientras la vista esté
+     * abierta, la compactación puede borrar los segmentos sin afectarla.
+     */
+    private View openView() throws IOException {
+        View view = new View();
+        try {
+            synchronized (appendLock) {
+                segmentLock.readLock().lock();
+                try {
+                    for (Segment segment : segments) {
+                        view.add(FileChannel.open(segment.path, StandardOpenOption.READ), segment.index);
+                    }
+                } finally {
+                    segmentLock.readLock().unlock();
+                }
+                if (!closed) {
+                    activeOut.flush();
+                }
+                if (activeIndex.count() > 0) {
+                    view.add(FileChannel.open(activePath, StandardOpenOption.READ), activeIndex.snapshot());
+                }
+            }
+        } catch (IOException e) {
+            view.close();
+            throw e;
+        }
+        return view;
+    }
+
+    private static void deleteSegment(Segment segment) {
+        deleteQuietly(segment.path);
+        deleteQuietly(segment.indexPath);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo eliminar " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Segmento sellado que contiene los segmentos originales de {@code first} a {@code last}.
+     */
+    private static final class Segment {
+        final long first;
+        final long last;
+        final Path path;
+        final Path indexPath;
+
+        /**
+         * Índice del segmento; se asigna antes de publicarlo en la lista de segmentos.
+         */
+        JournalIndex index;
+
+        Segment(long first, long last, Path directory) {
+            this.first = first;
+            this.last = last;
+            String name = String.format("route_history.%06d-%06d", first, last);
+            this.path = directory.resolve(name + ".jsonl");
+            this.indexPath = directory.resolve(name + ".idx");
+        }
+    }
+
+    /**
+     * Archivos abiertos del historial con sus índices, en orden de guardado.
+     */
+    private static final class View implements Closeable {
+        private final List<FileChannel> channels = new ArrayList<>();
+        private final List<JournalIndex> indexes = new ArrayList<>();
+
+        void add(FileChannel channel, JournalIndex index) {
+            channels.add(channel);
+            indexes.add(index);
+        }
+
+        int size() {
+            return channels.size();
+        }
+
+        FileChannel channel(int i) {
+            return channels.get(i);
+        }
+
+        JournalIndex index(int i) {
+            return indexes.get(i);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Lector de líneas terminadas en salto de línea sobre un tramo de un canal, sin decodificar
+     * texto. Una última línea sin salto se ignora porque puede estar a medio escribir.
+     */
+    private static final class LineReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long position;
+        private long fetch;
+        private long remaining;
+        byte[] line = new byte[1024];
+        int length;
+
+        /**
+         * Posición en el archivo donde empieza la línea actual.
+         */
+        long lineStart;
+
+        LineReader(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.fetch = start;
+            this.remaining = end - start;
+            this.lineStart = start;
+            buffer.limit(0);
+        }
+
+        boolean next() throws IOException {
+            length = 0;
+            while (true) {
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        lineStart = position;
+                        position += length + 1;
+                        return true;
+                    }
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+                if (remaining <= 0) {
+                    return false;
+                }
+                buffer.clear();
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                int read = channel.read(buffer, fetch);
+                if (read < 0) {
+                    return false;
+                }
+                fetch += read;
+                remaining -= read;
+                buffer.flip();
+            }
+        }
+    }
+}
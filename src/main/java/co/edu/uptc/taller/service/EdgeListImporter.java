@@ -0,0 +1,761 @@
+package co.edu.uptc.taller.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.Location;
+
+/**
+ * Servicio encargado de importar redes de rutas grandes desde listas de aristas en CSV o TSV.
+ *
+ * <p>Cada línea describe una ruta: {@code origen, destino, distancia} y, opcionalmente,
+ * {@code costo, tiempo}. El separador (coma, punto y coma o tabulador) se detecta en la primera
+ * línea, que se omite si es un encabezado. Con punto y coma o tabulador se acepta la coma
+ * decimal. Se omiten las líneas vacías y las que empiezan por {@code #}; las líneas mal
+ * formadas, las rutas de una ubicación a sí misma y las distancias negativas se cuentan como
+ * omitidas. Si una ruta se repite, se conserva la última.</p>
+ *
+ * <p>El archivo se divide en segmentos que se leen en paralelo por bloques, sin crear cadenas
+ * por línea: los nombres se comparan e internan como bytes y los números se interpretan
+ * directamente sobre el búfer. Solo se crea una {@link Location} por ubicación distinta, y el
+ * {@link CompactGraph} se construye directamente a partir de los arreglos de rutas.</p>
+ */
+public class EdgeListImporter {
+
+    private static final Logger logger = Logger.getLogger(EdgeListImporter.class.getName());
+
+    /**
+     * Tamaño mínimo de cada segmento que se lee en paralelo.
+     */
+    private static final long MIN_SEGMENT_BYTES = 4L << 20;
+
+    /**
+     * Tamaño de los bloques que se leen del archivo.
+     */
+    private static final int BLOCK_BYTES = 1 << 20;
+
+    /**
+     * Potencias de diez representables de forma exacta.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Recibe el avance de una importación.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Informa cuántos bytes del archivo se han procesado. Se llama desde los hilos que leen
+         * los segmentos, así que debe ser seguro para uso concurrente.
+         *
+         * @param processedBytes Bytes procesados hasta el momento.
+         * @param totalBytes     Tamaño del archivo.
+         */
+        void onProgress(long processedBytes, long totalBytes);
+    }
+
+    private final ProgressListener progressListener;
+
+    /**
+     * Constructor de un importador que no informa el avance.
+     */
+    public EdgeListImporter() {
+        this((processed, total) -> { });
+    }
+
+    /**
+     * Constructor de un importador que informa el avance.
+     *
+     * @param progressListener Receptor del avance de cada importación.
+     */
+    public EdgeListImporter(ProgressListener progressListener) {
+        if (progressListener == null) {
+            throw new NullPointerException("El receptor del avance no puede ser nulo.");
+        }
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Importa una lista de aristas y construye el grafo de entregas correspondiente.
+     *
+     * @param file Ruta del archivo CSV o TSV.
+     * @return Objeto ImportResult con el grafo y las estadísticas de la importación.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Format format = detectFormat(channel);
+            long[] bounds = segmentBounds(channel, format.dataStart, size);
+            int segments = bounds.length - 1;
+            AtomicLong processed = new AtomicLong(format.dataStart);
+            Segment[] parsed = new Segment[segments];
+            IOException[] failure = new IOException[1];
+            IntStream.range(0, segments).parallel().forEach(i -> {
+                try {
+                    parsed[i] = new Segment(format);
+                    parsed[i].parse(channel, bounds[i], bounds[i + 1], bytes ->
+                            progressListener.onProgress(processed.addAndGet(bytes), size));
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            ImportResult result = merge(parsed, (System.nanoTime() - start) / 1_000_000);
+            logger.info("Lista de aristas importada desde " + file + ": " + result.getLocationCount()
+                    + " ubicaciones, " + result.getRouteCount() + " rutas, " + result.getSkippedLines()
+                    + " líneas omitidas en " + result.getElapsedMillis() + " ms.");
+            return result;
+        }
+    }
+
+    /**
+     * Detecta el separador en la primera línea y si esta es un encabezado.
+     */
+    static Format detectFormat(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 64 * 1024));
+        channel.read(buffer, 0);
+        byte[] head = Arrays.copyOf(buffer.array(), buffer.position());
+        int offset = head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB
+                && (head[2] & 0xFF) == 0xBF ? 3 : 0;
+        int end = offset;
+        while (end < head.length && head[end] != '\n') {
+            end++;
+        }
+        byte delimiter = ',';
+        for (int i = offset; i < end; i++) {
+            if (head[i] == '\t') {
+                delimiter = '\t';
+                break;
+            }
+            if (head[i] == ';') {
+                delimiter = ';';
+            }
+        }
+        Format format = new Format(delimiter, offset);
+        Segment probe = new Segment(format);
+        if (end > offset && !probe.parseLine(head, offset, end) && !probe.isComment(head, offset, end)) {
+            // La primera línea no es una ruta válida: se trata como encabezado.
+            format = new Format(delimiter, Math.min(end + 1, head.length));
+        }
+        return format;
+    }
+
+    /**
+     * Divide el archivo en segmentos de al menos {@value #MIN_SEGMENT_BYTES} bytes, hasta cuatro
+     * por procesador.
+     */
+    private static long[] segmentBounds(FileChannel channel, long dataStart, long size) throws IOException {
+        long length = size - dataStart;
+        int segments = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L,
+                length / MIN_SEGMENT_BYTES));
+        return segmentBounds(channel, dataStart, size, segments);
+    }
+
+    /**
+     * Divide el archivo en segmentos que empiezan justo después de un salto de línea.
+     *
+     * @return Los límites de los segmentos; puede haber segmentos vacíos si las líneas son
+     *         más largas que el tamaño de un segmento.
+     */
+    static long[] segmentBounds(FileChannel channel, long dataStart, long size, int segments) throws IOException {
+        long length = size - dataStart;
+        long[] bounds = new long[segments + 1];
+        bounds[0] = dataStart;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (int i = 1; i < segments; i++) {
+            long position = Math.max(bounds[i - 1], dataStart + length * i / segments);
+            bounds[i] = size;
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                int newline = -1;
+                for (int k = 0; k < read; k++) {
+                    if (buffer.get(k) == '\n') {
+                        newline = k;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    bounds[i] = position + newline + 1;
+                    break;
+                }
+                position += read;
+            }
+        }
+        bounds[segments] = size;
+        return bounds;
+    }
+
+    /**
+     * Reúne los segmentos: asigna identificadores globales a los nombres en orden de primera
+     * aparición y construye el grafo.
+     */
+    private static ImportResult merge(Segment[] segments, long parseMillis) {
+        long mergeStart = System.nanoTime();
+        NameTable names = new NameTable();
+        int[][] remap = new int[segments.length][];
+        long routes = 0;
+        long lines = 0;
+        long skipped = 0;
+        for (int s = 0; s < segments.length; s++) {
+            Segment segment = segments[s];
+            remap[s] = new int[segment.names.size];
+            for (int local = 0; local < segment.names.size; local++) {
+                remap[s][local] = names.intern(segment.names, local);
+            }
+            routes += segment.count;
+            lines += segment.lines;
+            skipped += segment.skipped;
+        }
+        if (routes > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("La lista tiene demasiadas rutas: " + routes);
+        }
+
+        Location[] locations = new Location[names.size];
+        for (int id = 0; id < locations.length; id++) {
+            locations[id] = new Location(names.name(id));
+        }
+        int count = (int) routes;
+        int[] sources = new int[count];
+        int[] targets = new int[count];
+        double[] distances = new double[count];
+        boolean withAttributes = Arrays.stream(segments).anyMatch(segment -> segment.costs != null);
+        double[] costs = withAttributes ? new double[count] : null;
+        double[] times = withAttributes ? new double[count] : null;
+        int[] firsts = new int[segments.length];
+        for (int s = 1; s < segments.length; s++) {
+            firsts[s] = firsts[s - 1] + segments[s - 1].count;
+        }
+        IntStream.range(0, segments.length).parallel().forEach(s -> {
+            Segment segment = segments[s];
+            int[] map = remap[s];
+            int first = firsts[s];
+            for (int i = 0; i < segment.count; i++) {
+                sources[first + i] = map[segment.sources[i]];
+                targets[first + i] = map[segment.targets[i]];
+            }
+            System.arraycopy(segment.distances, 0, distances, first, segment.count);
+            if (withAttributes) {
+                if (segment.costs != null) {
+                    System.arraycopy(segment.costs, 0, costs, first, segment.count);
+                    System.arraycopy(segment.times, 0, times, first, segment.count);
+                } else {
+                    Arrays.fill(costs, first, first + segment.count, Double.NaN);
+                    Arrays.fill(times, first, first + segment.count, Double.NaN);
+                }
+            }
+        });
+        CompactGraph graph = CompactGraph.fromEdges(locations, count, sources, targets, distances, costs, times);
+        long elapsed = parseMillis + (System.nanoTime() - mergeStart) / 1_000_000;
+        return new ImportResult(graph, lines, skipped, elapsed);
+    }
+
+    /**
+     * Interpreta un número decimal sin crear objetos en el caso común (hasta 15 cifras
+     * significativas y exponentes pequeños, donde el resultado es exacto).
+     *
+     * @return El número, o {@code NaN} si el texto no es un número.
+     */
+    static double parseNumber(byte[] bytes, int from, int to, boolean decimalComma) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (seenPoint) {
+                        scale++;
+                    }
+                } else if (!seenPoint) {
+                    scale--;
+                    digits++;
+                } else {
+                    digits++;
+                }
+            } else if ((b == '.' || (decimalComma && b == ',')) && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+        int exponent = 0;
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == to) {
+                return Double.NaN;
+            }
+            for (; i < to; i++) {
+                byte b = bytes[i];
+                if (b < '0' || b > '9') {
+                    return Double.NaN;
+                }
+                exponent = Math.min(exponent * 10 + (b - '0'), 100_000);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (i != to) {
+            return Double.NaN;
+        }
+        int power = exponent - scale;
+        double value;
+        if (digits <= 15 && power >= -22 && power <= 22) {
+            value = power >= 0 ? mantissa * POWERS_OF_TEN[power] : mantissa / POWERS_OF_TEN[-power];
+        } else {
+            String text = new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+            try {
+                return Double.parseDouble(decimalComma ? text.replace(',', '.') : text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Separador de columnas y posición de la primera línea de datos.
+     */
+    static final class Format {
+        final byte delimiter;
+        final long dataStart;
+
+        Format(byte delimiter, long dataStart) {
+            this.delimiter = delimiter;
+            this.dataStart = dataStart;
+        }
+    }
+
+    /**
+     * Rutas leídas de un segmento del archivo, con identificadores locales al segmento.
+     */
+    static final class Segment {
+        private static final int MAX_FIELDS = 5;
+
+        private final byte delimiter;
+        private final boolean decimalComma;
+        private final NameTable names = new NameTable();
+
+        int count;
+        long lines;
+        long skipped;
+        int[] sources = new int[1024];
+        int[] targets = new int[1024];
+        double[] distances = new double[1024];
+        double[] costs;
+        double[] times;
+
+        /**
+         * Inicio y fin de cada campo de la línea actual, en {@link #fieldBytes}.
+         */
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final byte[][] fieldBytes = new byte[MAX_FIELDS][];
+        private byte[] unquoted = new byte[256];
+
+        Segment(Format format) {
+            this.delimiter = format.delimiter;
+            this.decimalComma = format.delimiter != ',';
+        }
+
+        /**
+         * Lee las líneas de {@code [start, end)} por bloques.
+         */
+        void parse(FileChannel channel, long start, long end, LongConsumer progress)
+                throws IOException {
+            byte[] block = new byte[BLOCK_BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(block);
+            long position = start;
+            int filled = 0;
+            while (position < end || filled > 0) {
+                int read = 0;
+                if (position < end) {
+                    buffer.limit((int) Math.min(block.length, filled + (end - position)));
+                    buffer.position(filled);
+                    read = channel.read(buffer, position);
+                    if (read < 0) {
+                        read = 0;
+                        position = end;
+                    }
+                    position += read;
+                }
+                int limit = filled + read;
+                boolean last = position >= end;
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (block[i] == '\n') {
+                        line(block, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (last && lineStart < limit) {
+                    line(block, lineStart, limit);
+                    lineStart = limit;
+                }
+                filled = limit - lineStart;
+                if (filled == block.length) {
+                    // Una línea más larga que el bloque: se agranda.
+                    block = Arrays.copyOf(block, block.length * 2);
+                    buffer = ByteBuffer.wrap(block);
+                } else {
+                    System.arraycopy(block, lineStart, block, 0, filled);
+                }
+                progress.accept(read);
+                if (last) {
+                    break;
+                }
+            }
+        }
+
+        private void line(byte[] bytes, int from, int to) {
+            if (to > from && bytes[to - 1] == '\r') {
+                to--;
+            }
+            if (isBlank(bytes, from, to) || isComment(bytes, from, to)) {
+                return;
+            }
+            lines++;
+            if (!parseLine(bytes, from, to)) {
+                skipped++;
+            }
+        }
+
+        private static boolean isBlank(byte[] bytes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] != ' ' && bytes[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isComment(byte[] bytes, int from, int to) {
+            return from < to && bytes[from] == '#';
+        }
+
+        /**
+         * Interpreta una línea y guarda su ruta.
+         *
+         * @return {@code false} si la línea no es una ruta válida.
+         */
+        boolean parseLine(byte[] bytes, int from, int to) {
+            int fields = split(bytes, from, to);
+            if (fields != 3 && fields != 5) {
+                return false;
+            }
+            double distance = number(2);
+            if (!(distance >= 0) || Double.isInfinite(distance)) {
+                return false;
+            }
+            double cost = Double.NaN;
+            double time = Double.NaN;
+            if (fields == 5) {
+                cost = number(3);
+                time = number(4);
+                if (!(cost >= 0) || !(time >= 0) || Double.isInfinite(cost) || Double.isInfinite(time)) {
+                    return false;
+                }
+            }
+            if (fieldEnd[0] == fieldStart[0] || fieldEnd[1] == fieldStart[1]) {
+                return false;
+            }
+            int source = names.intern(fieldBytes[0], fieldStart[0], fieldEnd[0]);
+            int target = names.intern(fieldBytes[1], fieldStart[1], fieldEnd[1]);
+            if (source == target) {
+                return false;
+            }
+            add(source, target, distance, cost, time);
+            return true;
+        }
+
+        /**
+         * Obtiene el texto de un campo de la última línea separada con {@link #split}.
+         */
+        String field(int field) {
+            return new String(fieldBytes[field], fieldStart[field], fieldEnd[field] - fieldStart[field],
+                    StandardCharsets.UTF_8);
+        }
+
+        private double number(int field) {
+            return parseNumber(fieldBytes[field], fieldStart[field], fieldEnd[field], decimalComma);
+        }
+
+        private void add(int source, int target, double distance, double cost, double time) {
+            if (count == sources.length) {
+                int capacity = count * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                if (costs != null) {
+                    costs = Arrays.copyOf(costs, capacity);
+                    times = Arrays.copyOf(times, capacity);
+                }
+            }
+            if (costs == null && !Double.isNaN(cost)) {
+                costs = new double[sources.length];
+                times = new double[sources.length];
+                Arrays.fill(costs, 0, count, Double.NaN);
+                Arrays.fill(times, 0, count, Double.NaN);
+            }
+            sources[count] = source;
+            targets[count] = target;
+            distances[count] = distance;
+            if (costs != null) {
+                costs[count] = cost;
+                times[count] = time;
+            }
+            count++;
+        }
+
+        /**
+         * Separa una línea en campos, quitando espacios alrededor y comillas dobles.
+         *
+         * @return El número de campos, o {@code MAX_FIELDS + 1} si hay más de los admitidos.
+         */
+        int split(byte[] bytes, int from, int to) {
+            int fields = 0;
+            int unquotedLength = 0;
+            int i = from;
+            while (true) {
+                if (fields == MAX_FIELDS) {
+                    return MAX_FIELDS + 1;
+                }
+                while (i < to && bytes[i] == ' ') {
+                    i++;
+                }
+                if (i < to && bytes[i] == '"') {
+                    // Campo entre comillas; "" representa una comilla.
+                    if (unquoted.length < unquotedLength + (to - i)) {
+                        unquoted = Arrays.copyOf(unquoted, Math.max(unquoted.length * 2, unquotedLength + (to - i)));
+                    }
+                    int start = unquotedLength;
+                    i++;
+                    while (i < to) {
+                        if (bytes[i] == '"') {
+                            if (i + 1 < to && bytes[i + 1] == '"') {
+                                unquoted[unquotedLength++] = '"';
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        unquoted[unquotedLength++] = bytes[i++];
+                    }
+                    if (i == to) {
+                        return 0;
+                    }
+                    i++;
+                    fieldBytes[fields] = unquoted;
+                    fieldStart[fields] = start;
+                    fieldEnd[fields] = unquotedLength;
+                    while (i < to && bytes[i] == ' ') {
+                        i++;
+                    }
+                    if (i < to && bytes[i] != delimiter) {
+                        return 0;
+                    }
+                } else {
+                    int start = i;
+                    while (i < to && bytes[i] != delimiter) {
+                        i++;
+                    }
+                    int end = i;
+                    while (end > start && bytes[end - 1] == ' ') {
+                        end--;
+                    }
+                    fieldBytes[fields] = bytes;
+                    fieldStart[fields] = start;
+                    fieldEnd[fields] = end;
+                }
+                fields++;
+                if (i == to) {
+                    return fields;
+                }
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Tabla de nombres de un segmento: asigna un identificador local a cada nombre distinto,
+     * comparando los bytes sin crear cadenas.
+     */
+    private static final class NameTable {
+        private byte[] bytes = new byte[1 << 16];
+        private int used;
+        private int[] starts = new int[1025];
+        private int[] hashes = new int[1024];
+        private int[] slots = new int[2048];
+        int size;
+
+        int intern(byte[] source, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + source[i];
+            }
+            return intern(source, from, to, hash);
+        }
+
+        /**
+         * Interna un nombre de otra tabla, reutilizando su hash.
+         */
+        int intern(NameTable other, int id) {
+            return intern(other.bytes, other.starts[id], other.starts[id + 1], other.hashes[id]);
+        }
+
+        private int intern(byte[] source, int from, int to, int hash) {
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && Arrays.equals(bytes, starts[id], starts[id + 1], source, from, to)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int length = to - from;
+            if (used + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + length));
+            }
+            System.arraycopy(source, from, bytes, used, length);
+            used += length;
+            if (size + 1 == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                starts = Arrays.copyOf(starts, hashes.length + 1);
+            }
+            int id = size++;
+            hashes[id] = hash;
+            starts[id + 1] = used;
+            slots[slot] = id + 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = mix(hashes[id]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        String name(int id) {
+            return new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+        }
+
+        private static int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Clase que representa el resultado de una importación.
+     */
+    public static class ImportResult {
+        private final CompactGraph graph;
+        private final long lines;
+        private final long skippedLines;
+        private final long elapsedMillis;
+
+        /**
+         * Constructor de ImportResult.
+         *
+         * @param graph         El grafo importado.
+         * @param lines         Líneas de datos leídas, sin contar comentarios ni líneas vacías.
+         * @param skippedLines  Líneas omitidas por estar mal formadas.
+         * @param elapsedMillis Duración de la importación en milisegundos.
+         */
+        public ImportResult(CompactGraph graph, long lines, long skippedLines, long elapsedMillis) {
+            this.graph = graph;
+            this.lines = lines;
+            this.skippedLines = skippedLines;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public CompactGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Crea un grafo de entregas sobre el grafo importado.
+         *
+         * @return El grafo de entregas.
+         */
+        public DeliveryGraph toDeliveryGraph() {
+            return new DeliveryGraph(graph);
+        }
+
+        public int getLocationCount() {
+            return graph.vertexCount();
+        }
+
+        public int getRouteCount() {
+            return graph.arcCount() / 2;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getSkippedLines() {
+            return skippedLines;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
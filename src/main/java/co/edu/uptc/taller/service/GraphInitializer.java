@@ -12,6 +12,12 @@ public class GraphInitializer {
 
     private static final Logger logger = Logger.getLogger(GraphInitializer.class.getName());
 
+    /**
+     * Versión de las ubicaciones y rutas predeterminadas. Debe incrementarse cada vez que se
+     * cambian, para que el grafo guardado con la versión anterior se genere de nuevo.
+     */
+    public static final int DATA_VERSION = 1;
+
     private DeliveryGraph deliveryGraph;
 
     /**
@@ -29,32 +35,32 @@ public class GraphInitializer {
     public void initializeGraph() {
         logger.info("Inicializando el grafo con ubicaciones y rutas optimizadas.");
 
-        // Crear ubicaciones principales de Boyacá
-        Location tunja = new Location("Tunja");
-        Location duitama = new Location("Duitama");
-        Location sogamoso = new Location("Sogamoso");
-        Location paipa = new Location("Paipa");
-        Location samacá = new Location("Samacá");
-        Location villaLeyva = new Location("Villa de Leyva");
-        Location motavita = new Location("Motavita");
-        Location ramiriquí = new Location("Ramiriquí");
-        Location garagoa = new Location("Garagoa");
-        Location miraflores = new Location("Miraflores");
-        Location nobsa = new Location("Nobsa");
-        Location topaga = new Location("Tópaga");
-        Location mongui = new Location("Monguí");
-        Location chiquinquirá = new Location("Chiquinquirá");
-        Location moniquira = new Location("Moniquirá");
-        Location tibasosa = new Location("Tibasosa");
-        Location sotaquirá = new Location("Sotaquirá");
-        Location tuta = new Location("Tuta");
-        Location siachoque = new Location("Siachoque");
-        Location toca = new Location("Toca");
-        Location soracá = new Location("Soracá");
-        Location combita = new Location("Cómbita");
-        Location oicatá = new Location("Oicatá");
-        Location firavitoba = new Location("Firavitoba");
-        Location iza = new Location("Iza");
+        // Crear ubicaciones principales de Boyacá (latitud y longitud aproximadas del casco urbano)
+        Location tunja = new Location("Tunja", 5.5353, -73.3678);
+        Location duitama = new Location("Duitama", 5.8245, -73.0341);
+        Location sogamoso = new Location("Sogamoso", 5.7143, -72.9339);
+        Location paipa = new Location("Paipa", 5.7800, -73.1175);
+        Location samacá = new Location("Samacá", 5.4925, -73.4858);
+        Location villaLeyva = new Location("Villa de Leyva", 5.6333, -73.5247);
+        Location motavita = new Location("Motavita", 5.5775, -73.3681);
+        Location ramiriquí = new Location("Ramiriquí", 5.4008, -73.3356);
+        Location garagoa = new Location("Garagoa", 5.0822, -73.3636);
+        Location miraflores = new Location("Miraflores", 5.1964, -73.1456);
+        Location nobsa = new Location("Nobsa", 5.7697, -72.9403);
+        Location topaga = new Location("Tópaga", 5.7683, -72.8322);
+        Location mongui = new Location("Monguí", 5.7231, -72.8492);
+        Location chiquinquirá = new Location("Chiquinquirá", 5.6167, -73.8167);
+        Location moniquira = new Location("Moniquirá", 5.8764, -73.5728);
+        Location tibasosa = new Location("Tibasosa", 5.7467, -73.0000);
+        Location sotaquirá = new Location("Sotaquirá", 5.7647, -73.2458);
+        Location tuta = new Location("Tuta", 5.6925, -73.2289);
+        Location siachoque = new Location("Siachoque", 5.5128, -73.2444);
+        Location toca = new Location("Toca", 5.5653, -73.1847);
+        Location soracá = new Location("Soracá", 5.5011, -73.3322);
+        Location combita = new Location("Cómbita", 5.6333, -73.3233);
+        Location oicatá = new Location("Oicatá", 5.5950, -73.3086);
+        Location firavitoba = new Location("Firavitoba", 5.6689, -72.9931);
+        Location iza = new Location("Iza", 5.6117, -72.9792);
 
 
         // Añadir todas las ubicaciones al grafo
@@ -151,7 +157,7 @@ public class GraphInitializer {
     private void addBidirectionalRoute(Location origin, Location destination, double distance) {
         addRouteWithCost(origin, destination, distance);
         addRouteWithCost(destination, origin, distance);
-        logger.fine(String.format("Ruta bidireccional añadida entre %s y %s (%.1f km)",
+        logger.fine(() -> String.format("Ruta bidireccional añadida entre %s y %s (%.1f km)",
                 origin.getName(), destination.getName(), distance));
     }
     /**
@@ -164,6 +170,6 @@ public class GraphInitializer {
     private void addRouteWithCost(Location from, Location to, double distance) {
         double cost = distance * 1500; // Costo por kilómetro
         deliveryGraph.addRoute(from, to, distance);
-        logger.fine("Ruta añadida: " + from.getName() + " -> " + to.getName() + " | Distancia: " + distance + " km | Costo: " + cost + " COP");
+        logger.fine(() -> "Ruta añadida: " + from.getName() + " -> " + to.getName() + " | Distancia: " + distance + " km | Costo: " + cost + " COP");
     }
 }
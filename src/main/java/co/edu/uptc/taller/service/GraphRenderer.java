@@ -1,21 +1,205 @@
 package co.edu.uptc.taller.service;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
-import org.jgrapht.graph.DefaultWeightedEdge;
-
+import co.edu.uptc.taller.model.CompactGraph;
 import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.GraphLayout;
+import co.edu.uptc.taller.model.GraphSnapshot;
+import co.edu.uptc.taller.model.Isochrone;
 import co.edu.uptc.taller.model.Location;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Worker;
+import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
 
 /**
  * Servicio encargado de renderizar el grafo en un WebView.
  */
 public class GraphRenderer {
     private static final Logger logger = Logger.getLogger(GraphRenderer.class.getName());
-    private static final double AVERAGE_SPEED_KMH = 60.0;
+
+    /**
+     * Tamaño aproximado en caracteres de cada ruta y cada ubicación en el SVG, para reservar el
+     * búfer de una vez.
+     */
+    private static final int EDGE_BYTES = 240;
+    private static final int VERTEX_BYTES = 160;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
+    /**
+     * Clave de las propiedades del WebView donde se guarda la versión del grafo cargada.
+     */
+    private static final String LOADED_VERSION = GraphRenderer.class.getName() + ".version";
+
+    /**
+     * Clave de las propiedades del WebView donde se guarda la vista con nivel de detalle. El
+     * WebView solo guarda una referencia débil al objeto expuesto a JavaScript, así que esta
+     * referencia lo mantiene vivo.
+     */
+    private static final String VIEWPORT = GraphRenderer.class.getName() + ".viewport";
+
+    /**
+     * Tamaño del grafo a partir del cual se dibuja con nivel de detalle.
+     */
+    private static final int LEVEL_OF_DETAIL_LOCATIONS = 500;
+    private static final int LEVEL_OF_DETAIL_ROUTES = 2000;
+
+    /**
+     * Encabezado del documento con los estilos y el código de la vista, que no cambia entre
+     * renderizados.
+     */
+    private static final String HTML_SHELL = new StringBuilder()
+            .append("<html><head>")
+            .append("<style>")
+            .append("body { font-family: Arial, sans-serif; margin: 0; }")
+            .append(".node { fill: #4a90e2; stroke: white; stroke-width: 2px; cursor: pointer; }")
+            .append(".edge { stroke: #999; stroke-width: 2px; }")
+            .append(".highlighted { stroke: #e74c3c; stroke-width: 4px; }")
+            .append(".reachable { fill: #27ae60; }")
+            .append(".reachable-source { fill: #1e8449; }")
+            .append(".reachable-edge { stroke: #82e0aa; stroke-width: 3px; }")
+            .append(".highlighted-label { fill: #e74c3c; font-weight: bold; }")
+            .append(".cluster { opacity: 0.85; }")
+            .append(".cluster-label { fill: white; text-anchor: middle; pointer-events: none; }")
+            .append(".cluster-edge { stroke: #bbb; }")
+            .append(".lod line, .lod circle { vector-effect: non-scaling-stroke; }")
+            .append(".label { font-size: 14px; font-weight: bold; fill: #2c3e50; }")
+            .append(".distance-label { font-size: 12px; fill: #666; }")
+            .append(".tooltip { ")
+            .append("    position: absolute;")
+            .append("    background-color: rgba(0,0,0,0.8);")
+            .append("    color: white;")
+            .append("    padding: 5px 10px;")
+            .append("    border-radius: 5px;")
+            .append("    font-size: 12px;")
+            .append("    pointer-events: none;")
+            .append("}")
+            .append("</style>")
+            .append("<script>")
+            .append("var svg = null;")
+            .append("var tooltip = null;")
+            .append("var viewBox = {x: 0, y: 0, width: 800, height: 600};")
+            .append("function init(evt) {")
+            .append("    svg = document.getElementsByTagName('svg')[0];")
+            .append("    svg.addEventListener('wheel', zoom);")
+            .append("    var isPanning = false;")
+            .append("    var start = {x: 0, y: 0};")
+            .append("    var view = viewBox;")
+            .append("    svg.addEventListener('mousedown', function(e) { isPanning = true; start.x = e.clientX; start.y = e.clientY; });")
+            .append("    svg.addEventListener('mousemove', function(e) {")
+            .append("        if (isPanning) {")
+            .append("            var dx = (e.clientX - start.x) * view.width / svg.clientWidth;")
+            .append("            var dy = (e.clientY - start.y) * view.height / svg.clientHeight;")
+            .append("            viewBox.x -= dx;")
+            .append("            viewBox.y -= dy;")
+            .append("            updateViewBox();")
+            .append("            start.x = e.clientX;")
+            .append("            start.y = e.clientY;")
+            .append("        } else {")
+            .append("            var elem = document.elementFromPoint(e.clientX, e.clientY);")
+            .append("            if (elem && elem.tagName === 'circle') {")
+            .append("                var name = elem.getAttribute('data-name');")
+            .append("                showTooltip(e.clientX, e.clientY, 'Ubicación: ' + name);")
+            .append("            } else if (elem && elem.tagName === 'line') {")
+            .append("                var distance = elem.getAttribute('data-distance');")
+            .append("                var cost = elem.getAttribute('data-cost');")
+            .append("                var time = elem.getAttribute('data-time');")
+            .append("                showTooltip(e.clientX, e.clientY, 'Distancia: ' + distance + ' km<br/>Costo: COP $' + cost + '<br/>Tiempo: ' + time + ' h');")
+            .append("            } else {")
+            .append("                hideTooltip();")
+            .append("            }")
+            .append("        }")
+            .append("    });")
+            .append("    svg.addEventListener('mouseup', function(e) { isPanning = false; });")
+            .append("    svg.addEventListener('mouseleave', function(e) { isPanning = false; hideTooltip(); });")
+            .append("    // Crear tooltip")
+            .append("    tooltip = document.createElement('div');")
+            .append("    tooltip.className = 'tooltip';")
+            .append("    document.body.appendChild(tooltip);")
+            .append("}")
+            .append("function zoom(e) {")
+            .append("    e.preventDefault();")
+            .append("    var scale = 1.1;")
+            .append("    if (e.deltaY < 0) {")
+            .append("        viewBox.width /= scale;")
+            .append("        viewBox.height /= scale;")
+            .append("    } else {")
+            .append("        viewBox.width *= scale;")
+            .append("        viewBox.height *= scale;")
+            .append("    }")
+            .append("    updateViewBox();")
+            .append("}")
+            .append("function updateViewBox() {")
+            .append("    svg.setAttribute('viewBox', viewBox.x + ' ' + viewBox.y + ' ' + viewBox.width + ' ' + viewBox.height);")
+            .append("    if (window.graphViewport) { scheduleViewport(); }")
+            .append("}")
+            .append("// Con nivel de detalle, los elementos visibles se piden a Java al mover la vista")
+            .append("var viewportTimer = null;")
+            .append("function scheduleViewport() {")
+            .append("    if (viewportTimer) { clearTimeout(viewportTimer); }")
+            .append("    viewportTimer = setTimeout(refreshViewport, 40);")
+            .append("}")
+            .append("function refreshViewport() {")
+            .append("    viewportTimer = null;")
+            .append("    var zoom = (svg && svg.clientWidth ? svg.clientWidth : 800) / viewBox.width;")
+            .append("    document.getElementById('viewport').innerHTML =")
+            .append("        graphViewport.render(viewBox.x, viewBox.y, viewBox.width, viewBox.height, zoom);")
+            .append("}")
+            .append("function showTooltip(x, y, content) {")
+            .append("    tooltip.innerHTML = content;")
+            .append("    tooltip.style.left = (x + 10) + 'px';")
+            .append("    tooltip.style.top = (y + 10) + 'px';")
+            .append("    tooltip.style.display = 'block';")
+            .append("}")
+            .append("function hideTooltip() {")
+            .append("    tooltip.style.display = 'none';")
+            .append("}")
+            .append("// Elementos resaltados; updateGraph solo cambia los que entran o salen")
+            .append("var state = {path: [], labels: [], nodes: [], edges: [], source: null};")
+            .append("function setClass(id, name, on) {")
+            .append("    var elem = document.getElementById(id);")
+            .append("    if (!elem) { return; }")
+            .append("    var classes = ' ' + elem.getAttribute('class') + ' ';")
+            .append("    var has = classes.indexOf(' ' + name + ' ') >= 0;")
+            .append("    if (on && !has) {")
+            .append("        elem.setAttribute('class', (classes + name).trim());")
+            .append("    } else if (!on && has) {")
+            .append("        elem.setAttribute('class', classes.replace(' ' + name + ' ', ' ').trim());")
+            .append("    }")
+            .append("}")
+            .append("function toggle(ids, name, on) {")
+            .append("    for (var i = 0; i < ids.length; i++) { setClass(ids[i], name, on); }")
+            .append("}")
+            .append("function updateGraph(next) {")
+            .append("    toggle(state.path, 'highlighted', false);")
+            .append("    toggle(state.labels, 'highlighted-label', false);")
+            .append("    toggle(state.nodes, 'reachable', false);")
+            .append("    toggle(state.edges, 'reachable-edge', false);")
+            .append("    if (state.source) { setClass(state.source, 'reachable-source', false); }")
+            .append("    state = next;")
+            .append("    toggle(state.path, 'highlighted', true);")
+            .append("    toggle(state.labels, 'highlighted-label', true);")
+            .append("    toggle(state.nodes, 'reachable', true);")
+            .append("    toggle(state.edges, 'reachable-edge', true);")
+            .append("    if (state.source) { setClass(state.source, 'reachable-source', true); }")
+            .append("}")
+            .append("</script>")
+            .append("</head><body onload='init(event)'>")
+            .append("<svg width='800' height='600' viewBox='0 0 800 600'>")
+            .toString();
+
+    /**
+     * Documento de un grafo con nivel de detalle: el contenido de la vista lo genera
+     * {@link GraphViewport} a medida que se mueve.
+     */
+    private static final String LEVEL_OF_DETAIL_HTML = HTML_SHELL
+            + "<g id='viewport' class='lod'></g></svg></body></html>";
 
     private DeliveryGraph deliveryGraph;
 
@@ -27,197 +211,451 @@ public class GraphRenderer {
     public GraphRenderer(DeliveryGraph deliveryGraph) {
         this.deliveryGraph = deliveryGraph;
     }
+
     /**
-     * Renderiza el grafo en el WebView proporcionado.
+     * Obtiene la versión del grafo cargada en un WebView. Debe llamarse desde el hilo de JavaFX.
      *
-     * @param webView WebView donde se renderizará el grafo.
-     * @param path    Ruta a resaltar en el grafo (puede ser null).
-     */
-    public void renderGraph(WebView webView, List<Location> path) {
-        logger.info("Renderizando el grafo. Ruta proporcionada: " + (path != null ? "Sí" : "No"));
-
-        StringBuilder html = new StringBuilder();
-        html.append("<html><head>")
-                .append("<style>")
-                .append("body { font-family: Arial, sans-serif; margin: 0; }")
-                .append(".node { fill: #4a90e2; stroke: white; stroke-width: 2px; cursor: pointer; }")
-                .append(".edge { stroke: #999; stroke-width: 2px; }")
-                .append(".highlighted { stroke: #e74c3c; stroke-width: 4px; }")
-                .append(".label { font-size: 14px; font-weight: bold; fill: #2c3e50; }")
-                .append(".distance-label { font-size: 12px; fill: #666; }")
-                .append(".tooltip { ")
-                .append("    position: absolute;")
-                .append("    background-color: rgba(0,0,0,0.8);")
-                .append("    color: white;")
-                .append("    padding: 5px 10px;")
-                .append("    border-radius: 5px;")
-                .append("    font-size: 12px;")
-                .append("    pointer-events: none;")
-                .append("}")
-                .append("</style>")
-                .append("<script>")
-                .append("var svg = null;")
-                .append("var tooltip = null;")
-                .append("var viewBox = {x: 0, y: 0, width: 800, height: 600};")
-                .append("function init(evt) {")
-                .append("    svg = evt.target;")
-                .append("    svg.addEventListener('wheel', zoom);")
-                .append("    var isPanning = false;")
-                .append("    var start = {x: 0, y: 0};")
-                .append("    var view = viewBox;")
-                .append("    svg.addEventListener('mousedown', function(e) { isPanning = true; start.x = e.clientX; start.y = e.clientY; });")
-                .append("    svg.addEventListener('mousemove', function(e) {")
-                .append("        if (isPanning) {")
-                .append("            var dx = (e.clientX - start.x) * view.width / svg.clientWidth;")
-                .append("            var dy = (e.clientY - start.y) * view.height / svg.clientHeight;")
-                .append("            viewBox.x -= dx;")
-                .append("            viewBox.y -= dy;")
-                .append("            updateViewBox();")
-                .append("            start.x = e.clientX;")
-                .append("            start.y = e.clientY;")
-                .append("        } else {")
-                .append("            var elem = document.elementFromPoint(e.clientX, e.clientY);")
-                .append("            if (elem && elem.tagName === 'circle') {")
-                .append("                var name = elem.getAttribute('data-name');")
-                .append("                showTooltip(e.clientX, e.clientY, 'Ubicación: ' + name);")
-                .append("            } else if (elem && elem.tagName === 'line') {")
-                .append("                var distance = elem.getAttribute('data-distance');")
-                .append("                var cost = elem.getAttribute('data-cost');")
-                .append("                var time = elem.getAttribute('data-time');")
-                .append("                showTooltip(e.clientX, e.clientY, 'Distancia: ' + distance + ' km<br/>Costo: COP $' + cost + '<br/>Tiempo: ' + time + ' h');")
-                .append("            } else {")
-                .append("                hideTooltip();")
-                .append("            }")
-                .append("        }")
-                .append("    });")
-                .append("    svg.addEventListener('mouseup', function(e) { isPanning = false; });")
-                .append("    svg.addEventListener('mouseleave', function(e) { isPanning = false; hideTooltip(); });")
-                .append("    // Crear tooltip")
-                .append("    tooltip = document.createElement('div');")
-                .append("    tooltip.className = 'tooltip';")
-                .append("    document.body.appendChild(tooltip);")
-                .append("}")
-                .append("function zoom(e) {")
-                .append("    e.preventDefault();")
-                .append("    var scale = 1.1;")
-                .append("    if (e.deltaY < 0) {")
-                .append("        viewBox.width /= scale;")
-                .append("        viewBox.height /= scale;")
-                .append("    } else {")
-                .append("        viewBox.width *= scale;")
-                .append("        viewBox.height *= scale;")
-                .append("    }")
-                .append("    updateViewBox();")
-                .append("}")
-                .append("function updateViewBox() {")
-                .append("    svg.setAttribute('viewBox', viewBox.x + ' ' + viewBox.y + ' ' + viewBox.width + ' ' + viewBox.height);")
-                .append("}")
-                .append("function showTooltip(x, y, content) {")
-                .append("    tooltip.innerHTML = content;")
-                .append("    tooltip.style.left = (x + 10) + 'px';")
-                .append("    tooltip.style.top = (y + 10) + 'px';")
-                .append("    tooltip.style.display = 'block';")
-                .append("}")
-                .append("function hideTooltip() {")
-                .append("    tooltip.style.display = 'none';")
-                .append("}")
-                .append("</script>")
-                .append("</head><body onload='init(event)'>")
-                .append("<svg width='800' height='600' viewBox='0 0 800 600'>");
-
-
-        List<Location> locations = new ArrayList<>(deliveryGraph.getGraph().vertexSet());
-        int size = locations.size();
-        if (size == 0) {
-            logger.warning("No se encontraron ubicaciones en el grafo para renderizar.");
+     * @param webView El WebView.
+     * @return La versión cargada, o {@code -1} si no se ha cargado ningún grafo.
+     */
+    public long getLoadedVersion(WebView webView) {
+        Object version = webView.getProperties().get(LOADED_VERSION);
+        return version instanceof Long ? (Long) version : -1;
+    }
+
+    /**
+     * Prepara el renderizado de una ruta y un alcance sin tocar la interfaz, de modo que puede
+     * llamarse desde cualquier hilo.
+     *
+     * <p>Si el WebView ya tiene cargada la versión actual del grafo, solo se prepara un script
+     * que cambia las clases de las rutas y ubicaciones que entran o salen del resaltado, cuyo
+     * costo depende del tamaño de la ruta y no del grafo. Si no, se construye el documento
+     * completo.</p>
+     *
+     * <p>Los grafos con más de {@value #LEVEL_OF_DETAIL_LOCATIONS} ubicaciones o
+     * {@value #LEVEL_OF_DETAIL_ROUTES} rutas se dibujan con nivel de detalle: el documento solo
+     * trae la estructura y la página pide a un {@link GraphViewport} los elementos de la región
+     * visible cada vez que cambia la vista.</p>
+     *
+     * @param path          Ruta a resaltar en el grafo (puede ser null).
+     * @param isochrone     Alcance a sombrear (puede ser null).
+     * @param loadedVersion Versión del grafo cargada en el WebView, de
+     *                      {@link #getLoadedVersion(WebView)}.
+     * @return El renderizado, listo para {@link #apply(WebView, Rendering)}.
+     */
+    public Rendering prepare(List<Location> path, Isochrone isochrone, long loadedVersion) {
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        CompactGraph graph = snapshot.getGraph();
+        if (isLevelOfDetail(graph)) {
+            GraphViewport.Highlight highlight = highlight(graph, path, isochrone);
+            if (snapshot.getVersion() != loadedVersion) {
+                int size = graph.vertexCount();
+                double[] xs = new double[size];
+                double[] ys = new double[size];
+                layout(snapshot, xs, ys);
+                return new Rendering(snapshot.getVersion(), LEVEL_OF_DETAIL_HTML, null, path, isochrone,
+                        new GraphViewport(graph, xs, ys, highlight), null);
+            }
+            return new Rendering(snapshot.getVersion(), null, "refreshViewport();", path, isochrone,
+                    null, highlight);
+        }
+        if (snapshot.getVersion() != loadedVersion) {
+            return new Rendering(snapshot.getVersion(), buildHtml(snapshot, path, isochrone), null,
+                    path, isochrone, null, null);
         }
-        int centerX = 400;
-        int centerY = 300;
-        int radius = 250;
-        double angleStep = 2 * Math.PI / (size > 0 ? size : 1);
+        StringBuilder script = new StringBuilder("updateGraph(");
+        appendState(script, graph, path, isochrone).append(");");
+        return new Rendering(snapshot.getVersion(), null, script.toString(), path, isochrone, null, null);
+    }
 
+    private static boolean isLevelOfDetail(CompactGraph graph) {
+        return graph.vertexCount() > LEVEL_OF_DETAIL_LOCATIONS || graph.arcCount() / 2 > LEVEL_OF_DETAIL_ROUTES;
+    }
 
-        double[][] positionsArr = new double[size][2];
-        for (int i = 0; i < size; i++) {
-            positionsArr[i][0] = centerX + radius * Math.cos(i * angleStep);
-            positionsArr[i][1] = centerY + radius * Math.sin(i * angleStep);
+    /**
+     * Copia la posición de cada ubicación en el SVG desde la disposición de la instantánea, que
+     * se calcula la primera vez y se reutiliza en los siguientes renderizados.
+     */
+    private static void layout(GraphSnapshot snapshot, double[] xs, double[] ys) {
+        GraphLayout layout = snapshot.getGraphLayout();
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = layout.getX(i);
+            ys[i] = layout.getY(i);
         }
+    }
 
+    private static GraphViewport.Highlight highlight(CompactGraph graph, List<Location> path, Isochrone isochrone) {
+        int[] pathLocations = new int[path != null ? path.size() : 0];
+        int count = 0;
+        for (int i = 0; i < pathLocations.length; i++) {
+            int vertex = graph.indexOf(path.get(i));
+            if (vertex >= 0) {
+                pathLocations[count++] = vertex;
+            }
+        }
+        return new GraphViewport.Highlight(path != null ? pathEdges(graph, path) : new long[0],
+                Arrays.copyOf(pathLocations, count),
+                isochrone != null ? reachableVertices(graph, isochrone) : null,
+                isochrone != null ? graph.indexOf(isochrone.getSource()) : -1);
+    }
 
-        for (DefaultWeightedEdge edge : deliveryGraph.getGraph().edgeSet()) {
-            Location source = deliveryGraph.getGraph().getEdgeSource(edge);
-            Location target = deliveryGraph.getGraph().getEdgeTarget(edge);
-            int sourceIndex = locations.indexOf(source);
-            int targetIndex = locations.indexOf(target);
-
-            double x1 = positionsArr[sourceIndex][0];
-            double y1 = positionsArr[sourceIndex][1];
-            double x2 = positionsArr[targetIndex][0];
-            double y2 = positionsArr[targetIndex][1];
+    /**
+     * Aplica un renderizado en el WebView. Debe llamarse desde el hilo de JavaFX.
+     *
+     * <p>Si el renderizado es un script y el WebView todavía está cargando el documento, el
+     * script se ejecuta al terminar la carga. Si el documento cargado ya no corresponde a la
+     * versión del script, no se aplica nada: quien llama debe preparar de nuevo el renderizado
+     * fuera del hilo de JavaFX con {@link Rendering#getPath()} y {@link Rendering#getIsochrone()}.</p>
+     *
+     * @param webView   WebView donde se renderizará el grafo.
+     * @param rendering El renderizado, de {@link #prepare(List, Isochrone, long)}.
+     * @return {@code false} si el renderizado quedó desactualizado y debe prepararse de nuevo.
+     */
+    public boolean apply(WebView webView, Rendering rendering) {
+        WebEngine engine = webView.getEngine();
+        if (rendering.html == null && getLoadedVersion(webView) != rendering.version) {
+            logger.fine("El renderizado corresponde a otra versión del grafo; se debe preparar de nuevo.");
+            return false;
+        }
+        if (rendering.html != null) {
+            webView.getProperties().put(LOADED_VERSION, rendering.version);
+            GraphViewport viewport = rendering.viewport;
+            if (viewport != null) {
+                webView.getProperties().put(VIEWPORT, viewport);
+            } else {
+                webView.getProperties().remove(VIEWPORT);
+            }
+            engine.loadContent(rendering.html);
+            if (viewport != null) {
+                whenLoaded(engine, () -> {
+                    JSObject window = (JSObject) engine.executeScript("window");
+                    window.setMember("graphViewport", viewport);
+                    engine.executeScript("refreshViewport();");
+                });
+            }
+            logger.info("Grafo renderizado exitosamente en WebView.");
+            return true;
+        }
+        if (rendering.highlight != null) {
+            Object viewport = webView.getProperties().get(VIEWPORT);
+            if (viewport instanceof GraphViewport) {
+                ((GraphViewport) viewport).setHighlight(rendering.highlight);
+            }
+        }
+        String script = rendering.script;
+        whenLoaded(engine, () -> engine.executeScript(script));
+        return true;
+    }
 
-            String className = "edge";
-            if (path != null && isEdgeInPath(path, source, target)) {
-                className += " highlighted";
+    /**
+     * Ejecuta una acción cuando el documento del WebView termina de cargarse, o de inmediato si
+     * ya está cargado. Si la carga falla o se cancela, la acción se descarta.
+     */
+    private static void whenLoaded(WebEngine engine, Runnable action) {
+        if (engine.getLoadWorker().getState() == Worker.State.SUCCEEDED) {
+            action.run();
+            return;
+        }
+        engine.getLoadWorker().stateProperty().addListener(new ChangeListener<Worker.State>() {
+            @Override
+            public void changed(ObservableValue<? extends Worker.State> observable,
+                                Worker.State oldState, Worker.State newState) {
+                if (newState == Worker.State.SUCCEEDED) {
+                    action.run();
+                }
+                if (newState != Worker.State.RUNNING && newState != Worker.State.SCHEDULED) {
+                    observable.removeListener(this);
+                }
             }
+        });
+    }
+
+    /**
+     * Construye el documento HTML completo del grafo, sin nivel de detalle, sin tocar la
+     * interfaz, de modo que puede llamarse desde cualquier hilo; solo cargarlo en el WebView debe
+     * hacerse en el hilo de JavaFX.
+     *
+     * @param path      Ruta a resaltar en el grafo (puede ser null).
+     * @param isochrone Alcance a sombrear (puede ser null).
+     * @return El documento HTML con el grafo en SVG.
+     */
+    public String buildHtml(List<Location> path, Isochrone isochrone) {
+        return buildHtml(deliveryGraph.getSnapshot(), path, isochrone);
+    }
 
-            double distance = deliveryGraph.getGraph().getEdgeWeight(edge);
-            double cost = distance * 1500;
-            double time = distance / AVERAGE_SPEED_KMH; // Cálculo del tiempo
+    private String buildHtml(GraphSnapshot snapshot, List<Location> path, Isochrone isochrone) {
+        CompactGraph graph = snapshot.getGraph();
+        logger.info("Renderizando el grafo. Ruta proporcionada: " + (path != null ? "Sí" : "No")
+                + ". Alcance: " + (isochrone != null ? isochrone.size() + " ubicaciones" : "No"));
 
+        int size = graph.vertexCount();
+        if (size == 0) {
+            logger.warning("No se encontraron ubicaciones en el grafo para renderizar.");
+        }
+        List<Location> locations = graph.locations();
+        boolean[] reachable = isochrone != null ? reachableVertices(graph, isochrone) : null;
+        int reachableSource = isochrone != null ? graph.indexOf(isochrone.getSource()) : -1;
+        long[] pathEdges = path != null ? pathEdges(graph, path) : null;
 
-            html.append("<line x1='").append(x1).append("' y1='").append(y1)
-                    .append("' x2='").append(x2).append("' y2='").append(y2)
-                    .append("' class='").append(className).append("' ")
-                    .append("data-distance='").append(distance).append("' ")
-                    .append("data-cost='").append(cost).append("' ")
-                    .append("data-time='").append(String.format("%.2f", time)).append("' />");
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        layout(snapshot, xs, ys);
 
+        long capacity = HTML_SHELL.length() + 32L + (long) graph.arcCount() / 2 * EDGE_BYTES
+                + (long) size * VERTEX_BYTES;
+        StringBuilder html = new StringBuilder((int) Math.min(capacity, Integer.MAX_VALUE - 16));
+        html.append(HTML_SHELL);
 
-            double midX = (x1 + x2) / 2;
-            double midY = (y1 + y2) / 2;
-            html.append("<text x='").append(midX + 5).append("' y='").append(midY - 5)
-                    .append("' class='distance-label'>")
-                    .append(String.format("%.1f km", distance))
-                    .append("</text>");
+        for (int sourceIndex = 0; sourceIndex < size; sourceIndex++) {
+            for (int arc = graph.firstArc(sourceIndex); arc < graph.endArc(sourceIndex); arc++) {
+                int targetIndex = graph.target(arc);
+                if (targetIndex < sourceIndex) {
+                    continue; // Cada ruta aparece como dos arcos; se dibuja una sola vez
+                }
+                double x1 = xs[sourceIndex];
+                double y1 = ys[sourceIndex];
+                double x2 = xs[targetIndex];
+                double y2 = ys[targetIndex];
+                double distance = graph.weight(arc);
 
+                html.append("<line id='");
+                appendId(html, 'e', sourceIndex, targetIndex).append("' x1='");
+                appendFixed(html, x1, 2).append("' y1='");
+                appendFixed(html, y1, 2).append("' x2='");
+                appendFixed(html, x2, 2).append("' y2='");
+                appendFixed(html, y2, 2).append("' class='edge");
+                if (reachable != null && reachable[sourceIndex] && reachable[targetIndex]) {
+                    html.append(" reachable-edge");
+                }
+                boolean onPath = pathEdges != null
+                        && Arrays.binarySearch(pathEdges, edgeKey(sourceIndex, targetIndex)) >= 0;
+                if (onPath) {
+                    html.append(" highlighted");
+                }
+                html.append("' data-distance='");
+                appendFixed(html, distance, 3).append("' data-cost='");
+                appendFixed(html, graph.cost(arc), 0).append("' data-time='");
+                appendFixed(html, graph.time(arc), 2).append("' />");
 
+                html.append("<text id='");
+                appendId(html, 'l', sourceIndex, targetIndex).append("' x='");
+                appendFixed(html, (x1 + x2) / 2 + 5, 2).append("' y='");
+                appendFixed(html, (y1 + y2) / 2 - 5, 2).append("' class='distance-label");
+                if (onPath) {
+                    html.append(" highlighted-label");
+                }
+                html.append("'>");
+                appendFixed(html, distance, 1).append(" km</text>");
+            }
         }
 
-
-        for (int i = 0; i < locations.size(); i++) {
-            double x = positionsArr[i][0];
-            double y = positionsArr[i][1];
+        for (int i = 0; i < size; i++) {
             String nodeName = locations.get(i).getName();
-            html.append("<circle cx='").append(x).append("' cy='").append(y)
-                    .append("' r='15' class='node' data-name='").append(nodeName).append("' />")
-                    .append("<text x='").append(x - 10).append("' y='").append(y + 5)
-                    .append("' class='label'>").append(nodeName).append("</text>");
+            html.append("<circle id='n").append(i).append("' cx='");
+            appendFixed(html, xs[i], 2).append("' cy='");
+            appendFixed(html, ys[i], 2).append("' r='15' class='node");
+            if (reachable != null && reachable[i]) {
+                html.append(i == reachableSource ? " reachable-source" : " reachable");
+            }
+            html.append("' data-name='");
+            appendEscaped(html, nodeName).append("' /><text x='");
+            appendFixed(html, xs[i] - 10, 2).append("' y='");
+            appendFixed(html, ys[i] + 5, 2).append("' class='label'>");
+            appendEscaped(html, nodeName).append("</text>");
         }
 
-        html.append("</svg></body></html>");
+        html.append("</svg><script>state = ");
+        appendState(html, graph, path, isochrone).append(";</script></body></html>");
+        return html.toString();
+    }
 
+    /**
+     * Escribe como objeto de JavaScript los identificadores de los elementos resaltados, en la
+     * forma que espera la función {@code updateGraph} de la página.
+     */
+    private static StringBuilder appendState(StringBuilder out, CompactGraph graph, List<Location> path,
+                                             Isochrone isochrone) {
+        long[] pathEdges = path != null ? pathEdges(graph, path) : new long[0];
+        out.append("{path: [");
+        appendEdgeIds(out, 'e', pathEdges);
+        out.append("], labels: [");
+        appendEdgeIds(out, 'l', pathEdges);
+        out.append("], nodes: [");
+        int source = -1;
+        if (isochrone != null) {
+            boolean[] reachable = reachableVertices(graph, isochrone);
+            source = graph.indexOf(isochrone.getSource());
+            boolean first = true;
+            for (int v = 0; v < reachable.length; v++) {
+                if (reachable[v] && v != source) {
+                    out.append(first ? "'n" : ", 'n").append(v).append('\'');
+                    first = false;
+                }
+            }
+            out.append("], edges: [");
+            first = true;
+            for (int u = 0; u < reachable.length; u++) {
+                if (!reachable[u]) {
+                    continue;
+                }
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int v = graph.target(arc);
+                    if (v > u && reachable[v]) {
+                        out.append(first ? "'" : ", '");
+                        appendId(out, 'e', u, v).append('\'');
+                        first = false;
+                    }
+                }
+            }
+        } else {
+            out.append("], edges: [");
+        }
+        out.append("], source: ");
+        return source >= 0 ? out.append("'n").append(source).append("'}") : out.append("null}");
+    }
 
-        webView.getEngine().loadContent(html.toString());
-        logger.info("Grafo renderizado exitosamente en WebView.");
+    private static void appendEdgeIds(StringBuilder out, char prefix, long[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            out.append(i == 0 ? "'" : ", '");
+            appendId(out, prefix, (int) (keys[i] >>> 32), (int) keys[i]).append('\'');
+        }
     }
 
     /**
-     * Verifica si una arista entre dos ubicaciones forma parte de la ruta más corta.
-     *
-     * @param path    La lista de ubicaciones que forman la ruta más corta.
-     * @param source  La ubicación de origen de la arista.
-     * @param target  La ubicación de destino de la arista.
-     * @return        true si la arista está en la ruta, false en caso contrario.
-     */
-    private boolean isEdgeInPath(List<Location> path, Location source, Location target) {
-        for (int i = 0; i < path.size() - 1; i++) {
-            Location current = path.get(i);
-            Location next = path.get(i + 1);
-            if ((current.equals(source) && next.equals(target)) ||
-                    (current.equals(target) && next.equals(source))) {
-                return true;
+     * Escribe el identificador estable del elemento de una ruta: {@code e} para la línea y
+     * {@code l} para la etiqueta de distancia.
+     */
+    static StringBuilder appendId(StringBuilder out, char prefix, int u, int v) {
+        return out.append(prefix).append(Math.min(u, v)).append('-').append(Math.max(u, v));
+    }
+
+    /**
+     * Marca los vértices que pertenecen a un alcance.
+     */
+    static boolean[] reachableVertices(CompactGraph graph, Isochrone isochrone) {
+        boolean[] reachable = new boolean[graph.vertexCount()];
+        for (Location location : isochrone.getLocations()) {
+            int vertex = graph.indexOf(location);
+            if (vertex >= 0) {
+                reachable[vertex] = true;
             }
         }
-        return false;
+        return reachable;
+    }
+
+    /**
+     * Obtiene las rutas de un camino como claves ordenadas, para buscarlas con
+     * {@link Arrays#binarySearch(long[], long)}.
+     */
+    static long[] pathEdges(CompactGraph graph, List<Location> path) {
+        long[] keys = new long[Math.max(0, path.size() - 1)];
+        int count = 0;
+        int previous = -1;
+        for (int i = 0; i < path.size(); i++) {
+            int vertex = graph.indexOf(path.get(i));
+            if (i > 0 && previous >= 0 && vertex >= 0) {
+                keys[count++] = edgeKey(previous, vertex);
+            }
+            previous = vertex;
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Clave de una ruta sin dirección entre dos vértices.
+     */
+    static long edgeKey(int u, int v) {
+        return u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+    }
+
+    /**
+     * Escribe un número con una cantidad fija de decimales, sin crear cadenas intermedias ni
+     * depender de la configuración regional.
+     */
+    static StringBuilder appendFixed(StringBuilder html, double value, int decimals) {
+        long scale = POWERS_OF_TEN[decimals];
+        if (!(Math.abs(value) < (double) Long.MAX_VALUE / scale)) {
+            return html.append(value);
+        }
+        long rounded = Math.round(Math.abs(value) * scale);
+        if (value < 0 && rounded != 0) {
+            html.append('-');
+        }
+        html.append(rounded / scale);
+        if (decimals > 0) {
+            html.append('.');
+            long fraction = rounded % scale;
+            for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) {
+                html.append('0');
+            }
+            html.append(fraction);
+        }
+        return html;
+    }
+
+    /**
+     * Escribe un texto escapando los caracteres especiales de XML.
+     */
+    static StringBuilder appendEscaped(StringBuilder html, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '&' -> html.append("&amp;");
+                case '\'' -> html.append("&#39;");
+                case '"' -> html.append("&quot;");
+                default -> html.append(c);
+            }
+        }
+        return html;
+    }
+
+    /**
+     * Clase que representa un renderizado preparado: el documento completo o el script que
+     * actualiza el documento ya cargado.
+     */
+    public static final class Rendering {
+        private final long version;
+        private final String html;
+        private final String script;
+        private final List<Location> path;
+        private final Isochrone isochrone;
+        private final GraphViewport viewport;
+        private final GraphViewport.Highlight highlight;
+
+        private Rendering(long version, String html, String script, List<Location> path, Isochrone isochrone,
+                          GraphViewport viewport, GraphViewport.Highlight highlight) {
+            this.version = version;
+            this.html = html;
+            this.script = script;
+            this.path = path;
+            this.isochrone = isochrone;
+            this.viewport = viewport;
+            this.highlight = highlight;
+        }
+
+        /**
+         * Indica si el renderizado solo actualiza el documento ya cargado.
+         *
+         * @return {@code true} si es un script incremental.
+         */
+        public boolean isIncremental() {
+            return html == null;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<Location> getPath() {
+            return path;
+        }
+
+        public Isochrone getIsochrone() {
+            return isochrone;
+        }
     }
 }
@@ -0,0 +1,476 @@
+package co.edu.uptc.taller.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.Location;
+
+/**
+ * Vista con nivel de detalle de un grafo grande: genera solo los elementos SVG de la región
+ * visible.
+ *
+ * <p>Las ubicaciones se reparten en una rejilla uniforme según su posición, de modo que las
+ * visibles se encuentran recorriendo solo las celdas que cortan la región. Se dibujan las
+ * rutas con al menos un extremo visible. Si aun así hay demasiados elementos, las ubicaciones
+ * se agrupan en celdas de tamaño fijo en pantalla y se dibuja un grupo por celda, con las rutas
+ * entre grupos. Las etiquetas solo se dibujan con poco zoom de elementos visibles y, las de
+ * distancia, a partir de cierto zoom. La ruta resaltada se dibuja siempre completa. Así el
+ * tamaño del DOM queda acotado sea cual sea el tamaño del grafo.</p>
+ *
+ * <p>La página llama a {@link #render} cada vez que cambia el {@code viewBox}, desde el hilo de
+ * JavaFX; por eso la clase es pública, pero no debe usarse desde otros hilos.</p>
+ */
+public class GraphViewport {
+
+    /**
+     * Ubicaciones visibles a partir de las cuales se agrupan.
+     */
+    private static final int MAX_VISIBLE_LOCATIONS = 1500;
+
+    /**
+     * Rutas visibles a partir de las cuales se agrupan las ubicaciones, y máximo de rutas entre
+     * grupos.
+     */
+    private static final int MAX_VISIBLE_ROUTES = 4000;
+
+    /**
+     * Máximo de ubicaciones visibles con las que se dibujan sus nombres.
+     */
+    private static final int MAX_LOCATION_LABELS = 300;
+
+    /**
+     * Máximo de rutas visibles con las que se dibujan sus distancias.
+     */
+    private static final int MAX_DISTANCE_LABELS = 500;
+
+    /**
+     * Zoom mínimo, en píxeles por unidad del SVG, para dibujar las distancias.
+     */
+    private static final double DISTANCE_LABEL_MIN_ZOOM = 2.0;
+
+    /**
+     * Tamaño en píxeles de la celda de cada grupo.
+     */
+    private static final double CLUSTER_PIXELS = 24;
+
+    /**
+     * Radio en píxeles de cada ubicación.
+     */
+    private static final double LOCATION_RADIUS_PIXELS = 6;
+
+    private final CompactGraph graph;
+    private final double[] xs;
+    private final double[] ys;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellLocations;
+
+    private Highlight highlight;
+
+    /**
+     * Marca de las ubicaciones visibles en la última llamada a {@link #render}.
+     */
+    private final int[] visibleStamp;
+    private int stamp;
+    private int[] visible = new int[256];
+
+    /**
+     * Construye la rejilla de un grafo.
+     *
+     * @param graph     El grafo.
+     * @param xs        Coordenada x de cada ubicación.
+     * @param ys        Coordenada y de cada ubicación.
+     * @param highlight Ruta y alcance resaltados.
+     */
+    GraphViewport(CompactGraph graph, double[] xs, double[] ys, Highlight highlight) {
+        this.graph = graph;
+        this.xs = xs;
+        this.ys = ys;
+        this.highlight = highlight;
+        int n = xs.length;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            lowX = Math.min(lowX, xs[i]);
+            lowY = Math.min(lowY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (n == 0) {
+            lowX = lowY = maxX = maxY = 0;
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        // Unas pocas ubicaciones por celda en promedio.
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(n / 4.0)));
+        this.cellSize = Math.max(Math.max(maxX - lowX, maxY - lowY) / side, 1e-9);
+        this.columns = Math.max(1, (int) ((maxX - lowX) / cellSize) + 1);
+        this.rows = Math.max(1, (int) ((maxY - lowY) / cellSize) + 1);
+
+        int cells = columns * rows;
+        this.cellStart = new int[cells + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cell(xs[i], ys[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellLocations = new int[n];
+        int[] cursor = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < n; i++) {
+            cellLocations[cursor[cellOf[i]]++] = i;
+        }
+        this.visibleStamp = new int[n];
+    }
+
+    private int cell(double x, double y) {
+        int column = Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cellSize)));
+        int row = Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellSize)));
+        return row * columns + column;
+    }
+
+    /**
+     * Cambia la ruta y el alcance resaltados. Debe llamarse desde el hilo de JavaFX.
+     *
+     * @param highlight Ruta y alcance resaltados.
+     */
+    void setHighlight(Highlight highlight) {
+        this.highlight = highlight;
+    }
+
+    /**
+     * Genera los elementos SVG de una región.
+     *
+     * @param x      Coordenada x de la esquina superior izquierda de la región.
+     * @param y      Coordenada y de la esquina superior izquierda de la región.
+     * @param width  Ancho de la región.
+     * @param height Alto de la región.
+     * @param zoom   Píxeles de pantalla por unidad del SVG.
+     * @return Los elementos SVG visibles.
+     */
+    public String render(double x, double y, double width, double height, double zoom) {
+        if (!(width > 0) || !(height > 0) || !(zoom > 0)) {
+            return "";
+        }
+        double margin = LOCATION_RADIUS_PIXELS / zoom;
+        int count = collectVisible(x - margin, y - margin, x + width + margin, y + height + margin);
+
+        StringBuilder svg = new StringBuilder(64 * 1024);
+        boolean clustered = count > MAX_VISIBLE_LOCATIONS;
+        int[] routes = null;
+        int routeCount = 0;
+        if (!clustered) {
+            routes = new int[256];
+            for (int k = 0; k < count && routeCount <= MAX_VISIBLE_ROUTES; k++) {
+                int u = visible[k];
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int v = graph.target(arc);
+                    if ((visibleStamp[v] == stamp && v < u) || highlight.isOnPath(u, v)) {
+                        continue; // Cada ruta una sola vez; la ruta resaltada se dibuja aparte
+                    }
+                    if (2 * routeCount == routes.length) {
+                        routes = Arrays.copyOf(routes, routes.length * 2);
+                    }
+                    routes[2 * routeCount] = u;
+                    routes[2 * routeCount + 1] = arc;
+                    routeCount++;
+                }
+                if (routeCount > MAX_VISIBLE_ROUTES) {
+                    clustered = true;
+                }
+            }
+        }
+
+        if (clustered) {
+            appendClusters(svg, count, x, y, width, height, zoom);
+        } else {
+            appendRoutes(svg, routes, routeCount, zoom);
+            appendLocations(svg, count, zoom);
+        }
+        appendPath(svg, zoom);
+        return svg.toString();
+    }
+
+    /**
+     * Marca las ubicaciones dentro de un rectángulo y las guarda en {@link #visible}.
+     *
+     * @return Cuántas son.
+     */
+    private int collectVisible(double left, double top, double right, double bottom) {
+        if (++stamp == 0) {
+            Arrays.fill(visibleStamp, 0);
+            stamp = 1;
+        }
+        int count = 0;
+        int firstColumn = Math.max(0, (int) Math.floor((left - minX) / cellSize));
+        int lastColumn = Math.min(columns - 1, (int) Math.floor((right - minX) / cellSize));
+        int firstRow = Math.max(0, (int) Math.floor((top - minY) / cellSize));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((bottom - minY) / cellSize));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int c = row * columns + column;
+                for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                    int i = cellLocations[k];
+                    if (xs[i] >= left && xs[i] <= right && ys[i] >= top && ys[i] <= bottom) {
+                        if (count == visible.length) {
+                            visible = Arrays.copyOf(visible, count * 2);
+                        }
+                        visible[count++] = i;
+                        visibleStamp[i] = stamp;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Dibuja las rutas visibles, dadas como pares de origen y arco.
+     */
+    private void appendRoutes(StringBuilder svg, int[] routes, int count, double zoom) {
+        boolean labels = zoom >= DISTANCE_LABEL_MIN_ZOOM && count <= MAX_DISTANCE_LABELS;
+        for (int k = 0; k < count; k++) {
+            int u = routes[2 * k];
+            int arc = routes[2 * k + 1];
+            int v = graph.target(arc);
+            appendRoute(svg, u, v, arc, highlight.isReachable(u) && highlight.isReachable(v) ? " reachable-edge" : "");
+            if (labels) {
+                double distance = graph.weight(arc);
+                svg.append("<text id='");
+                GraphRenderer.appendId(svg, 'l', u, v).append("' x='");
+                GraphRenderer.appendFixed(svg, (xs[u] + xs[v]) / 2 + 5 / zoom, 2).append("' y='");
+                GraphRenderer.appendFixed(svg, (ys[u] + ys[v]) / 2 - 5 / zoom, 2).append("' font-size='");
+                GraphRenderer.appendFixed(svg, 12 / zoom, 3).append("' class='distance-label'>");
+                GraphRenderer.appendFixed(svg, distance, 1).append(" km</text>");
+            }
+        }
+    }
+
+    private void appendRoute(StringBuilder svg, int u, int v, int arc, String extraClass) {
+        svg.append("<line id='");
+        GraphRenderer.appendId(svg, 'e', u, v).append("' x1='");
+        GraphRenderer.appendFixed(svg, xs[u], 2).append("' y1='");
+        GraphRenderer.appendFixed(svg, ys[u], 2).append("' x2='");
+        GraphRenderer.appendFixed(svg, xs[v], 2).append("' y2='");
+        GraphRenderer.appendFixed(svg, ys[v], 2).append("' class='edge").append(extraClass);
+        if (arc >= 0) {
+            svg.append("' data-distance='");
+            GraphRenderer.appendFixed(svg, graph.weight(arc), 3).append("' data-cost='");
+            GraphRenderer.appendFixed(svg, graph.cost(arc), 0).append("' data-time='");
+            GraphRenderer.appendFixed(svg, graph.time(arc), 2);
+        }
+        svg.append("' />");
+    }
+
+    private void appendLocations(StringBuilder svg, int count, double zoom) {
+        boolean labels = count <= MAX_LOCATION_LABELS;
+        List<Location> locations = graph.locations();
+        double radius = LOCATION_RADIUS_PIXELS / zoom;
+        for (int k = 0; k < count; k++) {
+            int i = visible[k];
+            String name = locations.get(i).getName();
+            svg.append("<circle id='n").append(i).append("' cx='");
+            GraphRenderer.appendFixed(svg, xs[i], 2).append("' cy='");
+            GraphRenderer.appendFixed(svg, ys[i], 2).append("' r='");
+            GraphRenderer.appendFixed(svg, radius, 3).append("' class='node").append(highlight.nodeClass(i))
+                    .append("' data-name='");
+            GraphRenderer.appendEscaped(svg, name).append("' />");
+            if (labels) {
+                svg.append("<text x='");
+                GraphRenderer.appendFixed(svg, xs[i] + radius * 1.5, 2).append("' y='");
+                GraphRenderer.appendFixed(svg, ys[i] + radius / 2, 2).append("' font-size='");
+                GraphRenderer.appendFixed(svg, 14 / zoom, 3).append("' class='label'>");
+                GraphRenderer.appendEscaped(svg, name).append("</text>");
+            }
+        }
+    }
+
+    /**
+     * Agrupa las ubicaciones visibles en celdas de {@link #CLUSTER_PIXELS} píxeles y dibuja un
+     * círculo por grupo, en el centroide de sus ubicaciones, y las rutas más frecuentes entre
+     * grupos.
+     */
+    private void appendClusters(StringBuilder svg, int count, double x, double y, double width,
+                                double height, double zoom) {
+        int clusterColumns = Math.max(1, (int) Math.ceil(width * zoom / CLUSTER_PIXELS));
+        int clusterRows = Math.max(1, (int) Math.ceil(height * zoom / CLUSTER_PIXELS));
+        int clusters = clusterColumns * clusterRows;
+        int[] members = new int[clusters];
+        int[] reachable = new int[clusters];
+        double[] sumX = new double[clusters];
+        double[] sumY = new double[clusters];
+        int[] clusterOf = new int[count];
+        int[] positionOf = new int[xs.length];
+        for (int k = 0; k < count; k++) {
+            int i = visible[k];
+            int column = Math.min(clusterColumns - 1, Math.max(0, (int) ((xs[i] - x) / width * clusterColumns)));
+            int row = Math.min(clusterRows - 1, Math.max(0, (int) ((ys[i] - y) / height * clusterRows)));
+            int c = row * clusterColumns + column;
+            clusterOf[k] = c;
+            positionOf[i] = k;
+            members[c]++;
+            sumX[c] += xs[i];
+            sumY[c] += ys[i];
+            if (highlight.isReachable(i)) {
+                reachable[c]++;
+            }
+        }
+
+        // Rutas entre grupos distintos, como pares ordenados; las repetidas se cuentan.
+        long[] pairs = new long[1024];
+        int pairCount = 0;
+        for (int k = 0; k < count; k++) {
+            int u = visible[k];
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.target(arc);
+                if (v < u || visibleStamp[v] != stamp) {
+                    continue;
+                }
+                int a = clusterOf[k];
+                int b = clusterOf[positionOf[v]];
+                if (a != b) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairCount * 2);
+                    }
+                    pairs[pairCount++] = GraphRenderer.edgeKey(a, b);
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int distinct = 0;
+        int[] weights = new int[pairCount];
+        for (int k = 0; k < pairCount; k++) {
+            if (distinct > 0 && pairs[distinct - 1] == pairs[k]) {
+                weights[distinct - 1]++;
+            } else {
+                pairs[distinct] = pairs[k];
+                weights[distinct++] = 1;
+            }
+        }
+        int minWeight = 1;
+        if (distinct > MAX_VISIBLE_ROUTES) {
+            int[] sorted = Arrays.copyOf(weights, distinct);
+            Arrays.sort(sorted);
+            minWeight = sorted[distinct - MAX_VISIBLE_ROUTES];
+        }
+        int drawn = 0;
+        for (int k = 0; k < distinct && drawn < MAX_VISIBLE_ROUTES; k++) {
+            if (weights[k] < minWeight) {
+                continue;
+            }
+            int a = (int) (pairs[k] >>> 32);
+            int b = (int) pairs[k];
+            svg.append("<line x1='");
+            GraphRenderer.appendFixed(svg, sumX[a] / members[a], 2).append("' y1='");
+            GraphRenderer.appendFixed(svg, sumY[a] / members[a], 2).append("' x2='");
+            GraphRenderer.appendFixed(svg, sumX[b] / members[b], 2).append("' y2='");
+            GraphRenderer.appendFixed(svg, sumY[b] / members[b], 2).append("' stroke-width='");
+            GraphRenderer.appendFixed(svg, 1 + Math.log(weights[k]) / Math.log(2), 1)
+                    .append("' class='edge cluster-edge' />");
+            drawn++;
+        }
+
+        for (int c = 0; c < clusters; c++) {
+            if (members[c] == 0) {
+                continue;
+            }
+            double cx = sumX[c] / members[c];
+            double cy = sumY[c] / members[c];
+            double radius = (LOCATION_RADIUS_PIXELS + 2 * Math.log(members[c]) / Math.log(2)) / zoom;
+            svg.append("<circle cx='");
+            GraphRenderer.appendFixed(svg, cx, 2).append("' cy='");
+            GraphRenderer.appendFixed(svg, cy, 2).append("' r='");
+            GraphRenderer.appendFixed(svg, radius, 3).append("' class='node cluster")
+                    .append(reachable[c] > 0 ? " reachable" : "").append("' data-name='")
+                    .append(members[c]).append(" ubicaciones' />");
+            if (members[c] > 1) {
+                svg.append("<text x='");
+                GraphRenderer.appendFixed(svg, cx, 2).append("' y='");
+                GraphRenderer.appendFixed(svg, cy + 4 / zoom, 2).append("' font-size='");
+                GraphRenderer.appendFixed(svg, 10 / zoom, 3).append("' class='cluster-label'>")
+                        .append(members[c]).append("</text>");
+            }
+        }
+    }
+
+    /**
+     * Dibuja la ruta resaltada completa, encima del resto.
+     */
+    private void appendPath(StringBuilder svg, double zoom) {
+        long[] keys = highlight.pathEdges;
+        for (long key : keys) {
+            int u = (int) (key >>> 32);
+            int v = (int) key;
+            int arc = -1;
+            for (int a = graph.firstArc(u); a < graph.endArc(u); a++) {
+                if (graph.target(a) == v) {
+                    arc = a;
+                    break;
+                }
+            }
+            appendRoute(svg, u, v, arc, highlight.isReachable(u) && highlight.isReachable(v)
+                    ? " reachable-edge highlighted" : " highlighted");
+        }
+        if (keys.length > 0) {
+            double radius = LOCATION_RADIUS_PIXELS / zoom;
+            List<Location> locations = graph.locations();
+            for (int i : highlight.pathLocations) {
+                svg.append("<circle cx='");
+                GraphRenderer.appendFixed(svg, xs[i], 2).append("' cy='");
+                GraphRenderer.appendFixed(svg, ys[i], 2).append("' r='");
+                GraphRenderer.appendFixed(svg, radius, 3).append("' class='node")
+                        .append(highlight.nodeClass(i)).append("' data-name='");
+                GraphRenderer.appendEscaped(svg, locations.get(i).getName()).append("' />");
+            }
+        }
+    }
+
+    /**
+     * Ruta y alcance resaltados, por identificador de vértice.
+     */
+    static final class Highlight {
+        private final long[] pathEdges;
+        private final int[] pathLocations;
+        private final boolean[] reachable;
+        private final int source;
+
+        /**
+         * @param pathEdges     Claves ordenadas de las rutas del camino, de
+         *                      {@link GraphRenderer#edgeKey}.
+         * @param pathLocations Vértices del camino.
+         * @param reachable     Vértices alcanzables, o {@code null} sin alcance.
+         * @param source        Origen del alcance, o {@code -1}.
+         */
+        Highlight(long[] pathEdges, int[] pathLocations, boolean[] reachable, int source) {
+            this.pathEdges = pathEdges;
+            this.pathLocations = pathLocations;
+            this.reachable = reachable;
+            this.source = source;
+        }
+
+        boolean isOnPath(int u, int v) {
+            return pathEdges.length > 0 && Arrays.binarySearch(pathEdges, GraphRenderer.edgeKey(u, v)) >= 0;
+        }
+
+        boolean isReachable(int vertex) {
+            return reachable != null && reachable[vertex];
+        }
+
+        String nodeClass(int vertex) {
+            if (!isReachable(vertex)) {
+                return "";
+            }
+            return vertex == source ? " reachable-source" : " reachable";
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package co.edu.uptc.taller.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.SearchMode;
+import co.edu.uptc.taller.service.RouteService.RouteResult;
+
+/**
+ * Caché acotada de resultados de rutas por par origen-destino y modo de búsqueda.
+ *
+ * <p>El modo forma parte de la clave porque, entre rutas empatadas, cada modo puede elegir un
+ * camino distinto y además informa su propio número de vértices asentados.</p>
+ *
+ * <p>Cada entrada guarda la versión del grafo con la que se calculó y deja de ser válida en
+ * cuanto la versión cambia; opcionalmente también caduca tras un tiempo de vida. La capacidad
+ * se reparte entre varios segmentos, cada uno con su propio bloqueo y su propio orden LRU, para
+ * que las consultas concurrentes de pares distintos no se esperen entre sí. Las cachés pequeñas
+ * usan menos segmentos, de modo que ninguno guarde menos de {@value #MIN_SEGMENT_CAPACITY}
+ * resultados y el desalojo siga siendo casi LRU global.</p>
+ */
+public class RouteCache {
+
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Capacidad mínima de cada segmento.
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor de una caché sin tiempo de vida.
+     *
+     * @param capacity Número máximo de resultados guardados.
+     */
+    public RouteCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * Constructor de RouteCache.
+     *
+     * @param capacity Número máximo de resultados guardados.
+     * @param ttlMs    Tiempo de vida de cada resultado en milisegundos, o {@code 0} para que solo
+     *                 caduquen al cambiar el grafo.
+     * @throws IllegalArgumentException si {@code capacity} no es positiva o {@code ttlMs} es negativo.
+     */
+    public RouteCache(int capacity, long ttlMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser positiva.");
+        }
+        if (ttlMs < 0) {
+            throw new IllegalArgumentException("El tiempo de vida no puede ser negativo.");
+        }
+        int count = Math.max(1, Math.min(SEGMENTS, capacity / MIN_SEGMENT_CAPACITY));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+        this.ttlNanos = ttlMs * 1_000_000;
+    }
+
+    /**
+     * Busca el resultado de una ruta calculado con la versión indicada del grafo.
+     *
+     * @param source  Ubicación de origen.
+     * @param target  Ubicación de destino.
+     * @param mode    Modo de búsqueda con que se pide la ruta.
+     * @param version Versión actual del grafo.
+     * @return El resultado guardado, o {@code null} si no existe, es de otra versión o caducó.
+     */
+    public RouteResult get(Location source, Location target, SearchMode mode, long version) {
+        Key key = new Key(source, target, mode);
+        RouteResult result = segmentFor(key).get(key, version, ttlNanos);
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Guarda el resultado de una ruta calculado con la versión indicada del grafo.
+     *
+     * @param source  Ubicación de origen.
+     * @param target  Ubicación de destino.
+     * @param mode    Modo de búsqueda con que se calculó el resultado.
+     * @param version Versión del grafo con la que se calculó el resultado.
+     * @param result  El resultado a guardar.
+     */
+    public void put(Location source, Location target, SearchMode mode, long version, RouteResult result) {
+        Key key = new Key(source, target, mode);
+        segmentFor(key).put(key, new Entry(result, version, System.nanoTime()));
+    }
+
+    /**
+     * Elimina todos los resultados guardados sin reiniciar los contadores.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Obtiene el número de resultados guardados, incluidos los que ya no son válidos y aún no
+     * se han descartado.
+     *
+     * @return Cantidad de entradas.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    /**
+     * Porción de la caché con su propio bloqueo y orden de uso reciente.
+     */
+    private class Segment {
+        private final Map<Key, Entry> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized RouteResult get(Key key, long version, long ttlNanos) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version != version
+                    || (ttlNanos > 0 && System.nanoTime() - entry.createdAt > ttlNanos)) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.result;
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private static final class Key {
+        private final Location source;
+        private final Location target;
+        private final SearchMode mode;
+
+        Key(Location source, Location target, SearchMode mode) {
+            this.source = source;
+            this.target = target;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return source.equals(other.source) && target.equals(other.target) && mode == other.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            // El ordinal en lugar del hash de identidad del enum, para repartir igual en cada ejecución.
+            return 31 * (31 * source.hashCode() + target.hashCode()) + mode.ordinal();
+        }
+    }
+
+    private static final class Entry {
+        private final RouteResult result;
+        private final long version;
+        private final long createdAt;
+
+        Entry(RouteResult result, long version, long createdAt) {
+            this.result = result;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package co.edu.uptc.taller.service;
 
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.GraphSnapshot;
+import co.edu.uptc.taller.model.Isochrone;
 import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.ParetoRoute;
+import co.edu.uptc.taller.model.RouteAttributes;
+import co.edu.uptc.taller.model.RouteCriterion;
+import co.edu.uptc.taller.model.RoutePath;
+import co.edu.uptc.taller.model.SearchMode;
+import co.edu.uptc.taller.model.TimedRoute;
 
 /**
  * Servicio encargado de calcular rutas, costos y tiempos.
@@ -12,10 +23,12 @@ import co.edu.uptc.taller.model.Location;
 public class RouteService {
 
     private static final Logger logger = Logger.getLogger(RouteService.class.getName());
-    private static final double AVERAGE_SPEED_KMH = 60.0; // Velocidad promedio en km/h
-    private static final double COST_PER_KM = 1500.0; // Costo por kilómetro
+    private static final double DEFAULT_MAX_OVERLAP = 0.7; // Fracción máxima compartida entre alternativas
+    private static final int DEFAULT_CACHE_CAPACITY = 4096; // Resultados de rutas guardados en caché
 
     private DeliveryGraph deliveryGraph;
+    private SearchMode searchMode = SearchMode.DIJKSTRA;
+    private RouteCache routeCache = new RouteCache(DEFAULT_CACHE_CAPACITY);
 
     /**
      * Constructor que recibe una instancia de DeliveryGraph.
@@ -26,12 +39,59 @@ public class RouteService {
         this.deliveryGraph = deliveryGraph;
     }
 
+    /**
+     * Obtiene el modo de búsqueda usado para calcular las rutas.
+     *
+     * @return El modo de búsqueda actual.
+     */
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Establece el modo de búsqueda usado para calcular las rutas.
+     *
+     * @param searchMode El nuevo modo de búsqueda.
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        if (searchMode == null) {
+            throw new NullPointerException("El modo de búsqueda no puede ser nulo.");
+        }
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Obtiene la caché de resultados de rutas, por ejemplo para consultar sus contadores.
+     *
+     * @return La caché usada por {@link #calculateRoute(Location, Location)}.
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Establece la caché de resultados de rutas.
+     *
+     * @param routeCache La nueva caché.
+     */
+    public void setRouteCache(RouteCache routeCache) {
+        if (routeCache == null) {
+            throw new NullPointerException("La caché de rutas no puede ser nula.");
+        }
+        this.routeCache = routeCache;
+    }
+
     /**
      * Calcula la ruta más corta entre dos ubicaciones.
      *
+     * <p>Los resultados se guardan en la caché de rutas junto con la versión del grafo y el modo
+     * de búsqueda, de modo que un par repetido se responde sin buscar mientras el grafo y el modo
+     * no cambien.</p>
+     *
      * @param source Ubicación de origen.
      * @param target Ubicación de destino.
-     * @return Objeto RouteResult con la ruta, distancia, costo y tiempo.
+     * @return Objeto RouteResult con la ruta, distancia, costo y tiempo. El costo y el tiempo
+     *         suman los atributos de cada tramo ({@link RouteAttributes}).
      */
     public RouteResult calculateRoute(Location source, Location target) {
         logger.info("Calculando ruta de " + source.getName() + " a " + target.getName());
@@ -41,18 +101,241 @@ public class RouteService {
             return new RouteResult(null, 0.0, 0.0, 0.0);
         }
 
-        List<Location> path = deliveryGraph.getShortestPath(source, target);
-        double distance = deliveryGraph.getShortestPathWeight(source, target);
-        double cost = distance * COST_PER_KM;
-        double time = distance / AVERAGE_SPEED_KMH;
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        long version = snapshot.getVersion();
+        SearchMode mode = searchMode;
+        RouteResult cached = routeCache.get(source, target, mode, version);
+        if (cached != null) {
+            logger.info("Ruta obtenida de la caché | Distancia: " + cached.getDistance() + " km");
+            return cached;
+        }
+
+        RoutePath route = snapshot.getRoute(source, target, mode);
 
-        if (path != null) {
+        RouteResult result;
+        if (route != null) {
+            ParetoRoute evaluated = snapshot.evaluate(route);
+            List<Location> path = route.getVertices();
+            double distance = route.getWeight();
+            double cost = evaluated.getCost();
+            double time = evaluated.getTime();
             logger.info("Ruta calculada: " + formatPath(path) + " | Distancia: " + distance + " km | Costo: " + cost + " COP | Tiempo: " + time + " h");
-            return new RouteResult(path, distance, cost, time);
+            logger.fine("Búsqueda " + mode + ": " + route.getSettledCount() + " vértices asentados.");
+            result = new RouteResult(path, distance, cost, time, route.getLegDistances());
         } else {
             logger.warning("No se encontró una ruta entre " + source.getName() + " y " + target.getName());
-            return new RouteResult(null, distance, cost, time);
+            result = noRoute();
         }
+        routeCache.put(source, target, mode, version, result);
+        return result;
+    }
+
+    /**
+     * Calcula la ruta de llegada más temprana entre dos ubicaciones saliendo a una hora dada,
+     * según los perfiles de velocidad de las rutas.
+     *
+     * <p>A diferencia de {@link #calculateRoute(Location, Location)}, el tiempo no se estima con
+     * la velocidad promedio sino tramo a tramo, y el resultado incluye la hora de llegada a cada
+     * ubicación. No se guarda en la caché porque depende de la hora de salida.</p>
+     *
+     * @param source    Ubicación de origen.
+     * @param target    Ubicación de destino.
+     * @param departure Hora de salida.
+     * @return Objeto RouteResult con la ruta, distancia, costo, tiempo y horas de llegada.
+     */
+    public RouteResult calculateTimedRoute(Location source, Location target, LocalTime departure) {
+        if (departure == null) {
+            throw new NullPointerException("La hora de salida no puede ser nula.");
+        }
+        logger.info("Calculando ruta de " + source.getName() + " a " + target.getName() + " saliendo a las " + departure);
+
+        double hour = departure.toSecondOfDay() / 3600.0;
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        TimedRoute route = snapshot.getTimedRoute(source, target, hour, searchMode);
+        if (route == null) {
+            logger.warning("No se encontró una ruta entre " + source.getName() + " y " + target.getName());
+            return noRoute();
+        }
+
+        double distance = route.getDistance();
+        double cost = snapshot.evaluate(route.getPath()).getCost();
+        double time = route.getTravelTime();
+        logger.info("Ruta calculada: " + formatPath(route.getVertices()) + " | Distancia: " + distance + " km | Costo: " + cost + " COP | Tiempo: " + time + " h");
+        return new RouteResult(route.getVertices(), distance, cost, time, route.getPath().getLegDistances(),
+                route.getArrivalTimes());
+    }
+
+    /**
+     * Calcula el frente de Pareto de rutas entre dos ubicaciones: las rutas en las que no se
+     * puede mejorar la distancia, el costo o el tiempo sin empeorar otro de ellos.
+     *
+     * @param source Ubicación de origen.
+     * @param target Ubicación de destino.
+     * @return Lista de RouteResult ordenada por distancia; vacía si no hay ruta.
+     */
+    public List<RouteResult> calculateParetoRoutes(Location source, Location target) {
+        logger.info("Calculando rutas de Pareto de " + source.getName() + " a " + target.getName());
+
+        List<ParetoRoute> routes = deliveryGraph.getParetoRoutes(source, target);
+        List<RouteResult> results = new ArrayList<>(routes.size());
+        for (ParetoRoute route : routes) {
+            results.add(toResult(route));
+        }
+        if (results.isEmpty()) {
+            logger.warning("No se encontró una ruta entre " + source.getName() + " y " + target.getName());
+        } else {
+            logger.info("Rutas de Pareto encontradas: " + results.size());
+        }
+        return results;
+    }
+
+    /**
+     * Calcula la ruta entre dos ubicaciones que mejor cumple un criterio, elegida del frente de
+     * Pareto.
+     *
+     * @param source    Ubicación de origen.
+     * @param target    Ubicación de destino.
+     * @param criterion Criterio de elección.
+     * @return Objeto RouteResult con la ruta elegida, o sin ruta y distancia infinita si no hay.
+     */
+    public RouteResult calculateRoute(Location source, Location target, RouteCriterion criterion) {
+        if (criterion == null) {
+            throw new NullPointerException("El criterio no puede ser nulo.");
+        }
+        if (criterion == RouteCriterion.DISTANCE) {
+            return calculateRoute(source, target);
+        }
+        return chooseRoute(source, target, criterion.toString(),
+                frontier -> ParetoRoute.select(frontier, criterion));
+    }
+
+    /**
+     * Calcula la ruta entre dos ubicaciones con la menor suma ponderada de distancia, costo y
+     * tiempo, elegida del frente de Pareto. Cada criterio se toma relativo a su mejor valor en el
+     * frente, de modo que los pesos no dependen de las unidades.
+     *
+     * @param source         Ubicación de origen.
+     * @param target         Ubicación de destino.
+     * @param distanceWeight Peso de la distancia.
+     * @param costWeight     Peso del costo.
+     * @param timeWeight     Peso del tiempo.
+     * @return Objeto RouteResult con la ruta elegida, o sin ruta y distancia infinita si no hay.
+     */
+    public RouteResult calculateRoute(Location source, Location target, double distanceWeight,
+                                      double costWeight, double timeWeight) {
+        if (distanceWeight < 0 || costWeight < 0 || timeWeight < 0) {
+            throw new IllegalArgumentException("Los pesos de los criterios no pueden ser negativos.");
+        }
+        return chooseRoute(source, target, "pesos " + distanceWeight + "/" + costWeight + "/" + timeWeight,
+                frontier -> ParetoRoute.select(frontier, distanceWeight, costWeight, timeWeight));
+    }
+
+    private RouteResult chooseRoute(Location source, Location target, String description,
+                                    Function<List<ParetoRoute>, ParetoRoute> selector) {
+        if (source.equals(target)) {
+            logger.warning("Origen y destino son la misma ubicación.");
+            return new RouteResult(null, 0.0, 0.0, 0.0);
+        }
+
+        ParetoRoute route = selector.apply(deliveryGraph.getParetoRoutes(source, target));
+        if (route == null) {
+            logger.warning("No se encontró una ruta entre " + source.getName() + " y " + target.getName());
+            return noRoute();
+        }
+        logger.info("Ruta elegida por " + description + ": " + formatPath(route.getVertices()) + " | Distancia: "
+                + route.getDistance() + " km | Costo: " + route.getCost() + " COP | Tiempo: " + route.getTime() + " h");
+        return toResult(route);
+    }
+
+    private static RouteResult noRoute() {
+        return new RouteResult(null, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    private static RouteResult toResult(ParetoRoute route) {
+        return new RouteResult(route.getVertices(), route.getDistance(), route.getCost(), route.getTime(),
+                route.getPath().getLegDistances());
+    }
+
+    /**
+     * Calcula hasta {@code k} rutas alternativas entre dos ubicaciones con la superposición
+     * máxima por defecto.
+     *
+     * @param source Ubicación de origen.
+     * @param target Ubicación de destino.
+     * @param k      Número máximo de rutas.
+     * @return Lista de RouteResult ordenada por distancia; vacía si no hay ruta.
+     */
+    public List<RouteResult> calculateAlternatives(Location source, Location target, int k) {
+        return calculateAlternatives(source, target, k, DEFAULT_MAX_OVERLAP);
+    }
+
+    /**
+     * Calcula hasta {@code k} rutas alternativas entre dos ubicaciones, por ejemplo para tener
+     * opciones listas ante el cierre de una vía.
+     *
+     * @param source     Ubicación de origen.
+     * @param target     Ubicación de destino.
+     * @param k          Número máximo de rutas.
+     * @param maxOverlap Fracción máxima de la distancia de una alternativa que puede compartir
+     *                   con otra, entre 0 y 1.
+     * @return Lista de RouteResult ordenada por distancia; vacía si no hay ruta.
+     */
+    public List<RouteResult> calculateAlternatives(Location source, Location target, int k, double maxOverlap) {
+        logger.info("Calculando " + k + " rutas alternativas de " + source.getName() + " a " + target.getName());
+
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        List<RoutePath> routes = snapshot.getAlternativeRoutes(source, target, k, maxOverlap);
+        List<RouteResult> results = new ArrayList<>(routes.size());
+        for (RoutePath route : routes) {
+            results.add(toResult(snapshot.evaluate(route)));
+        }
+        if (results.isEmpty()) {
+            logger.warning("No se encontró una ruta entre " + source.getName() + " y " + target.getName());
+        } else {
+            logger.info("Rutas alternativas encontradas: " + results.size());
+        }
+        return results;
+    }
+
+    /**
+     * Calcula las ubicaciones alcanzables desde un origen sin superar un presupuesto, por
+     * ejemplo los pueblos a menos de 45 minutos ({@code TIME}, 0.75) o de COP 40.000
+     * ({@code COST}, 40000) de un depósito.
+     *
+     * @param source    Ubicación de origen.
+     * @param criterion Criterio del presupuesto: distancia, costo o tiempo.
+     * @param budget    Presupuesto máximo en kilómetros, COP u horas.
+     * @return Objeto Isochrone con las ubicaciones alcanzadas y su valor.
+     */
+    public Isochrone calculateIsochrone(Location source, RouteCriterion criterion, double budget) {
+        long start = System.nanoTime();
+        Isochrone isochrone = deliveryGraph.getIsochrone(source, criterion, budget);
+        logger.info("Alcance desde " + source.getName() + " con " + criterion + " <= " + budget + ": "
+                + isochrone.size() + " ubicaciones en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return isochrone;
+    }
+
+    /**
+     * Calcula las matrices de distancia, costo y tiempo entre varios orígenes y destinos.
+     *
+     * <p>En lugar de resolver cada par por separado, se hace una búsqueda por origen que sirve
+     * para todos los destinos, y los orígenes se procesan en paralelo. El costo y el tiempo de
+     * cada par suman los atributos de los tramos de su ruta, como en
+     * {@link #calculateRoute(Location, Location)}.</p>
+     *
+     * @param sources Ubicaciones de origen (por ejemplo, los depósitos).
+     * @param targets Ubicaciones de destino (por ejemplo, las paradas).
+     * @return Objeto RouteMatrix con las distancias, costos y tiempos de cada par.
+     * @throws IllegalArgumentException si la matriz no cabe en un arreglo.
+     */
+    public RouteMatrix calculateMatrix(List<Location> sources, List<Location> targets) {
+        long start = System.nanoTime();
+        double[] costs = new double[DeliveryGraph.matrixSize(sources.size(), targets.size())];
+        double[] times = new double[costs.length];
+        double[] distances = deliveryGraph.getDistances(sources, targets, costs, times);
+        logger.info("Matriz calculada: " + sources.size() + " x " + targets.size() + " en "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new RouteMatrix(sources, targets, distances, costs, times);
     }
 
     /**
@@ -80,6 +363,8 @@ public class RouteService {
         private double distance;
         private double cost;
         private double time;
+        private double[] legDistances;
+        private double[] arrivalTimes;
 
         /**
          * Constructor de RouteResult.
@@ -90,14 +375,42 @@ public class RouteService {
          * @param time     Tiempo estimado de la ruta en horas.
          */
         public RouteResult(List<Location> path, double distance, double cost, double time) {
+            this(path, distance, cost, time, new double[0]);
+        }
+
+        /**
+         * Constructor de RouteResult con el desglose de distancia por tramo.
+         *
+         * @param path         Lista de ubicaciones que forman la ruta.
+         * @param distance     Distancia total de la ruta en kilómetros.
+         * @param cost         Costo total de la ruta en COP.
+         * @param time         Tiempo estimado de la ruta en horas.
+         * @param legDistances Distancia en kilómetros de cada tramo de la ruta.
+         */
+        public RouteResult(List<Location> path, double distance, double cost, double time, double[] legDistances) {
+            this(path, distance, cost, time, legDistances, new double[0]);
+        }
+
+        /**
+         * Constructor de RouteResult con la hora de llegada a cada ubicación.
+         *
+         * @param path         Lista de ubicaciones que forman la ruta.
+         * @param distance     Distancia total de la ruta en kilómetros.
+         * @param cost         Costo total de la ruta en COP.
+         * @param time         Tiempo de la ruta en horas.
+         * @param legDistances Distancia en kilómetros de cada tramo de la ruta.
+         * @param arrivalTimes Hora de llegada a cada ubicación, en horas desde la medianoche.
+         */
+        public RouteResult(List<Location> path, double distance, double cost, double time, double[] legDistances,
+                           double[] arrivalTimes) {
             this.path = path;
             this.distance = distance;
             this.cost = cost;
             this.time = time;
+            this.legDistances = legDistances;
+            this.arrivalTimes = arrivalTimes;
         }
 
-
-
         public List<Location> getPath() {
             return path;
         }
@@ -113,5 +426,91 @@ public class RouteService {
         public double getTime() {
             return time;
         }
+
+        public double[] getLegDistances() {
+            return legDistances.clone();
+        }
+
+        /**
+         * Obtiene la hora de llegada a cada ubicación de la ruta.
+         *
+         * @return Arreglo con una hora por ubicación, vacío si la ruta no se calculó para una
+         *         hora de salida.
+         */
+        public double[] getArrivalTimes() {
+            return arrivalTimes.clone();
+        }
+    }
+
+    /**
+     * Clase que encapsula las matrices de distancia, costo y tiempo entre orígenes y destinos.
+     *
+     * <p>Los valores se guardan por filas en arreglos primitivos: el par
+     * ({@code sources[i]}, {@code targets[j]}) está en la posición {@code i * targets.size() + j}.
+     * Los pares sin ruta tienen valor {@code Double.POSITIVE_INFINITY}.</p>
+     */
+    public static class RouteMatrix {
+        private List<Location> sources;
+        private List<Location> targets;
+        private double[] distances;
+        private double[] costs;
+        private double[] times;
+
+        /**
+         * Constructor de RouteMatrix.
+         *
+         * @param sources   Ubicaciones de origen (filas).
+         * @param targets   Ubicaciones de destino (columnas).
+         * @param distances Distancias en kilómetros, por filas.
+         * @param costs     Costos en COP, por filas.
+         * @param times     Tiempos estimados en horas, por filas.
+         */
+        public RouteMatrix(List<Location> sources, List<Location> targets,
+                           double[] distances, double[] costs, double[] times) {
+            this.sources = List.copyOf(sources);
+            this.targets = List.copyOf(targets);
+            this.distances = distances;
+            this.costs = costs;
+            this.times = times;
+        }
+
+        public List<Location> getSources() {
+            return sources;
+        }
+
+        public List<Location> getTargets() {
+            return targets;
+        }
+
+        public double getDistance(int source, int target) {
+            return distances[index(source, target)];
+        }
+
+        public double getCost(int source, int target) {
+            return costs[index(source, target)];
+        }
+
+        public double getTime(int source, int target) {
+            return times[index(source, target)];
+        }
+
+        private int index(int source, int target) {
+            if (source < 0 || source >= sources.size() || target < 0 || target >= targets.size()) {
+                throw new IndexOutOfBoundsException("Par fuera de la matriz: " + source + ", " + target);
+            }
+            return source * targets.size() + target;
+        }
+
+        public double[] getDistances() {
+            return distances.clone();
+        }
+
+        public double[] getCosts() {
+            return costs.clone();
+        }
+
+        public double[] getTimes() {
+            return times.clone();
+        }
     }
 }
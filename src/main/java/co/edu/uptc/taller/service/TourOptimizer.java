@@ -0,0 +1,524 @@
+package co.edu.uptc.taller.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.GraphSnapshot;
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.ParetoRoute;
+import co.edu.uptc.taller.model.RoutePath;
+
+/**
+ * Servicio encargado de optimizar recorridos de entrega con varias paradas.
+ *
+ * <p>Calcula la matriz de distancias entre el depósito y las paradas sobre el
+ * {@link DeliveryGraph} y busca el orden de visita más corto con una heurística constructiva
+ * (vecino más cercano) mejorada con búsqueda local 2-opt y Or-opt. Mientras quede tiempo, cada
+ * hilo perturba su mejor recorrido y vuelve a optimizarlo partiendo de una semilla distinta, y
+ * se conserva el mejor resultado de todos.</p>
+ *
+ * <p>Con capacidad limitada, el recorrido completo se divide de forma óptima en viajes que
+ * salen y vuelven al depósito sin exceder la capacidad del vehículo, y cada viaje se optimiza
+ * por separado.</p>
+ *
+ * @author
+ * @version 1.0
+ */
+public class TourOptimizer {
+
+    private static final Logger logger = Logger.getLogger(TourOptimizer.class.getName());
+    private static final long DEFAULT_TIME_BUDGET_MS = 1000;
+    private static final double EPSILON = 1e-9;
+    private static final int MIN_STALE_ROUNDS = 200; // Perturbaciones sin mejora antes de detenerse
+
+    private DeliveryGraph deliveryGraph;
+
+    /**
+     * Constructor que recibe una instancia de DeliveryGraph.
+     *
+     * @param deliveryGraph La instancia del grafo de entregas.
+     */
+    public TourOptimizer(DeliveryGraph deliveryGraph) {
+        this.deliveryGraph = deliveryGraph;
+    }
+
+    /**
+     * Optimiza el recorrido de un vehículo con el presupuesto de tiempo por defecto.
+     *
+     * @param depot Ubicación de salida y llegada.
+     * @param stops Paradas a visitar.
+     * @return Objeto TourResult con el orden de visita y la ruta completa.
+     */
+    public TourResult optimize(Location depot, List<Location> stops) {
+        return optimize(depot, stops, DEFAULT_TIME_BUDGET_MS);
+    }
+
+    /**
+     * Optimiza el recorrido de un vehículo que sale del depósito, visita todas las paradas y
+     * vuelve al depósito.
+     *
+     * @param depot        Ubicación de salida y llegada.
+     * @param stops        Paradas a visitar.
+     * @param timeBudgetMs Tiempo máximo de optimización en milisegundos.
+     * @return Objeto TourResult con el orden de visita y la ruta completa.
+     * @throws IllegalArgumentException si alguna parada no es alcanzable desde el depósito.
+     */
+    public TourResult optimize(Location depot, List<Location> stops, long timeBudgetMs) {
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000;
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        List<Location> points = points(depot, stops);
+        double[] distances = distances(snapshot, points);
+
+        int[] tour = solve(distances, points.size(), identity(points.size()), deadline);
+        TourResult result = toResult(snapshot, points, distances, tour);
+        logger.info("Recorrido optimizado: " + stops.size() + " paradas | Distancia: " + result.getDistance() + " km");
+        return result;
+    }
+
+    /**
+     * Optimiza los recorridos de una flota de vehículos con capacidad limitada.
+     *
+     * <p>Se optimiza primero un recorrido que visita todas las paradas y después se divide en
+     * viajes consecutivos cuya demanda total no supera la capacidad, eligiendo los cortes que
+     * minimizan la distancia total. Cada viaje resultante corresponde a un vehículo.</p>
+     *
+     * @param depot        Ubicación de salida y llegada de todos los vehículos.
+     * @param stops        Paradas a visitar.
+     * @param demands      Demanda de cada parada, en el mismo orden que {@code stops}.
+     * @param capacity     Capacidad de cada vehículo.
+     * @param timeBudgetMs Tiempo máximo de optimización en milisegundos.
+     * @return Lista con un TourResult por vehículo.
+     * @throws IllegalArgumentException si la capacidad no es un número positivo, las demandas no
+     *                                  corresponden con las paradas, alguna demanda no es finita,
+     *                                  es negativa o supera la capacidad, o alguna parada no es
+     *                                  alcanzable.
+     */
+    public List<TourResult> optimize(Location depot, List<Location> stops, double[] demands,
+                                     double capacity, long timeBudgetMs) {
+        if (!Double.isFinite(capacity) || capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad del vehículo debe ser un número positivo: " + capacity);
+        }
+        if (demands.length != stops.size()) {
+            throw new IllegalArgumentException("Debe haber una demanda por cada parada.");
+        }
+        for (double demand : demands) {
+            if (!Double.isFinite(demand) || demand < 0 || demand > capacity) {
+                throw new IllegalArgumentException("La demanda de cada parada debe estar entre 0 y la capacidad del vehículo.");
+            }
+        }
+
+        long start = System.nanoTime();
+        long budget = timeBudgetMs * 1_000_000;
+        GraphSnapshot snapshot = deliveryGraph.getSnapshot();
+        List<Location> points = points(depot, stops);
+        double[] distances = distances(snapshot, points);
+        int size = points.size();
+
+        int[] giantTour = solve(distances, size, identity(size), start + budget * 3 / 4);
+        List<int[]> trips = split(distances, size, giantTour, demands, capacity);
+
+        long share = Math.max(0, start + budget - System.nanoTime()) / Math.max(1, trips.size());
+        List<TourResult> results = new ArrayList<>(trips.size());
+        double total = 0;
+        for (int[] trip : trips) {
+            int[] tour = solve(distances, size, trip, System.nanoTime() + share);
+            TourResult result = toResult(snapshot, points, distances, tour);
+            results.add(result);
+            total += result.getDistance();
+        }
+        logger.info("Recorridos optimizados: " + stops.size() + " paradas en " + results.size()
+                + " vehículos | Distancia total: " + total + " km");
+        return results;
+    }
+
+    private List<Location> points(Location depot, List<Location> stops) {
+        if (depot == null || stops == null) {
+            throw new NullPointerException("El depósito y la lista de paradas no pueden ser nulos.");
+        }
+        List<Location> points = new ArrayList<>(stops.size() + 1);
+        points.add(depot);
+        points.addAll(stops);
+        return points;
+    }
+
+    private double[] distances(GraphSnapshot snapshot, List<Location> points) {
+        double[] distances = snapshot.getDistances(points, points);
+        int size = points.size();
+        for (int i = 1; i < size; i++) {
+            if (distances[i] == Double.POSITIVE_INFINITY || distances[i * size] == Double.POSITIVE_INFINITY) {
+                throw new IllegalArgumentException("La parada no es alcanzable desde el depósito: " + points.get(i).getName());
+            }
+        }
+        return distances;
+    }
+
+    private static int[] identity(int size) {
+        return IntStream.range(0, size).toArray();
+    }
+
+    /**
+     * Busca el mejor orden de visita de un subconjunto de puntos en paralelo, un hilo por núcleo.
+     *
+     * @param distances Matriz de distancias entre todos los puntos.
+     * @param size      Número de puntos de la matriz.
+     * @param subset    Puntos a visitar; el primero es el depósito.
+     * @param deadline  Instante límite según {@link System#nanoTime()}.
+     * @return El recorrido encontrado, empezando por el depósito.
+     */
+    private int[] solve(double[] distances, int size, int[] subset, long deadline) {
+        if (subset.length <= 3) {
+            return subset.clone();
+        }
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        return IntStream.range(0, threads).parallel()
+                .mapToObj(seed -> new TourSearch(distances, size, subset, seed, deadline).run())
+                .min(Comparator.comparingDouble(tour -> tourLength(distances, size, tour)))
+                .orElseThrow();
+    }
+
+    private static double tourLength(double[] distances, int size, int[] tour) {
+        double length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            length += distances[tour[i] * size + tour[(i + 1) % tour.length]];
+        }
+        return length;
+    }
+
+    /**
+     * Divide un recorrido completo en viajes que respetan la capacidad, con programación
+     * dinámica sobre los posibles puntos de corte.
+     */
+    private static List<int[]> split(double[] distances, int size, int[] tour, double[] demands, double capacity) {
+        int count = tour.length - 1;
+        double[] best = new double[count + 1];
+        int[] cut = new int[count + 1];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[0] = 0;
+        for (int i = 1; i <= count; i++) {
+            double load = 0;
+            double length = 0;
+            for (int j = i; j <= count; j++) {
+                int stop = tour[j];
+                load += demands[stop - 1];
+                if (load > capacity) {
+                    break;
+                }
+                length += j == i ? distances[stop] : distances[tour[j - 1] * size + stop];
+                double cost = best[i - 1] + length + distances[stop * size];
+                if (cost < best[j]) {
+                    best[j] = cost;
+                    cut[j] = i - 1;
+                }
+            }
+        }
+
+        List<int[]> trips = new ArrayList<>();
+        for (int j = count; j > 0; j = cut[j]) {
+            int[] trip = new int[j - cut[j] + 1];
+            System.arraycopy(tour, cut[j] + 1, trip, 1, j - cut[j]);
+            trips.add(0, trip);
+        }
+        return trips;
+    }
+
+    private TourResult toResult(GraphSnapshot snapshot, List<Location> points, double[] distances, int[] tour) {
+        int size = points.size();
+        List<Location> stops = new ArrayList<>(tour.length + 1);
+        List<Location> path = new ArrayList<>();
+        path.add(points.get(tour[0]));
+        double cost = 0.0;
+        double time = 0.0;
+        for (int i = 0; i < tour.length; i++) {
+            Location from = points.get(tour[i]);
+            Location to = points.get(tour[(i + 1) % tour.length]);
+            stops.add(from);
+            if (from.equals(to)) {
+                continue;
+            }
+            RoutePath leg = snapshot.getRoute(from, to);
+            List<Location> vertices = leg.getVertices();
+            path.addAll(vertices.subList(1, vertices.size()));
+            ParetoRoute evaluated = snapshot.evaluate(leg);
+            cost += evaluated.getCost();
+            time += evaluated.getTime();
+        }
+        stops.add(points.get(tour[0]));
+
+        double distance = tour.length > 1 ? tourLength(distances, size, tour) : 0.0;
+        return new TourResult(stops, path, distance, cost, time);
+    }
+
+    /**
+     * Búsqueda local iterada de un solo hilo: construye un recorrido, lo mejora con 2-opt y
+     * Or-opt y, mientras quede tiempo, lo perturba con un movimiento double-bridge.
+     */
+    private static class TourSearch {
+        private final double[] distances;
+        private final int size;
+        private final int[] subset;
+        private final Random random;
+        private final boolean randomized;
+        private final long deadline;
+
+        TourSearch(double[] distances, int size, int[] subset, int seed, long deadline) {
+            this.distances = distances;
+            this.size = size;
+            this.subset = subset;
+            this.random = new Random(seed);
+            this.randomized = seed > 0;
+            this.deadline = deadline;
+        }
+
+        int[] run() {
+            int[] best = construct();
+            improve(best);
+            double bestLength = tourLength(distances, size, best);
+            if (subset.length < 8) {
+                return best;
+            }
+            int[] current = best.clone();
+            double currentLength = bestLength;
+            int staleLimit = Math.max(MIN_STALE_ROUNDS, 10 * subset.length);
+            int stale = 0;
+            while (stale < staleLimit && System.nanoTime() < deadline) {
+                stale++;
+                int[] candidate = doubleBridge(current);
+                improve(candidate);
+                double length = tourLength(distances, size, candidate);
+                if (length < currentLength - EPSILON) {
+                    current = candidate;
+                    currentLength = length;
+                    if (length < bestLength - EPSILON) {
+                        best = candidate.clone();
+                        bestLength = length;
+                        stale = 0;
+                    }
+                } else if (random.nextInt(8) == 0) {
+                    current = best.clone();
+                    currentLength = bestLength;
+                }
+            }
+            return best;
+        }
+
+        private double d(int a, int b) {
+            return distances[a * size + b];
+        }
+
+        /**
+         * Vecino más cercano desde el depósito; con aleatorización se elige entre los tres
+         * vecinos más cercanos para diversificar los puntos de partida.
+         */
+        private int[] construct() {
+            int n = subset.length;
+            int[] tour = new int[n];
+            boolean[] used = new boolean[n];
+            tour[0] = subset[0];
+            used[0] = true;
+            int[] candidates = new int[3];
+            for (int i = 1; i < n; i++) {
+                int found = 0;
+                Arrays.fill(candidates, -1);
+                for (int j = 1; j < n; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double dj = d(tour[i - 1], subset[j]);
+                    for (int k = 0; k < candidates.length; k++) {
+                        if (candidates[k] < 0 || dj < d(tour[i - 1], subset[candidates[k]])) {
+                            System.arraycopy(candidates, k, candidates, k + 1, candidates.length - k - 1);
+                            candidates[k] = j;
+                            found = Math.min(found + 1, candidates.length);
+                            break;
+                        }
+                    }
+                }
+                int pick = candidates[randomized ? random.nextInt(found) : 0];
+                used[pick] = true;
+                tour[i] = subset[pick];
+            }
+            return tour;
+        }
+
+        private void improve(int[] tour) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(tour) | orOpt(tour);
+            }
+        }
+
+        /**
+         * Invierte tramos del recorrido mientras eso acorte la distancia total.
+         */
+        private boolean twoOpt(int[] tour) {
+            int n = tour.length;
+            boolean improved = false;
+            for (int i = 0; i < n - 2; i++) {
+                int a = tour[i];
+                int b = tour[i + 1];
+                for (int j = i + 2; j < n; j++) {
+                    if (i == 0 && j == n - 1) {
+                        continue;
+                    }
+                    int c = tour[j];
+                    int e = tour[(j + 1) % n];
+                    double delta = d(a, c) + d(b, e) - d(a, b) - d(c, e);
+                    if (delta < -EPSILON) {
+                        reverse(tour, i + 1, j);
+                        b = tour[i + 1];
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /**
+         * Mueve segmentos de una a tres paradas, en el mismo sentido o invertidos, a la posición
+         * donde más acorten el recorrido.
+         */
+        private boolean orOpt(int[] tour) {
+            int n = tour.length;
+            boolean improved = false;
+            for (int length = 1; length <= 3; length++) {
+                for (int i = 1; i + length <= n; i++) {
+                    int first = tour[i];
+                    int last = tour[i + length - 1];
+                    int prev = tour[i - 1];
+                    int next = tour[(i + length) % n];
+                    double gain = d(prev, first) + d(last, next) - d(prev, next);
+                    int bestPosition = -1;
+                    boolean bestReversed = false;
+                    double bestDelta = -EPSILON;
+                    for (int j = 0; j < n; j++) {
+                        if (j >= i - 1 && j < i + length) {
+                            continue;
+                        }
+                        int x = tour[j];
+                        int y = tour[(j + 1) % n];
+                        double forward = d(x, first) + d(last, y) - d(x, y) - gain;
+                        double reversed = d(x, last) + d(first, y) - d(x, y) - gain;
+                        if (forward < bestDelta) {
+                            bestDelta = forward;
+                            bestPosition = j;
+                            bestReversed = false;
+                        }
+                        if (reversed < bestDelta) {
+                            bestDelta = reversed;
+                            bestPosition = j;
+                            bestReversed = true;
+                        }
+                    }
+                    if (bestPosition >= 0) {
+                        moveSegment(tour, i, length, bestPosition, bestReversed);
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private static void moveSegment(int[] tour, int start, int length, int after, boolean reversed) {
+            int n = tour.length;
+            int[] segment = Arrays.copyOfRange(tour, start, start + length);
+            if (reversed) {
+                reverse(segment, 0, length - 1);
+            }
+            int[] rest = new int[n - length];
+            System.arraycopy(tour, 0, rest, 0, start);
+            System.arraycopy(tour, start + length, rest, start, n - start - length);
+            int insertAt = (after < start ? after : after - length) + 1;
+            System.arraycopy(rest, 0, tour, 0, insertAt);
+            System.arraycopy(segment, 0, tour, insertAt, length);
+            System.arraycopy(rest, insertAt, tour, insertAt + length, rest.length - insertAt);
+        }
+
+        private static void reverse(int[] tour, int from, int to) {
+            while (from < to) {
+                int tmp = tour[from];
+                tour[from++] = tour[to];
+                tour[to--] = tmp;
+            }
+        }
+
+        /**
+         * Perturbación double-bridge: corta el recorrido en cuatro partes A-B-C-D (A empieza en
+         * el depósito) y las reordena como A-C-B-D, algo que 2-opt no deshace con un solo paso.
+         */
+        private int[] doubleBridge(int[] tour) {
+            int n = tour.length;
+            int p1 = 1 + random.nextInt(n - 3);
+            int p2 = p1 + 1 + random.nextInt(n - p1 - 2);
+            int p3 = p2 + 1 + random.nextInt(n - p2 - 1);
+            int[] result = new int[n];
+            int k = 0;
+            for (int i = 0; i < p1; i++) {
+                result[k++] = tour[i];
+            }
+            for (int i = p2; i < p3; i++) {
+                result[k++] = tour[i];
+            }
+            for (int i = p1; i < p2; i++) {
+                result[k++] = tour[i];
+            }
+            for (int i = p3; i < n; i++) {
+                result[k++] = tour[i];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Clase que encapsula el resultado de la optimización de un recorrido.
+     */
+    public static class TourResult {
+        private List<Location> stops;
+        private List<Location> path;
+        private double distance;
+        private double cost;
+        private double time;
+
+        /**
+         * Constructor de TourResult.
+         *
+         * @param stops    Paradas en orden de visita, empezando y terminando en el depósito.
+         * @param path     Ruta completa por el grafo que recorre las paradas en orden.
+         * @param distance Distancia total del recorrido en kilómetros.
+         * @param cost     Costo total del recorrido en COP.
+         * @param time     Tiempo estimado del recorrido en horas.
+         */
+        public TourResult(List<Location> stops, List<Location> path, double distance, double cost, double time) {
+            this.stops = stops;
+            this.path = path;
+            this.distance = distance;
+            this.cost = cost;
+            this.time = time;
+        }
+
+        public List<Location> getStops() {
+            return stops;
+        }
+
+        public List<Location> getPath() {
+            return path;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public double getTime() {
+            return time;
+        }
+    }
+}
@@ -5,13 +5,18 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import co.edu.uptc.taller.controller.MainController;
+
 public class ViewGraph extends Application {
+    private MainController controller;
+
     @Override
 
     public void start(Stage primaryStage) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/main_view.fxml"));
             Scene scene = new Scene(loader.load());
+            controller = loader.getController();
             primaryStage.setTitle("Optimización de Rutas de Entrega");
             primaryStage.setScene(scene);
             primaryStage.show();
@@ -21,6 +26,13 @@ public class ViewGraph extends Application {
     }
 
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -16,9 +16,11 @@ module co.edu.uptc.taller {
     requires com.fasterxml.jackson.core;
     requires com.fasterxml.jackson.annotation;
     requires java.logging;
+    requires jdk.jsobject;
 
     opens co.edu.uptc.taller.controller to javafx.fxml;
     opens co.edu.uptc.taller.persistence to com.fasterxml.jackson.databind;
     opens co.edu.uptc.taller.model to com.fasterxml.jackson.databind;
     exports co.edu.uptc.taller.view;
+    exports co.edu.uptc.taller.service to javafx.web;
 }
@@ -0,0 +1,171 @@
+package co.edu.uptc.taller.model;
+
+import static co.edu.uptc.taller.model.RandomGraphs.tolerance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Comprueba las rutas alternativas sobre grafos aleatorios con semilla fija: la primera es la
+ * más corta, todas son caminos sin ciclos del grafo y respetan el alargamiento y la
+ * superposición máximos.
+ */
+class AlternativeRoutesTest {
+
+    private static final long[] SEEDS = {2, 13, 31};
+    private static final int LOCATIONS = 120;
+    private static final int ROUTES = 360;
+    private static final int QUERIES = 60;
+    private static final int K = 4;
+    private static final double MAX_OVERLAP = 0.6;
+
+    @Test
+    void alternativesAreDiverseSimplePaths() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            DijkstraSearch reference = new DijkstraSearch(graph);
+            int alternatives = 0;
+
+            Random random = new Random(seed + 1);
+            for (int i = 0; i < QUERIES; i++) {
+                Location source = locations.get(random.nextInt(locations.size()));
+                Location target = locations.get(random.nextInt(locations.size()));
+                if (source.equals(target)) {
+                    continue;
+                }
+                String context = "semilla " + seed + ", " + source + " -> " + target;
+                double shortest = reference.run(graph.indexOf(source), graph.indexOf(target));
+                List<RoutePath> routes = deliveryGraph.getAlternativeRoutes(source, target, K, MAX_OVERLAP);
+                if (Double.isInfinite(shortest)) {
+                    assertTrue(routes.isEmpty(), context + ": no debería haber rutas");
+                    continue;
+                }
+
+                assertFalse(routes.isEmpty(), context + ": falta la ruta más corta");
+                assertTrue(routes.size() <= K, context);
+                assertEquals(shortest, routes.get(0).getWeight(), tolerance(shortest), context + ": la primera ruta");
+                List<Set<String>> accepted = new ArrayList<>();
+                double previous = 0;
+                for (RoutePath route : routes) {
+                    assertSimplePath(deliveryGraph, route, source, target, context);
+                    assertTrue(route.getWeight() >= previous - tolerance(previous), context + ": orden por distancia");
+                    assertTrue(route.getWeight() <= shortest * (1 + AlternativeRoutes.MAX_STRETCH) + tolerance(shortest),
+                            context + ": alargamiento máximo");
+                    for (Set<String> edges : accepted) {
+                        assertTrue(sharedDistance(route, edges) <= MAX_OVERLAP * route.getWeight() + tolerance(shortest),
+                                context + ": superposición máxima");
+                    }
+                    accepted.add(edgeKeys(route));
+                    previous = route.getWeight();
+                }
+                alternatives += routes.size() - 1;
+            }
+            assertTrue(alternatives > 0, "semilla " + seed + ": ninguna consulta encontró alternativas");
+        }
+    }
+
+    @Test
+    void findsDisjointDetourWithinStretch() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location[] l = new Location[6];
+        for (int i = 0; i < l.length; i++) {
+            l[i] = new Location("V" + i);
+            deliveryGraph.addLocation(l[i]);
+        }
+        deliveryGraph.addRoute(l[0], l[1], 5);
+        deliveryGraph.addRoute(l[1], l[5], 5);
+        deliveryGraph.addRoute(l[0], l[2], 6);
+        deliveryGraph.addRoute(l[2], l[5], 6);
+        deliveryGraph.addRoute(l[0], l[3], 10);
+        deliveryGraph.addRoute(l[3], l[4], 5);
+        deliveryGraph.addRoute(l[4], l[5], 5);
+
+        List<RoutePath> routes = deliveryGraph.getAlternativeRoutes(l[0], l[5], 5, 0.5);
+        assertEquals(2, routes.size(), "la ruta de 20 km supera el alargamiento máximo");
+        assertEquals(List.of(l[0], l[1], l[5]), routes.get(0).getVertices());
+        assertEquals(10.0, routes.get(0).getWeight(), 0.0);
+        assertEquals(List.of(l[0], l[2], l[5]), routes.get(1).getVertices());
+        assertEquals(12.0, routes.get(1).getWeight(), 0.0);
+    }
+
+    @Test
+    void invalidArgumentsAndMissingRoutes() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location a = new Location("A");
+        Location b = new Location("B");
+        Location c = new Location("C");
+        deliveryGraph.addLocation(a);
+        deliveryGraph.addLocation(b);
+        deliveryGraph.addLocation(c);
+        deliveryGraph.addRoute(a, b, 1);
+
+        assertTrue(deliveryGraph.getAlternativeRoutes(a, c, 3, 0.5).isEmpty());
+        assertTrue(deliveryGraph.getAlternativeRoutes(a, b, 0, 0.5).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getAlternativeRoutes(a, b, 3, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getAlternativeRoutes(a, b, 3, 1.5));
+    }
+
+    /**
+     * Comprueba que una ruta vaya del origen al destino por rutas del grafo sin repetir
+     * ubicaciones y que su distancia sea la suma de sus tramos.
+     */
+    private static void assertSimplePath(DeliveryGraph deliveryGraph, RoutePath route, Location source,
+                                         Location target, String context) {
+        List<Location> vertices = route.getVertices();
+        assertEquals(source, vertices.get(0), context);
+        assertEquals(target, vertices.get(vertices.size() - 1), context);
+        assertEquals(vertices.size(), new HashSet<>(vertices).size(), context + ": la ruta repite ubicaciones");
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double total = 0;
+        for (int leg = 0; leg < route.getLegCount(); leg++) {
+            DefaultWeightedEdge edge = graph.getEdge(vertices.get(leg), vertices.get(leg + 1));
+            assertNotNull(edge, context + ": el tramo " + leg + " no es una ruta del grafo");
+            assertEquals(graph.getEdgeWeight(edge), route.getLegDistance(leg), 0.0, context + ", tramo " + leg);
+            total += route.getLegDistance(leg);
+        }
+        assertEquals(route.getWeight(), total, tolerance(total), context + ": suma de tramos");
+    }
+
+    private static Set<String> edgeKeys(RoutePath route) {
+        Set<String> edges = new HashSet<>();
+        List<Location> vertices = route.getVertices();
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            edges.add(edgeKey(vertices.get(i), vertices.get(i + 1)));
+        }
+        return edges;
+    }
+
+    private static double sharedDistance(RoutePath route, Set<String> edges) {
+        List<Location> vertices = route.getVertices();
+        double shared = 0;
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            if (edges.contains(edgeKey(vertices.get(i), vertices.get(i + 1)))) {
+                shared += route.getLegDistance(i);
+            }
+        }
+        return shared;
+    }
+
+    private static String edgeKey(Location a, Location b) {
+        return a.getName().compareTo(b.getName()) < 0 ? a.getName() + "|" + b.getName() : b.getName() + "|" + a.getName();
+    }
+
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        return RandomGraphs.build(deliveryGraph, seed, LOCATIONS, ROUTES,
+                (graph, from, to, random) -> graph.addRoute(from, to, 1 + random.nextInt(100)));
+    }
+}
@@ -0,0 +1,192 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de la validación de {@link CompactGraph#fromEdges} y del formato binario que escribe
+ * {@link CompactGraph#writeTo} y lee {@link CompactGraph#map}.
+ */
+class CompactGraphTest {
+
+    private static final Location[] LOCATIONS = {new Location("Tunja"), new Location("Paipa"), new Location("Duitama")};
+    private static final long[] SEEDS = {3, 21, 58};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fromEdgesRejectsNonFiniteValues() {
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{Double.POSITIVE_INFINITY}, null, null);
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{Double.NaN}, null, null);
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{-1}, null, null);
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{1}, new double[]{Double.POSITIVE_INFINITY},
+                new double[]{1});
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{1}, new double[]{1},
+                new double[]{Double.POSITIVE_INFINITY});
+        assertRejected(new int[]{0}, new int[]{1}, new double[]{1}, new double[]{-1}, new double[]{1});
+    }
+
+    @Test
+    void fromEdgesRejectsUnknownLocations() {
+        assertRejected(new int[]{0}, new int[]{3}, new double[]{1}, null, null);
+        assertRejected(new int[]{-1}, new int[]{1}, new double[]{1}, null, null);
+    }
+
+    @Test
+    void fromEdgesAcceptsDerivedAttributes() {
+        CompactGraph graph = CompactGraph.fromEdges(LOCATIONS, 2, new int[]{0, 1}, new int[]{1, 2},
+                new double[]{41.5, 13.2}, new double[]{Double.NaN, 1000}, new double[]{Double.NaN, 0.25});
+        assertEquals(3, graph.vertexCount());
+        assertEquals(4, graph.arcCount());
+    }
+
+    @Test
+    void mappedGraphMatchesWrittenGraph() throws IOException {
+        for (long seed : SEEDS) {
+            CompactGraph graph = randomGraph(seed).getCompactGraph();
+            CompactGraph mapped = CompactGraph.map(roundTrip(graph, "grafo-" + seed + ".bin"));
+            String context = "semilla " + seed;
+
+            assertEquals(graph.vertexCount(), mapped.vertexCount(), context);
+            assertEquals(graph.arcCount(), mapped.arcCount(), context);
+            assertEquals(graph.speedProfileCount(), mapped.speedProfileCount(), context);
+            assertTrue(mapped.isGeographic(), context);
+            assertTrue(mapped.speedProfileCount() > 1, context);
+            assertEquals(graph.fingerprint(), mapped.fingerprint(), context);
+            for (int v = 0; v < graph.vertexCount(); v++) {
+                Location location = graph.location(v);
+                assertEquals(location.getName(), mapped.location(v).getName(), context);
+                assertEquals(location.getLatitude(), mapped.location(v).getLatitude(), context);
+                assertEquals(location.getLongitude(), mapped.location(v).getLongitude(), context);
+                assertEquals(v, mapped.indexOf(location), context + ", " + location);
+                assertEquals(graph.firstArc(v), mapped.firstArc(v), context);
+                assertEquals(graph.endArc(v), mapped.endArc(v), context);
+            }
+            for (int arc = 0; arc < graph.arcCount(); arc++) {
+                assertEquals(graph.target(arc), mapped.target(arc), context + ", arco " + arc);
+                assertEquals(graph.weight(arc), mapped.weight(arc), 0.0, context + ", arco " + arc);
+                assertEquals(graph.cost(arc), mapped.cost(arc), 0.0, context + ", arco " + arc);
+                assertEquals(graph.time(arc), mapped.time(arc), 0.0, context + ", arco " + arc);
+                assertEquals(graph.speedProfile(arc), mapped.speedProfile(arc), context + ", arco " + arc);
+                assertEquals(graph.arrivalTime(arc, 7.5), mapped.arrivalTime(arc, 7.5), 0.0, context + ", arco " + arc);
+            }
+            assertEquals(-1, mapped.indexOf(new Location("Fuera")), context);
+        }
+    }
+
+    @Test
+    void mapRejectsDamagedFiles() throws IOException {
+        ByteBuffer file = roundTrip(randomGraph(SEEDS[0]).getCompactGraph(), "grafo.bin");
+        ByteBuffer truncated = file.duplicate();
+        truncated.limit(file.capacity() / 2);
+        assertThrows(IOException.class, () -> CompactGraph.map(truncated.slice()));
+
+        ByteBuffer wrongMagic = ByteBuffer.allocate(file.capacity()).put(file.duplicate());
+        wrongMagic.put(0, (byte) (wrongMagic.get(0) ^ 0xFF));
+        assertThrows(IOException.class, () -> CompactGraph.map(wrongMagic));
+        assertThrows(IOException.class, () -> CompactGraph.map(ByteBuffer.allocate(8)));
+    }
+
+    @Test
+    void mapRejectsDamagedLocationTables() throws IOException {
+        ByteBuffer file = roundTrip(randomGraph(SEEDS[1]).getCompactGraph(), "grafo.bin")
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int n = file.getInt(8);
+        int capacity = file.getInt(28);
+        int names = file.capacity() - (int) file.getLong(32);
+        int slots = names - Integer.BYTES * capacity;
+        int nameOffsets = slots - ((Integer.BYTES * (n + 1) + 7) & ~7);
+
+        ByteBuffer full = copy(file);
+        for (int slot = 0; slot < capacity; slot++) {
+            full.putInt(slots + Integer.BYTES * slot, 1);
+        }
+        assertThrows(IOException.class, () -> CompactGraph.map(full));
+
+        ByteBuffer outOfRange = copy(file);
+        outOfRange.putInt(slots, n + 1);
+        assertThrows(IOException.class, () -> CompactGraph.map(outOfRange));
+
+        ByteBuffer unordered = copy(file);
+        unordered.putInt(nameOffsets + Integer.BYTES, unordered.getInt(nameOffsets + 2 * Integer.BYTES) + 1);
+        assertThrows(IOException.class, () -> CompactGraph.map(unordered));
+
+        ByteBuffer overflowing = copy(file);
+        overflowing.putInt(nameOffsets + Integer.BYTES * n, names);
+        assertThrows(IOException.class, () -> CompactGraph.map(overflowing));
+    }
+
+    private static ByteBuffer copy(ByteBuffer file) {
+        return ByteBuffer.allocate(file.capacity()).order(ByteOrder.LITTLE_ENDIAN).put(file.duplicate());
+    }
+
+    /**
+     * Escribe el grafo en un archivo y lo proyecta en memoria como lo hace la persistencia.
+     */
+    private ByteBuffer roundTrip(CompactGraph graph, String name) throws IOException {
+        Path file = directory.resolve(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            graph.writeTo(channel);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Grafo con coordenadas, nombres no ASCII, atributos propios en parte de las rutas y algunos
+     * perfiles de velocidad repetidos.
+     */
+    private static DeliveryGraph randomGraph(long seed) {
+        Random random = new Random(seed);
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Location location = new Location("Ubicación " + i + (i % 7 == 0 ? " – Boyacá" : ""),
+                    4 + random.nextDouble(), -74 + random.nextDouble());
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+        }
+        SpeedProfile[] profiles = {
+                new SpeedProfile(new double[]{0, 7, 9, 17, 19}, new double[]{60, 25, 50, 20, 60}),
+                SpeedProfile.constant(35)
+        };
+        for (int i = 0; i < 150; i++) {
+            Location from = locations.get(random.nextInt(locations.size()));
+            Location to = locations.get(random.nextInt(locations.size()));
+            if (from == to || deliveryGraph.getGraph().getEdge(from, to) != null) {
+                continue;
+            }
+            deliveryGraph.addRoute(from, to, 0.5 + 40 * random.nextDouble());
+            if (random.nextInt(3) == 0) {
+                deliveryGraph.setRouteAttributes(from, to,
+                        new RouteAttributes(random.nextDouble() * 20000, random.nextDouble() * 2));
+            }
+            if (random.nextInt(4) == 0) {
+                deliveryGraph.setRouteProfile(from, to, profiles[random.nextInt(profiles.length)]);
+            }
+        }
+        return deliveryGraph;
+    }
+
+    private static void assertRejected(int[] sources, int[] targets, double[] distances, double[] costs,
+                                       double[] times) {
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactGraph.fromEdges(LOCATIONS, sources.length, sources, targets, distances, costs, times));
+    }
+}
@@ -0,0 +1,38 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la vista del grafo que expone {@link DeliveryGraph}.
+ */
+class DeliveryGraphTest {
+
+    @Test
+    void graphViewRejectsModifications() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location tunja = new Location("Tunja");
+        Location paipa = new Location("Paipa");
+        Location duitama = new Location("Duitama");
+        deliveryGraph.addLocation(tunja);
+        deliveryGraph.addLocation(paipa);
+        deliveryGraph.addLocation(duitama);
+        deliveryGraph.addRoute(tunja, paipa, 41.5);
+        long version = deliveryGraph.getVersion();
+
+        Graph<Location, DefaultWeightedEdge> view = deliveryGraph.getGraph();
+        DefaultWeightedEdge edge = view.getEdge(tunja, paipa);
+        assertEquals(41.5, view.getEdgeWeight(edge), 0.0);
+        assertThrows(UnsupportedOperationException.class, () -> view.addEdge(paipa, duitama));
+        assertThrows(UnsupportedOperationException.class, () -> view.setEdgeWeight(edge, 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> view.setEdgeWeight(tunja, paipa, 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> view.removeVertex(tunja));
+
+        assertEquals(version, deliveryGraph.getVersion());
+        assertEquals(41.5, deliveryGraph.getShortestPathWeight(tunja, paipa), 0.0);
+    }
+}
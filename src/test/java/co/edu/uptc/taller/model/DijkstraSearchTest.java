@@ -0,0 +1,63 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del espacio de trabajo por hilo de {@link DijkstraSearch}, que se reutiliza entre
+ * grafos de distinto tamaño.
+ */
+class DijkstraSearchTest {
+
+    @Test
+    void threadWorkspaceHandlesGraphsOfDifferentSizes() {
+        // El primer grafo reserva el espacio de trabajo sin búsqueda a varios destinos; las
+        // marcas de destinos se crean después con un grafo más pequeño.
+        DijkstraSearch.forThread(randomGraph(100, new Random(1))).runAll(0);
+        int[] sizes = {50, 80, 100, 20, 120, 90};
+        Random random = new Random(13);
+        for (int size : sizes) {
+            CompactGraph graph = randomGraph(size, random);
+            int source = random.nextInt(size);
+            int[] targets = new int[size];
+            for (int v = 0; v < size; v++) {
+                targets[v] = v;
+            }
+            DijkstraSearch reference = new DijkstraSearch(graph);
+            reference.runAll(source);
+
+            DijkstraSearch search = DijkstraSearch.forThread(graph);
+            search.runToAll(source, targets);
+            for (int v = 0; v < size; v++) {
+                assertEquals(reference.distance(v), search.distance(v), "grafo de " + size + ", vértice " + v);
+            }
+
+            int target = size - 1;
+            assertEquals(reference.distance(target), DijkstraSearch.forThread(graph).run(source, target),
+                    "grafo de " + size + ", destino " + target);
+        }
+    }
+
+    private static CompactGraph randomGraph(int size, Random random) {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Location location = new Location("L" + i);
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+        }
+        for (int i = 0; i < size * 3; i++) {
+            Location from = locations.get(random.nextInt(size));
+            Location to = locations.get(random.nextInt(size));
+            if (from != to) {
+                deliveryGraph.addRoute(from, to, 1 + random.nextInt(100));
+            }
+        }
+        return deliveryGraph.getCompactGraph();
+    }
+}
@@ -0,0 +1,145 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Aplica lotes aleatorios de cambios de rutas y compara el árbol reparado con el que se
+ * calcula desde cero sobre el grafo nuevo.
+ */
+class DynamicShortestPathTreeTest {
+
+    private static final long[] SEEDS = {3, 11, 29};
+    private static final int LOCATIONS = 300;
+    private static final int ROUTES = 900;
+    private static final int BATCHES = 120;
+
+    @Test
+    void repairedTreeMatchesRebuiltTree() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = new ArrayList<>();
+            for (int i = 0; i < LOCATIONS; i++) {
+                Location location = new Location("L" + i);
+                locations.add(location);
+                deliveryGraph.addLocation(location);
+            }
+            List<Location[]> routes = new ArrayList<>();
+            for (int i = 0; i < ROUTES; i++) {
+                addRandomRoute(deliveryGraph, locations, routes, random, new ArrayList<>());
+            }
+
+            Location source = locations.get(0);
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            DynamicShortestPathTree tree = DynamicShortestPathTree.build(graph, graph.indexOf(source));
+            DynamicTreeStatistics statistics = new DynamicTreeStatistics();
+            for (int batch = 0; batch < BATCHES; batch++) {
+                List<RouteChange> changes = new ArrayList<>();
+                int size = 1 + random.nextInt(batch % 4 == 0 ? 10 : 3);
+                for (int i = 0; i < size; i++) {
+                    applyRandomChange(deliveryGraph, locations, routes, random, changes, batch);
+                }
+
+                graph = deliveryGraph.getCompactGraph();
+                tree = tree.update(graph, changes, statistics);
+                DynamicShortestPathTree expected = DynamicShortestPathTree.build(graph, graph.indexOf(source));
+                assertSameTree(deliveryGraph, expected.toTree(), tree.toTree(),
+                        "semilla " + seed + ", lote " + batch + " " + describe(changes));
+            }
+        }
+    }
+
+    /**
+     * Aplica un cambio aleatorio al grafo y registra el {@link RouteChange} equivalente al que
+     * registra {@link DeliveryGraph}.
+     */
+    private static void applyRandomChange(DeliveryGraph deliveryGraph, List<Location> locations,
+                                          List<Location[]> routes, Random random, List<RouteChange> changes,
+                                          int batch) {
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        int operation = random.nextInt(10);
+        if (operation < 2 && !routes.isEmpty()) {
+            Location[] route = routes.remove(random.nextInt(routes.size()));
+            double old = graph.getEdgeWeight(graph.getEdge(route[0], route[1]));
+            deliveryGraph.removeRoute(route[0], route[1]);
+            changes.add(new RouteChange(route[0], route[1], old, Double.NaN));
+        } else if (operation < 4) {
+            addRandomRoute(deliveryGraph, locations, routes, random, changes);
+        } else if (operation == 4) {
+            Location location = new Location("N" + batch + "_" + locations.size());
+            deliveryGraph.addLocation(location);
+            locations.add(location);
+            addRoute(deliveryGraph, location, locations.get(random.nextInt(locations.size() - 1)),
+                    1 + random.nextInt(50), routes, changes);
+        } else if (!routes.isEmpty()) {
+            Location[] route = routes.get(random.nextInt(routes.size()));
+            double old = graph.getEdgeWeight(graph.getEdge(route[0], route[1]));
+            double distance = random.nextBoolean() ? 1 + random.nextInt(100) : old * (0.5 + random.nextDouble());
+            if (distance != old) {
+                deliveryGraph.updateRouteWeight(route[0], route[1], distance);
+                changes.add(new RouteChange(route[0], route[1], old, distance));
+            }
+        }
+    }
+
+    private static void addRandomRoute(DeliveryGraph deliveryGraph, List<Location> locations,
+                                       List<Location[]> routes, Random random, List<RouteChange> changes) {
+        Location from = locations.get(random.nextInt(locations.size()));
+        Location to = locations.get(random.nextInt(locations.size()));
+        if (from != to && deliveryGraph.getGraph().getEdge(from, to) == null) {
+            addRoute(deliveryGraph, from, to, 1 + random.nextInt(100), routes, changes);
+        }
+    }
+
+    private static void addRoute(DeliveryGraph deliveryGraph, Location from, Location to, double distance,
+                                 List<Location[]> routes, List<RouteChange> changes) {
+        deliveryGraph.addRoute(from, to, distance);
+        routes.add(new Location[]{from, to});
+        changes.add(new RouteChange(from, to, Double.NaN, distance));
+    }
+
+    /**
+     * Compara las distancias de dos árboles y comprueba que cada predecesor del árbol reparado
+     * esté unido a su vértice por una ruta que explica la distancia; con empates, los
+     * predecesores pueden diferir del árbol calculado desde cero.
+     */
+    private static void assertSameTree(DeliveryGraph deliveryGraph, ShortestPathTree expected,
+                                       ShortestPathTree actual, String context) {
+        CompactGraph graph = expected.graph();
+        Graph<Location, DefaultWeightedEdge> routes = deliveryGraph.getGraph();
+        for (int v = 0; v < graph.vertexCount(); v++) {
+            double distance = expected.distance(v);
+            assertEquals(distance, actual.distance(v), 1e-9 * Math.max(1, distance),
+                    context + ", vértice " + graph.location(v));
+            int predecessor = actual.predecessor(v);
+            if (Double.isInfinite(distance) || predecessor < 0) {
+                assertTrue(Double.isInfinite(distance) || v == graph.indexOf(expected.getSource()),
+                        context + ": falta el predecesor de " + graph.location(v));
+                continue;
+            }
+            DefaultWeightedEdge edge = routes.getEdge(graph.location(predecessor), graph.location(v));
+            assertNotNull(edge, context + ": el predecesor de " + graph.location(v) + " no es vecino");
+            assertEquals(distance, actual.distance(predecessor) + routes.getEdgeWeight(edge),
+                    1e-9 * Math.max(1, distance), context + ", arista del árbol hacia " + graph.location(v));
+        }
+    }
+
+    private static String describe(List<RouteChange> changes) {
+        StringBuilder out = new StringBuilder("[");
+        for (RouteChange change : changes) {
+            out.append(change.getFrom()).append('-').append(change.getTo()).append(": ")
+                    .append(change.getOldDistance()).append(" -> ").append(change.getNewDistance()).append("; ");
+        }
+        return out.append(']').toString();
+    }
+}
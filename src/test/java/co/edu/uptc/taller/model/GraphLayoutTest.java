@@ -0,0 +1,248 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graphs;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link GraphLayout}: la proyección de las coordenadas, la calidad y el determinismo
+ * de la disposición por fuerzas, su reutilización entre versiones del grafo y su formato binario.
+ */
+class GraphLayoutTest {
+
+    private static final long[] SEEDS = {5, 23, 71};
+    private static final int SIDE = 12;
+
+    @Test
+    void coordinatesAreProjectedWithOneScale() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed, 40, 1.0);
+            GraphLayout layout = deliveryGraph.getGraphLayout();
+            assertProjected(deliveryGraph.getCompactGraph(), layout, locations, "semilla " + seed);
+        }
+    }
+
+    @Test
+    void locationsWithCoordinatesStayPinned() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed, 40, 0.5);
+            List<Location> pinned = new ArrayList<>();
+            for (Location location : locations) {
+                if (location.hasCoordinates()) {
+                    pinned.add(location);
+                }
+            }
+            assertTrue(pinned.size() >= 2 && pinned.size() < locations.size());
+            GraphLayout layout = deliveryGraph.getGraphLayout();
+            assertInsideCanvas(layout, "semilla " + seed);
+            assertProjected(deliveryGraph.getCompactGraph(), layout, pinned, "semilla " + seed);
+        }
+    }
+
+    @Test
+    void forceDirectedLayoutIsDeterministicAndUntangled() {
+        CompactGraph graph = grid();
+        GraphLayout layout = GraphLayout.build(graph);
+        GraphLayout again = GraphLayout.build(graph);
+        int n = graph.vertexCount();
+        assertEquals(n, layout.size());
+        assertInsideCanvas(layout, "cuadrícula");
+        for (int v = 0; v < n; v++) {
+            assertEquals(layout.getX(v), again.getX(v), 0.0);
+            assertEquals(layout.getY(v), again.getY(v), 0.0);
+        }
+
+        // Las vecinas quedan mucho más cerca que un par cualquiera y ninguna ubicación se superpone.
+        double edgeLength = 0;
+        int edges = 0;
+        for (int u = 0; u < n; u++) {
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                edgeLength += distance(layout, u, graph.target(arc));
+                edges++;
+            }
+        }
+        double pairDistance = 0;
+        double closest = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                double d = distance(layout, u, v);
+                pairDistance += d;
+                closest = Math.min(closest, d);
+            }
+        }
+        edgeLength /= edges;
+        pairDistance /= n * (n - 1) / 2.0;
+        assertTrue(edgeLength < 0.3 * pairDistance, "arista media " + edgeLength + ", par medio " + pairDistance);
+        assertTrue(closest > 0.1 * edgeLength, "par más cercano " + closest);
+    }
+
+    @Test
+    void layoutIsReusedAcrossVersions() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, SEEDS[0], 40, 0.0);
+        GraphLayout layout = deliveryGraph.getGraphLayout();
+        assertSame(layout, deliveryGraph.getGraphLayout());
+
+        Location from = locations.get(0);
+        Location to = Graphs.neighborListOf(deliveryGraph.getGraph(), from).get(0);
+        deliveryGraph.updateRouteWeight(from, to, 999);
+        GraphLayout reweighted = deliveryGraph.getGraphLayout();
+        assertTrue(reweighted.isBuiltFor(deliveryGraph.getCompactGraph()));
+        for (int v = 0; v < layout.size(); v++) {
+            assertEquals(layout.getX(v), reweighted.getX(v), 0.0, "solo cambió una distancia");
+            assertEquals(layout.getY(v), reweighted.getY(v), 0.0, "solo cambió una distancia");
+        }
+
+        Location far = locations.get(locations.size() - 1);
+        if (deliveryGraph.getGraph().getEdge(from, far) == null) {
+            deliveryGraph.addRoute(from, far, 5);
+        } else {
+            deliveryGraph.removeRoute(from, far);
+        }
+        GraphLayout refined = deliveryGraph.getGraphLayout();
+        assertTrue(refined.isBuiltFor(deliveryGraph.getCompactGraph()));
+        assertInsideCanvas(refined, "tras cambiar una ruta");
+
+        deliveryGraph.addLocation(new Location("Nueva"));
+        assertEquals(locations.size() + 1, deliveryGraph.getGraphLayout().size());
+    }
+
+    @Test
+    void savedLayoutRoundTrips() throws IOException {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        randomGraph(deliveryGraph, SEEDS[1], 30, 0.3);
+        GraphLayout layout = deliveryGraph.getGraphLayout();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        layout.writeTo(new DataOutputStream(bytes));
+
+        GraphLayout read = GraphLayout.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                deliveryGraph.getCompactGraph());
+        assertTrue(read.isBuiltFor(deliveryGraph.getCompactGraph()));
+        for (int v = 0; v < layout.size(); v++) {
+            assertEquals(layout.getX(v), read.getX(v), 0.0);
+            assertEquals(layout.getY(v), read.getY(v), 0.0);
+        }
+        deliveryGraph.setGraphLayout(read);
+        assertSame(read, deliveryGraph.getGraphLayout());
+
+        DeliveryGraph other = new DeliveryGraph();
+        randomGraph(other, SEEDS[2], 30, 0.3);
+        assertThrows(IOException.class, () -> GraphLayout.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), other.getCompactGraph()));
+        assertThrows(IllegalArgumentException.class, () -> other.setGraphLayout(read));
+
+        byte[] damaged = bytes.toByteArray();
+        damaged[0] = (byte) (damaged[0] ^ 0xFF);
+        assertThrows(IOException.class, () -> GraphLayout.readFrom(
+                new DataInputStream(new ByteArrayInputStream(damaged)), deliveryGraph.getCompactGraph()));
+    }
+
+    /**
+     * Comprueba que las ubicaciones indicadas están en la proyección equirrectangular de sus
+     * coordenadas, trasladada y escalada por igual en ambos ejes.
+     */
+    private static void assertProjected(CompactGraph graph, GraphLayout layout, List<Location> locations,
+                                        String context) {
+        double latitudeSum = 0;
+        for (Location location : locations) {
+            latitudeSum += location.getLatitude();
+        }
+        double cosine = Math.cos(Math.toRadians(latitudeSum / locations.size()));
+        int a = graph.indexOf(locations.get(0));
+        Location first = locations.get(0);
+        Location farthest = first;
+        for (Location location : locations) {
+            if (Math.abs(location.getLongitude() - first.getLongitude())
+                    > Math.abs(farthest.getLongitude() - first.getLongitude())) {
+                farthest = location;
+            }
+        }
+        int b = graph.indexOf(farthest);
+        double scale = (layout.getX(b) - layout.getX(a)) / ((farthest.getLongitude() - first.getLongitude()) * cosine);
+        assertTrue(scale > 0, context);
+        for (Location location : locations) {
+            int v = graph.indexOf(location);
+            double x = layout.getX(a) + (location.getLongitude() - first.getLongitude()) * cosine * scale;
+            double y = layout.getY(a) - (location.getLatitude() - first.getLatitude()) * scale;
+            assertEquals(x, layout.getX(v), 1e-6, context + ", " + location);
+            assertEquals(y, layout.getY(v), 1e-6, context + ", " + location);
+        }
+    }
+
+    private static void assertInsideCanvas(GraphLayout layout, String context) {
+        for (int v = 0; v < layout.size(); v++) {
+            assertTrue(layout.getX(v) >= 0 && layout.getX(v) <= GraphLayout.WIDTH, context + ", x de " + v);
+            assertTrue(layout.getY(v) >= 0 && layout.getY(v) <= GraphLayout.HEIGHT, context + ", y de " + v);
+        }
+    }
+
+    private static double distance(GraphLayout layout, int u, int v) {
+        return Math.hypot(layout.getX(u) - layout.getX(v), layout.getY(u) - layout.getY(v));
+    }
+
+    private static CompactGraph grid() {
+        int n = SIDE * SIDE;
+        Location[] locations = new Location[n];
+        int[] sources = new int[2 * n];
+        int[] targets = new int[2 * n];
+        double[] distances = new double[2 * n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            locations[v] = new Location("L" + v);
+            if (v % SIDE + 1 < SIDE) {
+                sources[count] = v;
+                targets[count] = v + 1;
+                distances[count++] = 1;
+            }
+            if (v + SIDE < n) {
+                sources[count] = v;
+                targets[count] = v + SIDE;
+                distances[count++] = 1;
+            }
+        }
+        return CompactGraph.fromEdges(locations, count, sources, targets, distances, null, null);
+    }
+
+    /**
+     * Grafo conexo aleatorio en el que cada ubicación tiene coordenadas con la probabilidad
+     * indicada.
+     */
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed, int size,
+                                              double withCoordinates) {
+        Random random = new Random(seed);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Location location = random.nextDouble() < withCoordinates
+                    ? new Location("L" + i, 4 + 2 * random.nextDouble(), -75 + 2 * random.nextDouble())
+                    : new Location("L" + i);
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+        }
+        for (int i = 1; i < size; i++) {
+            deliveryGraph.addRoute(locations.get(i), locations.get(random.nextInt(i)), 1 + random.nextInt(40));
+        }
+        for (int i = 0; i < size; i++) {
+            Location from = locations.get(random.nextInt(size));
+            Location to = locations.get(random.nextInt(size));
+            if (from != to && deliveryGraph.getGraph().getEdge(from, to) == null) {
+                deliveryGraph.addRoute(from, to, 1 + random.nextInt(40));
+            }
+        }
+        return locations;
+    }
+}
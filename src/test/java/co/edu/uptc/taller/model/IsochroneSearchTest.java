@@ -0,0 +1,139 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara las isocronas con las distancias, costos y tiempos mínimos calculados por
+ * relajación hasta el punto fijo sobre grafos aleatorios con semilla fija.
+ *
+ * <p>Los valores son enteros para que el presupuesto se pueda fijar exactamente en el valor de
+ * una ubicación y comprobar que es inclusivo.</p>
+ */
+class IsochroneSearchTest {
+
+    private static final long[] SEEDS = {4, 19, 37};
+    private static final int LOCATIONS = 100;
+    private static final int ROUTES = 250;
+    private static final int QUERIES = 20;
+    private static final RouteCriterion[] CRITERIA = {RouteCriterion.DISTANCE, RouteCriterion.COST, RouteCriterion.TIME};
+
+    @Test
+    void isochroneMatchesFixedPoint() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            Random random = new Random(seed + 1);
+            for (int i = 0; i < QUERIES; i++) {
+                Location source = locations.get(random.nextInt(locations.size()));
+                for (RouteCriterion criterion : CRITERIA) {
+                    double[] minimum = minimumValues(deliveryGraph, locations, source, criterion);
+                    double[] finite = Arrays.stream(minimum).filter(v -> v < Double.POSITIVE_INFINITY).sorted().toArray();
+                    double budget = finite[random.nextInt(finite.length)];
+                    String context = "semilla " + seed + ", " + criterion + ", " + source + " <= " + budget;
+
+                    Isochrone isochrone = deliveryGraph.getIsochrone(source, criterion, budget);
+                    assertEquals(source, isochrone.getLocations().get(0), context);
+                    double[] values = isochrone.getValues();
+                    for (int k = 1; k < values.length; k++) {
+                        assertTrue(values[k - 1] <= values[k], context + ": valores desordenados");
+                    }
+                    int expectedSize = 0;
+                    for (int v = 0; v < locations.size(); v++) {
+                        Location location = locations.get(v);
+                        boolean reachable = minimum[v] <= budget;
+                        assertEquals(reachable, isochrone.contains(location), context + ", " + location);
+                        if (reachable) {
+                            expectedSize++;
+                            assertEquals(minimum[v], isochrone.getValue(location), 0.0, context + ", " + location);
+                        } else {
+                            assertEquals(Double.POSITIVE_INFINITY, isochrone.getValue(location), context + ", " + location);
+                        }
+                    }
+                    assertEquals(expectedSize, isochrone.size(), context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void zeroBudgetReachesOnlyTheSource() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, 8);
+        Isochrone isochrone = deliveryGraph.getIsochrone(locations.get(0), RouteCriterion.DISTANCE, 0);
+        assertEquals(List.of(locations.get(0)), isochrone.getLocations());
+        assertEquals(0.0, isochrone.getValue(locations.get(0)), 0.0);
+    }
+
+    @Test
+    void invalidBudgetsAreRejected() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, 8);
+        Location source = locations.get(0);
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getIsochrone(source, RouteCriterion.DISTANCE, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> deliveryGraph.getIsochrone(source, RouteCriterion.DISTANCE, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getIsochrone(source, RouteCriterion.BALANCED, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> deliveryGraph.getIsochrone(new Location("Fuera"), RouteCriterion.DISTANCE, 10));
+    }
+
+    /**
+     * Calcula el mínimo del criterio hasta cada ubicación relajando todas las rutas hasta que
+     * ningún valor mejore.
+     */
+    private static double[] minimumValues(DeliveryGraph deliveryGraph, List<Location> locations, Location source,
+                                          RouteCriterion criterion) {
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double[] minimum = new double[locations.size()];
+        Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+        minimum[locations.indexOf(source)] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (DefaultWeightedEdge edge : graph.edgeSet()) {
+                int u = locations.indexOf(graph.getEdgeSource(edge));
+                int v = locations.indexOf(graph.getEdgeTarget(edge));
+                double value = value(deliveryGraph, graph, edge, criterion);
+                if (minimum[u] + value < minimum[v]) {
+                    minimum[v] = minimum[u] + value;
+                    changed = true;
+                }
+                if (minimum[v] + value < minimum[u]) {
+                    minimum[u] = minimum[v] + value;
+                    changed = true;
+                }
+            }
+        }
+        return minimum;
+    }
+
+    private static double value(DeliveryGraph deliveryGraph, Graph<Location, DefaultWeightedEdge> graph,
+                                DefaultWeightedEdge edge, RouteCriterion criterion) {
+        RouteAttributes attributes = deliveryGraph.getRouteAttributes(graph.getEdgeSource(edge), graph.getEdgeTarget(edge));
+        switch (criterion) {
+            case COST:
+                return attributes.getCost();
+            case TIME:
+                return attributes.getTime();
+            default:
+                return graph.getEdgeWeight(edge);
+        }
+    }
+
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        return RandomGraphs.build(deliveryGraph, seed, LOCATIONS, ROUTES, (graph, from, to, random) -> {
+            graph.addRoute(from, to, 1 + random.nextInt(50));
+            graph.setRouteAttributes(from, to, new RouteAttributes(random.nextInt(5000), 1 + random.nextInt(6)));
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la validación de coordenadas de {@link Location}.
+ */
+class LocationTest {
+
+    @Test
+    void constructorRejectsNonFiniteCoordinates() {
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", Double.NaN, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", 5.5, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", Double.NaN, -73.4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Location("Tunja", Double.POSITIVE_INFINITY, -73.4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Location("Tunja", 5.5, Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    void constructorRejectsOutOfRangeCoordinates() {
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", 90.5, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", 0.0, -180.5));
+        assertThrows(IllegalArgumentException.class, () -> new Location("Tunja", 5.5, null));
+    }
+
+    @Test
+    void jsonWithNaNCoordinatesIsRejected() {
+        ObjectMapper mapper = JsonMapper.builder().enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS).build();
+        assertThrows(ValueInstantiationException.class,
+                () -> mapper.readValue("{\"name\":\"Tunja\",\"latitude\":NaN,\"longitude\":NaN}", Location.class));
+    }
+
+    @Test
+    void validCoordinatesAreKept() throws Exception {
+        Location location = new ObjectMapper()
+                .readValue("{\"name\":\"Tunja\",\"latitude\":5.53,\"longitude\":-73.36}", Location.class);
+        assertEquals("Tunja", location.getName());
+        assertEquals(5.53, location.getLatitude(), 0.0);
+        assertEquals(-73.36, location.getLongitude(), 0.0);
+    }
+}
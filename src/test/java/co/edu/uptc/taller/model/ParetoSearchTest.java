@@ -0,0 +1,166 @@
+package co.edu.uptc.taller.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara el frente de Pareto de la búsqueda multi-etiqueta con el que se obtiene enumerando
+ * todos los caminos simples en grafos pequeños con semilla fija.
+ *
+ * <p>Los pesos son enteros para que las sumas sean exactas y los empates se comparen sin
+ * tolerancia.</p>
+ */
+class ParetoSearchTest {
+
+    private static final int LOCATIONS = 9;
+    private static final int ROUTES = 18;
+    private static final int GRAPHS = 40;
+    private static final int UNLIMITED_LABELS = 1 << 16;
+
+    @Test
+    void frontierMatchesExhaustiveEnumeration() {
+        for (long seed = 1; seed <= GRAPHS; seed++) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            Random random = new Random(seed + 100);
+            for (int i = 0; i < 4; i++) {
+                Location source = locations.get(random.nextInt(LOCATIONS));
+                Location target = locations.get(random.nextInt(LOCATIONS));
+                if (source.equals(target)) {
+                    continue;
+                }
+                String context = "grafo " + seed + ", " + source + " -> " + target;
+                Set<String> expected = exhaustiveFrontier(deliveryGraph, source, target);
+                List<ParetoRoute> routes = deliveryGraph.getParetoRoutes(source, target, UNLIMITED_LABELS);
+
+                Set<String> actual = new TreeSet<>();
+                double previous = 0;
+                for (ParetoRoute route : routes) {
+                    assertRouteTotals(deliveryGraph, route, source, target, context);
+                    assertTrue(route.getDistance() >= previous, context + ": orden por distancia");
+                    previous = route.getDistance();
+                    actual.add(key(route.getDistance(), route.getCost(), route.getTime()));
+                }
+                assertEquals(routes.size(), actual.size(), context + ": rutas repetidas en el frente");
+                assertEquals(expected, actual, context);
+            }
+        }
+    }
+
+    @Test
+    void boundedLabelsReturnOnlyNonDominatedRoutes() {
+        for (long seed = 1; seed <= GRAPHS; seed++) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            Location source = locations.get(0);
+            Location target = locations.get(LOCATIONS - 1);
+            String context = "grafo " + seed;
+            Set<String> frontier = exhaustiveFrontier(deliveryGraph, source, target);
+            List<ParetoRoute> routes = deliveryGraph.getParetoRoutes(source, target, 2);
+            assertEquals(frontier.isEmpty(), routes.isEmpty(), context);
+            for (ParetoRoute route : routes) {
+                assertRouteTotals(deliveryGraph, route, source, target, context);
+                assertTrue(frontier.contains(key(route.getDistance(), route.getCost(), route.getTime())),
+                        context + ": la ruta " + route.getVertices() + " está dominada");
+            }
+        }
+    }
+
+    /**
+     * Comprueba que la ruta recorra rutas del grafo y que su distancia, costo y tiempo sean la
+     * suma de los de sus tramos.
+     */
+    private static void assertRouteTotals(DeliveryGraph deliveryGraph, ParetoRoute route, Location source,
+                                          Location target, String context) {
+        List<Location> vertices = route.getVertices();
+        assertEquals(source, vertices.get(0), context);
+        assertEquals(target, vertices.get(vertices.size() - 1), context);
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double distance = 0;
+        double cost = 0;
+        double time = 0;
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            DefaultWeightedEdge edge = graph.getEdge(vertices.get(i), vertices.get(i + 1));
+            assertNotNull(edge, context + ": el tramo " + i + " no es una ruta del grafo");
+            RouteAttributes attributes = deliveryGraph.getRouteAttributes(vertices.get(i), vertices.get(i + 1));
+            distance += graph.getEdgeWeight(edge);
+            cost += attributes.getCost();
+            time += attributes.getTime();
+        }
+        assertEquals(distance, route.getDistance(), 0.0, context + ": distancia");
+        assertEquals(cost, route.getCost(), 0.0, context + ": costo");
+        assertEquals(time, route.getTime(), 0.0, context + ": tiempo");
+    }
+
+    /**
+     * Enumera todos los caminos simples entre dos ubicaciones y devuelve los valores de los no
+     * dominados, sin repetir caminos con los mismos valores.
+     */
+    private static Set<String> exhaustiveFrontier(DeliveryGraph deliveryGraph, Location source, Location target) {
+        List<double[]> values = new ArrayList<>();
+        enumerate(deliveryGraph, deliveryGraph.getGraph(), source, target, new HashSet<>(), new double[3], values);
+        Set<String> frontier = new TreeSet<>();
+        for (double[] candidate : values) {
+            boolean dominated = false;
+            for (double[] other : values) {
+                if (other[0] <= candidate[0] && other[1] <= candidate[1] && other[2] <= candidate[2]
+                        && (other[0] < candidate[0] || other[1] < candidate[1] || other[2] < candidate[2])) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated) {
+                frontier.add(key(candidate[0], candidate[1], candidate[2]));
+            }
+        }
+        return frontier;
+    }
+
+    private static void enumerate(DeliveryGraph deliveryGraph, Graph<Location, DefaultWeightedEdge> graph,
+                                  Location current, Location target, Set<Location> visited, double[] totals,
+                                  List<double[]> values) {
+        if (current.equals(target)) {
+            values.add(totals.clone());
+            return;
+        }
+        visited.add(current);
+        for (DefaultWeightedEdge edge : graph.edgesOf(current)) {
+            Location next = graph.getEdgeSource(edge).equals(current) ? graph.getEdgeTarget(edge) : graph.getEdgeSource(edge);
+            if (visited.contains(next)) {
+                continue;
+            }
+            RouteAttributes attributes = deliveryGraph.getRouteAttributes(current, next);
+            double[] extended = {totals[0] + graph.getEdgeWeight(edge), totals[1] + attributes.getCost(),
+                    totals[2] + attributes.getTime()};
+            enumerate(deliveryGraph, graph, next, target, visited, extended, values);
+        }
+        visited.remove(current);
+    }
+
+    private static String key(double distance, double cost, double time) {
+        return distance + "/" + cost + "/" + time;
+    }
+
+    /**
+     * Grafo pequeño con distancias, costos y tiempos enteros independientes, para que los
+     * criterios entren en conflicto.
+     */
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        return RandomGraphs.build(deliveryGraph, seed, LOCATIONS, ROUTES, (graph, from, to, random) -> {
+            graph.addRoute(from, to, 1 + random.nextInt(20));
+            graph.setRouteAttributes(from, to, new RouteAttributes(random.nextInt(10), 1 + random.nextInt(8)));
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package co.edu.uptc.taller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Grafos aleatorios con semilla fija para las pruebas que comparan una búsqueda con una
+ * referencia.
+ *
+ * <p>Alrededor de una de cada treinta ubicaciones, las últimas, queda sin rutas para cubrir los
+ * pares sin camino. Cada prueba indica con un {@link Decorator} la distancia de cada ruta y los
+ * atributos o perfiles que le añade.</p>
+ */
+final class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * Crea cada ruta aleatoria entre dos ubicaciones distintas que aún no estaban unidas.
+     */
+    @FunctionalInterface
+    interface Decorator {
+        void addRoute(DeliveryGraph deliveryGraph, Location from, Location to, Random random);
+    }
+
+    /**
+     * Construye un grafo aleatorio sin coordenadas.
+     *
+     * @return Las ubicaciones en orden de inserción.
+     */
+    static List<Location> build(DeliveryGraph deliveryGraph, long seed, int locations, int routes,
+                                Decorator decorator) {
+        return build(deliveryGraph, new Random(seed), locations, routes, false, decorator);
+    }
+
+    /**
+     * Construye un grafo aleatorio con coordenadas dentro de un grado de latitud y longitud,
+     * para que A* y los perfiles de velocidad trabajen con distancias geográficas reales.
+     *
+     * @return Las ubicaciones en orden de inserción.
+     */
+    static List<Location> buildGeographic(DeliveryGraph deliveryGraph, long seed, int locations, int routes,
+                                          Decorator decorator) {
+        return build(deliveryGraph, new Random(seed), locations, routes, true, decorator);
+    }
+
+    private static List<Location> build(DeliveryGraph deliveryGraph, Random random, int size, int routes,
+                                        boolean geographic, Decorator decorator) {
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Location location = geographic
+                    ? new Location("L" + i, 5 + random.nextDouble(), -74 + random.nextDouble())
+                    : new Location("L" + i);
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+        }
+        int connected = size - size / 30;
+        for (int i = 0; i < routes; i++) {
+            Location from = locations.get(random.nextInt(connected));
+            Location to = locations.get(random.nextInt(connected));
+            if (from != to && deliveryGraph.getGraph().getEdge(from, to) == null) {
+                decorator.addRoute(deliveryGraph, from, to, random);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Distancia aleatoria entre la distancia en línea recta y el doble de ella, que mantiene
+     * admisible la cota geográfica.
+     */
+    static double detour(Location from, Location to, Random random) {
+        return GeoDistance.haversineKm(from, to) * (1 + random.nextDouble());
+    }
+
+    /**
+     * Tolerancia relativa para comparar sumas de distancias hechas en distinto orden.
+     */
+    static double tolerance(double expected) {
+        return 1e-9 * Math.max(1, Math.abs(expected));
+    }
+}
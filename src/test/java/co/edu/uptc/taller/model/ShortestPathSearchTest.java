@@ -0,0 +1,167 @@
+package co.edu.uptc.taller.model;
+
+import static co.edu.uptc.taller.model.RandomGraphs.tolerance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara los modos de búsqueda acelerados y la matriz de distancias con un Dijkstra simple
+ * sobre grafos aleatorios con semilla fija.
+ *
+ * <p>Además de la distancia, se comprueba que cada ruta devuelta sea un camino del grafo
+ * original: en la jerarquía de contracción eso verifica que los atajos se desempaquetan por
+ * completo.</p>
+ */
+class ShortestPathSearchTest {
+
+    private static final long[] SEEDS = {1, 7, 42};
+    private static final int LOCATIONS = 150;
+    private static final int ROUTES = 450;
+    private static final int QUERIES = 300;
+
+    @Test
+    void distanceMatrixRejectsSizesThatOverflow() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location location = new Location("Tunja");
+        deliveryGraph.addLocation(location);
+        List<Location> many = Collections.nCopies(50_000, location);
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getDistances(many, many));
+        assertThrows(IllegalArgumentException.class, () -> deliveryGraph.getSnapshot().getDistances(many, many));
+    }
+
+    @Test
+    void searchModesMatchDijkstra() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            deliveryGraph.setMatrixThreshold(0);
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            DijkstraSearch reference = new DijkstraSearch(graph);
+
+            Random random = new Random(seed + 1);
+            for (int i = 0; i < QUERIES; i++) {
+                Location source = locations.get(random.nextInt(locations.size()));
+                Location target = locations.get(random.nextInt(locations.size()));
+                double expected = reference.run(graph.indexOf(source), graph.indexOf(target));
+                for (SearchMode mode : SearchMode.values()) {
+                    String context = "semilla " + seed + ", " + mode + ", " + source + " -> " + target;
+                    assertRoute(deliveryGraph, deliveryGraph.getRoute(source, target, mode),
+                            source, target, expected, context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void distanceMatrixMatchesDijkstra() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            deliveryGraph.setMatrixThreshold(LOCATIONS);
+            assertNotNull(deliveryGraph.getDistanceMatrix(), "la matriz debe construirse bajo el umbral");
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            DijkstraSearch reference = new DijkstraSearch(graph);
+
+            Random random = new Random(seed + 2);
+            List<Location> sources = new ArrayList<>();
+            List<Location> targets = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                sources.add(locations.get(random.nextInt(locations.size())));
+                targets.add(locations.get(random.nextInt(locations.size())));
+            }
+            double[] distances = deliveryGraph.getDistances(sources, targets);
+            for (int i = 0; i < sources.size(); i++) {
+                reference.runAll(graph.indexOf(sources.get(i)));
+                for (int j = 0; j < targets.size(); j++) {
+                    Location source = sources.get(i);
+                    Location target = targets.get(j);
+                    double expected = reference.distance(graph.indexOf(target));
+                    String context = "semilla " + seed + ", matriz, " + source + " -> " + target;
+                    assertEquals(expected, distances[i * targets.size() + j], tolerance(expected), context);
+                    assertRoute(deliveryGraph, deliveryGraph.getRoute(source, target),
+                            source, target, expected, context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void contractionHierarchiesShareThreadWorkspace() {
+        DeliveryGraph large = new DeliveryGraph();
+        List<Location> largeLocations = randomGraph(large, 3);
+        DeliveryGraph small = new DeliveryGraph();
+        Location a = new Location("A");
+        Location b = new Location("B");
+        Location c = new Location("C");
+        small.addLocation(a);
+        small.addLocation(b);
+        small.addLocation(c);
+        small.addRoute(a, b, 2);
+        small.addRoute(b, c, 3);
+        small.addRoute(a, c, 6);
+
+        CompactGraph largeGraph = large.getCompactGraph();
+        CompactGraph smallGraph = small.getCompactGraph();
+        ContractionHierarchy largeHierarchy = ContractionHierarchy.build(largeGraph);
+        ContractionHierarchy smallHierarchy = ContractionHierarchy.build(smallGraph);
+        DijkstraSearch reference = new DijkstraSearch(largeGraph);
+
+        Random random = new Random(4);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(5.0, smallHierarchy.distance(smallGraph.indexOf(a), smallGraph.indexOf(c)), 0.0);
+            Location source = largeLocations.get(random.nextInt(largeLocations.size()));
+            Location target = largeLocations.get(random.nextInt(largeLocations.size()));
+            double expected = reference.run(largeGraph.indexOf(source), largeGraph.indexOf(target));
+            assertEquals(expected, largeHierarchy.distance(largeGraph.indexOf(source), largeGraph.indexOf(target)),
+                    tolerance(expected), source + " -> " + target);
+        }
+    }
+
+    /**
+     * Comprueba que una ruta tenga la distancia esperada y recorra rutas existentes del grafo
+     * con la distancia de cada tramo.
+     */
+    private static void assertRoute(DeliveryGraph deliveryGraph, RoutePath route, Location source,
+                                    Location target, double expected, String context) {
+        if (Double.isInfinite(expected)) {
+            assertNull(route, context + ": no debería existir ruta");
+            return;
+        }
+        assertNotNull(route, context + ": falta la ruta");
+        assertEquals(expected, route.getWeight(), tolerance(expected), context);
+
+        List<Location> vertices = route.getVertices();
+        assertEquals(source, vertices.get(0), context);
+        assertEquals(target, vertices.get(vertices.size() - 1), context);
+        assertEquals(vertices.size() - 1, route.getLegCount(), context);
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double total = 0;
+        for (int leg = 0; leg < route.getLegCount(); leg++) {
+            DefaultWeightedEdge edge = graph.getEdge(vertices.get(leg), vertices.get(leg + 1));
+            assertNotNull(edge, context + ": el tramo " + leg + " no es una ruta del grafo");
+            assertEquals(graph.getEdgeWeight(edge), route.getLegDistance(leg), 0.0, context + ", tramo " + leg);
+            total += route.getLegDistance(leg);
+        }
+        assertEquals(expected, total, tolerance(expected), context + ": suma de tramos");
+    }
+
+    /**
+     * Grafo con coordenadas, para que A* tenga una cota geográfica real, y con distancias entre la
+     * distancia en línea recta y el doble de ella.
+     */
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        return RandomGraphs.buildGeographic(deliveryGraph, seed, LOCATIONS, ROUTES,
+                (graph, from, to, random) -> graph.addRoute(from, to, RandomGraphs.detour(from, to, random)));
+    }
+}
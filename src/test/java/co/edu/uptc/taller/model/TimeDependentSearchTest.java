@@ -0,0 +1,189 @@
+package co.edu.uptc.taller.model;
+
+import static co.edu.uptc.taller.model.RandomGraphs.tolerance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara la búsqueda dependiente del tiempo con una propagación de horas de llegada hasta
+ * el punto fijo, evaluando los perfiles de velocidad directamente, sobre grafos aleatorios con
+ * semilla fija.
+ */
+class TimeDependentSearchTest {
+
+    private static final long[] SEEDS = {5, 17, 23};
+    private static final int LOCATIONS = 80;
+    private static final int ROUTES = 240;
+    private static final int QUERIES = 40;
+    private static final double[] PROFILE_HOURS = {0, 6.5, 8, 11, 17, 19.5};
+
+    @Test
+    void earliestArrivalMatchesFixedPoint() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            deliveryGraph.setMatrixThreshold(0);
+
+            Random random = new Random(seed + 1);
+            for (int i = 0; i < QUERIES; i++) {
+                Location source = locations.get(random.nextInt(locations.size()));
+                Location target = locations.get(random.nextInt(locations.size()));
+                double departure = random.nextDouble() * 30;
+                double expected = earliestArrivals(deliveryGraph, locations, source, departure)[locations.indexOf(target)];
+                for (SearchMode mode : SearchMode.values()) {
+                    String context = "semilla " + seed + ", " + mode + ", " + source + " -> " + target
+                            + " a las " + departure;
+                    TimedRoute route = deliveryGraph.getTimedRoute(source, target, departure, mode);
+                    if (Double.isInfinite(expected)) {
+                        assertNull(route, context + ": no debería existir ruta");
+                        continue;
+                    }
+                    assertNotNull(route, context + ": falta la ruta");
+                    assertEquals(expected, route.getArrivalTime(), tolerance(expected), context);
+                    assertSchedule(deliveryGraph, route, source, target, departure, context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void constantProfilesMatchShortestDistance() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location a = new Location("A");
+        Location b = new Location("B");
+        Location c = new Location("C");
+        deliveryGraph.addLocation(a);
+        deliveryGraph.addLocation(b);
+        deliveryGraph.addLocation(c);
+        deliveryGraph.addRoute(a, b, 30);
+        deliveryGraph.addRoute(b, c, 30);
+        deliveryGraph.addRoute(a, c, 90);
+
+        TimedRoute route = deliveryGraph.getTimedRoute(a, c, 8, SearchMode.DIJKSTRA);
+        assertEquals(List.of(a, b, c), route.getVertices());
+        assertEquals(1.0, route.getTravelTime(), 1e-12);
+        assertEquals(9.0, route.getArrivalTime(), 1e-12);
+    }
+
+    @Test
+    void congestionChangesTheFastestRoute() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location a = new Location("A");
+        Location b = new Location("B");
+        Location c = new Location("C");
+        deliveryGraph.addLocation(a);
+        deliveryGraph.addLocation(b);
+        deliveryGraph.addLocation(c);
+        deliveryGraph.addRoute(a, c, 60);
+        deliveryGraph.addRoute(a, b, 40);
+        deliveryGraph.addRoute(b, c, 40);
+        deliveryGraph.setRouteProfile(a, c, new SpeedProfile(new double[]{0, 6, 7, 9, 10},
+                new double[]{60, 60, 15, 15, 60}));
+
+        assertEquals(List.of(a, c), deliveryGraph.getTimedRoute(a, c, 3, SearchMode.DIJKSTRA).getVertices());
+        assertEquals(List.of(a, b, c), deliveryGraph.getTimedRoute(a, c, 7.5, SearchMode.DIJKSTRA).getVertices());
+    }
+
+    @Test
+    void profilesAreFifo() {
+        Random random = new Random(9);
+        for (int i = 0; i < 20; i++) {
+            SpeedProfile profile = randomProfile(random);
+            double previous = Double.NEGATIVE_INFINITY;
+            for (double departure = 0; departure < 48; departure += 0.1) {
+                double arrival = departure + profile.getTravelTime(25, departure);
+                assertTrue(arrival >= previous - 1e-9, profile + " llega antes saliendo a las " + departure);
+                previous = arrival;
+            }
+        }
+    }
+
+    /**
+     * Calcula la hora de llegada más temprana a cada ubicación relajando todas las rutas hasta
+     * que ninguna hora mejore. Con perfiles FIFO el punto fijo es la llegada más temprana.
+     */
+    private static double[] earliestArrivals(DeliveryGraph deliveryGraph, List<Location> locations,
+                                             Location source, double departure) {
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double[] arrival = new double[locations.size()];
+        Arrays.fill(arrival, Double.POSITIVE_INFINITY);
+        arrival[locations.indexOf(source)] = departure;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (DefaultWeightedEdge edge : graph.edgeSet()) {
+                Location u = graph.getEdgeSource(edge);
+                Location v = graph.getEdgeTarget(edge);
+                SpeedProfile profile = deliveryGraph.getRouteProfile(u, v);
+                double distance = graph.getEdgeWeight(edge);
+                changed |= relax(arrival, locations.indexOf(u), locations.indexOf(v), profile, distance);
+                changed |= relax(arrival, locations.indexOf(v), locations.indexOf(u), profile, distance);
+            }
+        }
+        return arrival;
+    }
+
+    private static boolean relax(double[] arrival, int from, int to, SpeedProfile profile, double distance) {
+        if (Double.isInfinite(arrival[from])) {
+            return false;
+        }
+        double candidate = arrival[from] + profile.getTravelTime(distance, arrival[from]);
+        if (candidate < arrival[to] - tolerance(candidate)) {
+            arrival[to] = candidate;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Comprueba que la hora de llegada a cada ubicación de la ruta sea la salida anterior más
+     * el tiempo del perfil del tramo.
+     */
+    private static void assertSchedule(DeliveryGraph deliveryGraph, TimedRoute route, Location source,
+                                       Location target, double departure, String context) {
+        List<Location> vertices = route.getVertices();
+        double[] times = route.getArrivalTimes();
+        assertEquals(source, vertices.get(0), context);
+        assertEquals(target, vertices.get(vertices.size() - 1), context);
+        assertEquals(departure, times[0], 0.0, context);
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            DefaultWeightedEdge edge = graph.getEdge(vertices.get(i), vertices.get(i + 1));
+            assertNotNull(edge, context + ": el tramo " + i + " no es una ruta del grafo");
+            double expected = times[i] + deliveryGraph.getRouteProfile(vertices.get(i), vertices.get(i + 1))
+                    .getTravelTime(graph.getEdgeWeight(edge), times[i]);
+            assertEquals(expected, times[i + 1], tolerance(expected), context + ", tramo " + i);
+        }
+    }
+
+    private static SpeedProfile randomProfile(Random random) {
+        double[] speeds = new double[PROFILE_HOURS.length];
+        for (int i = 0; i < speeds.length; i++) {
+            speeds[i] = 10 + random.nextInt(90);
+        }
+        return new SpeedProfile(PROFILE_HOURS, speeds);
+    }
+
+    /**
+     * Grafo con coordenadas, distancias entre la distancia en línea recta y el doble de ella, y un
+     * perfil de velocidad aleatorio en la mitad de las rutas.
+     */
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        return RandomGraphs.buildGeographic(deliveryGraph, seed, LOCATIONS, ROUTES, (graph, from, to, random) -> {
+            graph.addRoute(from, to, RandomGraphs.detour(from, to, random));
+            if (random.nextBoolean()) {
+                graph.setRouteProfile(from, to, randomProfile(random));
+            }
+        });
+    }
+}
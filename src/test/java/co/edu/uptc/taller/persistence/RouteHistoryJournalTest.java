@@ -0,0 +1,219 @@
+package co.edu.uptc.taller.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.uptc.taller.model.Location;
+
+/**
+ * Pruebas de recuperación del diario del historial: cola incompleta, temporales sobrantes,
+ * segmentos ya compactados y migración del historial antiguo.
+ */
+class RouteHistoryJournalTest {
+
+    private static final Location TUNJA = new Location("Tunja");
+    private static final Location PAIPA = new Location("Paipa");
+
+    /**
+     * Tamaño de segmento pequeño para que unas pocas entradas produzcan varios segmentos.
+     */
+    private static final long SEGMENT_BYTES = 400;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void truncatedTailIsDiscardedOnOpen() throws IOException {
+        try (RouteHistoryJournal journal = open()) {
+            append(journal, 0, 3);
+        }
+        Files.write(directory.resolve("route_history.jsonl"), "{\"source\":\"Tun".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (RouteHistoryJournal journal = open()) {
+            assertEquals(3, journal.size());
+            append(journal, 3, 1);
+            assertEquals(List.of(0.0, 1.0, 2.0, 3.0), distances(journal));
+        }
+    }
+
+    @Test
+    void leftoverTemporaryFilesAreDeleted() throws IOException {
+        Path segmentTemp = directory.resolve("route_history.000001-000004.jsonl.tmp");
+        Path migrationTemp = directory.resolve("route_history.000000-000000.jsonl.tmp");
+        Files.write(segmentTemp, "{\"source\":\"Tunja\"}\n{\"sou".getBytes(StandardCharsets.UTF_8));
+        Files.write(migrationTemp, "[".getBytes(StandardCharsets.UTF_8));
+
+        try (RouteHistoryJournal journal = open()) {
+            assertFalse(Files.exists(segmentTemp));
+            assertFalse(Files.exists(migrationTemp));
+            assertEquals(0, journal.size());
+        }
+    }
+
+    @Test
+    void segmentsCoveredByACompactedSegmentAreDeleted() throws IOException {
+        Path backup = Files.createDirectory(directory.resolve("backup"));
+        try (RouteHistoryJournal journal = open()) {
+            append(journal, 0, 40);
+        }
+        List<Path> sealed = segmentFiles();
+        assertTrue(sealed.size() > 2, "las entradas deberían ocupar varios segmentos");
+        for (Path file : sealed) {
+            Files.copy(file, backup.resolve(file.getFileName()));
+        }
+
+        try (RouteHistoryJournal journal = open()) {
+            journal.compact();
+        }
+        // Simula una caída después de publicar el segmento compactado y antes de borrar los
+        // originales: todos vuelven a estar junto al que los cubre.
+        try (Stream<Path> files = Files.list(backup)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, directory.resolve(file.getFileName()));
+            }
+        }
+
+        try (RouteHistoryJournal journal = open()) {
+            assertEquals(40, journal.size());
+            assertEquals(expectedDistances(0, 40), distances(journal));
+        }
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void compactionKeepsPositionsOfUnreadableLines() throws IOException {
+        try (RouteHistoryJournal journal = open()) {
+            append(journal, 0, 40);
+        }
+        Path first = segmentFiles().get(0);
+        List<String> lines = Files.readAllLines(first, StandardCharsets.UTF_8);
+        lines.set(1, "{ilegible");
+        Files.write(first, lines, StandardCharsets.UTF_8);
+
+        try (RouteHistoryJournal journal = open()) {
+            long size = journal.size();
+            List<Double> page = distances(journal.read(20, 5));
+            journal.compact();
+            assertEquals(size, journal.size());
+            assertEquals(page, distances(journal.read(20, 5)));
+            List<Double> expected = expectedDistances(0, 40);
+            expected.remove(1.0);
+            assertEquals(expected, distances(journal));
+        }
+    }
+
+    @Test
+    void pagesKeepPositionsAcrossUnreadableLines() throws IOException {
+        try (RouteHistoryJournal journal = open()) {
+            append(journal, 0, 40);
+        }
+        Path first = segmentFiles().get(0);
+        List<String> lines = Files.readAllLines(first, StandardCharsets.UTF_8);
+        lines.set(1, "{ilegible");
+        Files.write(first, lines, StandardCharsets.UTF_8);
+
+        try (RouteHistoryJournal journal = open()) {
+            for (int round = 0; round < 2; round++) {
+                List<GraphPersistence.RouteHistory> page = journal.read(0, 5);
+                assertEquals(5, page.size());
+                assertNull(page.get(1), "la línea ilegible conserva su posición");
+                for (int position : new int[]{0, 2, 3, 4}) {
+                    assertEquals(position, page.get(position).distance, 0.0);
+                }
+                assertEquals(expectedDistances(5, 5), distances(journal.read(5, 5)));
+                assertEquals(List.of(39.0), distances(journal.read(39, 5)));
+                journal.compact(); // La segunda vuelta lee el marcador que deja la compactación
+            }
+        }
+    }
+
+    @Test
+    void legacyHistoryIsMigratedOnce() throws IOException {
+        List<GraphPersistence.RouteHistory> legacy = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            legacy.add(history(i));
+        }
+        Path legacyFile = directory.resolve("route_history.json");
+        mapper.writeValue(legacyFile.toFile(), legacy);
+
+        try (RouteHistoryJournal journal = open()) {
+            assertEquals(25, journal.size());
+            append(journal, 25, 2);
+            assertEquals(expectedDistances(0, 27), distances(journal));
+        }
+        Path migrated = directory.resolve("route_history.json.migrated");
+        assertFalse(Files.exists(legacyFile));
+        assertTrue(Files.exists(migrated));
+
+        // Una caída entre escribir el segmento migrado y apartar el archivo antiguo no debe
+        // duplicar las entradas.
+        Files.move(migrated, legacyFile);
+        try (RouteHistoryJournal journal = open()) {
+            assertEquals(27, journal.size());
+            assertEquals(expectedDistances(0, 27), distances(journal));
+        }
+        assertFalse(Files.exists(legacyFile));
+    }
+
+    private RouteHistoryJournal open() throws IOException {
+        return new RouteHistoryJournal(directory, mapper, RouteHistoryJournal.SyncPolicy.EVERY_ENTRY,
+                RouteHistoryJournal.DEFAULT_BATCH_SIZE, RouteHistoryJournal.DEFAULT_SYNC_INTERVAL_MILLIS,
+                SEGMENT_BYTES, Integer.MAX_VALUE);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("route_history\\.\\d+-\\d+\\.jsonl"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static GraphPersistence.RouteHistory history(int i) {
+        return new GraphPersistence.RouteHistory(TUNJA, PAIPA, List.of(TUNJA, PAIPA), i, 10 * i, i / 10.0);
+    }
+
+    private static void append(RouteHistoryJournal journal, int first, int count) throws IOException {
+        for (int i = first; i < first + count; i++) {
+            journal.append(history(i));
+        }
+    }
+
+    private static List<Double> distances(RouteHistoryJournal journal) throws IOException {
+        List<Double> distances = new ArrayList<>();
+        journal.read(history -> distances.add(history.distance));
+        return distances;
+    }
+
+    private static List<Double> distances(List<GraphPersistence.RouteHistory> histories) {
+        return histories.stream().map(history -> history.distance).collect(Collectors.toList());
+    }
+
+    private static List<Double> expectedDistances(int first, int count) {
+        List<Double> distances = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            distances.add((double) i);
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,235 @@
+package co.edu.uptc.taller.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.Location;
+
+/**
+ * Pruebas del lector de números, la separación de campos y la división en segmentos del
+ * importador de listas de aristas.
+ */
+class EdgeListImporterTest {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parseNumberMatchesParseDouble() {
+        String[] texts = {
+                "0", "-0", "+5", ".5", "5.", "007.250", "0.1", "-12.75", "1e22", "1e23", "1E-30", "2.5e+3",
+                "123456789012345", "1234567890123456", "9007199254740993", "0.30000000000000004",
+                "123456789012345678901234567890", "0.000000000000000000000123456789012345678",
+                "1.7976931348623157e308", "4.9e-324", "1e400", "1e-400", "000000000000000000001.5"
+        };
+        for (String text : texts) {
+            assertParses(text);
+        }
+
+        Random random = new Random(17);
+        for (int i = 0; i < 20_000; i++) {
+            assertParses(randomNumber(random));
+            assertParses(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+        }
+    }
+
+    @Test
+    void parseNumberRejectsMalformedText() {
+        String[] texts = {"", "-", "+", ".", "e5", "1e", "1e+", "1.2.3", "12a", "1 ", " 1", "1e5.0", "--1", "NaN",
+                "Infinity", "0x10"};
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.NaN, EdgeListImporter.parseNumber(bytes, 0, bytes.length, false), "\"" + text + "\"");
+        }
+        byte[] comma = "1,5".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Double.NaN, EdgeListImporter.parseNumber(comma, 0, comma.length, false));
+        assertEquals(1.5, EdgeListImporter.parseNumber(comma, 0, comma.length, true));
+    }
+
+    @Test
+    void splitHandlesQuotesAndSpaces() {
+        EdgeListImporter.Segment segment = new EdgeListImporter.Segment(new EdgeListImporter.Format((byte) ',', 0));
+
+        assertFields(segment, "Tunja,Paipa,41.5", "Tunja", "Paipa", "41.5");
+        assertFields(segment, "  Tunja  ,  Paipa , 41.5 ", "Tunja", "Paipa", "41.5");
+        assertFields(segment, "\"Villa de Leyva\" , \"Tunja, centro\",38.1", "Villa de Leyva", "Tunja, centro", "38.1");
+        assertFields(segment, "\"El \"\"Puente\"\"\",\"\"\"\",1", "El \"Puente\"", "\"", "1");
+        assertFields(segment, "Samacá,,2", "Samacá", "", "2");
+        assertFields(segment, "a,b,1,2,3", "a", "b", "1", "2", "3");
+
+        assertSplit(segment, "\"Tunja,Paipa,1", 0);
+        assertSplit(segment, "\"Tunja\"x,Paipa,1", 0);
+        assertSplit(segment, "a,b,1,2,3,4", 6);
+
+        EdgeListImporter.Segment tabs = new EdgeListImporter.Segment(new EdgeListImporter.Format((byte) '\t', 0));
+        assertFields(tabs, "Tunja\tVilla de Leyva\t38,1", "Tunja", "Villa de Leyva", "38,1");
+    }
+
+    @Test
+    void importDetectsBomCrlfHeaderAndDelimiter() throws IOException {
+        Path comma = write("comma.csv", true, "origen,destino,distancia\r\n"
+                + "\"Tunja\",\"Villa de Leyva\",38.1\r\n"
+                + "# comentario\r\n"
+                + "Paipa,Tunja,41.5\r\n"
+                + "\r\n"
+                + "Paipa,Duitama,no\r\n"
+                + "Duitama,Sogamoso,1.25e1");
+        EdgeListImporter.ImportResult result = new EdgeListImporter().importFile(comma);
+        assertEquals(4, result.getLines());
+        assertEquals(1, result.getSkippedLines());
+        DeliveryGraph graph = result.toDeliveryGraph();
+        assertRoute(graph, "Tunja", "Villa de Leyva", 38.1);
+        assertRoute(graph, "Paipa", "Tunja", 41.5);
+        assertRoute(graph, "Duitama", "Sogamoso", 12.5);
+
+        Path semicolon = write("semicolon.csv", false, "Tunja;Paipa;41,5\nPaipa;Duitama;13,2;1.000;0,25\n");
+        result = new EdgeListImporter().importFile(semicolon);
+        assertEquals(2, result.getLines());
+        assertEquals(0, result.getSkippedLines());
+        assertRoute(result.toDeliveryGraph(), "Tunja", "Paipa", 41.5);
+        assertRoute(result.toDeliveryGraph(), "Paipa", "Duitama", 13.2);
+    }
+
+    @Test
+    void importSkipsNonFiniteValues() throws IOException {
+        // La primera línea es válida para que no se tome como encabezado.
+        Path file = write("infinite.csv", false, "Tunja,Samacá,30.2,5000,0.5\n"
+                + "Tunja,Paipa,1e400\n"
+                + "Paipa,Duitama,13.2,1e400,0.25\n"
+                + "Duitama,Sogamoso,20,1000,1e400\n");
+        EdgeListImporter.ImportResult result = new EdgeListImporter().importFile(file);
+        assertEquals(4, result.getLines());
+        assertEquals(3, result.getSkippedLines());
+        assertRoute(result.toDeliveryGraph(), "Tunja", "Samacá", 30.2);
+    }
+
+    @Test
+    void segmentsSplitOnLineBoundaries() throws IOException {
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder("origen,destino,distancia\r\n");
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double distance = Math.round(random.nextDouble() * 100_000) / 100.0;
+            expected.add(distance);
+            String source = random.nextBoolean() ? "\"Ubicación, " + i + "\"" : "U" + i;
+            text.append(source).append(",V").append(i % 97).append(',').append(distance)
+                    .append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        Path file = write("segments.csv", true, text.toString());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            EdgeListImporter.Format format = EdgeListImporter.detectFormat(channel);
+            for (int segments = 1; segments <= 9; segments++) {
+                long[] bounds = EdgeListImporter.segmentBounds(channel, format.dataStart, channel.size(), segments);
+                assertEquals(segments + 1, bounds.length);
+                List<Double> distances = new ArrayList<>();
+                for (int s = 0; s < segments; s++) {
+                    if (s > 0 && bounds[s] < channel.size()) {
+                        assertEquals('\n', byteAt(channel, bounds[s] - 1), "límite " + s + " de " + segments);
+                    }
+                    EdgeListImporter.Segment segment = new EdgeListImporter.Segment(format);
+                    segment.parse(channel, bounds[s], bounds[s + 1], bytes -> { });
+                    assertEquals(0, segment.skipped, "segmento " + s + " de " + segments);
+                    for (int i = 0; i < segment.count; i++) {
+                        distances.add(segment.distances[i]);
+                    }
+                }
+                assertEquals(expected, distances, "con " + segments + " segmentos");
+            }
+        }
+    }
+
+    private static void assertParses(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        double expected = Double.parseDouble(text);
+        assertEquals(expected, EdgeListImporter.parseNumber(bytes, 0, bytes.length, false), text);
+        byte[] comma = text.replace('.', ',').getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected, EdgeListImporter.parseNumber(comma, 0, comma.length, true), text + " con coma");
+    }
+
+    /**
+     * Genera un número con entre 1 y 25 cifras, el punto en cualquier posición y, a veces, un
+     * exponente.
+     */
+    private static String randomNumber(Random random) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            text.append(random.nextBoolean() ? '-' : '+');
+        }
+        int digits = 1 + random.nextInt(25);
+        int point = random.nextInt(digits + 1);
+        for (int i = 0; i < digits; i++) {
+            if (i == point && i > 0) {
+                text.append('.');
+            }
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextInt(3) == 0) {
+            text.append(random.nextBoolean() ? 'e' : 'E');
+            if (random.nextBoolean()) {
+                text.append(random.nextBoolean() ? '-' : '+');
+            }
+            text.append(random.nextInt(40));
+        }
+        return text.toString();
+    }
+
+    private static void assertFields(EdgeListImporter.Segment segment, String line, String... fields) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        assertEquals(fields.length, segment.split(bytes, 0, bytes.length), line);
+        for (int i = 0; i < fields.length; i++) {
+            assertEquals(fields[i], segment.field(i), line + ", campo " + i);
+        }
+    }
+
+    private static void assertSplit(EdgeListImporter.Segment segment, String line, int fields) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        assertEquals(fields, segment.split(bytes, 0, bytes.length), line);
+    }
+
+    private static void assertRoute(DeliveryGraph deliveryGraph, String from, String to, double distance) {
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        DefaultWeightedEdge edge = graph.getEdge(new Location(from), new Location(to));
+        assertNotNull(edge, "falta la ruta " + from + " -> " + to);
+        assertEquals(distance, graph.getEdgeWeight(edge), from + " -> " + to);
+    }
+
+    private Path write(String name, boolean bom, String text) throws IOException {
+        Path file = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (bom) {
+                out.write(BOM);
+            }
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(Files.size(file) > 0);
+        return file;
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+}
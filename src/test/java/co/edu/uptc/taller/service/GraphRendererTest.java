@@ -0,0 +1,267 @@
+package co.edu.uptc.taller.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.Isochrone;
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.RouteCriterion;
+
+/**
+ * Pruebas del SVG que genera {@link GraphRenderer}: un elemento por ruta y por ubicación con
+ * identificadores estables, las clases de la ruta resaltada y del alcance, y las actualizaciones
+ * incrementales del resaltado.
+ */
+class GraphRendererTest {
+
+    private static final long[] SEEDS = {6, 29, 44};
+    private static final Pattern LINE = Pattern.compile("<line id='e(\\d+)-(\\d+)'[^>]*class='([^']*)'");
+    private static final Pattern CIRCLE = Pattern.compile("<circle id='n(\\d+)'[^>]*class='([^']*)'");
+    private static final Pattern STATE = Pattern.compile(
+            "<script>state = \\{path: \\[([^\\]]*)], labels: \\[([^\\]]*)], nodes: \\[([^\\]]*)], edges: \\[([^\\]]*)],"
+                    + " source: ('n\\d+'|null)}");
+    private static final Pattern ID = Pattern.compile("'([a-z][\\d-]+)'");
+
+    @Test
+    void svgHasOneElementPerRouteAndLocation() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed, 80, 200);
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            Random random = new Random(seed + 1);
+            List<Location> path = deliveryGraph.getShortestPath(locations.get(random.nextInt(locations.size())),
+                    locations.get(random.nextInt(locations.size())));
+            Isochrone isochrone = deliveryGraph.getIsochrone(locations.get(random.nextInt(locations.size())),
+                    RouteCriterion.DISTANCE, 25);
+            String html = new GraphRenderer(deliveryGraph).buildHtml(path, isochrone);
+            String context = "semilla " + seed;
+
+            Set<String> routes = new HashSet<>();
+            Set<String> highlighted = new HashSet<>();
+            Set<String> reachableRoutes = new HashSet<>();
+            Matcher line = LINE.matcher(html);
+            while (line.find()) {
+                String id = line.group(1) + "-" + line.group(2);
+                assertTrue(routes.add(id), context + ": ruta repetida " + id);
+                if (line.group(3).contains("highlighted")) {
+                    highlighted.add(id);
+                }
+                if (line.group(3).contains("reachable-edge")) {
+                    reachableRoutes.add(id);
+                }
+            }
+            assertEquals(expectedRoutes(graph, null), routes, context);
+            assertEquals(pathRoutes(graph, path), highlighted, context);
+            assertEquals(expectedRoutes(graph, isochrone), reachableRoutes, context);
+
+            Set<Integer> nodes = new HashSet<>();
+            Set<Integer> reachable = new HashSet<>();
+            Matcher circle = CIRCLE.matcher(html);
+            while (circle.find()) {
+                int vertex = Integer.parseInt(circle.group(1));
+                assertTrue(nodes.add(vertex), context + ": ubicación repetida " + vertex);
+                if (circle.group(2).contains("reachable")) {
+                    reachable.add(vertex);
+                }
+                assertEquals(circle.group(2).contains("reachable-source"),
+                        graph.location(vertex).equals(isochrone.getSource()), context);
+            }
+            assertEquals(graph.vertexCount(), nodes.size(), context);
+            Set<Integer> expectedReachable = new HashSet<>();
+            for (Location location : isochrone.getLocations()) {
+                expectedReachable.add(graph.indexOf(location));
+            }
+            assertEquals(expectedReachable, reachable, context);
+        }
+    }
+
+    @Test
+    void locationNamesAreEscaped() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        Location tricky = new Location("<Tunja & 'Paipa'>");
+        Location plain = new Location("Duitama");
+        deliveryGraph.addLocation(tricky);
+        deliveryGraph.addLocation(plain);
+        deliveryGraph.addRoute(tricky, plain, 41.5);
+        String html = new GraphRenderer(deliveryGraph).buildHtml(null, null);
+        assertFalse(html.contains(tricky.getName()));
+        assertTrue(html.contains("data-name='&lt;Tunja &amp; &#39;Paipa&#39;&gt;'"));
+        assertTrue(html.contains("data-distance='41.500'"));
+    }
+
+    @Test
+    void appendFixedIgnoresDefaultLocale() {
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            Random random = new Random(12);
+            for (int i = 0; i < 10_000; i++) {
+                int decimals = random.nextInt(4);
+                double scale = Math.pow(10, decimals);
+                // Lejos de la mitad de la última cifra para no depender del redondeo binario.
+                double value = (random.nextInt(2_000_000) - 1_000_000 + 0.1 + 0.3 * random.nextDouble()) / scale;
+                assertEquals(String.format(Locale.ROOT, "%." + decimals + "f", value),
+                        GraphRenderer.appendFixed(new StringBuilder(), value, decimals).toString(), "valor " + value);
+            }
+            assertEquals("0.00", GraphRenderer.appendFixed(new StringBuilder(), -0.001, 2).toString());
+            assertEquals("0.050", GraphRenderer.appendFixed(new StringBuilder(), 0.05, 3).toString());
+            assertEquals("7", GraphRenderer.appendFixed(new StringBuilder(), 6.5, 0).toString());
+            assertEquals("NaN", GraphRenderer.appendFixed(new StringBuilder(), Double.NaN, 2).toString());
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    @Test
+    void stateListsHighlightedIds() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed, 80, 200);
+            CompactGraph graph = deliveryGraph.getCompactGraph();
+            Random random = new Random(seed + 2);
+            List<Location> path = deliveryGraph.getShortestPath(locations.get(random.nextInt(locations.size())),
+                    locations.get(random.nextInt(locations.size())));
+            Isochrone isochrone = deliveryGraph.getIsochrone(locations.get(random.nextInt(locations.size())),
+                    RouteCriterion.DISTANCE, 25);
+            Matcher state = STATE.matcher(new GraphRenderer(deliveryGraph).buildHtml(path, isochrone));
+            String context = "semilla " + seed;
+            assertTrue(state.find(), context);
+
+            Set<String> pathRoutes = pathRoutes(graph, path);
+            assertEquals(prefixed('e', pathRoutes), ids(state.group(1)), context);
+            assertEquals(prefixed('l', pathRoutes), ids(state.group(2)), context);
+            int source = graph.indexOf(isochrone.getSource());
+            Set<String> nodes = new HashSet<>();
+            for (Location location : isochrone.getLocations()) {
+                if (graph.indexOf(location) != source) {
+                    nodes.add("n" + graph.indexOf(location));
+                }
+            }
+            assertEquals(nodes, ids(state.group(3)), context);
+            assertEquals(prefixed('e', expectedRoutes(graph, isochrone)), ids(state.group(4)), context);
+            assertEquals("'n" + source + "'", state.group(5), context);
+        }
+    }
+
+    @Test
+    void stateIsEmptyWithoutHighlight() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        randomGraph(deliveryGraph, SEEDS[0], 10, 15);
+        String html = new GraphRenderer(deliveryGraph).buildHtml(null, null);
+        assertTrue(html.contains("<script>state = {path: [], labels: [], nodes: [], edges: [], source: null};"));
+    }
+
+    @Test
+    void onlyTheLoadedVersionIsUpdatedInPlace() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, SEEDS[1], 40, 80);
+        GraphRenderer renderer = new GraphRenderer(deliveryGraph);
+        List<Location> path = deliveryGraph.getShortestPath(locations.get(0), locations.get(39));
+
+        GraphRenderer.Rendering full = renderer.prepare(path, null, -1);
+        assertFalse(full.isIncremental());
+        assertEquals(deliveryGraph.getVersion(), full.getVersion());
+        assertEquals(path, full.getPath());
+
+        Isochrone isochrone = deliveryGraph.getIsochrone(locations.get(5), RouteCriterion.DISTANCE, 20);
+        GraphRenderer.Rendering update = renderer.prepare(null, isochrone, full.getVersion());
+        assertTrue(update.isIncremental());
+        assertEquals(full.getVersion(), update.getVersion());
+        assertEquals(isochrone, update.getIsochrone());
+
+        deliveryGraph.updateRouteWeight(path.get(0), path.get(1), 1000);
+        GraphRenderer.Rendering changed = renderer.prepare(path, null, full.getVersion());
+        assertFalse(changed.isIncremental());
+        assertTrue(changed.getVersion() > full.getVersion());
+    }
+
+    @Test
+    void levelOfDetailIsUpdatedInPlace() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, SEEDS[2], 600, 900);
+        GraphRenderer renderer = new GraphRenderer(deliveryGraph);
+        GraphRenderer.Rendering full = renderer.prepare(null, null, -1);
+        assertFalse(full.isIncremental());
+        List<Location> path = deliveryGraph.getShortestPath(locations.get(0), locations.get(599));
+        assertTrue(renderer.prepare(path, null, full.getVersion()).isIncremental());
+    }
+
+    private static Set<String> ids(String list) {
+        Set<String> ids = new HashSet<>();
+        Matcher id = ID.matcher(list);
+        while (id.find()) {
+            assertTrue(ids.add(id.group(1)), "identificador repetido " + id.group(1));
+        }
+        return ids;
+    }
+
+    private static Set<String> prefixed(char prefix, Set<String> routes) {
+        Set<String> ids = new HashSet<>();
+        for (String route : routes) {
+            ids.add(prefix + route);
+        }
+        return ids;
+    }
+
+    /**
+     * Identificadores de todas las rutas, o solo de las que tienen ambos extremos en el alcance.
+     */
+    static Set<String> expectedRoutes(CompactGraph graph, Isochrone isochrone) {
+        Set<String> ids = new HashSet<>();
+        for (int u = 0; u < graph.vertexCount(); u++) {
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.target(arc);
+                if (isochrone == null
+                        || (isochrone.contains(graph.location(u)) && isochrone.contains(graph.location(v)))) {
+                    ids.add(Math.min(u, v) + "-" + Math.max(u, v));
+                }
+            }
+        }
+        return ids;
+    }
+
+    static Set<String> pathRoutes(CompactGraph graph, List<Location> path) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 1; i < path.size(); i++) {
+            int u = graph.indexOf(path.get(i - 1));
+            int v = graph.indexOf(path.get(i));
+            ids.add(Math.min(u, v) + "-" + Math.max(u, v));
+        }
+        return ids;
+    }
+
+    static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed, int size, int routes) {
+        Random random = new Random(seed);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Location location = new Location("L" + i);
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+        }
+        for (int i = 1; i < size; i++) {
+            deliveryGraph.addRoute(locations.get(i), locations.get(random.nextInt(i)), 1 + random.nextInt(40));
+        }
+        for (int i = size - 1; i < routes; i++) {
+            Location from = locations.get(random.nextInt(size));
+            Location to = locations.get(random.nextInt(size));
+            if (from != to && deliveryGraph.getGraph().getEdge(from, to) == null) {
+                deliveryGraph.addRoute(from, to, 1 + random.nextInt(40));
+            }
+        }
+        return locations;
+    }
+}
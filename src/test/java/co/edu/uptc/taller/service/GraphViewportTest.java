@@ -0,0 +1,192 @@
+package co.edu.uptc.taller.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import co.edu.uptc.taller.model.CompactGraph;
+import co.edu.uptc.taller.model.Location;
+
+/**
+ * Compara las ubicaciones y rutas que dibuja {@link GraphViewport} con las que caen en la región
+ * pedida, calculadas recorriendo todo el grafo, y comprueba el agrupamiento y las etiquetas.
+ */
+class GraphViewportTest {
+
+    private static final long[] SEEDS = {2, 17, 40};
+    private static final int SIDE = 40;
+    private static final double SPACING = 10;
+    private static final Pattern LINE = Pattern.compile("<line id='e(\\d+)-(\\d+)'[^>]*class='([^']*)'");
+    private static final Pattern CIRCLE = Pattern.compile("<circle id='n(\\d+)'[^>]*class='([^']*)'");
+    private static final Pattern CLUSTER = Pattern.compile("class='node cluster[^']*' data-name='(\\d+) ubicaciones'");
+
+    @Test
+    void visibleRegionMatchesFullScan() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Grid grid = new Grid(random);
+            GraphViewport viewport = new GraphViewport(grid.graph, grid.xs, grid.ys, grid.highlight);
+            for (int i = 0; i < 30; i++) {
+                double width = 20 + random.nextDouble() * 200;
+                double height = 20 + random.nextDouble() * 200;
+                double x = -50 + random.nextDouble() * SIDE * SPACING;
+                double y = -50 + random.nextDouble() * SIDE * SPACING;
+                double zoom = 0.5 + random.nextDouble() * 4;
+                String context = "semilla " + seed + ", región " + x + ", " + y + ", " + width + "x" + height;
+                String svg = viewport.render(x, y, width, height, zoom);
+
+                double margin = 6 / zoom;
+                boolean[] visible = new boolean[grid.xs.length];
+                Set<Integer> expectedNodes = new HashSet<>();
+                for (int v = 0; v < visible.length; v++) {
+                    visible[v] = grid.xs[v] >= x - margin && grid.xs[v] <= x + width + margin
+                            && grid.ys[v] >= y - margin && grid.ys[v] <= y + height + margin;
+                    if (visible[v]) {
+                        expectedNodes.add(v);
+                    }
+                }
+                Set<String> expectedRoutes = new HashSet<>();
+                for (int u = 0; u < visible.length; u++) {
+                    for (int arc = grid.graph.firstArc(u); arc < grid.graph.endArc(u); arc++) {
+                        int v = grid.graph.target(arc);
+                        if ((visible[u] || visible[v]) && !grid.path.contains(id(u, v))) {
+                            expectedRoutes.add(id(u, v));
+                        }
+                    }
+                }
+
+                Set<String> routes = new HashSet<>();
+                Set<String> highlighted = new HashSet<>();
+                Matcher line = LINE.matcher(svg);
+                while (line.find()) {
+                    String id = id(Integer.parseInt(line.group(1)), Integer.parseInt(line.group(2)));
+                    assertTrue((line.group(3).contains("highlighted") ? highlighted : routes).add(id),
+                            context + ": ruta repetida " + id);
+                }
+                assertEquals(expectedRoutes, routes, context);
+                assertEquals(grid.path, highlighted, context + ": la ruta resaltada se dibuja siempre completa");
+
+                Set<Integer> nodes = new HashSet<>();
+                Matcher circle = CIRCLE.matcher(svg);
+                while (circle.find()) {
+                    int vertex = Integer.parseInt(circle.group(1));
+                    assertTrue(nodes.add(vertex), context);
+                    assertEquals(grid.reachable[vertex], circle.group(2).contains("reachable"), context);
+                }
+                assertEquals(expectedNodes, nodes, context);
+                assertEquals(nodes.size() <= 300 && !nodes.isEmpty(), svg.contains("class='label'"), context);
+                assertEquals(zoom >= 2 && !routes.isEmpty() && routes.size() <= 500,
+                        svg.contains("class='distance-label'"), context);
+            }
+        }
+    }
+
+    @Test
+    void repeatedRendersAreIdentical() {
+        Grid grid = new Grid(new Random(SEEDS[0]));
+        GraphViewport viewport = new GraphViewport(grid.graph, grid.xs, grid.ys, grid.highlight);
+        String first = viewport.render(50, 50, 120, 90, 1.5);
+        viewport.render(200, 200, 60, 60, 3);
+        assertEquals(first, viewport.render(50, 50, 120, 90, 1.5));
+    }
+
+    @Test
+    void crowdedRegionIsClustered() {
+        Grid grid = new Grid(new Random(SEEDS[1]));
+        GraphViewport viewport = new GraphViewport(grid.graph, grid.xs, grid.ys, grid.highlight);
+        double extent = SIDE * SPACING + 20;
+        String svg = viewport.render(-10, -10, extent, extent, 1);
+
+        assertFalse(svg.contains("<circle id='n"));
+        int members = 0;
+        int clusters = 0;
+        Matcher cluster = CLUSTER.matcher(svg);
+        while (cluster.find()) {
+            members += Integer.parseInt(cluster.group(1));
+            clusters++;
+        }
+        assertEquals(SIDE * SIDE, members);
+        assertTrue(clusters <= Math.pow(Math.ceil(extent / 24), 2), "un grupo por celda de 24 px");
+        assertTrue(clusters < SIDE * SIDE / 4, "los grupos reducen el número de elementos");
+
+        Set<String> highlighted = new HashSet<>();
+        Matcher line = LINE.matcher(svg);
+        while (line.find()) {
+            assertTrue(line.group(3).contains("highlighted"));
+            highlighted.add(id(Integer.parseInt(line.group(1)), Integer.parseInt(line.group(2))));
+        }
+        assertEquals(grid.path, highlighted);
+    }
+
+    @Test
+    void emptyRegionsDrawNothing() {
+        Grid grid = new Grid(new Random(SEEDS[2]));
+        GraphViewport viewport = new GraphViewport(grid.graph, grid.xs, grid.ys, grid.highlight);
+        assertEquals("", viewport.render(0, 0, 0, 100, 1));
+        assertEquals("", viewport.render(0, 0, 100, 100, 0));
+        assertEquals("", viewport.render(0, 0, Double.NaN, 100, 1));
+    }
+
+    private static String id(int u, int v) {
+        return Math.min(u, v) + "-" + Math.max(u, v);
+    }
+
+    /**
+     * Cuadrícula de {@value #SIDE} x {@value #SIDE} ubicaciones con posiciones ligeramente
+     * desplazadas, una ruta resaltada a lo largo de la primera fila y un alcance en una esquina.
+     */
+    private static final class Grid {
+        private final CompactGraph graph;
+        private final double[] xs = new double[SIDE * SIDE];
+        private final double[] ys = new double[SIDE * SIDE];
+        private final boolean[] reachable = new boolean[SIDE * SIDE];
+        private final Set<String> path = new HashSet<>();
+        private final GraphViewport.Highlight highlight;
+
+        Grid(Random random) {
+            int n = SIDE * SIDE;
+            Location[] locations = new Location[n];
+            int[] sources = new int[2 * n];
+            int[] targets = new int[2 * n];
+            double[] distances = new double[2 * n];
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                locations[v] = new Location("L" + v);
+                xs[v] = (v % SIDE) * SPACING + random.nextDouble() * 4 - 2;
+                ys[v] = (v / SIDE) * SPACING + random.nextDouble() * 4 - 2;
+                reachable[v] = v % SIDE < 5 && v / SIDE < 5;
+                if (v % SIDE + 1 < SIDE) {
+                    sources[count] = v;
+                    targets[count] = v + 1;
+                    distances[count++] = 1 + random.nextInt(20);
+                }
+                if (v + SIDE < n) {
+                    sources[count] = v;
+                    targets[count] = v + SIDE;
+                    distances[count++] = 1 + random.nextInt(20);
+                }
+            }
+            graph = CompactGraph.fromEdges(locations, count, sources, targets, distances, null, null);
+            long[] keys = new long[SIDE - 1];
+            int[] pathLocations = new int[SIDE];
+            for (int v = 0; v < SIDE; v++) {
+                pathLocations[v] = v;
+                if (v > 0) {
+                    keys[v - 1] = GraphRenderer.edgeKey(v - 1, v);
+                    path.add(id(v - 1, v));
+                }
+            }
+            Arrays.sort(keys);
+            highlight = new GraphViewport.Highlight(keys, pathLocations, reachable, 0);
+        }
+    }
+}
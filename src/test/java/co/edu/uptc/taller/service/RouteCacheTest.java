@@ -0,0 +1,107 @@
+package co.edu.uptc.taller.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.model.SearchMode;
+import co.edu.uptc.taller.service.RouteService.RouteResult;
+
+/**
+ * Pruebas de la validez, el tiempo de vida y el desalojo de {@link RouteCache}.
+ */
+class RouteCacheTest {
+
+    private static final Location TUNJA = new Location("Tunja");
+    private static final Location PAIPA = new Location("Paipa");
+    private static final Location DUITAMA = new Location("Duitama");
+
+    @Test
+    void entriesExpireWhenVersionChanges() {
+        RouteCache cache = new RouteCache(8);
+        RouteResult result = result(41.5);
+        cache.put(TUNJA, PAIPA, SearchMode.DIJKSTRA, 3, result);
+
+        assertSame(result, cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 3));
+        assertNull(cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 4));
+        assertNull(cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 3), "la entrada desfasada se descarta");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void entriesExpireAfterTimeToLive() throws InterruptedException {
+        RouteCache cache = new RouteCache(8, 20);
+        RouteResult result = result(41.5);
+        cache.put(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1, result);
+        assertSame(result, cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1));
+
+        Thread.sleep(40);
+        assertNull(cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1));
+    }
+
+    @Test
+    void entriesAreKeyedBySearchModeAndDirection() {
+        RouteCache cache = new RouteCache(8);
+        RouteResult dijkstra = result(41.5);
+        RouteResult hierarchy = result(41.5);
+        cache.put(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1, dijkstra);
+        cache.put(TUNJA, PAIPA, SearchMode.CONTRACTION_HIERARCHY, 1, hierarchy);
+
+        assertSame(dijkstra, cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1));
+        assertSame(hierarchy, cache.get(TUNJA, PAIPA, SearchMode.CONTRACTION_HIERARCHY, 1));
+        assertNull(cache.get(TUNJA, PAIPA, SearchMode.A_STAR, 1));
+        assertNull(cache.get(PAIPA, TUNJA, SearchMode.DIJKSTRA, 1));
+    }
+
+    @Test
+    void smallCacheHoldsItsFullCapacity() {
+        RouteCache cache = new RouteCache(8);
+        SearchMode[] modes = SearchMode.values();
+        Location[] locations = {TUNJA, PAIPA, DUITAMA};
+        int stored = 0;
+        for (int i = 0; i < locations.length && stored < 8; i++) {
+            for (int j = 0; j < locations.length && stored < 8; j++) {
+                for (int m = 0; m < modes.length && stored < 8; m++) {
+                    if (i != j) {
+                        cache.put(locations[i], locations[j], modes[m], 1, result(stored++));
+                    }
+                }
+            }
+        }
+        assertEquals(8, stored);
+        assertEquals(8, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        RouteCache cache = new RouteCache(1);
+        RouteResult first = result(41.5);
+        RouteResult second = result(13.2);
+        cache.put(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1, first);
+        cache.put(PAIPA, DUITAMA, SearchMode.DIJKSTRA, 1, second);
+
+        assertNull(cache.get(TUNJA, PAIPA, SearchMode.DIJKSTRA, 1));
+        assertSame(second, cache.get(PAIPA, DUITAMA, SearchMode.DIJKSTRA, 1));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void constructorRejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache(8, -1));
+    }
+
+    private static RouteResult result(double distance) {
+        return new RouteResult(List.of(TUNJA, PAIPA), distance, distance * 1000, distance / 60);
+    }
+}
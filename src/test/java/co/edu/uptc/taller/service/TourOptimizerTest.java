@@ -0,0 +1,265 @@
+package co.edu.uptc.taller.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+import co.edu.uptc.taller.model.DeliveryGraph;
+import co.edu.uptc.taller.model.Location;
+import co.edu.uptc.taller.service.TourOptimizer.TourResult;
+
+/**
+ * Compara el optimizador de recorridos con una búsqueda exhaustiva sobre pocas paradas.
+ */
+class TourOptimizerTest {
+
+    private static final long[] SEEDS = {1, 7, 42, 99};
+    private static final int LOCATIONS = 30;
+    private static final long TIME_BUDGET_MS = 200;
+
+    @Test
+    void tourMatchesBruteForce() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            TourOptimizer optimizer = new TourOptimizer(deliveryGraph);
+            Random random = new Random(seed + 1);
+            for (int stopCount = 1; stopCount <= 8; stopCount++) {
+                List<Location> points = sample(locations, stopCount + 1, random);
+                Location depot = points.get(0);
+                List<Location> stops = points.subList(1, points.size());
+                double[] distances = deliveryGraph.getDistances(points, points);
+                String context = "semilla " + seed + ", " + stopCount + " paradas";
+
+                TourResult result = optimizer.optimize(depot, stops, TIME_BUDGET_MS);
+                assertTour(deliveryGraph, depot, stops, result, context);
+                double expected = bruteForceTour(distances, points.size());
+                assertEquals(expected, result.getDistance(), 1e-9 * Math.max(1, expected), context);
+            }
+        }
+    }
+
+    @Test
+    void tripsRespectCapacityAndCoverEveryStop() {
+        for (long seed : SEEDS) {
+            DeliveryGraph deliveryGraph = new DeliveryGraph();
+            List<Location> locations = randomGraph(deliveryGraph, seed);
+            TourOptimizer optimizer = new TourOptimizer(deliveryGraph);
+            Random random = new Random(seed + 2);
+            List<Location> points = sample(locations, 8, random);
+            Location depot = points.get(0);
+            List<Location> stops = points.subList(1, points.size());
+            double[] demands = new double[stops.size()];
+            for (int i = 0; i < demands.length; i++) {
+                demands[i] = 1 + random.nextInt(4);
+            }
+            double capacity = 6;
+            String context = "semilla " + seed;
+
+            List<TourResult> trips = optimizer.optimize(depot, stops, demands, capacity, TIME_BUDGET_MS);
+            Set<Location> visited = new HashSet<>();
+            double total = 0;
+            for (TourResult trip : trips) {
+                List<Location> tripStops = trip.getStops().subList(1, trip.getStops().size() - 1);
+                assertTour(deliveryGraph, depot, tripStops, trip, context);
+                double load = 0;
+                for (Location stop : tripStops) {
+                    assertTrue(visited.add(stop), context + ": " + stop + " se visita dos veces");
+                    load += demands[stops.indexOf(stop)];
+                }
+                assertTrue(load <= capacity, context + ": carga " + load + " supera la capacidad");
+                total += trip.getDistance();
+            }
+            assertEquals(new HashSet<>(stops), visited, context);
+
+            double optimum = bruteForceTrips(deliveryGraph.getDistances(points, points), points.size(), demands,
+                    capacity);
+            assertTrue(total >= optimum - 1e-9 * Math.max(1, optimum), context + ": más corto que el óptimo");
+        }
+    }
+
+    @Test
+    void singleTripWhenDemandFitsInOneVehicle() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, 5);
+        List<Location> points = sample(locations, 7, new Random(6));
+        double[] demands = new double[points.size() - 1];
+        Arrays.fill(demands, 1);
+
+        List<TourResult> trips = new TourOptimizer(deliveryGraph)
+                .optimize(points.get(0), points.subList(1, points.size()), demands, demands.length, TIME_BUDGET_MS);
+        assertEquals(1, trips.size());
+        double expected = bruteForceTour(deliveryGraph.getDistances(points, points), points.size());
+        assertEquals(expected, trips.get(0).getDistance(), 1e-9 * Math.max(1, expected));
+    }
+
+    @Test
+    void invalidCapacityAndDemandsAreRejected() {
+        DeliveryGraph deliveryGraph = new DeliveryGraph();
+        List<Location> locations = randomGraph(deliveryGraph, 3);
+        TourOptimizer optimizer = new TourOptimizer(deliveryGraph);
+        Location depot = locations.get(0);
+        List<Location> stops = locations.subList(1, 3);
+
+        for (double capacity : new double[]{Double.NaN, Double.POSITIVE_INFINITY, 0, -1}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> optimizer.optimize(depot, stops, new double[]{1, 1}, capacity, TIME_BUDGET_MS),
+                    "capacidad " + capacity);
+        }
+        for (double demand : new double[]{Double.NaN, Double.POSITIVE_INFINITY, -1, 11}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> optimizer.optimize(depot, stops, new double[]{1, demand}, 10, TIME_BUDGET_MS),
+                    "demanda " + demand);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> optimizer.optimize(depot, stops, new double[]{1}, 10, TIME_BUDGET_MS));
+    }
+
+    /**
+     * Comprueba que un recorrido salga y vuelva al depósito, visite cada parada una vez y que su
+     * ruta completa recorra rutas existentes del grafo.
+     */
+    private static void assertTour(DeliveryGraph deliveryGraph, Location depot, List<Location> stops,
+                                   TourResult result, String context) {
+        List<Location> order = result.getStops();
+        assertEquals(depot, order.get(0), context);
+        assertEquals(depot, order.get(order.size() - 1), context);
+        assertEquals(stops.size() + 2, order.size(), context);
+        assertEquals(new HashSet<>(stops), new HashSet<>(order.subList(1, order.size() - 1)), context);
+
+        List<Location> path = result.getPath();
+        assertEquals(depot, path.get(0), context);
+        assertEquals(depot, path.get(path.size() - 1), context);
+        Graph<Location, DefaultWeightedEdge> graph = deliveryGraph.getGraph();
+        double length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            DefaultWeightedEdge edge = graph.getEdge(path.get(i), path.get(i + 1));
+            assertNotNull(edge, context + ": el tramo " + i + " no es una ruta del grafo");
+            length += graph.getEdgeWeight(edge);
+        }
+        assertEquals(result.getDistance(), length, 1e-9 * Math.max(1, length), context + ": longitud de la ruta");
+    }
+
+    /**
+     * Longitud del recorrido más corto que sale del punto {@code 0}, visita todos los demás y
+     * vuelve, probando todas las permutaciones.
+     */
+    private static double bruteForceTour(double[] distances, int size) {
+        int[] order = new int[size - 1];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i + 1;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        do {
+            double length = 0;
+            int previous = 0;
+            for (int stop : order) {
+                length += distances[previous * size + stop];
+                previous = stop;
+            }
+            best = Math.min(best, length + distances[previous * size]);
+        } while (nextPermutation(order));
+        return best;
+    }
+
+    /**
+     * Distancia total mínima de una flota con capacidad: toda solución es un orden de las
+     * paradas cortado en viajes consecutivos, así que basta con probar cada permutación con sus
+     * mejores cortes.
+     */
+    private static double bruteForceTrips(double[] distances, int size, double[] demands, double capacity) {
+        int[] order = new int[size - 1];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i + 1;
+        }
+        int count = order.length;
+        double best = Double.POSITIVE_INFINITY;
+        do {
+            double[] cost = new double[count + 1];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            cost[0] = 0;
+            for (int i = 0; i < count; i++) {
+                double load = 0;
+                double length = 0;
+                for (int j = i; j < count; j++) {
+                    load += demands[order[j] - 1];
+                    if (load > capacity) {
+                        break;
+                    }
+                    length += j == i ? distances[order[j]] : distances[order[j - 1] * size + order[j]];
+                    cost[j + 1] = Math.min(cost[j + 1], cost[i] + length + distances[order[j] * size]);
+                }
+            }
+            best = Math.min(best, cost[count]);
+        } while (nextPermutation(order));
+        return best;
+    }
+
+    private static boolean nextPermutation(int[] values) {
+        int i = values.length - 2;
+        while (i >= 0 && values[i] >= values[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = values.length - 1;
+        while (values[j] <= values[i]) {
+            j--;
+        }
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+        for (int a = i + 1, b = values.length - 1; a < b; a++, b--) {
+            tmp = values[a];
+            values[a] = values[b];
+            values[b] = tmp;
+        }
+        return true;
+    }
+
+    private static List<Location> sample(List<Location> locations, int count, Random random) {
+        List<Location> shuffled = new ArrayList<>(locations);
+        Collections.shuffle(shuffled, random);
+        return new ArrayList<>(shuffled.subList(0, count));
+    }
+
+    /**
+     * Construye un grafo conexo de puntos en el plano: una cadena que los une a todos y rutas
+     * adicionales al azar, con distancias entre la distancia en línea recta y un 30 % más.
+     */
+    private static List<Location> randomGraph(DeliveryGraph deliveryGraph, long seed) {
+        Random random = new Random(seed);
+        List<Location> locations = new ArrayList<>();
+        double[][] points = new double[LOCATIONS][2];
+        for (int i = 0; i < LOCATIONS; i++) {
+            Location location = new Location("P" + i);
+            locations.add(location);
+            deliveryGraph.addLocation(location);
+            points[i][0] = random.nextDouble() * 100;
+            points[i][1] = random.nextDouble() * 100;
+        }
+        for (int i = 0; i < LOCATIONS; i++) {
+            for (int j = i + 1; j < LOCATIONS; j++) {
+                if (j == i + 1 || random.nextInt(4) == 0) {
+                    double straight = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+                    deliveryGraph.addRoute(locations.get(i), locations.get(j), straight * (1 + 0.3 * random.nextDouble()));
+                }
+            }
+        }
+        return locations;
+    }
+}